@@ -0,0 +1,93 @@
+package org.beardedgeeks.spring.validation.annotations.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.beardedgeeks.spring.validation.annotations.BatchResult;
+import org.beardedgeeks.spring.validation.annotations.BatchValidator;
+import org.beardedgeeks.spring.validation.annotations.ValidationErrors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+/**
+ * Compares validating a batch of {@link CustomerRecord}s one at a time on a
+ * single thread with the {@link BatchValidator}. Every tenth record of the
+ * batch is invalid.
+ * 
+ * @author hleinone
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BatchValidatorBenchmark {
+	@Param( { "REFLECTIVE", "GENERATED" })
+	public Engine engine;
+
+	@Param( { "100000" })
+	public int size;
+
+	@Param( { "true", "false" })
+	public boolean ordered;
+
+	private List<CustomerRecord> records;
+
+	private Validator validator;
+
+	private ExecutorService executor;
+
+	private BatchValidator batchValidator;
+
+	@Setup
+	public void setUp() {
+		records = new ArrayList<CustomerRecord>(size);
+		for (int i = 0; i < size; i++)
+			records.add(i % 10 == 0 ? CustomerRecord.invalid()
+					: CustomerRecord.valid());
+		validator = engine.create(CustomerRecord.class);
+		executor = Executors.newFixedThreadPool(Runtime.getRuntime()
+				.availableProcessors());
+		batchValidator = new BatchValidator(validator);
+		batchValidator.setExecutor(executor);
+		batchValidator.setMaxErrors(Integer.MAX_VALUE);
+		batchValidator.setOrdered(ordered);
+	}
+
+	@TearDown
+	public void tearDown() {
+		executor.shutdown();
+	}
+
+	@Benchmark
+	public int sequential() {
+		int errorCount = 0;
+		for (final CustomerRecord record : records) {
+			final Errors errors = new ValidationErrors(record, "customerRecord");
+			validator.validate(record, errors);
+			errorCount += errors.getErrorCount();
+		}
+		return errorCount;
+	}
+
+	@Benchmark
+	public BatchResult batch() {
+		return batchValidator.validateAll(records);
+	}
+}
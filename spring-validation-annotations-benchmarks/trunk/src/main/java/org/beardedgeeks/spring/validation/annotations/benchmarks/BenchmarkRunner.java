@@ -0,0 +1,37 @@
+package org.beardedgeeks.spring.validation.annotations.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, reporting the
+ * allocation rate and the bytes allocated per operation next to the time.
+ * The standard JMH command line options are accepted, e.g.
+ * <code>-p engine=REFLECTIVE ValidationEngineBenchmark</code> or
+ * <code>-t 8</code> for more threads. Build with <code>mvn package</code> and
+ * run with:
+ * 
+ * <pre>
+ * java -cp target/benchmarks.jar org.beardedgeeks.spring.validation.annotations.benchmarks.BenchmarkRunner
+ * </pre>
+ * 
+ * Running <code>java -jar target/benchmarks.jar</code> runs the benchmarks
+ * without the profiler.
+ * 
+ * @author hleinone
+ */
+public final class BenchmarkRunner {
+	private BenchmarkRunner() {
+	}
+
+	public static void main(final String[] args) throws RunnerException,
+			CommandLineOptionException {
+		final CommandLineOptions commandLine = new CommandLineOptions(args);
+		new Runner(new OptionsBuilder().parent(commandLine).addProfiler(
+				GCProfiler.class).build()).run();
+	}
+}
@@ -0,0 +1,80 @@
+package org.beardedgeeks.spring.validation.annotations.benchmarks;
+
+import org.beardedgeeks.spring.validation.annotations.Validatable;
+import org.beardedgeeks.spring.validation.annotations.matches.MatchesPattern;
+
+/**
+ * A bean constrained mostly by regular expressions, some of them with
+ * alternation and nested quantifiers.
+ * 
+ * @author hleinone
+ */
+@Validatable
+public class ContactDetails {
+	@MatchesPattern("[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}")
+	String email;
+
+	@MatchesPattern("(https?|ftp)://([a-z0-9-]+\\.)+[a-z]{2,}(:[0-9]{1,5})?(/[^\\s]*)?")
+	String url;
+
+	@MatchesPattern("\\+?[0-9]{1,3}([ -]?[0-9]{2,4}){2,4}")
+	String phone;
+
+	@MatchesPattern("[0-9]{5}(-[0-9]{4})?")
+	String postalCode;
+
+	@MatchesPattern("[A-Z]{2}[0-9]{2}( ?[A-Z0-9]{4}){2,7}( ?[A-Z0-9]{1,3})?")
+	String iban;
+
+	@MatchesPattern("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}")
+	String uuid;
+
+	@MatchesPattern("((25[0-5]|2[0-4][0-9]|1?[0-9]?[0-9])\\.){3}(25[0-5]|2[0-4][0-9]|1?[0-9]?[0-9])")
+	String ipAddress;
+
+	@MatchesPattern("[0-9]{4}-(0[1-9]|1[0-2])-(0[1-9]|[12][0-9]|3[01])")
+	String date;
+
+	@MatchesPattern("([01][0-9]|2[0-3]):[0-5][0-9](:[0-5][0-9])?")
+	String time;
+
+	@MatchesPattern("#?([0-9a-fA-F]{3}){1,2}")
+	String color;
+
+	/**
+	 * @return Contact details passing all the constraints.
+	 */
+	public static ContactDetails valid() {
+		final ContactDetails details = new ContactDetails();
+		details.email = "hannu.leinonen@beardedgeeks.org";
+		details.url = "http://code.google.com/p/beardedgeeks/issues/list";
+		details.phone = "+358 40 123 4567";
+		details.postalCode = "00100";
+		details.iban = "FI21 1234 5600 0007 85";
+		details.uuid = "123e4567-e89b-12d3-a456-426614174000";
+		details.ipAddress = "192.168.100.254";
+		details.date = "2009-12-31";
+		details.time = "23:59:59";
+		details.color = "#1e90ff";
+		return details;
+	}
+
+	/**
+	 * @return Contact details failing every constraint, most of them only
+	 *         at the end of the value.
+	 */
+	public static ContactDetails invalid() {
+		final ContactDetails details = new ContactDetails();
+		details.email = "hannu.leinonen@beardedgeeks";
+		details.url = "http://code.google.com/p/beardedgeeks/issues list ";
+		details.phone = "+358 40 123 4567 ext";
+		details.postalCode = "00100-12";
+		details.iban = "FI21 1234 5600 0007 85!";
+		details.uuid = "123e4567-e89b-12d3-a456-42661417400g";
+		details.ipAddress = "192.168.100.256";
+		details.date = "2009-12-32";
+		details.time = "24:00";
+		details.color = "#1e90fg";
+		return details;
+	}
+}
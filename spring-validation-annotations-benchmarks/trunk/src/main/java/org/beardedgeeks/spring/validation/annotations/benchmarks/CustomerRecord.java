@@ -0,0 +1,301 @@
+package org.beardedgeeks.spring.validation.annotations.benchmarks;
+
+import java.math.BigDecimal;
+
+import org.beardedgeeks.spring.validation.annotations.Validatable;
+import org.beardedgeeks.spring.validation.annotations.empty.Required;
+import org.beardedgeeks.spring.validation.annotations.length.MaxLength;
+import org.beardedgeeks.spring.validation.annotations.matches.MatchesPattern;
+import org.beardedgeeks.spring.validation.annotations.value.MaxValue;
+import org.beardedgeeks.spring.validation.annotations.value.MinValue;
+
+/**
+ * A flat record of 50 fields, as read from a customer import file.
+ * 
+ * @author hleinone
+ */
+@Validatable
+public class CustomerRecord {
+	@Required
+	@MaxLength(100)
+	String customerNumber;
+
+	@Required
+	@MaxLength(100)
+	String firstName;
+
+	@Required
+	@MaxLength(100)
+	String lastName;
+
+	@Required
+	@MaxLength(100)
+	String companyName;
+
+	@Required
+	@MaxLength(100)
+	String department;
+
+	@Required
+	@MaxLength(100)
+	String jobTitle;
+
+	@Required
+	@MaxLength(100)
+	String street;
+
+	@Required
+	@MaxLength(100)
+	String streetNumber;
+
+	@Required
+	@MaxLength(100)
+	String city;
+
+	@Required
+	@MaxLength(100)
+	String region;
+
+	@Required
+	@MaxLength(100)
+	String country;
+
+	@Required
+	@MaxLength(100)
+	String language;
+
+	@Required
+	@MaxLength(100)
+	String currency;
+
+	@Required
+	@MaxLength(100)
+	String salesChannel;
+
+	@Required
+	@MaxLength(100)
+	String referrer;
+
+	@MatchesPattern("[^@\\s]+@[^@\\s]+\\.[a-z]{2,}")
+	String email;
+
+	@MatchesPattern("\\+?[0-9 ()-]{6,20}")
+	String phone;
+
+	@MatchesPattern("\\+?[0-9 ()-]{6,20}")
+	String mobile;
+
+	@MatchesPattern("\\+?[0-9 ()-]{6,20}")
+	String fax;
+
+	@MatchesPattern("[0-9]{5}")
+	String postalCode;
+
+	@MatchesPattern("https?://[a-z0-9.-]+(/\\S*)?")
+	String website;
+
+	@MatchesPattern("[A-Z]{2}[0-9A-Z]{8,12}")
+	String vatNumber;
+
+	@MatchesPattern("[A-Z]{2}[0-9]{2}[A-Z0-9]{11,30}")
+	String iban;
+
+	@MatchesPattern("[A-Z]{6}[A-Z0-9]{2}([A-Z0-9]{3})?")
+	String bic;
+
+	@MatchesPattern("[0-9]{4}-[0-9]{2}-[0-9]{2}")
+	String birthDate;
+
+	@MinValue("18")
+	@MaxValue("120")
+	int age;
+
+	@MinValue("1")
+	@MaxValue("1000000")
+	int employees;
+
+	@MinValue("0")
+	@MaxValue("1000000")
+	int loyaltyPoints;
+
+	@MinValue("0")
+	@MaxValue("100000")
+	int visits;
+
+	@MinValue("0")
+	@MaxValue("1000")
+	int openTickets;
+
+	@MinValue("0")
+	@MaxValue("100000")
+	int closedTickets;
+
+	@MinValue("0")
+	@MaxValue("10000")
+	int ordersLastYear;
+
+	@MinValue("0")
+	@MaxValue("10000")
+	int returnsLastYear;
+
+	@MinValue("0")
+	@MaxValue("120")
+	int paymentTermDays;
+
+	@MinValue("1")
+	@MaxValue("5")
+	int rating;
+
+	@MinValue("1")
+	@MaxValue("9999999999")
+	long accountId;
+
+	@MinValue("0")
+	@MaxValue("9999999999")
+	long parentAccountId;
+
+	@MinValue("0")
+	@MaxValue("4102444800000")
+	long createdAt;
+
+	@MinValue("0")
+	@MaxValue("4102444800000")
+	long updatedAt;
+
+	@MinValue("0")
+	@MaxValue("4102444800000")
+	long lastLoginAt;
+
+	@MinValue("0")
+	@MaxValue("1000000")
+	BigDecimal creditLimit;
+
+	@MinValue("-1000000")
+	@MaxValue("1000000")
+	BigDecimal balance;
+
+	@MinValue("0")
+	@MaxValue("0.5")
+	BigDecimal discountRate;
+
+	@MinValue("0")
+	@MaxValue("0.3")
+	BigDecimal taxRate;
+
+	@MinValue("0")
+	@MaxValue("100000")
+	BigDecimal averageOrderValue;
+
+	@MaxLength(1000)
+	String notes;
+
+	@MaxLength(200)
+	String tags;
+
+	@MaxLength(50)
+	String source;
+
+	@MaxLength(50)
+	String campaign;
+
+	@MaxLength(36)
+	String externalId;
+
+	/**
+	 * @return A record passing all the constraints.
+	 */
+	public static CustomerRecord valid() {
+		final CustomerRecord record = new CustomerRecord();
+		record.customerNumber = "CustomerNumber";
+		record.firstName = "FirstName";
+		record.lastName = "LastName";
+		record.companyName = "CompanyName";
+		record.department = "Department";
+		record.jobTitle = "JobTitle";
+		record.street = "Street";
+		record.streetNumber = "StreetNumber";
+		record.city = "City";
+		record.region = "Region";
+		record.country = "Country";
+		record.language = "Language";
+		record.currency = "Currency";
+		record.salesChannel = "SalesChannel";
+		record.referrer = "Referrer";
+		record.email = "jane.doe@example.com";
+		record.phone = "+358 9 123 4567";
+		record.mobile = "+358 40 123 4567";
+		record.fax = "+358 9 123 4568";
+		record.postalCode = "00100";
+		record.website = "http://example.com/";
+		record.vatNumber = "FI12345678";
+		record.iban = "FI2112345600000785";
+		record.bic = "NDEAFIHH";
+		record.birthDate = "1970-01-01";
+		record.age = 42;
+		record.employees = 250;
+		record.loyaltyPoints = 1200;
+		record.visits = 37;
+		record.openTickets = 2;
+		record.closedTickets = 58;
+		record.ordersLastYear = 12;
+		record.returnsLastYear = 1;
+		record.paymentTermDays = 30;
+		record.rating = 4;
+		record.accountId = 1234567L;
+		record.parentAccountId = 1000L;
+		record.createdAt = 1262304000000L;
+		record.updatedAt = 1262390400000L;
+		record.lastLoginAt = 1262476800000L;
+		record.creditLimit = new BigDecimal("5000.00");
+		record.balance = new BigDecimal("1234.56");
+		record.discountRate = new BigDecimal("0.10");
+		record.taxRate = new BigDecimal("0.23");
+		record.averageOrderValue = new BigDecimal("89.90");
+		record.notes = "Notes";
+		record.tags = "Tags";
+		record.source = "Source";
+		record.campaign = "Campaign";
+		record.externalId = "ExternalId";
+		return record;
+	}
+
+	/**
+	 * @return A record failing a constraint on every other field.
+	 */
+	public static CustomerRecord invalid() {
+		final CustomerRecord record = valid();
+		record.customerNumber = "";
+		record.lastName = "";
+		record.department = "";
+		record.street = "";
+		record.city = "";
+		record.country = "";
+		record.currency = "";
+		record.referrer = "";
+		record.phone = "call me";
+		record.fax = "-";
+		record.website = "www.example.com";
+		record.iban = "FI21 1234 5600 0007 85";
+		record.birthDate = "1.1.1970";
+		record.employees = 0;
+		record.visits = -1;
+		record.closedTickets = -3;
+		record.returnsLastYear = -1;
+		record.rating = 9;
+		record.parentAccountId = -1L;
+		record.updatedAt = 5000000000000L;
+		record.creditLimit = new BigDecimal("-1");
+		record.discountRate = new BigDecimal("0.75");
+		record.averageOrderValue = new BigDecimal("-0.01");
+		record.tags = repeat('x', 201);
+		record.campaign = repeat('x', 51);
+		return record;
+	}
+
+	private static String repeat(final char c, final int count) {
+		final StringBuilder builder = new StringBuilder(count);
+		for (int i = 0; i < count; i++)
+			builder.append(c);
+		return builder.toString();
+	}
+}
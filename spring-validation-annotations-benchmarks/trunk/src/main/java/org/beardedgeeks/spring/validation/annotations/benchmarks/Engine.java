@@ -0,0 +1,58 @@
+package org.beardedgeeks.spring.validation.annotations.benchmarks;
+
+import org.beardedgeeks.spring.validation.annotations.CompositeFieldValidator;
+import org.beardedgeeks.spring.validation.annotations.ValidatorRegistry;
+import org.springframework.validation.Validator;
+
+/**
+ * The validation engines compared by the benchmarks.
+ * 
+ * @author hleinone
+ */
+public enum Engine {
+	/**
+	 * The reflective {@link CompositeFieldValidator}.
+	 */
+	REFLECTIVE {
+		@Override
+		public Validator create(final Class<?> type) {
+			return new CompositeFieldValidator();
+		}
+	},
+
+	/**
+	 * The {@link CompositeFieldValidator} generating validators at runtime.
+	 */
+	GENERATED {
+		@Override
+		public Validator create(final Class<?> type) {
+			final CompositeFieldValidator validator = new CompositeFieldValidator();
+			validator.setGenerateValidators(true);
+			return validator;
+		}
+	},
+
+	/**
+	 * The validator generated at compile time, found by the
+	 * {@link ValidatorRegistry}.
+	 */
+	COMPILED {
+		@Override
+		public Validator create(final Class<?> type) {
+			final Validator validator = new ValidatorRegistry()
+					.getValidator(type);
+			if (!validator.getClass().getName().equals(
+					ValidatorRegistry.getGeneratedValidatorName(type)))
+				throw new IllegalStateException("No validator of "
+						+ type.getName() + " was generated at compile time");
+			return validator;
+		}
+	};
+
+	/**
+	 * @param type
+	 *            The validated class.
+	 * @return The validator of the class.
+	 */
+	public abstract Validator create(Class<?> type);
+}
@@ -0,0 +1,80 @@
+package org.beardedgeeks.spring.validation.annotations.benchmarks;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.beardedgeeks.spring.validation.annotations.CompositeFieldValidator;
+import org.beardedgeeks.spring.validation.annotations.ValidationErrors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.MapBindingResult;
+import org.springframework.validation.Validator;
+
+/**
+ * Compares the {@link Errors} implementations collecting the errors of the
+ * {@link RegistrationForm}, which has the getters the
+ * {@link BeanPropertyBindingResult} needs, with and without resolving the
+ * errors as they would be for rendering.
+ * 
+ * @author hleinone
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ErrorsBenchmark {
+	@Param( { "beanProperty", "map", "validation" })
+	public String errorsType;
+
+	@Param( { "true", "false" })
+	public boolean valid;
+
+	private final Validator validator = new CompositeFieldValidator();
+
+	private RegistrationForm form;
+
+	@Setup
+	public void setUp() {
+		form = valid ? RegistrationForm.valid() : RegistrationForm.invalid();
+		validator.validate(form, newErrors());
+	}
+
+	@Benchmark
+	public Errors validate() {
+		final Errors errors = newErrors();
+		validator.validate(form, errors);
+		return errors;
+	}
+
+	@Benchmark
+	public int validateAndResolve() {
+		final Errors errors = newErrors();
+		validator.validate(form, errors);
+		return errors.getAllErrors().size();
+	}
+
+	private Errors newErrors() {
+		if ("beanProperty".equals(errorsType))
+			return new BeanPropertyBindingResult(form, "form");
+		if ("map".equals(errorsType))
+			return new MapBindingResult(Collections
+					.<String, Object> emptyMap(), "form");
+		if ("validation".equals(errorsType))
+			return new ValidationErrors(form, "form");
+		throw new IllegalArgumentException("Unknown errors type "
+				+ errorsType);
+	}
+}
@@ -0,0 +1,148 @@
+package org.beardedgeeks.spring.validation.annotations.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.beardedgeeks.spring.validation.annotations.ExtendedValidationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.validation.Errors;
+import org.springframework.validation.MapBindingResult;
+
+/**
+ * Measures each entry point of {@link ExtendedValidationUtils}. The overloads
+ * without error arguments or default message delegate to the measured ones.
+ * 
+ * @author hleinone
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ExtendedValidationUtilsBenchmark {
+	private static final String EMAIL_PATTERN = "[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}";
+
+	private static final Pattern EMAIL = Pattern.compile(EMAIL_PATTERN);
+
+	private static final BigDecimal MIN_AMOUNT = new BigDecimal("0.01");
+
+	private static final BigDecimal MAX_AMOUNT = new BigDecimal("10000");
+
+	@Param( { "true", "false" })
+	public boolean valid;
+
+	private final Map<String, Object> values = new HashMap<String, Object>();
+
+	private Object email;
+
+	@Setup
+	public void setUp() {
+		values.put("email", valid ? "hannu.leinonen@beardedgeeks.org"
+				: "hannu.leinonen@beardedgeeks");
+		values.put("name", valid ? "Hannu" : "H");
+		values.put("description", valid ? "Bearded" : "Bearded, geeky and "
+				+ "far too verbose for the length limit of the field");
+		values.put("amount", new BigDecimal(valid ? "99.90" : "0"));
+		values.put("quantity", Integer.valueOf(valid ? 5 : 50000));
+		email = values.get("email");
+	}
+
+	@Benchmark
+	public Errors rejectIfNotMatches_string() {
+		final Errors errors = newErrors();
+		ExtendedValidationUtils.rejectIfNotMatches(errors, "email",
+				EMAIL_PATTERN, "email.invalid", null, null);
+		return errors;
+	}
+
+	@Benchmark
+	public Errors rejectIfNotMatches_pattern() {
+		final Errors errors = newErrors();
+		ExtendedValidationUtils.rejectIfNotMatches(errors, "email", EMAIL,
+				"email.invalid", null, null);
+		return errors;
+	}
+
+	@Benchmark
+	public Errors rejectIfLengthLessThan() {
+		final Errors errors = newErrors();
+		ExtendedValidationUtils.rejectIfLengthLessThan(errors, "name", 2,
+				"name.tooShort", null, null);
+		return errors;
+	}
+
+	@Benchmark
+	public Errors rejectIfLengthMoreThan() {
+		final Errors errors = newErrors();
+		ExtendedValidationUtils.rejectIfLengthMoreThan(errors, "description",
+				40, "description.tooLong", null, null);
+		return errors;
+	}
+
+	@Benchmark
+	public Errors rejectIfValueLessThan() {
+		final Errors errors = newErrors();
+		ExtendedValidationUtils.rejectIfValueLessThan(errors, "amount",
+				MIN_AMOUNT, "amount.tooSmall", null, null);
+		return errors;
+	}
+
+	@Benchmark
+	public Errors rejectIfValueMoreThan() {
+		final Errors errors = newErrors();
+		ExtendedValidationUtils.rejectIfValueMoreThan(errors, "quantity",
+				Integer.valueOf(10000), "quantity.tooLarge", null, null);
+		return errors;
+	}
+
+	@Benchmark
+	public Errors rejectAll() {
+		final Errors errors = newErrors();
+		ExtendedValidationUtils.rejectIfNotMatches(errors, "email", EMAIL,
+				"email.invalid", null, null);
+		ExtendedValidationUtils.rejectIfLengthLessThan(errors, "name", 2,
+				"name.tooShort", null, null);
+		ExtendedValidationUtils.rejectIfLengthMoreThan(errors, "description",
+				40, "description.tooLong", null, null);
+		ExtendedValidationUtils.rejectIfValueLessThan(errors, "amount",
+				MIN_AMOUNT, "amount.tooSmall", null, null);
+		ExtendedValidationUtils.rejectIfValueMoreThan(errors, "amount",
+				MAX_AMOUNT, "amount.tooLarge", null, null);
+		return errors;
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Errors rejectAllConcurrently() {
+		return rejectAll();
+	}
+
+	@Benchmark
+	public boolean matches() {
+		return ExtendedValidationUtils.matches(email, EMAIL);
+	}
+
+	@Benchmark
+	public int length() {
+		return ExtendedValidationUtils.length(email);
+	}
+
+	private Errors newErrors() {
+		return new MapBindingResult(values, "target");
+	}
+}
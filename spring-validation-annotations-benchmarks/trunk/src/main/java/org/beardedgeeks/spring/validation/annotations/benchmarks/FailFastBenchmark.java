@@ -0,0 +1,72 @@
+package org.beardedgeeks.spring.validation.annotations.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.beardedgeeks.spring.validation.annotations.CompositeFieldValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.validation.Errors;
+
+/**
+ * Compares the full validation of the {@link CompositeFieldValidator} with the
+ * fail-fast validation and the yes/no test of
+ * {@link CompositeFieldValidator#isValid(Object)}.
+ * 
+ * @author hleinone
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FailFastBenchmark {
+	@Param
+	public Fixture fixture;
+
+	@Param( { "true", "false" })
+	public boolean valid;
+
+	private final CompositeFieldValidator validator = new CompositeFieldValidator();
+
+	private final CompositeFieldValidator failFastValidator = new CompositeFieldValidator();
+
+	private Object target;
+
+	@Setup
+	public void setUp() {
+		target = fixture.create(valid);
+		failFastValidator.setFailFast(true);
+		validator.validate(target, ValidationEngineBenchmark.newErrors());
+		failFastValidator.validate(target, ValidationEngineBenchmark
+				.newErrors());
+	}
+
+	@Benchmark
+	public Errors validate() {
+		final Errors errors = ValidationEngineBenchmark.newErrors();
+		validator.validate(target, errors);
+		return errors;
+	}
+
+	@Benchmark
+	public Errors validateFailFast() {
+		final Errors errors = ValidationEngineBenchmark.newErrors();
+		failFastValidator.validate(target, errors);
+		return errors;
+	}
+
+	@Benchmark
+	public boolean isValid() {
+		return validator.isValid(target);
+	}
+}
@@ -0,0 +1,87 @@
+package org.beardedgeeks.spring.validation.annotations.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.beardedgeeks.spring.validation.annotations.FieldValidator;
+import org.beardedgeeks.spring.validation.annotations.empty.RequiredValidator;
+import org.beardedgeeks.spring.validation.annotations.length.MaxLengthValidator;
+import org.beardedgeeks.spring.validation.annotations.length.MinLengthValidator;
+import org.beardedgeeks.spring.validation.annotations.matches.MatchesPatternValidator;
+import org.beardedgeeks.spring.validation.annotations.value.MaxValueValidator;
+import org.beardedgeeks.spring.validation.annotations.value.MinValueValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.validation.Errors;
+
+/**
+ * Measures each of the individual {@link FieldValidator}s on each
+ * {@link Fixture}, with valid and invalid beans. Fixtures without the
+ * annotation of the validator measure the cost of skipping the bean.
+ * 
+ * @author hleinone
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FieldValidatorBenchmark {
+	@Param( { "required", "minLength", "maxLength", "minValue", "maxValue",
+			"matchesPattern" })
+	public String validatorName;
+
+	@Param
+	public Fixture fixture;
+
+	@Param( { "true", "false" })
+	public boolean valid;
+
+	private FieldValidator validator;
+
+	private Object target;
+
+	@Setup
+	public void setUp() {
+		if ("required".equals(validatorName))
+			validator = new RequiredValidator();
+		else if ("minLength".equals(validatorName))
+			validator = new MinLengthValidator();
+		else if ("maxLength".equals(validatorName))
+			validator = new MaxLengthValidator();
+		else if ("minValue".equals(validatorName))
+			validator = new MinValueValidator();
+		else if ("maxValue".equals(validatorName))
+			validator = new MaxValueValidator();
+		else if ("matchesPattern".equals(validatorName))
+			validator = new MatchesPatternValidator();
+		else
+			throw new IllegalArgumentException("Unknown validator "
+					+ validatorName);
+		target = fixture.create(valid);
+		validator.validate(target, ValidationEngineBenchmark.newErrors());
+	}
+
+	@Benchmark
+	public Errors validate() {
+		final Errors errors = ValidationEngineBenchmark.newErrors();
+		validator.validate(target, errors);
+		return errors;
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Errors validateConcurrently() {
+		return validate();
+	}
+}
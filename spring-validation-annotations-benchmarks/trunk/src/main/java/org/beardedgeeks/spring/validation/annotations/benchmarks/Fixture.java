@@ -0,0 +1,67 @@
+package org.beardedgeeks.spring.validation.annotations.benchmarks;
+
+/**
+ * The beans validated by the benchmarks.
+ * 
+ * @author hleinone
+ */
+public enum Fixture {
+	/**
+	 * A small web form, see {@link RegistrationForm}.
+	 */
+	FORM {
+		@Override
+		public Object create(final boolean valid) {
+			return valid ? RegistrationForm.valid() : RegistrationForm
+					.invalid();
+		}
+	},
+
+	/**
+	 * A record of 50 fields, see {@link CustomerRecord}.
+	 */
+	WIDE {
+		@Override
+		public Object create(final boolean valid) {
+			return valid ? CustomerRecord.valid() : CustomerRecord.invalid();
+		}
+	},
+
+	/**
+	 * The leaf of a deep class hierarchy, see {@link ProductHierarchy}.
+	 */
+	DEEP {
+		@Override
+		public Object create(final boolean valid) {
+			return valid ? ProductHierarchy.valid() : ProductHierarchy
+					.invalid();
+		}
+	},
+
+	/**
+	 * A bean of regular expressions, see {@link ContactDetails}.
+	 */
+	REGEX {
+		@Override
+		public Object create(final boolean valid) {
+			return valid ? ContactDetails.valid() : ContactDetails.invalid();
+		}
+	},
+
+	/**
+	 * A bean of numeric bounds, see {@link SensorReading}.
+	 */
+	NUMERIC {
+		@Override
+		public Object create(final boolean valid) {
+			return valid ? SensorReading.valid() : SensorReading.invalid();
+		}
+	};
+
+	/**
+	 * @param valid
+	 *            Whether the bean should pass all its constraints.
+	 * @return A new bean.
+	 */
+	public abstract Object create(boolean valid);
+}
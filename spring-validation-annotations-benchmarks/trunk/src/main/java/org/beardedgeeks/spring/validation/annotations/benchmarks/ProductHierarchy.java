@@ -0,0 +1,128 @@
+package org.beardedgeeks.spring.validation.annotations.benchmarks;
+
+import java.math.BigDecimal;
+
+import org.beardedgeeks.spring.validation.annotations.Validatable;
+import org.beardedgeeks.spring.validation.annotations.empty.Required;
+import org.beardedgeeks.spring.validation.annotations.length.MaxLength;
+import org.beardedgeeks.spring.validation.annotations.length.MinLength;
+import org.beardedgeeks.spring.validation.annotations.matches.MatchesPattern;
+import org.beardedgeeks.spring.validation.annotations.value.MaxValue;
+import org.beardedgeeks.spring.validation.annotations.value.MinValue;
+
+/**
+ * A deep class hierarchy of a domain model, each level adding constrained
+ * fields. The fields are public, as inherited fields are only validated when
+ * they are public.
+ * 
+ * @author hleinone
+ */
+public final class ProductHierarchy {
+	private ProductHierarchy() {
+	}
+
+	public static class Entity {
+		@MinValue("1")
+		public long id;
+	}
+
+	public static class VersionedEntity extends Entity {
+		@MinValue("0")
+		public int version;
+	}
+
+	public static class AuditedEntity extends VersionedEntity {
+		@Required
+		@MaxLength(50)
+		public String createdBy;
+
+		@MaxLength(50)
+		public String updatedBy;
+	}
+
+	public static class NamedEntity extends AuditedEntity {
+		@Required
+		@MinLength(2)
+		@MaxLength(100)
+		public String name;
+	}
+
+	public static class DescribedEntity extends NamedEntity {
+		@MaxLength(2000)
+		public String description;
+	}
+
+	public static class PricedEntity extends DescribedEntity {
+		@Required
+		@MinValue("0")
+		@MaxValue("1000000")
+		public BigDecimal price;
+
+		@Required
+		@MatchesPattern("[A-Z]{3}")
+		public String currency;
+	}
+
+	public static class StockedEntity extends PricedEntity {
+		@MinValue("0")
+		@MaxValue("100000")
+		public int quantity;
+	}
+
+	public static class CategorizedEntity extends StockedEntity {
+		@Required
+		@MatchesPattern("[a-z]+(/[a-z]+)*")
+		public String category;
+	}
+
+	/**
+	 * The validated leaf of the hierarchy.
+	 */
+	@Validatable
+	public static class Product extends CategorizedEntity {
+		@Required
+		@MatchesPattern("[A-Z]{2}-[0-9]{6}")
+		public String sku;
+
+		@MatchesPattern("[0-9]{13}")
+		public String ean;
+	}
+
+	/**
+	 * @return A product passing all the constraints.
+	 */
+	public static Product valid() {
+		final Product product = new Product();
+		product.id = 42L;
+		product.version = 3;
+		product.createdBy = "admin";
+		product.updatedBy = "editor";
+		product.name = "Beard oil";
+		product.description = "Keeps the beard soft and shiny.";
+		product.price = new BigDecimal("12.90");
+		product.currency = "EUR";
+		product.quantity = 120;
+		product.category = "grooming/beard";
+		product.sku = "BG-000042";
+		product.ean = "6412345678901";
+		return product;
+	}
+
+	/**
+	 * @return A product failing a constraint on most of its fields.
+	 */
+	public static Product invalid() {
+		final Product product = valid();
+		product.id = 0L;
+		product.version = -1;
+		product.createdBy = null;
+		product.name = "B";
+		product.price = new BigDecimal("-1");
+		product.currency = "euro";
+		product.quantity = 200000;
+		product.category = "Grooming";
+		product.sku = "bg42";
+		product.ean = "641234567890X";
+		return product;
+	}
+}
@@ -0,0 +1,73 @@
+package org.beardedgeeks.spring.validation.annotations.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.beardedgeeks.spring.validation.annotations.matches.MatchesPattern;
+import org.beardedgeeks.spring.validation.annotations.matches.MatchesPatternValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the engines of {@link MatchesPatternValidator} on the patterns of
+ * {@link ContactDetails} and on a nested quantifier backtracking
+ * exponentially in <code>java.util.regex</code> on an input of 24
+ * characters.
+ * 
+ * @author hleinone
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RegexEngineBenchmark {
+	@Param( { "JAVA", "AUTOMATON" })
+	public MatchesPattern.Engine engine;
+
+	@Param( { "true", "false" })
+	public boolean valid;
+
+	private final MatchesPatternValidator validator = new MatchesPatternValidator();
+
+	private ContactDetails contactDetails;
+
+	private final Pathological pathological = new Pathological();
+
+	@Setup
+	public void setUp() {
+		validator.setEngine(engine);
+		contactDetails = valid ? ContactDetails.valid() : ContactDetails
+				.invalid();
+		pathological.value = valid ? "aaaaaaaaaaaaaaaaaaaaaaab"
+				: "aaaaaaaaaaaaaaaaaaaaaaac";
+		validator.isValid(contactDetails);
+	}
+
+	@Benchmark
+	public boolean contactDetails() {
+		return validator.isValid(contactDetails);
+	}
+
+	@Benchmark
+	public boolean pathological() {
+		return validator.isValid(pathological);
+	}
+
+	/**
+	 * A field whose pattern backtracks exponentially on a failing input.
+	 */
+	public static class Pathological {
+		@MatchesPattern("(a+)+b")
+		String value;
+	}
+}
@@ -0,0 +1,85 @@
+package org.beardedgeeks.spring.validation.annotations.benchmarks;
+
+import org.beardedgeeks.spring.validation.annotations.Validatable;
+import org.beardedgeeks.spring.validation.annotations.empty.Required;
+import org.beardedgeeks.spring.validation.annotations.length.MaxLength;
+import org.beardedgeeks.spring.validation.annotations.length.MinLength;
+import org.beardedgeeks.spring.validation.annotations.matches.MatchesPattern;
+import org.beardedgeeks.spring.validation.annotations.value.MaxValue;
+import org.beardedgeeks.spring.validation.annotations.value.MinValue;
+
+/**
+ * A small web form using each of the built-in annotations.
+ * 
+ * @author hleinone
+ */
+@Validatable
+public class RegistrationForm {
+	@Required
+	@MinLength(3)
+	@MaxLength(20)
+	@MatchesPattern("[a-z][a-z0-9_]*")
+	private String username;
+
+	@Required
+	@MatchesPattern("[^@\\s]+@[^@\\s]+\\.[a-z]{2,}")
+	private String email;
+
+	@Required
+	@MinLength(8)
+	@MaxLength(64)
+	private String password;
+
+	@MinValue("13")
+	@MaxValue("150")
+	private int age;
+
+	@MaxLength(500)
+	private String about;
+
+	/**
+	 * @return A form passing all the constraints.
+	 */
+	public static RegistrationForm valid() {
+		final RegistrationForm form = new RegistrationForm();
+		form.username = "john_doe";
+		form.email = "john.doe@example.com";
+		form.password = "correct horse battery";
+		form.age = 42;
+		form.about = "Likes long walks on the beach.";
+		return form;
+	}
+
+	/**
+	 * @return A form failing a constraint on each field.
+	 */
+	public static RegistrationForm invalid() {
+		final RegistrationForm form = new RegistrationForm();
+		form.username = "John Doe";
+		form.email = "john.doe";
+		form.password = "secret";
+		form.age = 7;
+		form.about = null;
+		return form;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public String getEmail() {
+		return email;
+	}
+
+	public String getPassword() {
+		return password;
+	}
+
+	public int getAge() {
+		return age;
+	}
+
+	public String getAbout() {
+		return about;
+	}
+}
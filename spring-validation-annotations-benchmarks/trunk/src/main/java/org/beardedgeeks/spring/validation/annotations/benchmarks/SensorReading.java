@@ -0,0 +1,129 @@
+package org.beardedgeeks.spring.validation.annotations.benchmarks;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.beardedgeeks.spring.validation.annotations.Validatable;
+import org.beardedgeeks.spring.validation.annotations.value.MaxValue;
+import org.beardedgeeks.spring.validation.annotations.value.MinValue;
+
+/**
+ * A bean constrained only by numeric bounds, on each supported primitive and
+ * {@link Number} type.
+ * 
+ * @author hleinone
+ */
+@Validatable
+public class SensorReading {
+	@MinValue("0")
+	@MaxValue("100")
+	byte batteryLevel;
+
+	@MinValue("-40")
+	@MaxValue("125")
+	short boardTemperature;
+
+	@MinValue("0")
+	@MaxValue("65535")
+	int sensorId;
+
+	@MinValue("0")
+	@MaxValue("4102444800000")
+	long timestamp;
+
+	@MinValue("-89.2")
+	@MaxValue("56.7")
+	float temperature;
+
+	@MinValue("0")
+	@MaxValue("100")
+	float humidity;
+
+	@MinValue("870")
+	@MaxValue("1085")
+	double pressure;
+
+	@MinValue("-90")
+	@MaxValue("90")
+	double latitude;
+
+	@MinValue("-180")
+	@MaxValue("180")
+	double longitude;
+
+	@MinValue("-430")
+	@MaxValue("8850")
+	Integer altitude;
+
+	@MinValue("0")
+	@MaxValue("4294967295")
+	Long sequenceNumber;
+
+	@MinValue("0")
+	@MaxValue("408")
+	Double windSpeed;
+
+	@MinValue("0")
+	@MaxValue("360")
+	Float windDirection;
+
+	@MinValue("0")
+	@MaxValue("2000")
+	BigDecimal rainfall;
+
+	@MinValue("0")
+	@MaxValue("100000")
+	BigDecimal illuminance;
+
+	@MinValue("0")
+	@MaxValue("18446744073709551615")
+	BigInteger packetCount;
+
+	/**
+	 * @return A reading passing all the constraints.
+	 */
+	public static SensorReading valid() {
+		final SensorReading reading = new SensorReading();
+		reading.batteryLevel = 87;
+		reading.boardTemperature = 35;
+		reading.sensorId = 4711;
+		reading.timestamp = 1262304000000L;
+		reading.temperature = -12.5f;
+		reading.humidity = 84.0f;
+		reading.pressure = 1013.25;
+		reading.latitude = 60.1699;
+		reading.longitude = 24.9384;
+		reading.altitude = 16;
+		reading.sequenceNumber = 1234567L;
+		reading.windSpeed = 4.2;
+		reading.windDirection = 270.0f;
+		reading.rainfall = new BigDecimal("0.4");
+		reading.illuminance = new BigDecimal("1520");
+		reading.packetCount = new BigInteger("9876543210");
+		return reading;
+	}
+
+	/**
+	 * @return A reading failing the minimum or maximum of every field.
+	 */
+	public static SensorReading invalid() {
+		final SensorReading reading = new SensorReading();
+		reading.batteryLevel = 101;
+		reading.boardTemperature = -41;
+		reading.sensorId = 65536;
+		reading.timestamp = -1L;
+		reading.temperature = 60.0f;
+		reading.humidity = -0.5f;
+		reading.pressure = 1100.0;
+		reading.latitude = -90.5;
+		reading.longitude = 180.1;
+		reading.altitude = -500;
+		reading.sequenceNumber = 4294967296L;
+		reading.windSpeed = -1.0;
+		reading.windDirection = 361.0f;
+		reading.rainfall = new BigDecimal("2000.01");
+		reading.illuminance = new BigDecimal("-1");
+		reading.packetCount = new BigInteger("18446744073709551616");
+		return reading;
+	}
+}
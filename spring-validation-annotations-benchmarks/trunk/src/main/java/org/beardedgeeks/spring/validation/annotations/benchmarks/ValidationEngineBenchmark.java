@@ -0,0 +1,78 @@
+package org.beardedgeeks.spring.validation.annotations.benchmarks;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.validation.Errors;
+import org.springframework.validation.MapBindingResult;
+import org.springframework.validation.Validator;
+
+/**
+ * Compares the validation {@link Engine}s on each {@link Fixture}, with valid
+ * and invalid beans. The validator and the bean are shared by all the
+ * threads, as a validator bean is in a web application.
+ * 
+ * @author hleinone
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ValidationEngineBenchmark {
+	@Param
+	public Engine engine;
+
+	@Param
+	public Fixture fixture;
+
+	@Param( { "true", "false" })
+	public boolean valid;
+
+	private Validator validator;
+
+	private Object target;
+
+	@Setup
+	public void setUp() {
+		target = fixture.create(valid);
+		validator = engine.create(target.getClass());
+		// the plans and generated classes are built outside the measurement
+		validator.validate(target, newErrors());
+	}
+
+	@Benchmark
+	public Errors validate() {
+		final Errors errors = newErrors();
+		validator.validate(target, errors);
+		return errors;
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Errors validateConcurrently() {
+		return validate();
+	}
+
+	/**
+	 * The errors of a binding without bean property access, so that only the
+	 * cost of the validation is measured.
+	 */
+	static Errors newErrors() {
+		return new MapBindingResult(Collections.<String, Object> emptyMap(),
+				"target");
+	}
+}
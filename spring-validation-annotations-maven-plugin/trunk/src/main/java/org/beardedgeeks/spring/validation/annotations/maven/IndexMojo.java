@@ -0,0 +1,160 @@
+package org.beardedgeeks.spring.validation.annotations.maven;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Modifier;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.beardedgeeks.spring.validation.annotations.Validatable;
+import org.beardedgeeks.spring.validation.annotations.ValidationIndex;
+
+/**
+ * Writes the validation index of the {@link Validatable} classes compiled by
+ * the project to its output directory, see {@link ValidationIndex}. Usage:
+ * 
+ * <pre>
+ * &lt;plugin&gt;
+ * &nbsp;&nbsp;&lt;groupId&gt;org.beardedgeeks&lt;/groupId&gt;
+ * &nbsp;&nbsp;&lt;artifactId&gt;spring-validation-annotations-maven-plugin&lt;/artifactId&gt;
+ * &nbsp;&nbsp;&lt;executions&gt;
+ * &nbsp;&nbsp;&nbsp;&nbsp;&lt;execution&gt;
+ * &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&lt;goals&gt;
+ * &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&lt;goal&gt;index&lt;/goal&gt;
+ * &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&lt;/goals&gt;
+ * &nbsp;&nbsp;&nbsp;&nbsp;&lt;/execution&gt;
+ * &nbsp;&nbsp;&lt;/executions&gt;
+ * &lt;/plugin&gt;
+ * </pre>
+ * 
+ * @author hleinone
+ * @goal index
+ * @phase process-classes
+ * @requiresDependencyResolution compile
+ * @requiresProject
+ */
+public class IndexMojo extends AbstractMojo {
+	/**
+	 * The directory of the compiled classes, where the index is written.
+	 * 
+	 * @parameter expression="${project.build.outputDirectory}"
+	 * @required
+	 */
+	private File outputDirectory;
+
+	/**
+	 * The compile classpath of the project, for loading the classes.
+	 * 
+	 * @parameter expression="${project.compileClasspathElements}"
+	 * @required
+	 * @readonly
+	 */
+	private List<String> classpathElements;
+
+	/**
+	 * @see org.apache.maven.plugin.AbstractMojo#execute()
+	 */
+	@Override
+	public void execute() throws MojoExecutionException {
+		if (!outputDirectory.isDirectory()) {
+			getLog().info("No classes to index");
+			return;
+		}
+		final List<String> classNames = new ArrayList<String>();
+		findClasses(outputDirectory, "", classNames);
+
+		final URL[] urls = new URL[classpathElements.size() + 1];
+		try {
+			urls[0] = outputDirectory.toURI().toURL();
+			for (int i = 0; i < classpathElements.size(); i++)
+				urls[i + 1] = new File(classpathElements.get(i)).toURI()
+						.toURL();
+		} catch (MalformedURLException e) {
+			throw new MojoExecutionException("Invalid classpath", e);
+		}
+		final ClassLoader classLoader = new URLClassLoader(urls, getClass()
+				.getClassLoader());
+		final List<Class<?>> classes = new ArrayList<Class<?>>();
+		for (final String className : classNames) {
+			try {
+				final Class<?> clazz = Class.forName(className, false,
+						classLoader);
+				if (isIndexed(clazz))
+					classes.add(clazz);
+			} catch (ClassNotFoundException e) {
+				throw new MojoExecutionException("Could not load class: "
+						+ className, e);
+			} catch (LinkageError e) {
+				getLog().warn("Could not load class " + className + ": " + e);
+			}
+		}
+
+		final File indexFile = new File(outputDirectory,
+				ValidationIndex.LOCATION);
+		final File indexDirectory = indexFile.getParentFile();
+		if (!indexDirectory.exists() && !indexDirectory.mkdirs())
+			throw new MojoExecutionException("Could not create directory: "
+					+ indexDirectory.getAbsolutePath());
+		OutputStream output = null;
+		try {
+			output = new FileOutputStream(indexFile);
+			final int count = ValidationIndex.write(classes, output);
+			getLog().info(
+					"Indexed " + count + " validatable classes to "
+							+ indexFile.getAbsolutePath());
+		} catch (IOException e) {
+			throw new MojoExecutionException("Could not write to file: "
+					+ indexFile.getAbsolutePath(), e);
+		} finally {
+			if (output != null) {
+				try {
+					output.close();
+				} catch (IOException e) {
+					// no can do
+				}
+			}
+		}
+	}
+
+	/**
+	 * Lists the names of the class files under the directory.
+	 */
+	private static void findClasses(final File directory,
+			final String packagePrefix, final List<String> classNames) {
+		final File[] files = directory.listFiles();
+		if (files == null)
+			return;
+		for (final File file : files) {
+			final String name = file.getName();
+			if (file.isDirectory())
+				findClasses(file, packagePrefix + name + ".", classNames);
+			else if (name.endsWith(".class"))
+				classNames.add(packagePrefix
+						+ name.substring(0, name.length() - ".class".length()));
+		}
+	}
+
+	/**
+	 * Tests whether the class is a concrete {@link Validatable} class. The
+	 * annotation is compared by name, as the project may have a copy of its
+	 * own.
+	 */
+	private static boolean isIndexed(final Class<?> clazz) {
+		if (clazz.isInterface()
+				|| Modifier.isAbstract(clazz.getModifiers()))
+			return false;
+		for (final Annotation annotation : clazz.getAnnotations())
+			if (annotation.annotationType().getName().equals(
+					Validatable.class.getName()))
+				return true;
+		return false;
+	}
+}
@@ -0,0 +1,126 @@
+package org.beardedgeeks.spring.validation.annotations.maven;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.util.Collections;
+
+import org.beardedgeeks.spring.validation.annotations.Validatable;
+import org.beardedgeeks.spring.validation.annotations.ValidationIndex;
+import org.beardedgeeks.spring.validation.annotations.length.MaxLength;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@link IndexMojo}.
+ * 
+ * @author hleinone
+ */
+public class IndexMojoTest {
+	private File directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = File.createTempFile("index", "");
+		directory.delete();
+		directory.mkdir();
+	}
+
+	@After
+	public void tearDown() {
+		delete(directory);
+	}
+
+	@Test
+	public void testExecute() throws Exception {
+		copyClass(Indexed.class);
+		copyClass(NotIndexed.class);
+		newMojo(directory).execute();
+		final DataInputStream input = new DataInputStream(
+				new FileInputStream(new File(directory,
+						ValidationIndex.LOCATION)));
+		try {
+			// skip the header
+			input.readInt();
+			input.readInt();
+			assertEquals(1, input.readInt());
+			assertEquals(Indexed.class.getName(), input.readUTF());
+		} finally {
+			input.close();
+		}
+	}
+
+	@Test
+	public void testExecute_noClasses() throws Exception {
+		final File missing = new File(directory, "missing");
+		newMojo(missing).execute();
+		assertFalse(missing.exists());
+	}
+
+	@Test
+	public void testExecute_empty() throws Exception {
+		newMojo(directory).execute();
+		assertTrue(new File(directory, ValidationIndex.LOCATION).isFile());
+	}
+
+	private static IndexMojo newMojo(final File outputDirectory)
+			throws Exception {
+		final IndexMojo mojo = new IndexMojo();
+		final Field outputDirectoryField = IndexMojo.class
+				.getDeclaredField("outputDirectory");
+		outputDirectoryField.setAccessible(true);
+		outputDirectoryField.set(mojo, outputDirectory);
+		final Field classpathElementsField = IndexMojo.class
+				.getDeclaredField("classpathElements");
+		classpathElementsField.setAccessible(true);
+		classpathElementsField.set(mojo, Collections.emptyList());
+		return mojo;
+	}
+
+	private void copyClass(final Class<?> clazz) throws IOException {
+		final String name = clazz.getName().replace('.', '/') + ".class";
+		final File file = new File(directory, name);
+		file.getParentFile().mkdirs();
+		final InputStream input = getClass().getClassLoader()
+				.getResourceAsStream(name);
+		final OutputStream output = new FileOutputStream(file);
+		try {
+			final byte[] buffer = new byte[4096];
+			for (int read = input.read(buffer); read != -1; read = input
+					.read(buffer))
+				output.write(buffer, 0, read);
+		} finally {
+			output.close();
+			input.close();
+		}
+	}
+
+	private static void delete(final File file) {
+		final File[] children = file.listFiles();
+		if (children != null)
+			for (final File child : children)
+				delete(child);
+		file.delete();
+	}
+
+	@Validatable
+	public static class Indexed {
+		@MaxLength(3)
+		public String foo;
+	}
+
+	public static class NotIndexed {
+		@MaxLength(3)
+		public String foo;
+	}
+}
@@ -0,0 +1,33 @@
+package org.beardedgeeks.spring.validation.annotations.processor;
+
+import javax.lang.model.element.Element;
+
+/**
+ * Thrown by {@link ValidatorGenerator} when the value of a constraint
+ * annotation, e.g. the bound of a
+ * {@link org.beardedgeeks.spring.validation.annotations.value.MinValue} or the
+ * regular expression of a
+ * {@link org.beardedgeeks.spring.validation.annotations.matches.MatchesPattern}
+ * , is invalid. Unlike the other reasons for not generating a validator, the
+ * reflective validators would fail on the field as well.
+ * 
+ * @author hleinone
+ */
+final class InvalidConstraintException extends IllegalArgumentException {
+	private static final long serialVersionUID = 1L;
+
+	private final transient Element element;
+
+	InvalidConstraintException(final Element element, final String message,
+			final Throwable cause) {
+		super(message, cause);
+		this.element = element;
+	}
+
+	/**
+	 * @return The annotated field.
+	 */
+	Element getElement() {
+		return element;
+	}
+}
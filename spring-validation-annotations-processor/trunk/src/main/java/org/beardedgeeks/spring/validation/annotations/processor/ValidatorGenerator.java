@@ -0,0 +1,603 @@
+package org.beardedgeeks.spring.validation.annotations.processor;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import java.lang.annotation.Annotation;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+import org.beardedgeeks.spring.validation.annotations.Default;
+import org.beardedgeeks.spring.validation.annotations.ValidatorRegistry;
+import org.beardedgeeks.spring.validation.annotations.empty.Required;
+import org.beardedgeeks.spring.validation.annotations.length.MaxLength;
+import org.beardedgeeks.spring.validation.annotations.length.MinLength;
+import org.beardedgeeks.spring.validation.annotations.matches.MatchesPattern;
+import org.beardedgeeks.spring.validation.annotations.value.MaxValue;
+import org.beardedgeeks.spring.validation.annotations.value.MinValue;
+
+/**
+ * Generates the source of the validator of a single
+ * {@link org.beardedgeeks.spring.validation.annotations.Validatable} class.
+ * The generated validator applies the built-in annotations in the same order
+ * and with the same error codes and arguments as
+ * {@link org.beardedgeeks.spring.validation.annotations.CompositeFieldValidator}
+ * , but reads the fields directly or through their getters and compares them
+ * to constant bounds and precompiled patterns.
+ * 
+ * @author hleinone
+ */
+final class ValidatorGenerator {
+	private final Elements elements;
+
+	private final Types types;
+
+	private final TypeElement type;
+
+	private final String packageName;
+
+	private final String simpleName;
+
+	private final StringBuilder constants = new StringBuilder();
+
+	private final StringBuilder body = new StringBuilder();
+
+	private int constantCount;
+
+	ValidatorGenerator(final ProcessingEnvironment processingEnv,
+			final TypeElement type) {
+		this.elements = processingEnv.getElementUtils();
+		this.types = processingEnv.getTypeUtils();
+		this.type = type;
+		this.packageName = elements.getPackageOf(type).getQualifiedName()
+				.toString();
+		final String binaryName = elements.getBinaryName(type).toString();
+		this.simpleName = (packageName.length() == 0 ? binaryName
+				: binaryName.substring(packageName.length() + 1))
+				+ ValidatorRegistry.GENERATED_VALIDATOR_SUFFIX;
+	}
+
+	/**
+	 * @return The fully qualified name of the generated validator.
+	 */
+	String getQualifiedName() {
+		return packageName.length() == 0 ? simpleName : packageName + "."
+				+ simpleName;
+	}
+
+	/**
+	 * Generates the source of the validator.
+	 * 
+	 * @return The source.
+	 * @throws InvalidConstraintException
+	 *             If the value of an annotation of a field is invalid.
+	 * @throws IllegalArgumentException
+	 *             If the class or one of its annotated fields is not
+	 *             supported.
+	 */
+	String generate() {
+		checkAccessible();
+		for (final VariableElement field : getFields())
+			appendField(field);
+
+		final String typeName = getTypeName();
+		final StringBuilder source = new StringBuilder();
+		if (packageName.length() > 0)
+			source.append("package ").append(packageName).append(";\n\n");
+		source.append("/**\n");
+		source.append(" * Validator of {@link ").append(
+				type.getQualifiedName()).append("}.\n");
+		source.append(" * Generated by ").append(
+				ValidatorProcessor.class.getName()).append(", do not edit.\n");
+		source.append(" */\n");
+		source.append("public final class ").append(simpleName).append(
+				" implements org.springframework.validation.Validator {\n");
+		source.append(constants);
+		if (constants.length() > 0)
+			source.append("\n");
+		source.append("\t@Override\n");
+		source.append("\tpublic boolean supports(final Class<?> clazz) {\n");
+		source.append("\t\treturn ").append(type.getQualifiedName()).append(
+				".class.equals(clazz);\n");
+		source.append("\t}\n\n");
+		source.append("\t@Override\n");
+		source.append("\tpublic void validate(final Object obj,\n");
+		source.append("\t\t\tfinal org.springframework.validation.Errors"
+				+ " errors) {\n");
+		source.append("\t\tfinal ").append(typeName).append(" target = (")
+				.append(typeName).append(") obj;\n");
+		source.append(body);
+		source.append("\t}\n");
+		source.append("}\n");
+		return source.toString();
+	}
+
+	/**
+	 * The generated validator lives in the package of the class, so neither
+	 * the class nor any of its enclosing classes may be private.
+	 */
+	private void checkAccessible() {
+		Element element = type;
+		while (element instanceof TypeElement) {
+			final TypeElement typeElement = (TypeElement) element;
+			if (typeElement.getNestingKind() == NestingKind.LOCAL
+					|| typeElement.getNestingKind() == NestingKind.ANONYMOUS)
+				throw new IllegalArgumentException(
+						"local and anonymous classes are not supported");
+			if (typeElement.getModifiers().contains(Modifier.PRIVATE))
+				throw new IllegalArgumentException(typeElement
+						.getQualifiedName()
+						+ " is private");
+			element = typeElement.getEnclosingElement();
+		}
+	}
+
+	/**
+	 * @return The name of the class, with wildcards for its type parameters.
+	 */
+	private String getTypeName() {
+		final int parameterCount = type.getTypeParameters().size();
+		if (parameterCount == 0)
+			return type.getQualifiedName().toString();
+		final StringBuilder typeName = new StringBuilder(type
+				.getQualifiedName()).append("<?");
+		for (int i = 1; i < parameterCount; i++)
+			typeName.append(", ?");
+		return typeName.append(">").toString();
+	}
+
+	/**
+	 * Lists the fields validated by the reflective path: the instance fields of
+	 * the class and its superclasses, the class's own first. A shadowed field is
+	 * represented by the field of the subclass.
+	 */
+	private List<VariableElement> getFields() {
+		final List<VariableElement> fields = new ArrayList<VariableElement>();
+		final Set<String> names = new HashSet<String>();
+		TypeElement current = type;
+		while (current != null) {
+			for (final VariableElement field : ElementFilter.fieldsIn(current
+					.getEnclosedElements()))
+				if (!field.getModifiers().contains(Modifier.STATIC)
+						&& names.add(field.getSimpleName().toString()))
+					fields.add(field);
+			final TypeMirror superclass = current.getSuperclass();
+			current = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) types
+					.asElement(superclass)
+					: null;
+		}
+		return fields;
+	}
+
+	/**
+	 * Appends the checks of a single field. As in the reflective path, the
+	 * field is skipped if it already has errors and only the first failing
+	 * check is reported.
+	 */
+	private void appendField(final VariableElement field) {
+		final String name = field.getSimpleName().toString();
+		final TypeMirror fieldType = types.erasure(field.asType());
+		final List<String> conditions = new ArrayList<String>();
+		final List<String> rejections = new ArrayList<String>();
+
+		final Required required = field.getAnnotation(Required.class);
+		// primitives are never empty
+		if (required != null && isDefaultGroup(field, Required.class)
+				&& !fieldType.getKind().isPrimitive()) {
+			conditions.add(isSameType(fieldType, String.class.getName()) ? "value == null || value.length() == 0"
+					: "value == null\n\t\t\t\t\t|| !org.springframework.util.StringUtils"
+							+ ".hasLength(value.toString())");
+			rejections.add(rejection(name, Required.class, required
+					.errorCode(), "null"));
+		}
+
+		final MinLength minLength = field.getAnnotation(MinLength.class);
+		if (minLength != null && isDefaultGroup(field, MinLength.class)) {
+			conditions.add("value != null && " + lengthOf(fieldType) + " < "
+					+ minLength.value());
+			rejections.add(rejection(name, MinLength.class, minLength
+					.errorCode(), "new Object[] { Integer.valueOf("
+					+ minLength.value() + ") }"));
+		}
+
+		final MaxLength maxLength = field.getAnnotation(MaxLength.class);
+		if (maxLength != null && isDefaultGroup(field, MaxLength.class)) {
+			conditions.add("value != null && " + lengthOf(fieldType) + " > "
+					+ maxLength.value());
+			rejections.add(rejection(name, MaxLength.class, maxLength
+					.errorCode(), "new Object[] { Integer.valueOf("
+					+ maxLength.value() + ") }"));
+		}
+
+		final MinValue minValue = field.getAnnotation(MinValue.class);
+		if (minValue != null && isDefaultGroup(field, MinValue.class)) {
+			final String bound = appendBound(field, fieldType, MinValue.class,
+					minValue.value());
+			conditions.add(compare(fieldType, bound, minValue.value(), "<"));
+			rejections.add(rejection(name, MinValue.class, minValue
+					.errorCode(), "new Object[] { " + bound + " }"));
+		}
+
+		final MaxValue maxValue = field.getAnnotation(MaxValue.class);
+		if (maxValue != null && isDefaultGroup(field, MaxValue.class)) {
+			final String bound = appendBound(field, fieldType, MaxValue.class,
+					maxValue.value());
+			conditions.add(compare(fieldType, bound, maxValue.value(), ">"));
+			rejections.add(rejection(name, MaxValue.class, maxValue
+					.errorCode(), "new Object[] { " + bound + " }"));
+		}
+
+		final MatchesPattern matchesPattern = field
+				.getAnnotation(MatchesPattern.class);
+		if (matchesPattern != null && isDefaultGroup(field, MatchesPattern.class)) {
+			// the generated validator matches with java.util.regex only; the
+			// registry does not use it if the validator's engine is another
+			if (matchesPattern.engine() == MatchesPattern.Engine.AUTOMATON)
+				throw new IllegalArgumentException("field " + name
+						+ " is matched with the automaton engine");
+			conditions.add("value != null && !"
+					+ matches(fieldType, appendPattern(field, matchesPattern
+							.value())));
+			rejections.add(rejection(name, MatchesPattern.class,
+					matchesPattern.errorCode(), "null"));
+		}
+
+		if (conditions.isEmpty())
+			return;
+
+		body.append("\t\tif (!errors.hasFieldErrors(\"").append(name).append(
+				"\")) {\n");
+		body.append("\t\t\tfinal ").append(fieldType).append(" value = ")
+				.append(accessorOf(field, fieldType)).append(";\n");
+		for (int i = 0; i < conditions.size(); i++) {
+			body.append(i == 0 ? "\t\t\tif (" : "\t\t\telse if (").append(
+					conditions.get(i)).append(")\n");
+			body.append("\t\t\t\t").append(rejections.get(i)).append("\n");
+		}
+		body.append("\t\t}\n");
+	}
+
+	/**
+	 * @return The statement rejecting the field with the custom error code or
+	 *         <code>boundObjectName.fieldName.annotationClassName</code>.
+	 */
+	private static String rejection(final String name,
+			final Class<?> annotationType, final String errorCode,
+			final String errorArgs) {
+		final String code;
+		if (errorCode.length() > 0)
+			code = literal(errorCode);
+		else {
+			final String className = annotationType.getSimpleName();
+			code = "errors.getObjectName() + "
+					+ literal("." + name + "."
+							+ className.substring(0, 1).toLowerCase(
+									Locale.ENGLISH) + className.substring(1));
+		}
+		return "errors.rejectValue(\"" + name + "\", " + code + ", "
+				+ errorArgs + ", null);";
+	}
+
+	/**
+	 * @return The expression reading the field, directly if it is accessible
+	 *         from the package of the class and through its getter otherwise.
+	 */
+	private String accessorOf(final VariableElement field,
+			final TypeMirror fieldType) {
+		final String name = field.getSimpleName().toString();
+		if (isAccessible(field))
+			return "target." + name;
+		final String capitalized = name.substring(0, 1).toUpperCase(
+				Locale.ENGLISH)
+				+ name.substring(1);
+		for (final ExecutableElement method : ElementFilter
+				.methodsIn(elements.getAllMembers(type))) {
+			final String methodName = method.getSimpleName().toString();
+			if ((methodName.equals("get" + capitalized) || fieldType
+					.getKind() == TypeKind.BOOLEAN
+					&& methodName.equals("is" + capitalized))
+					&& method.getParameters().isEmpty()
+					&& !method.getModifiers().contains(Modifier.STATIC)
+					&& isAccessible(method)
+					&& types.isSameType(types.erasure(method.getReturnType()),
+							fieldType))
+				return "target." + methodName + "()";
+		}
+		throw new IllegalArgumentException("field " + name
+				+ " is private and has no getter");
+	}
+
+	private boolean isAccessible(final Element member) {
+		if (member.getModifiers().contains(Modifier.PRIVATE))
+			return false;
+		return member.getModifiers().contains(Modifier.PUBLIC)
+				|| elements.getPackageOf(member).equals(
+						elements.getPackageOf(type));
+	}
+
+	private String lengthOf(final TypeMirror fieldType) {
+		if (isAssignable(fieldType, CharSequence.class.getName())
+				|| hasPublicMethod(fieldType, "length", TypeKind.INT))
+			return "value.length()";
+		throw new IllegalArgumentException("Validating object of type "
+				+ fieldType + " is not supported.");
+	}
+
+	private String matches(final TypeMirror fieldType, final String pattern) {
+		if (isAssignable(fieldType, CharSequence.class.getName()))
+			return pattern + ".matcher(value).matches()";
+		if (hasPublicMethod(fieldType, "matches", TypeKind.BOOLEAN,
+				String.class.getName()))
+			return "value.matches(" + pattern + ".pattern())";
+		throw new IllegalArgumentException("Validating object of type "
+				+ fieldType + " is not supported.");
+	}
+
+	private String appendPattern(final VariableElement field,
+			final String regex) {
+		try {
+			Pattern.compile(regex);
+		} catch (PatternSyntaxException e) {
+			throw new InvalidConstraintException(field, "field "
+					+ field.getSimpleName() + ": invalid @"
+					+ MatchesPattern.class.getSimpleName() + " pattern "
+					+ literal(regex) + ": " + e.getDescription(), e);
+		}
+		return appendConstant("java.util.regex.Pattern",
+				"java.util.regex.Pattern.compile(" + literal(regex) + ")");
+	}
+
+	/**
+	 * Appends the bound parsed to the type of the field, boxed for
+	 * primitives. The value is parsed here as it would be by
+	 * {@link org.beardedgeeks.spring.validation.annotations.value.NumericValueValidator}
+	 * so that invalid values are detected at compile time.
+	 * 
+	 * @return The name of the constant.
+	 * @throws InvalidConstraintException
+	 *             If the value cannot be parsed to the type of the field.
+	 */
+	private String appendBound(final VariableElement field,
+			final TypeMirror fieldType,
+			final Class<? extends Annotation> annotationType,
+			final String value) {
+		try {
+			final String typeName = boxedName(fieldType);
+			if (typeName.equals(Byte.class.getName()))
+				return appendConstant(typeName, typeName + ".valueOf((byte) "
+						+ Byte.parseByte(value) + ")");
+			else if (typeName.equals(Short.class.getName()))
+				return appendConstant(typeName, typeName
+						+ ".valueOf((short) " + Short.parseShort(value) + ")");
+			else if (typeName.equals(Integer.class.getName()))
+				return appendConstant(typeName, typeName + ".valueOf("
+						+ Integer.parseInt(value) + ")");
+			else if (typeName.equals(Long.class.getName()))
+				return appendConstant(typeName, typeName + ".valueOf("
+						+ Long.parseLong(value) + "L)");
+			else if (typeName.equals(Float.class.getName()))
+				return appendConstant(typeName, typeName + ".valueOf("
+						+ floatLiteral(Float.parseFloat(value)) + ")");
+			else if (typeName.equals(Double.class.getName()))
+				return appendConstant(typeName, typeName + ".valueOf("
+						+ doubleLiteral(Double.parseDouble(value)) + ")");
+			else if (typeName.equals(BigDecimal.class.getName()))
+				new BigDecimal(value);
+			else if (typeName.equals(BigInteger.class.getName()))
+				new BigInteger(value);
+			else if (fieldType.getKind().isPrimitive()
+					|| !isAssignable(fieldType, Number.class.getName())
+					|| !isComparable(fieldType))
+				throw new IllegalArgumentException(
+						"Validating against type " + fieldType
+								+ " is not supported.");
+			// other numbers are expected to have a constructor with a
+			// String parameter
+			return appendConstant(typeName, "new " + typeName + "("
+					+ literal(value) + ")");
+		} catch (NumberFormatException e) {
+			throw new InvalidConstraintException(field, "field "
+					+ field.getSimpleName() + ": invalid @"
+					+ annotationType.getSimpleName() + " value "
+					+ literal(value) + " for type " + fieldType, e);
+		}
+	}
+
+	/**
+	 * @return The condition under which the field value is on the wrong side
+	 *         of the bound. Primitives are compared to a literal.
+	 */
+	private static String compare(final TypeMirror fieldType,
+			final String bound, final String value, final String operator) {
+		switch (fieldType.getKind()) {
+		case BYTE:
+		case SHORT:
+		case INT:
+			return "value " + operator + " " + Integer.parseInt(value);
+		case LONG:
+			return "value " + operator + " " + Long.parseLong(value) + "L";
+		case FLOAT:
+			// same ordering as Float.compareTo
+			return "Float.compare(value, "
+					+ floatLiteral(Float.parseFloat(value)) + ") " + operator
+					+ " 0";
+		case DOUBLE:
+			// same ordering as Double.compareTo
+			return "Double.compare(value, "
+					+ doubleLiteral(Double.parseDouble(value)) + ") "
+					+ operator + " 0";
+		default:
+			// the bound compared to the value, as in the reflective path
+			return "value != null && " + bound + ".compareTo(value) "
+					+ (operator.equals("<") ? ">" : "<") + " 0";
+		}
+	}
+
+	private String appendConstant(final String typeName,
+			final String initializer) {
+		final String name = "CONSTANT_" + constantCount++;
+		constants.append("\tprivate static final ").append(typeName).append(
+				" ").append(name).append(" = ").append(initializer).append(
+				";\n");
+		return name;
+	}
+
+	private String boxedName(final TypeMirror fieldType) {
+		if (fieldType.getKind().isPrimitive())
+			return types.boxedClass((PrimitiveType) fieldType)
+					.getQualifiedName().toString();
+		return fieldType.toString();
+	}
+
+	/**
+	 * The generated validator validates the {@link Default} group, so a
+	 * constraint applies only if it has no groups or its groups include the
+	 * default group. The groups are read from the annotation mirror, as the
+	 * classes are not available to the processor.
+	 */
+	private boolean isDefaultGroup(final VariableElement field,
+			final Class<? extends Annotation> annotationType) {
+		for (final AnnotationMirror annotation : field.getAnnotationMirrors()) {
+			if (!isSameType(annotation.getAnnotationType(), annotationType
+					.getName()))
+				continue;
+			for (final Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation
+					.getElementValues().entrySet()) {
+				if (!entry.getKey().getSimpleName().contentEquals("groups"))
+					continue;
+				@SuppressWarnings("unchecked")
+				final List<? extends AnnotationValue> groups = (List<? extends AnnotationValue>) entry
+						.getValue().getValue();
+				if (groups.isEmpty())
+					return true;
+				for (final AnnotationValue group : groups)
+					if (isSameType((TypeMirror) group.getValue(), Default.class
+							.getName()))
+						return true;
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isSameType(final TypeMirror fieldType, final String name) {
+		final TypeElement element = elements.getTypeElement(name);
+		return element != null
+				&& types.isSameType(fieldType, element.asType());
+	}
+
+	private boolean isAssignable(final TypeMirror fieldType, final String name) {
+		final TypeElement element = elements.getTypeElement(name);
+		return element != null
+				&& types.isAssignable(fieldType, types.erasure(element
+						.asType()));
+	}
+
+	/**
+	 * @return <code>true</code> if the type implements
+	 *         <code>Comparable</code> of itself.
+	 */
+	private boolean isComparable(final TypeMirror fieldType) {
+		final TypeElement comparable = elements
+				.getTypeElement(Comparable.class.getName());
+		final DeclaredType comparableOfType = types.getDeclaredType(
+				comparable, fieldType);
+		return types.isAssignable(fieldType, comparableOfType);
+	}
+
+	private boolean hasPublicMethod(final TypeMirror fieldType,
+			final String name, final TypeKind returnKind,
+			final String... parameterTypes) {
+		if (fieldType.getKind() != TypeKind.DECLARED)
+			return false;
+		for (final ExecutableElement method : ElementFilter.methodsIn(elements
+				.getAllMembers((TypeElement) types.asElement(fieldType)))) {
+			if (!method.getSimpleName().contentEquals(name)
+					|| !method.getModifiers().contains(Modifier.PUBLIC)
+					|| method.getReturnType().getKind() != returnKind
+					|| method.getParameters().size() != parameterTypes.length)
+				continue;
+			boolean parametersMatch = true;
+			for (int i = 0; i < parameterTypes.length; i++)
+				parametersMatch &= isSameType(types.erasure(method
+						.getParameters().get(i).asType()), parameterTypes[i]);
+			if (parametersMatch)
+				return true;
+		}
+		return false;
+	}
+
+	private static String floatLiteral(final float value) {
+		if (Float.isNaN(value))
+			return "Float.NaN";
+		else if (Float.isInfinite(value))
+			return value > 0 ? "Float.POSITIVE_INFINITY"
+					: "Float.NEGATIVE_INFINITY";
+		return Float.toString(value) + "f";
+	}
+
+	private static String doubleLiteral(final double value) {
+		if (Double.isNaN(value))
+			return "Double.NaN";
+		else if (Double.isInfinite(value))
+			return value > 0 ? "Double.POSITIVE_INFINITY"
+					: "Double.NEGATIVE_INFINITY";
+		return Double.toString(value);
+	}
+
+	/**
+	 * @return The value as a Java string literal.
+	 */
+	static String literal(final String value) {
+		final StringBuilder literal = new StringBuilder("\"");
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				literal.append("\\\"");
+				break;
+			case '\\':
+				literal.append("\\\\");
+				break;
+			case '\n':
+				literal.append("\\n");
+				break;
+			case '\r':
+				literal.append("\\r");
+				break;
+			case '\t':
+				literal.append("\\t");
+				break;
+			default:
+				if (c < 0x20 || c > 0x7e)
+					literal.append(String.format("\\u%04x", (int) c));
+				else
+					literal.append(c);
+			}
+		}
+		return literal.append('"').toString();
+	}
+}
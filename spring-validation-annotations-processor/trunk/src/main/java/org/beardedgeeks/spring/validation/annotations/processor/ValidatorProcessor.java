@@ -0,0 +1,86 @@
+package org.beardedgeeks.spring.validation.annotations.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.JavaFileObject;
+
+import org.beardedgeeks.spring.validation.annotations.Validatable;
+
+/**
+ * Generates a plain Java validator for each {@link Validatable} class at
+ * compile time. The validator applies the built-in annotations without
+ * reflection and is found at runtime by
+ * {@link org.beardedgeeks.spring.validation.annotations.ValidatorRegistry}.
+ * Classes that cannot be validated without reflection, e.g. because of a
+ * private field without a getter, are reported with a note and left to the
+ * reflective validators. An invalid annotation value, such as a bound that is
+ * not a number of the type of the field or a malformed regular expression, is
+ * reported as an error on the field, as the reflective validators would fail
+ * on it at runtime.
+ * 
+ * @author hleinone
+ */
+@SupportedAnnotationTypes("org.beardedgeeks.spring.validation.annotations.Validatable")
+public class ValidatorProcessor extends AbstractProcessor {
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(final Set<? extends TypeElement> annotations,
+			final RoundEnvironment roundEnv) {
+		for (final Element element : roundEnv
+				.getElementsAnnotatedWith(Validatable.class)) {
+			if (element.getKind() != ElementKind.CLASS)
+				continue;
+			final TypeElement type = (TypeElement) element;
+			final ValidatorGenerator generator = new ValidatorGenerator(
+					processingEnv, type);
+			final String source;
+			try {
+				source = generator.generate();
+			} catch (InvalidConstraintException e) {
+				processingEnv.getMessager().printMessage(
+						Kind.ERROR,
+						"Invalid constraint in " + type.getQualifiedName()
+								+ ": " + e.getMessage(), e.getElement());
+				continue;
+			} catch (IllegalArgumentException e) {
+				processingEnv.getMessager().printMessage(
+						Kind.NOTE,
+						"Validator of " + type.getQualifiedName()
+								+ " not generated: " + e.getMessage(), type);
+				continue;
+			}
+			try {
+				final JavaFileObject file = processingEnv.getFiler()
+						.createSourceFile(generator.getQualifiedName(), type);
+				final Writer writer = file.openWriter();
+				try {
+					writer.write(source);
+				} finally {
+					writer.close();
+				}
+			} catch (IOException e) {
+				processingEnv.getMessager().printMessage(
+						Kind.ERROR,
+						"Could not write validator of "
+								+ type.getQualifiedName() + ": "
+								+ e.getMessage(), type);
+			}
+		}
+		// other processors may handle Validatable too
+		return false;
+	}
+}
@@ -0,0 +1,333 @@
+package org.beardedgeeks.spring.validation.annotations.processor;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.aryEq;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.isNull;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.beardedgeeks.spring.validation.annotations.ValidatorRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+/**
+ * Tests for {@link ValidatorProcessor}.
+ * 
+ * @author hleinone
+ */
+public class ValidatorProcessorTest {
+	private static final String PERSON = "package test;\n"
+			+ "import java.math.BigDecimal;\n"
+			+ "import org.beardedgeeks.spring.validation.annotations.*;\n"
+			+ "import org.beardedgeeks.spring.validation.annotations.empty.*;\n"
+			+ "import org.beardedgeeks.spring.validation.annotations.length.*;\n"
+			+ "import org.beardedgeeks.spring.validation.annotations.matches.*;\n"
+			+ "import org.beardedgeeks.spring.validation.annotations.value.*;\n"
+			+ "@Validatable\n"
+			+ "public class Person {\n"
+			+ "  @Required @MaxLength(5) @MatchesPattern(\"[a-z]+\")\n"
+			+ "  String name;\n"
+			+ "  @MinValue(\"18\") @MaxValue(value = \"150\", errorCode = \"age\")\n"
+			+ "  private int age;\n"
+			+ "  @MinValue(\"0.5\")\n"
+			+ "  public BigDecimal balance;\n"
+			+ "  @MinLength(2)\n"
+			+ "  private String code;\n"
+			+ "  public Person(String name, int age, BigDecimal balance,\n"
+			+ "      String code) {\n"
+			+ "    this.name = name; this.age = age;\n"
+			+ "    this.balance = balance; this.code = code;\n"
+			+ "  }\n"
+			+ "  public int getAge() { return age; }\n"
+			+ "  public String getCode() { return code; }\n"
+			+ "}\n";
+
+	private File directory;
+
+	private ClassLoader classLoader;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = File.createTempFile("processor", "");
+		directory.delete();
+		directory.mkdir();
+	}
+
+	@After
+	public void tearDown() {
+		delete(directory);
+	}
+
+	@Test
+	public void testProcess_valid() throws Exception {
+		compile("test.Person", PERSON);
+		final Errors errorsMock = createMock(Errors.class);
+		expect(errorsMock.hasFieldErrors((String) anyObject())).andReturn(
+				false).times(4);
+		replay(errorsMock);
+		newValidator("test.Person").validate(
+				newPerson("abc", 18, "0.5", "ab"), errorsMock);
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testProcess_invalid() throws Exception {
+		compile("test.Person", PERSON);
+		final Errors errorsMock = createMock(Errors.class);
+		expect(errorsMock.hasFieldErrors((String) anyObject())).andReturn(
+				false).times(4);
+		expect(errorsMock.getObjectName()).andReturn("person").times(3);
+		errorsMock.rejectValue("name", "person.name.matchesPattern", null,
+				null);
+		errorsMock.rejectValue(eq("age"), eq("age"),
+				aryEq(new Object[] { 150 }), (String) isNull());
+		errorsMock.rejectValue(eq("balance"), eq("person.balance.minValue"),
+				aryEq(new Object[] { new BigDecimal("0.5") }),
+				(String) isNull());
+		errorsMock.rejectValue(eq("code"), eq("person.code.minLength"),
+				aryEq(new Object[] { 2 }), (String) isNull());
+		replay(errorsMock);
+		newValidator("test.Person").validate(
+				newPerson("ab1", 151, "0.4", "a"), errorsMock);
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testProcess_hasFieldErrors() throws Exception {
+		compile("test.Person", PERSON);
+		final Errors errorsMock = createMock(Errors.class);
+		expect(errorsMock.hasFieldErrors("name")).andReturn(true);
+		expect(errorsMock.hasFieldErrors((String) anyObject())).andReturn(
+				false).times(3);
+		replay(errorsMock);
+		newValidator("test.Person").validate(
+				newPerson(null, 18, "0.5", "ab"), errorsMock);
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testProcess_supports() throws Exception {
+		compile("test.Person", PERSON);
+		final Validator validator = newValidator("test.Person");
+		assertTrue(validator.supports(classLoader.loadClass("test.Person")));
+		assertFalse(validator.supports(Object.class));
+	}
+
+	@Test
+	public void testProcess_registry() throws Exception {
+		compile("test.Person", PERSON);
+		assertEquals(classLoader.loadClass("test.Person_Validator"),
+				new ValidatorRegistry().getValidator(
+						classLoader.loadClass("test.Person")).getClass());
+	}
+
+	@Test
+	public void testProcess_privateFieldWithoutGetter() throws Exception {
+		compile("test.Hidden", "package test;\n"
+				+ "@org.beardedgeeks.spring.validation.annotations.Validatable\n"
+				+ "public class Hidden {\n"
+				+ "  @org.beardedgeeks.spring.validation.annotations.empty.Required\n"
+				+ "  private String name;\n" + "}\n");
+		assertFalse(new File(directory, "test/Hidden_Validator.class")
+				.exists());
+		final Validator fallbackMock = createMock(Validator.class);
+		assertSame(fallbackMock, new ValidatorRegistry(fallbackMock)
+				.getValidator(classLoader.loadClass("test.Hidden")));
+	}
+
+	@Test
+	public void testProcess_invalidBound() throws Exception {
+		final String output = compileFailing("test.Invalid", "package test;\n"
+				+ "@org.beardedgeeks.spring.validation.annotations.Validatable\n"
+				+ "public class Invalid {\n"
+				+ "  @org.beardedgeeks.spring.validation.annotations.value.MinValue(\"3.5\")\n"
+				+ "  public int value;\n" + "}\n");
+		assertTrue(output, output.contains("error: Invalid constraint in "
+				+ "test.Invalid: field value: invalid @MinValue value "
+				+ "\"3.5\" for type int"));
+		assertFalse(new File(directory, "test/Invalid_Validator.java")
+				.exists());
+	}
+
+	@Test
+	public void testProcess_invalidPattern() throws Exception {
+		final String output = compileFailing("test.Invalid", "package test;\n"
+				+ "@org.beardedgeeks.spring.validation.annotations.Validatable\n"
+				+ "public class Invalid {\n"
+				+ "  @org.beardedgeeks.spring.validation.annotations.matches.MatchesPattern(\"[a-z\")\n"
+				+ "  public String value;\n" + "}\n");
+		assertTrue(output, output.contains("error: Invalid constraint in "
+				+ "test.Invalid: field value: invalid @MatchesPattern "
+				+ "pattern \"[a-z\""));
+		assertFalse(new File(directory, "test/Invalid_Validator.java")
+				.exists());
+	}
+
+	@Test
+	public void testProcess_automatonEngine() throws Exception {
+		compile("test.Automaton", "package test;\n"
+				+ "import org.beardedgeeks.spring.validation.annotations.matches.MatchesPattern;\n"
+				+ "@org.beardedgeeks.spring.validation.annotations.Validatable\n"
+				+ "public class Automaton {\n"
+				+ "  @MatchesPattern(value = \"a+\", engine = MatchesPattern.Engine.AUTOMATON)\n"
+				+ "  public String value;\n" + "}\n");
+		assertFalse(new File(directory, "test/Automaton_Validator.class")
+				.exists());
+	}
+
+	@Test
+	public void testProcess_nestedClass() throws Exception {
+		compile("test.Outer", "package test;\n"
+				+ "public class Outer {\n"
+				+ "  @org.beardedgeeks.spring.validation.annotations.Validatable\n"
+				+ "  public static class Inner<T> {\n"
+				+ "    @org.beardedgeeks.spring.validation.annotations.length.MaxLength(1)\n"
+				+ "    public StringBuilder value = new StringBuilder(\"ab\");\n"
+				+ "  }\n" + "}\n");
+		final Errors errorsMock = createMock(Errors.class);
+		expect(errorsMock.hasFieldErrors("value")).andReturn(false);
+		expect(errorsMock.getObjectName()).andReturn("inner");
+		errorsMock.rejectValue(eq("value"), eq("inner.value.maxLength"),
+				aryEq(new Object[] { 1 }), (String) isNull());
+		replay(errorsMock);
+		newValidator("test.Outer$Inner").validate(
+				classLoader.loadClass("test.Outer$Inner").newInstance(),
+				errorsMock);
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testProcess_groups() throws Exception {
+		compile("test.Grouped", "package test;\n"
+				+ "@org.beardedgeeks.spring.validation.annotations.Validatable\n"
+				+ "public class Grouped {\n"
+				+ "  public interface Update {}\n"
+				+ "  @org.beardedgeeks.spring.validation.annotations.empty.Required(groups = Update.class)\n"
+				+ "  public String id;\n"
+				+ "  @org.beardedgeeks.spring.validation.annotations.empty.Required(groups = {\n"
+				+ "      org.beardedgeeks.spring.validation.annotations.Default.class, Update.class })\n"
+				+ "  public String name;\n" + "}\n");
+		final Errors errorsMock = createMock(Errors.class);
+		expect(errorsMock.hasFieldErrors("name")).andReturn(false);
+		expect(errorsMock.getObjectName()).andReturn("grouped");
+		errorsMock.rejectValue("name", "grouped.name.required", null, null);
+		replay(errorsMock);
+		newValidator("test.Grouped").validate(
+				classLoader.loadClass("test.Grouped").newInstance(),
+				errorsMock);
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testProcess_inheritedFields() throws Exception {
+		compile("test.Derived", "package test;\n"
+				+ "class Base {\n"
+				+ "  @org.beardedgeeks.spring.validation.annotations.empty.Required\n"
+				+ "  private String id;\n"
+				+ "  public String getId() { return id; }\n" + "}\n"
+				+ "@org.beardedgeeks.spring.validation.annotations.Validatable\n"
+				+ "public class Derived extends Base {\n"
+				+ "  @org.beardedgeeks.spring.validation.annotations.empty.Required\n"
+				+ "  public String name;\n" + "}\n");
+		final Errors errorsMock = createMock(Errors.class);
+		expect(errorsMock.hasFieldErrors("name")).andReturn(false);
+		expect(errorsMock.getObjectName()).andReturn("derived");
+		errorsMock.rejectValue("name", "derived.name.required", null, null);
+		expect(errorsMock.hasFieldErrors("id")).andReturn(false);
+		expect(errorsMock.getObjectName()).andReturn("derived");
+		errorsMock.rejectValue("id", "derived.id.required", null, null);
+		replay(errorsMock);
+		newValidator("test.Derived").validate(
+				classLoader.loadClass("test.Derived").newInstance(),
+				errorsMock);
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testLiteral() {
+		assertEquals("\"a\\\\d+\\\"\\n\\u00e4\"", ValidatorGenerator
+				.literal("a\\d+\"\n\u00e4"));
+	}
+
+	private void compile(final String className, final String source)
+			throws IOException {
+		assertEquals(0, run(className, source, null));
+		classLoader = new URLClassLoader(new URL[] { directory.toURI()
+				.toURL() }, getClass().getClassLoader());
+	}
+
+	/**
+	 * @return The diagnostics of the failed compilation.
+	 */
+	private String compileFailing(final String className, final String source)
+			throws IOException {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		assertEquals(1, run(className, source, output));
+		return output.toString();
+	}
+
+	private int run(final String className, final String source,
+			final OutputStream output) throws IOException {
+		final File file = new File(directory, className.replace('.',
+				File.separatorChar)
+				+ ".java");
+		file.getParentFile().mkdirs();
+		final Writer writer = new OutputStreamWriter(new FileOutputStream(
+				file), "UTF-8");
+		try {
+			writer.write(source);
+		} finally {
+			writer.close();
+		}
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		return compiler.run(null, null, output, "-classpath", System
+				.getProperty("java.class.path"), "-processor",
+				ValidatorProcessor.class.getName(), "-d", directory.getPath(),
+				"-s", directory.getPath(), file.getPath());
+	}
+
+	private Validator newValidator(final String className) throws Exception {
+		return (Validator) classLoader.loadClass(
+				className + ValidatorRegistry.GENERATED_VALIDATOR_SUFFIX)
+				.newInstance();
+	}
+
+	private Object newPerson(final String name, final int age,
+			final String balance, final String code) throws Exception {
+		return classLoader.loadClass("test.Person").getConstructor(
+				String.class, int.class, BigDecimal.class, String.class)
+				.newInstance(name, age, new BigDecimal(balance), code);
+	}
+
+	private static void delete(final File file) {
+		final File[] children = file.listFiles();
+		if (children != null)
+			for (final File child : children)
+				delete(child);
+		file.delete();
+	}
+}
@@ -0,0 +1,66 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.util.Arrays;
+
+import org.springframework.validation.Errors;
+
+/**
+ * The results of validating a chunk of consecutive objects of a batch, in
+ * the order of the objects.
+ * 
+ * @author hleinone
+ */
+final class BatchChunk {
+	private final int start;
+
+	private int validatedCount;
+
+	private int violationCount;
+
+	private int[] indexes = new int[0];
+
+	private Errors[] errors = new Errors[0];
+
+	BatchChunk(final int start) {
+		this.start = start;
+	}
+
+	/**
+	 * @return The position of the first object of the chunk in the batch.
+	 */
+	int getStart() {
+		return start;
+	}
+
+	int getValidatedCount() {
+		return validatedCount;
+	}
+
+	int getViolationCount() {
+		return violationCount;
+	}
+
+	int getIndex(final int violation) {
+		return indexes[violation];
+	}
+
+	Errors getErrors(final int violation) {
+		return errors[violation];
+	}
+
+	void addValid() {
+		validatedCount++;
+	}
+
+	void addInvalid(final Errors errors) {
+		if (violationCount == indexes.length) {
+			final int capacity = Math.max(4, violationCount * 2);
+			indexes = Arrays.copyOf(indexes, capacity);
+			this.errors = Arrays.copyOf(this.errors, capacity);
+		}
+		indexes[violationCount] = start + validatedCount;
+		this.errors[violationCount] = errors;
+		violationCount++;
+		validatedCount++;
+	}
+}
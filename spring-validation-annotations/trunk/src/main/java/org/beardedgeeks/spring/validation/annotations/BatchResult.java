@@ -0,0 +1,105 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.validation.Errors;
+
+/**
+ * The outcome of validating a batch of objects with a {@link BatchValidator}.
+ * Only the errors of the invalid objects are kept, by the position of the
+ * object in the batch.
+ * 
+ * @author hleinone
+ */
+public final class BatchResult {
+	private final Map<Integer, Errors> violations = new LinkedHashMap<Integer, Errors>();
+
+	private final int maxErrors;
+
+	private int validatedCount;
+
+	private int errorCount;
+
+	private boolean truncated;
+
+	BatchResult(final int maxErrors) {
+		this.maxErrors = maxErrors;
+	}
+
+	/**
+	 * Returns the errors of the invalid objects by their position in the
+	 * batch. The positions are in ascending order if the batch was validated
+	 * in order, see {@link BatchValidator#setOrdered(boolean)}.
+	 * 
+	 * @return The unmodifiable errors by position.
+	 */
+	public Map<Integer, Errors> getViolations() {
+		return Collections.unmodifiableMap(violations);
+	}
+
+	/**
+	 * @param index
+	 *            The position of the object in the batch.
+	 * @return The errors of the object, or <code>null</code> if the object
+	 *         was valid or not validated.
+	 */
+	public Errors getErrors(final int index) {
+		return violations.get(index);
+	}
+
+	/**
+	 * @return <code>true</code> if any object was invalid.
+	 */
+	public boolean hasErrors() {
+		return errorCount > 0;
+	}
+
+	/**
+	 * @return The total number of errors of the invalid objects.
+	 */
+	public int getErrorCount() {
+		return errorCount;
+	}
+
+	/**
+	 * @return The number of objects validated before the validation
+	 *         completed or stopped.
+	 */
+	public int getValidatedCount() {
+		return validatedCount;
+	}
+
+	/**
+	 * @return <code>true</code> if the validation stopped on reaching the
+	 *         maximum number of errors before all the objects were validated.
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	/**
+	 * Adds the results of a chunk of consecutive objects.
+	 * 
+	 * @return <code>false</code> if the maximum number of errors has been
+	 *         reached.
+	 */
+	boolean add(final BatchChunk chunk) {
+		for (int i = 0; i < chunk.getViolationCount(); i++) {
+			final Errors errors = chunk.getErrors(i);
+			violations.put(chunk.getIndex(i), errors);
+			errorCount += errors.getErrorCount();
+			if (errorCount >= maxErrors) {
+				validatedCount += chunk.getIndex(i) - chunk.getStart() + 1;
+				return false;
+			}
+		}
+		validatedCount += chunk.getValidatedCount();
+		return true;
+	}
+
+	void setTruncated() {
+		truncated = true;
+	}
+}
@@ -0,0 +1,271 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.util.Assert;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+/**
+ * Validates large collections of objects, such as imported records, in
+ * parallel. The collection is split into chunks of consecutive objects
+ * validated by a thread pool, and only the errors of the invalid objects are
+ * kept, by the position of the object in the collection. Each object is
+ * validated by the given validators supporting its class and its errors are
+ * collected to {@link ValidationErrors} named after its class, as in data
+ * binding.
+ * <p>
+ * The memory used is bounded: no more than two chunks per thread are
+ * submitted ahead of the results, and the validation stops once the maximum
+ * number of errors is reached.
+ * <p>
+ * The properties are expected to be set before the validator is used, after
+ * which it can be shared.
+ * 
+ * @author hleinone
+ * @see ExtendedValidationUtils#validateAll(Collection, Validator...)
+ */
+public class BatchValidator {
+	/**
+	 * The default number of objects validated by a single task.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 256;
+
+	/**
+	 * The default number of errors after which the validation stops.
+	 */
+	public static final int DEFAULT_MAX_ERRORS = 10000;
+
+	private final SupportingValidators validators;
+
+	private ExecutorService executor;
+
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+	private int maxErrors = DEFAULT_MAX_ERRORS;
+
+	private boolean ordered = true;
+
+	/**
+	 * Creates a batch validator applying the given validators.
+	 * 
+	 * @param validators
+	 *            The validators to apply to each object supported by them.
+	 */
+	public BatchValidator(final Validator... validators) {
+		this.validators = new SupportingValidators(validators);
+	}
+
+	/**
+	 * Sets the executor running the validation tasks. The executor is not
+	 * shut down by the validator. By default a thread pool of
+	 * {@link #setParallelism(int)} threads is created for each batch.
+	 * 
+	 * @param executor
+	 *            The executor, or <code>null</code> for a pool per batch.
+	 */
+	public void setExecutor(final ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Sets the number of threads validating a batch, which also limits the
+	 * number of chunks in progress. Defaults to the number of processors.
+	 * 
+	 * @param parallelism
+	 *            The number of threads.
+	 */
+	public void setParallelism(final int parallelism) {
+		Assert.isTrue(parallelism > 0, "Parallelism must be positive");
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Sets the number of consecutive objects validated by a single task.
+	 * Defaults to {@link #DEFAULT_CHUNK_SIZE}.
+	 * 
+	 * @param chunkSize
+	 *            The number of objects.
+	 */
+	public void setChunkSize(final int chunkSize) {
+		Assert.isTrue(chunkSize > 0, "Chunk size must be positive");
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Sets the number of errors after which the validation stops. Defaults to
+	 * {@link #DEFAULT_MAX_ERRORS}.
+	 * 
+	 * @param maxErrors
+	 *            The number of errors, or {@link Integer#MAX_VALUE} for no
+	 *            limit.
+	 */
+	public void setMaxErrors(final int maxErrors) {
+		Assert.isTrue(maxErrors > 0, "Maximum errors must be positive");
+		this.maxErrors = maxErrors;
+	}
+
+	/**
+	 * Sets whether the results are collected in the order of the objects.
+	 * Ordered results list the violations by ascending position and, when
+	 * the maximum number of errors is reached, contain exactly the errors of
+	 * the first objects. Unordered results are collected as the chunks
+	 * complete, which lets a slow chunk be overtaken and stops the validation
+	 * sooner. Defaults to <code>true</code>.
+	 * 
+	 * @param ordered
+	 *            <code>true</code> to collect the results in order.
+	 */
+	public void setOrdered(final boolean ordered) {
+		this.ordered = ordered;
+	}
+
+	/**
+	 * Validates the given objects.
+	 * 
+	 * @param targets
+	 *            The objects to validate, not containing <code>null</code>.
+	 * @return The errors of the invalid objects.
+	 * @throws IllegalArgumentException
+	 *             If an object is <code>null</code>.
+	 * @throws IllegalStateException
+	 *             If the current thread is interrupted.
+	 */
+	public BatchResult validateAll(final Collection<?> targets) {
+		Assert.notNull(targets, "Targets must not be null");
+		final ExecutorService executorService = executor != null ? executor
+				: Executors.newFixedThreadPool(parallelism);
+		try {
+			return validateAll(targets, executorService);
+		} finally {
+			if (executor == null)
+				executorService.shutdownNow();
+		}
+	}
+
+	private BatchResult validateAll(final Collection<?> targets,
+			final ExecutorService executorService) {
+		final BatchResult result = new BatchResult(maxErrors);
+		final CompletionService<BatchChunk> completionService = ordered ? null
+				: new ExecutorCompletionService<BatchChunk>(executorService);
+		final LinkedList<Future<BatchChunk>> pending = new LinkedList<Future<BatchChunk>>();
+		final AtomicInteger errorCount = new AtomicInteger();
+		final Iterator<?> iterator = targets.iterator();
+		int submitted = 0;
+		try {
+			while (true) {
+				while (pending.size() < 2 * parallelism && iterator.hasNext()) {
+					final List<Object> chunk = new ArrayList<Object>(chunkSize);
+					while (chunk.size() < chunkSize && iterator.hasNext())
+						chunk.add(iterator.next());
+					final ChunkTask task = new ChunkTask(submitted, chunk,
+							errorCount);
+					pending.add(ordered ? executorService.submit(task)
+							: completionService.submit(task));
+					submitted += chunk.size();
+				}
+				if (pending.isEmpty())
+					break;
+
+				final Future<BatchChunk> future;
+				if (ordered)
+					future = pending.removeFirst();
+				else {
+					future = completionService.take();
+					pending.remove(future);
+				}
+				if (!result.add(getChunk(future)))
+					break;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Batch validation interrupted", e);
+		} finally {
+			for (final Future<BatchChunk> future : pending)
+				future.cancel(true);
+		}
+		if (iterator.hasNext() || result.getValidatedCount() < submitted)
+			result.setTruncated();
+		return result;
+	}
+
+	private static BatchChunk getChunk(final Future<BatchChunk> future)
+			throws InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/**
+	 * Validates a single object of the batch.
+	 * 
+	 * @return The errors of the object.
+	 */
+	private Errors validate(final Object target, final int index) {
+		if (target == null)
+			throw new IllegalArgumentException("Object at position " + index
+					+ " is null");
+		return validators.validate(target);
+	}
+
+	private final class ChunkTask implements Callable<BatchChunk> {
+		private final int start;
+
+		private final List<Object> targets;
+
+		private final AtomicInteger errorCount;
+
+		private ChunkTask(final int start, final List<Object> targets,
+				final AtomicInteger errorCount) {
+			this.start = start;
+			this.targets = targets;
+			this.errorCount = errorCount;
+		}
+
+		/**
+		 * Validates the objects of the chunk, stopping when the maximum
+		 * number of errors is reached. Unordered chunks count the errors of
+		 * all the chunks, ordered ones only their own so that the errors of
+		 * the first objects are not lost.
+		 */
+		@Override
+		public BatchChunk call() {
+			final BatchChunk chunk = new BatchChunk(start);
+			int chunkErrorCount = 0;
+			for (int i = 0; i < targets.size(); i++) {
+				if ((ordered ? chunkErrorCount : errorCount.get()) >= maxErrors
+						|| Thread.currentThread().isInterrupted())
+					break;
+				final Errors errors = validate(targets.get(i), start + i);
+				if (errors.hasErrors()) {
+					chunk.addInvalid(errors);
+					chunkErrorCount += errors.getErrorCount();
+					errorCount.addAndGet(errors.getErrorCount());
+				} else
+					chunk.addValid();
+			}
+			return chunk;
+		}
+	}
+}
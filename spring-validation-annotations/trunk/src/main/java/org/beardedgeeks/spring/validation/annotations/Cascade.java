@@ -0,0 +1,22 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indicates that the value of the field is validated along with the object
+ * owning it. If the value is an array, an {@link Iterable} or a
+ * {@link java.util.Map}, its elements or values are validated instead.
+ * 
+ * @author hleinone
+ * @see CascadingValidator
+ */
+@Documented
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cascade {
+
+}
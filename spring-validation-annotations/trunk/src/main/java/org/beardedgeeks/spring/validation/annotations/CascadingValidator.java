@@ -0,0 +1,292 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.util.Assert;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+/**
+ * Validates an object graph, following the fields annotated with
+ * {@link Cascade} to the nested objects and to the elements of arrays,
+ * iterables and maps. Each object supported by the given validator is
+ * validated with the nested path of the object pushed to the errors, so the
+ * errors of e.g. the fourth line of an order are bound to
+ * <code>items[3].sku</code>.
+ * <p>
+ * An object supported by the validator or with cascaded fields is validated
+ * as an object even if it is iterable or a map. The elements of the other
+ * arrays, iterables and maps are validated only if the container is the
+ * validated object or the value of a cascaded field, not if it is itself an
+ * element.
+ * <p>
+ * The graph is walked depth first with an explicit stack instead of
+ * recursion, so deep graphs do not overflow the call stack. Each object is
+ * validated once, at the first path it is reached by, which also stops the
+ * walk at cycles. The cascaded fields and whether the validator supports a
+ * class are looked up once per class, so the validation time grows linearly
+ * with the size of the graph. The fields of the JDK classes, such as the
+ * strings and numbers of a cascaded collection, are not looked at.
+ * 
+ * @author hleinone
+ */
+public class CascadingValidator implements Validator {
+	private final Validator validator;
+
+	private final ConcurrentMap<Class<?>, CascadePlan> plans = new ConcurrentHashMap<Class<?>, CascadePlan>();
+
+	/**
+	 * Creates a validator applying a {@link CompositeFieldValidator} to the
+	 * objects of the graph.
+	 */
+	public CascadingValidator() {
+		this(new CompositeFieldValidator());
+	}
+
+	/**
+	 * Creates a validator applying the given validator to the objects of the
+	 * graph it supports.
+	 * 
+	 * @param validator
+	 *            The validator of the objects.
+	 */
+	public CascadingValidator(final Validator validator) {
+		Assert.notNull(validator, "Validator must not be null");
+		this.validator = validator;
+	}
+
+	/**
+	 * Supports the classes supported by the validator of the objects, and the
+	 * classes with cascaded fields.
+	 * 
+	 * @see org.springframework.validation.Validator#supports(Class)
+	 */
+	@Override
+	public final boolean supports(final Class<?> clazz) {
+		final CascadePlan plan = getPlan(clazz);
+		return plan.supported || plan.accessors.length > 0;
+	}
+
+	/**
+	 * Validates the object and the objects reachable from it through
+	 * cascaded fields.
+	 * 
+	 * @see org.springframework.validation.Validator#validate(Object, Errors)
+	 */
+	@Override
+	public final void validate(final Object obj, final Errors errors) {
+		final Set<Object> visited = Collections
+				.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		final LinkedList<Node> stack = new LinkedList<Node>();
+		stack.addFirst(new Node(obj, null, null, true));
+		while (!stack.isEmpty()) {
+			final Node node = stack.removeFirst();
+			if (!visited.add(node.value))
+				continue;
+			final CascadePlan plan = getPlan(node.value.getClass());
+			if (plan.supported || plan.accessors.length > 0)
+				validate(node, plan, errors, stack);
+			else if (node.cascaded)
+				pushElements(node, stack);
+		}
+	}
+
+	/**
+	 * Validates a single object and pushes the values of its cascaded fields
+	 * to the stack. The nested path is built only for the objects validated.
+	 */
+	private void validate(final Node node, final CascadePlan plan,
+			final Errors errors, final LinkedList<Node> stack) {
+		if (plan.supported) {
+			pushNestedPath(node, errors);
+			try {
+				validator.validate(node.value, errors);
+			} finally {
+				popNestedPath(node, errors);
+			}
+		}
+		// pushed in reverse to be validated in field order
+		for (int i = plan.accessors.length - 1; i >= 0; i--) {
+			final Object value;
+			if (plan.accessors[i].isAccessible())
+				value = plan.accessors[i].get(node.value);
+			else {
+				pushNestedPath(node, errors);
+				try {
+					value = plan.accessors[i].getValue(node.value, errors);
+				} finally {
+					popNestedPath(node, errors);
+				}
+			}
+			if (value != null)
+				stack.addFirst(new Node(value, node, plan.names[i], true));
+		}
+	}
+
+	private static void pushNestedPath(final Node node, final Errors errors) {
+		if (node.parent != null)
+			errors.pushNestedPath(node.getPath());
+	}
+
+	private static void popNestedPath(final Node node, final Errors errors) {
+		if (node.parent != null)
+			errors.popNestedPath();
+	}
+
+	/**
+	 * Pushes the elements of an array, an iterable or the values of a map to
+	 * the stack, in reverse to be validated in iteration order.
+	 */
+	private static void pushElements(final Node node,
+			final LinkedList<Node> stack) {
+		final Object value = node.value;
+		final List<Node> elements = new ArrayList<Node>();
+		if (value instanceof Object[]) {
+			final Object[] array = (Object[]) value;
+			for (int i = 0; i < array.length; i++)
+				addElement(elements, array[i], node, i);
+		} else if (value instanceof Iterable<?>) {
+			int i = 0;
+			for (final Object element : (Iterable<?>) value)
+				addElement(elements, element, node, i++);
+		} else if (value instanceof Map<?, ?>) {
+			for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+				addElement(elements, entry.getValue(), node, entry.getKey());
+		}
+		for (int i = elements.size() - 1; i >= 0; i--)
+			stack.addFirst(elements.get(i));
+	}
+
+	private static void addElement(final List<Node> elements,
+			final Object element, final Node container, final Object key) {
+		if (element != null)
+			elements.add(new Node(element, container, "[" + key + "]", false));
+	}
+
+	private CascadePlan getPlan(final Class<?> clazz) {
+		CascadePlan plan = plans.get(clazz);
+		if (plan == null) {
+			plan = new CascadePlan(validator.supports(clazz),
+					hasCascadedFields(clazz) ? FieldIndex.of(clazz) : null);
+			CascadePlan existing = plans.putIfAbsent(clazz, plan);
+			if (existing != null)
+				plan = existing;
+		}
+		return plan;
+	}
+
+	/**
+	 * Tests whether the class or its superclasses declare cascaded fields,
+	 * without making the fields accessible. The JDK classes are not scanned.
+	 */
+	private static boolean hasCascadedFields(final Class<?> clazz) {
+		for (Class<?> current = clazz; current != null
+				&& !isJdkClass(current); current = current.getSuperclass())
+			for (final Field field : current.getDeclaredFields())
+				if (field.isAnnotationPresent(Cascade.class))
+					return true;
+		return false;
+	}
+
+	private static boolean isJdkClass(final Class<?> clazz) {
+		final String name = clazz.getName();
+		return clazz.getClassLoader() == null || name.startsWith("java.")
+				|| name.startsWith("javax.");
+	}
+
+	/**
+	 * Whether the validator supports a class, and the cascaded fields of the
+	 * class.
+	 */
+	private static final class CascadePlan {
+		private final boolean supported;
+
+		private final String[] names;
+
+		private final FieldAccessor[] accessors;
+
+		/**
+		 * @param index
+		 *            The fields of the class, <code>null</code> if none are
+		 *            cascaded.
+		 */
+		private CascadePlan(final boolean supported, final FieldIndex index) {
+			this.supported = supported;
+			final List<Integer> cascaded = new ArrayList<Integer>();
+			if (index != null)
+				for (int i = 0; i < index.size(); i++)
+					if (index.getField(i).isAnnotationPresent(Cascade.class))
+						cascaded.add(i);
+			names = new String[cascaded.size()];
+			accessors = new FieldAccessor[cascaded.size()];
+			for (int i = 0; i < names.length; i++) {
+				names[i] = index.getField(cascaded.get(i)).getName();
+				accessors[i] = index.getAccessor(cascaded.get(i));
+			}
+		}
+	}
+
+	/**
+	 * An object of the graph, reached from its parent through a field name or
+	 * an element key.
+	 */
+	private static final class Node {
+		private final Object value;
+
+		private final Node parent;
+
+		private final String segment;
+
+		/**
+		 * Whether the object is the validated object or the value of a
+		 * cascaded field, whose elements are validated.
+		 */
+		private final boolean cascaded;
+
+		private String path;
+
+		private Node(final Object value, final Node parent,
+				final String segment, final boolean cascaded) {
+			this.value = value;
+			this.parent = parent;
+			this.segment = segment;
+			this.cascaded = cascaded;
+			if (parent == null)
+				path = "";
+		}
+
+		/**
+		 * Returns the path of the object from the validated object, appending
+		 * to the path of the nearest ancestor whose path was already built.
+		 * Only the paths asked for are kept, so the objects merely passed
+		 * through do not each hold a copy of a deep path.
+		 * 
+		 * @return The path of the object from the validated object.
+		 */
+		private String getPath() {
+			if (path != null)
+				return path;
+			final LinkedList<String> segments = new LinkedList<String>();
+			Node node = this;
+			for (; node.path == null; node = node.parent)
+				segments.addFirst(node.segment);
+			final StringBuilder builder = new StringBuilder(node.path);
+			for (final String segment : segments) {
+				if (builder.length() > 0 && segment.charAt(0) != '[')
+					builder.append('.');
+				builder.append(segment);
+			}
+			path = builder.toString();
+			return path;
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.util.ClassUtils;
+
+/**
+ * A cache of the values computed per class and shared by the validators. The
+ * values of the classes visible to the class loader of this library are held
+ * strongly. The values of the other classes, such as the classes of web
+ * applications sharing the library, are held weakly, so that the cache does
+ * not keep their class loaders from being collected when they are
+ * redeployed; such a value is computed again if it has been collected.
+ * 
+ * @author hleinone
+ * @param <V>
+ *            The type of the values.
+ */
+final class ClassCache<V> {
+	private final ConcurrentMap<Class<?>, V> strongValues = new ConcurrentHashMap<Class<?>, V>();
+
+	private final Map<Class<?>, Reference<V>> weakValues = new WeakHashMap<Class<?>, Reference<V>>();
+
+	/**
+	 * @return The value cached for the class, or <code>null</code> if there
+	 *         is none.
+	 */
+	V get(final Class<?> type) {
+		final V value = strongValues.get(type);
+		if (value != null || isCacheSafe(type))
+			return value;
+		synchronized (weakValues) {
+			final Reference<V> reference = weakValues.get(type);
+			return reference == null ? null : reference.get();
+		}
+	}
+
+	/**
+	 * Caches the value of the class unless one is cached already.
+	 * 
+	 * @return The cached value.
+	 */
+	V putIfAbsent(final Class<?> type, final V value) {
+		if (isCacheSafe(type)) {
+			final V existing = strongValues.putIfAbsent(type, value);
+			return existing != null ? existing : value;
+		}
+		synchronized (weakValues) {
+			final Reference<V> reference = weakValues.get(type);
+			final V existing = reference == null ? null : reference.get();
+			if (existing != null)
+				return existing;
+			weakValues.put(type, new WeakReference<V>(value));
+			return value;
+		}
+	}
+
+	private static boolean isCacheSafe(final Class<?> type) {
+		return ClassUtils.isCacheSafe(type, ClassCache.class.getClassLoader());
+	}
+}
@@ -0,0 +1,566 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.beardedgeeks.spring.validation.annotations.empty.RequiredValidator;
+import org.beardedgeeks.spring.validation.annotations.length.MaxLengthValidator;
+import org.beardedgeeks.spring.validation.annotations.length.MinLengthValidator;
+import org.beardedgeeks.spring.validation.annotations.matches.MatchesPattern;
+import org.beardedgeeks.spring.validation.annotations.matches.MatchesPatternValidator;
+import org.beardedgeeks.spring.validation.annotations.value.MaxValueValidator;
+import org.beardedgeeks.spring.validation.annotations.value.MinValueValidator;
+import org.springframework.util.Assert;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+/**
+ * Validates all the annotated fields of an object in a single pass. Each field
+ * is visited once and the constraints present on it are applied from the
+ * cheapest to the most expensive, see {@link FieldValidator#getCost()}, so
+ * that e.g. a length check runs before a regular expression. Constraints of
+ * equal cost are applied in the order of the given {@link FieldValidator}s. As
+ * with the individual validators, no more than one validation error is shown
+ * per field.
+ * <p>
+ * Optionally a validator class specialized for each validated class can be
+ * generated at runtime, see {@link #setGenerateValidators(boolean)}. When only
+ * the first error matters, the validation can stop at it, see
+ * {@link #setFailFast(boolean)} and {@link #isValid(Object)}. After a partial
+ * update only the changed fields need to be validated, see
+ * {@link #validateChanged(Object, Errors, Collection)}. The validation can be
+ * measured, see {@link #setValidationListener(ValidationListener)}.
+ * <p>
+ * The {@link Default} group is validated. A validator of other groups is
+ * returned by {@link #forGroups(Class...)}.
+ * <p>
+ * Unlike the individual validators, the composite is not a component, so that
+ * code applying every scanned validator does not check each constraint twice;
+ * declare it as a bean.
+ * 
+ * @author hleinone
+ */
+public class CompositeFieldValidator implements Validator {
+	private final FieldValidator[] validators;
+
+	private final ValidationGroups groups;
+
+	private final ConcurrentMap<ValidationGroups, CompositeFieldValidator> groupValidators = new ConcurrentHashMap<ValidationGroups, CompositeFieldValidator>();
+
+	private final ConcurrentMap<Class<?>, ConstrainedField[]> fields = new ConcurrentHashMap<Class<?>, ConstrainedField[]>();
+
+	private final ConcurrentMap<Class<?>, ConstrainedField[]> indexedFields = new ConcurrentHashMap<Class<?>, ConstrainedField[]>();
+
+	private final ConcurrentMap<Class<?>, Validator> generatedValidators = new ConcurrentHashMap<Class<?>, Validator>();
+
+	private volatile boolean generateValidators;
+
+	private volatile boolean failFast;
+
+	private volatile ValidationListener validationListener;
+
+	/**
+	 * Creates a validator applying the built-in annotations in the order
+	 * {@link org.beardedgeeks.spring.validation.annotations.empty.Required},
+	 * {@link org.beardedgeeks.spring.validation.annotations.length.MinLength},
+	 * {@link org.beardedgeeks.spring.validation.annotations.length.MaxLength},
+	 * {@link org.beardedgeeks.spring.validation.annotations.value.MinValue},
+	 * {@link org.beardedgeeks.spring.validation.annotations.value.MaxValue} and
+	 * {@link org.beardedgeeks.spring.validation.annotations.matches.MatchesPattern}
+	 * .
+	 */
+	public CompositeFieldValidator() {
+		this(builtIns());
+	}
+
+	/**
+	 * Creates a validator applying the annotations of the given validators in
+	 * the order of their cost and, for equal costs, in the given order.
+	 * 
+	 * @param validators
+	 *            The validators to combine.
+	 */
+	public CompositeFieldValidator(final FieldValidator... validators) {
+		Assert.notNull(validators, "Validators must not be null");
+		this.validators = validators.clone();
+		this.groups = ValidationGroups.DEFAULT;
+	}
+
+	private CompositeFieldValidator(final FieldValidator[] validators,
+			final ValidationGroups groups) {
+		this.validators = validators;
+		this.groups = groups;
+	}
+
+	/**
+	 * Creates a validator applying the built-in annotations, as
+	 * {@link #CompositeFieldValidator()}, and the annotations of the given
+	 * validators of user-defined annotations, in the order of their cost and,
+	 * for equal costs, built-in annotations first.
+	 * 
+	 * @param plugins
+	 *            The validators of the user-defined annotations.
+	 * @return The validator.
+	 */
+	public static CompositeFieldValidator withBuiltIns(
+			final FieldValidator... plugins) {
+		Assert.notNull(plugins, "Plugins must not be null");
+		final FieldValidator[] builtIns = builtIns();
+		final FieldValidator[] validators = new FieldValidator[builtIns.length
+				+ plugins.length];
+		System.arraycopy(builtIns, 0, validators, 0, builtIns.length);
+		System.arraycopy(plugins, 0, validators, builtIns.length,
+				plugins.length);
+		return new CompositeFieldValidator(validators);
+	}
+
+	private static FieldValidator[] builtIns() {
+		return new FieldValidator[] { new RequiredValidator(),
+				new MinLengthValidator(), new MaxLengthValidator(),
+				new MinValueValidator(), new MaxValueValidator(),
+				new MatchesPatternValidator() };
+	}
+
+	/**
+	 * Returns a validator applying the same annotations as this one, but only
+	 * the constraints of any of the given groups. The plans of the groups are
+	 * computed and cached by the returned validator, so keeping it makes the
+	 * group selection free at validation time. The returned validator is
+	 * cached and configured like this one when first returned.
+	 * 
+	 * @param groups
+	 *            The groups to validate, none for the {@link Default} group.
+	 * @return The validator of the groups.
+	 */
+	public final CompositeFieldValidator forGroups(final Class<?>... groups) {
+		final ValidationGroups validationGroups = ValidationGroups.of(groups);
+		if (validationGroups.equals(this.groups))
+			return this;
+		CompositeFieldValidator validator = groupValidators
+				.get(validationGroups);
+		if (validator == null) {
+			validator = new CompositeFieldValidator(validators,
+					validationGroups);
+			validator.generateValidators = generateValidators;
+			validator.failFast = failFast;
+			validator.validationListener = validationListener;
+			CompositeFieldValidator existing = groupValidators.putIfAbsent(
+					validationGroups, validator);
+			if (existing != null)
+				validator = existing;
+		}
+		return validator;
+	}
+
+	/**
+	 * @return The annotation types this validator applies.
+	 */
+	public final Set<Class<? extends Annotation>> getAnnotationTypes() {
+		final Set<Class<? extends Annotation>> annotationTypes = new LinkedHashSet<Class<? extends Annotation>>();
+		for (final FieldValidator validator : validators)
+			annotationTypes.add(validator.getAnnotationType());
+		return Collections.unmodifiableSet(annotationTypes);
+	}
+
+	/**
+	 * Tests whether this validator is configured as the validators generated
+	 * at compile time: it validates the {@link Default} group, is not fail-fast
+	 * and matches the patterns whose annotation does not choose an engine with
+	 * <code>java.util.regex</code>.
+	 * 
+	 * @return <code>true</code> if a generated validator validates as this
+	 *         validator.
+	 */
+	public final boolean isDefaultConfiguration() {
+		if (!groups.isDefault() || failFast)
+			return false;
+		for (final FieldValidator validator : validators)
+			if (validator instanceof MatchesPatternValidator
+					&& ((MatchesPatternValidator) validator).getEngine() != MatchesPattern.Engine.JAVA)
+				return false;
+		return true;
+	}
+
+	/**
+	 * Returns the annotation types of the constraints this validator applies
+	 * to the given class, none if the class has no constraints of the
+	 * validated groups.
+	 * 
+	 * @param clazz
+	 *            The validated class.
+	 * @return The annotation types present.
+	 * @throws IllegalArgumentException
+	 *             If a validator cannot be applied to an annotated field.
+	 */
+	public final Set<Class<? extends Annotation>> getConstraintTypes(
+			final Class<?> clazz) {
+		final Set<Class<? extends Annotation>> constraintTypes = new LinkedHashSet<Class<? extends Annotation>>();
+		for (final ConstrainedField field : getConstrainedFields(clazz))
+			for (final FieldValidator validator : field.getValidators())
+				constraintTypes.add(validator.getAnnotationType());
+		return Collections.unmodifiableSet(constraintTypes);
+	}
+
+	/**
+	 * @return The groups this validator validates.
+	 */
+	public final Class<?>[] getGroups() {
+		return groups.toArray();
+	}
+
+	/**
+	 * If the validatable object is annotated with {@link Validatable} return
+	 * true.
+	 * 
+	 * @see org.springframework.validation.Validator#supports(Class)
+	 */
+	@Override
+	public final boolean supports(Class<?> clazz) {
+		return clazz.isAnnotationPresent(Validatable.class);
+	}
+
+	/**
+	 * Validates each annotated field once, stopping at the first constraint
+	 * that rejects the field.
+	 * 
+	 * @see org.springframework.validation.Validator#validate(Object, Errors)
+	 */
+	@Override
+	public final void validate(Object obj, Errors errors) {
+		final ValidationListener listener = validationListener;
+		if (listener != null) {
+			validateMeasured(obj, errors, listener);
+			return;
+		}
+		if (failFast) {
+			validateFailFast(obj, errors);
+			return;
+		}
+		if (generateValidators) {
+			final Validator generated = getGeneratedValidator(obj.getClass());
+			if (generated != this) {
+				generated.validate(obj, errors);
+				return;
+			}
+		}
+
+		for (final ConstrainedField field : getConstrainedFields(obj
+				.getClass()))
+			validate(obj, field, errors);
+	}
+
+	/**
+	 * Validates the object reflectively, reporting the duration of the
+	 * validation and of each constraint and the violations to the listener.
+	 */
+	private void validateMeasured(final Object obj, final Errors errors,
+			final ValidationListener listener) {
+		final Class<?> clazz = obj.getClass();
+		final long start = System.nanoTime();
+		try {
+			for (final ConstrainedField field : getConstrainedFields(clazz))
+				if (validateMeasured(obj, field, errors, listener) && failFast)
+					return;
+		} finally {
+			listener.validated(clazz, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if an error was registered for the field.
+	 */
+	private boolean validateMeasured(final Object obj,
+			final ConstrainedField field, final Errors errors,
+			final ValidationListener listener) {
+		final String fieldName = field.getName();
+		// don't show more than one validation error per field
+		if (errors.hasFieldErrors(fieldName))
+			return false;
+
+		final FieldValidator[] fieldValidators = field.getValidators();
+		final FieldConstraint[] constraints = field.getConstraints();
+		for (int i = 0; i < constraints.length; i++) {
+			final String errorCode = constraints[i].getErrorCode(errors);
+			final long start = System.nanoTime();
+			fieldValidators[i].validate(obj, constraints[i], errors, errorCode);
+			listener.constraintValidated(fieldValidators[i]
+					.getAnnotationType(), System.nanoTime() - start);
+			if (errors.hasFieldErrors(fieldName)) {
+				listener.violated(obj.getClass(), errorCode);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Validates only the given fields of the object, e.g. the properties
+	 * changed by a partial update of an object validated before. The fields
+	 * are looked up by name in the cached {@link FieldIndex} of the class, so
+	 * the cost is proportional to the number of the changed fields rather than
+	 * to the size of the object. Names of fields without constraints, or of no
+	 * field at all, are ignored. The fields are validated reflectively in the
+	 * given order, one error per field as in
+	 * {@link #validate(Object, Errors)}, stopping at the first error if
+	 * {@link #setFailFast(boolean) fail-fast}.
+	 * 
+	 * @param obj
+	 *            The object to validate.
+	 * @param errors
+	 *            The errors object to bind validation errors.
+	 * @param fieldNames
+	 *            The names of the changed fields.
+	 */
+	public final void validateChanged(final Object obj, final Errors errors,
+			final Collection<String> fieldNames) {
+		Assert.notNull(fieldNames, "Field names must not be null");
+		if (fieldNames.isEmpty())
+			return;
+		final Class<?> clazz = obj.getClass();
+		final FieldIndex index = FieldIndex.of(clazz);
+		final ConstrainedField[] constrainedFields = getIndexedFields(clazz);
+		for (final String fieldName : fieldNames) {
+			final int i = index.indexOf(fieldName);
+			if (i < 0 || constrainedFields[i] == null)
+				continue;
+			if (!failFast)
+				validate(obj, constrainedFields[i], errors);
+			else if (validateFailFast(obj, constrainedFields[i], errors))
+				return;
+		}
+	}
+
+	private void validate(final Object obj, final ConstrainedField field,
+			final Errors errors) {
+		final String fieldName = field.getName();
+		// don't show more than one validation error per field
+		if (errors.hasFieldErrors(fieldName))
+			return;
+
+		final FieldValidator[] fieldValidators = field.getValidators();
+		final FieldConstraint[] constraints = field.getConstraints();
+		for (int i = 0; i < constraints.length; i++) {
+			if (i > 0 && errors.hasFieldErrors(fieldName))
+				break;
+			fieldValidators[i].validate(obj, constraints[i], errors,
+					constraints[i].getErrorCode(errors));
+		}
+	}
+
+	/**
+	 * Tests whether all the annotated fields of the object are valid, stopping
+	 * at the first constraint the object violates. The constraints are tested
+	 * in the same order as they are validated, without creating errors or
+	 * error codes.
+	 * 
+	 * @param obj
+	 *            The object to test.
+	 * @return <code>true</code> if the object is valid.
+	 */
+	public final boolean isValid(final Object obj) {
+		for (final ConstrainedField field : getConstrainedFields(obj
+				.getClass())) {
+			final FieldValidator[] fieldValidators = field.getValidators();
+			final FieldConstraint[] constraints = field.getConstraints();
+			for (int i = 0; i < constraints.length; i++)
+				if (!fieldValidators[i].isValid(obj, constraints[i]))
+					return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Rejects only the first constraint the object violates. The constraints
+	 * are tested without registering errors until a violation is found, which
+	 * is then validated as usual.
+	 */
+	private void validateFailFast(final Object obj, final Errors errors) {
+		for (final ConstrainedField field : getConstrainedFields(obj
+				.getClass()))
+			if (validateFailFast(obj, field, errors))
+				return;
+	}
+
+	/**
+	 * @return <code>true</code> if an error was registered for the field.
+	 */
+	private boolean validateFailFast(final Object obj,
+			final ConstrainedField field, final Errors errors) {
+		final FieldValidator[] fieldValidators = field.getValidators();
+		final FieldConstraint[] constraints = field.getConstraints();
+		for (int i = 0; i < constraints.length; i++) {
+			if (fieldValidators[i].isValid(obj, constraints[i]))
+				continue;
+			// don't show more than one validation error per field
+			if (errors.hasFieldErrors(field.getName()))
+				return false;
+			fieldValidators[i].validate(obj, constraints[i], errors,
+					constraints[i].getErrorCode(errors));
+			if (errors.hasFieldErrors(field.getName()))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Prepares the validation of the given class ahead of its first use:
+	 * creates and caches the constrained fields of the class, prepares each
+	 * constraint with its validator, see
+	 * {@link FieldValidator#warmUp(FieldConstraint)}, and generates the
+	 * validator class if enabled.
+	 * 
+	 * @param clazz
+	 *            The validated class.
+	 * @throws IllegalArgumentException
+	 *             If a validator cannot be applied to an annotated field.
+	 * @see ValidationWarmer
+	 */
+	public final void warmUp(final Class<?> clazz) {
+		for (final ConstrainedField field : getConstrainedFields(clazz)) {
+			final FieldValidator[] fieldValidators = field.getValidators();
+			final FieldConstraint[] constraints = field.getConstraints();
+			for (int i = 0; i < constraints.length; i++)
+				fieldValidators[i].warmUp(constraints[i]);
+		}
+		getIndexedFields(clazz);
+		if (generateValidators)
+			getGeneratedValidator(clazz);
+	}
+
+	/**
+	 * Sets whether the validation stops at the first constraint the object
+	 * violates, registering a single error. Valid objects are tested without
+	 * creating errors or error codes, see {@link #isValid(Object)}; the
+	 * generated validators are not used. Defaults to <code>false</code>.
+	 * 
+	 * @param failFast
+	 *            <code>true</code> to stop at the first error.
+	 */
+	public final void setFailFast(final boolean failFast) {
+		this.failFast = failFast;
+	}
+
+	/**
+	 * Sets the listener receiving the duration of the validation of each
+	 * object and of each of its constraints, and the violations, e.g. a
+	 * {@link ValidationStatistics}. While a listener is set, the objects are
+	 * validated reflectively, one constraint at a time, instead of by the
+	 * generated validators. Without a listener the validation is not measured
+	 * and costs nothing extra. Defaults to <code>null</code>.
+	 * 
+	 * @param validationListener
+	 *            The listener, or <code>null</code> to stop measuring.
+	 */
+	public final void setValidationListener(
+			final ValidationListener validationListener) {
+		this.validationListener = validationListener;
+	}
+
+	/**
+	 * Sets whether a validator class specialized for each validated class is
+	 * generated with spring-asm on first use. The generated class applies the
+	 * built-in annotations inline and calls the other validators as usual,
+	 * with the same results as the reflective path. Classes with constraints
+	 * the generator cannot handle, and all classes if spring-asm is not on the
+	 * classpath, are validated reflectively. Defaults to <code>false</code>.
+	 * 
+	 * @param generateValidators
+	 *            <code>true</code> to generate validators.
+	 */
+	public final void setGenerateValidators(final boolean generateValidators) {
+		this.generateValidators = generateValidators;
+	}
+
+	/**
+	 * @return The generated validator of the class, or this validator if none
+	 *         could be generated.
+	 */
+	private Validator getGeneratedValidator(final Class<?> clazz) {
+		Validator validator = generatedValidators.get(clazz);
+		if (validator == null) {
+			final ConstrainedField[] constrainedFields = getConstrainedFields(clazz);
+			try {
+				validator = ValidatorClassGenerator.generate(clazz,
+						constrainedFields);
+			} catch (IllegalStateException e) {
+				validator = null;
+			} catch (LinkageError e) {
+				// spring-asm is missing or the generated class is invalid
+				validator = null;
+			}
+			if (validator == null)
+				validator = this;
+			Validator existing = generatedValidators.putIfAbsent(clazz,
+					validator);
+			if (existing != null)
+				validator = existing;
+		}
+		return validator;
+	}
+
+	private ConstrainedField[] getConstrainedFields(final Class<?> clazz) {
+		ConstrainedField[] constrainedFields = fields.get(clazz);
+		if (constrainedFields == null) {
+			constrainedFields = createConstrainedFields(clazz);
+			ConstrainedField[] existing = fields.putIfAbsent(clazz,
+					constrainedFields);
+			if (existing != null)
+				constrainedFields = existing;
+		}
+		return constrainedFields;
+	}
+
+	/**
+	 * @return The constrained fields of the class by their {@link FieldIndex}
+	 *         index, <code>null</code> for the fields without constraints.
+	 */
+	private ConstrainedField[] getIndexedFields(final Class<?> clazz) {
+		ConstrainedField[] result = indexedFields.get(clazz);
+		if (result == null) {
+			final FieldIndex index = FieldIndex.of(clazz);
+			result = new ConstrainedField[index.size()];
+			for (final ConstrainedField field : getConstrainedFields(clazz)) {
+				final int i = index.indexOf(field.getName());
+				if (i >= 0)
+					result[i] = field;
+			}
+			ConstrainedField[] existing = indexedFields.putIfAbsent(clazz,
+					result);
+			if (existing != null)
+				result = existing;
+		}
+		return result;
+	}
+
+	/**
+	 * Groups the plans of the validators by field, ordering the constraints of
+	 * each field by cost.
+	 */
+	private ConstrainedField[] createConstrainedFields(final Class<?> clazz) {
+		final Map<Field, ConstrainedField> byField = new LinkedHashMap<Field, ConstrainedField>();
+		for (final FieldValidator validator : validators) {
+			for (final FieldConstraint constraint : validator
+					.getValidationPlan(clazz, groups).getConstraints()) {
+				ConstrainedField field = byField.get(constraint.getField());
+				if (field == null) {
+					field = new ConstrainedField(constraint.getFieldName());
+					byField.put(constraint.getField(), field);
+				}
+				field.add(validator, constraint);
+			}
+		}
+		final ConstrainedField[] result = byField.values().toArray(
+				new ConstrainedField[byField.size()]);
+		for (final ConstrainedField field : result)
+			field.freeze();
+		return result;
+	}
+}
@@ -0,0 +1,75 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The constraints of a single field, ordered by the cost of the validators
+ * applying them.
+ * 
+ * @author hleinone
+ */
+final class ConstrainedField {
+	private final String name;
+
+	private List<FieldValidator> validatorList = new ArrayList<FieldValidator>();
+
+	private List<FieldConstraint> constraintList = new ArrayList<FieldConstraint>();
+
+	private FieldValidator[] validators;
+
+	private FieldConstraint[] constraints;
+
+	ConstrainedField(final String name) {
+		this.name = name;
+	}
+
+	String getName() {
+		return name;
+	}
+
+	/**
+	 * @return The validators, available after {@link #freeze()}.
+	 */
+	FieldValidator[] getValidators() {
+		return validators;
+	}
+
+	/**
+	 * @return The constraints, available after {@link #freeze()}.
+	 */
+	FieldConstraint[] getConstraints() {
+		return constraints;
+	}
+
+	void add(final FieldValidator validator, final FieldConstraint constraint) {
+		validatorList.add(validator);
+		constraintList.add(constraint);
+	}
+
+	/**
+	 * Fixes the constraints, ordering them by the cost of their validators.
+	 * Constraints of equal cost keep the order they were added in.
+	 */
+	void freeze() {
+		validators = validatorList.toArray(new FieldValidator[validatorList
+				.size()]);
+		constraints = constraintList.toArray(new FieldConstraint[constraintList
+				.size()]);
+		// a stable insertion sort, fields have only a few constraints
+		for (int i = 1; i < validators.length; i++) {
+			final FieldValidator validator = validators[i];
+			final FieldConstraint constraint = constraints[i];
+			final int cost = validator.getCost();
+			int j = i;
+			for (; j > 0 && validators[j - 1].getCost() > cost; j--) {
+				validators[j] = validators[j - 1];
+				constraints[j] = constraints[j - 1];
+			}
+			validators[j] = validator;
+			constraints[j] = constraint;
+		}
+		validatorList = null;
+		constraintList = null;
+	}
+}
@@ -0,0 +1,20 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+/**
+ * The validation group of the constraints not assigned to any group. Groups
+ * are arbitrary classes, usually marker interfaces, named in the
+ * <code>groups</code> parameter of a constraint annotation:
+ * 
+ * <pre>
+ * &#064;Required(groups = { Default.class, Update.class })
+ * private Long id;
+ * </pre>
+ * 
+ * A constraint applies when the object is validated for any of its groups.
+ * Validation without groups validates the default group.
+ * 
+ * @author hleinone
+ */
+public interface Default {
+
+}
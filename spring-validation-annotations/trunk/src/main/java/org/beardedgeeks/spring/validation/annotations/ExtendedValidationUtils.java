@@ -1,9 +1,12 @@
 package org.beardedgeeks.spring.validation.annotations;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.Collection;
+import java.util.regex.Pattern;
 
 import org.springframework.util.Assert;
 import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
 
 /**
  * Utility class offering convenient methods for invoking a Validator and for
@@ -16,12 +19,30 @@ import org.springframework.validation.Errors;
  * @see org.springframework.validation.ValidationUtils
  */
 public class ExtendedValidationUtils {
+	/**
+	 * Validates the given objects in parallel with the given validators,
+	 * using a {@link BatchValidator} with the default settings. The
+	 * validation stops after {@link BatchValidator#DEFAULT_MAX_ERRORS}
+	 * errors.
+	 * 
+	 * @param targets
+	 *            the objects to validate, not containing <code>null</code>
+	 * @param validators
+	 *            the validators to apply to each object supported by them
+	 * @return the errors of the invalid objects by their position
+	 */
+	public static BatchResult validateAll(final Collection<?> targets,
+			final Validator... validators) {
+		return new BatchValidator(validators).validateAll(targets);
+	}
+
 	/**
 	 * Reject the given field with the given error code if the value does not
 	 * match the pattern. Value <code>null</code> is always considered valid.
-	 * Requires the validated object to have a public
-	 * <code>matches(java.lang.String)<code> method returning a <code>boolean</code>
-	 * value.
+	 * Requires the validated object to be a {@link CharSequence} or to have a
+	 * public <code>matches(java.lang.String)<code> method returning a
+	 * <code>boolean</code> value. Compiled patterns are cached by
+	 * {@link PatternCache}.
 	 * <p>
 	 * The object whose field is being validated does not need to be passed in
 	 * because the {@link Errors} instance can resolve field values by itself
@@ -44,9 +65,10 @@ public class ExtendedValidationUtils {
 	/**
 	 * Reject the given field with the given error code and default message if
 	 * the value does not match the pattern. Value <code>null</code> is always
-	 * considered valid. Requires the validated object to have a public
+	 * considered valid. Requires the validated object to be a
+	 * {@link CharSequence} or to have a public
 	 * <code>matches(java.lang.String)<code> method returning a <code>boolean</code>
-	 * value.
+	 * value. Compiled patterns are cached by {@link PatternCache}.
 	 * <p>
 	 * The object whose field is being validated does not need to be passed in
 	 * because the {@link Errors} instance can resolve field values by itself
@@ -73,9 +95,10 @@ public class ExtendedValidationUtils {
 	/**
 	 * Reject the given field with the given error code and error arguments if
 	 * the value does not match the pattern. Value <code>null</code> is always
-	 * considered valid. Requires the validated object to have a public
+	 * considered valid. Requires the validated object to be a
+	 * {@link CharSequence} or to have a public
 	 * <code>matches(java.lang.String)<code> method returning a <code>boolean</code>
-	 * value.
+	 * value. Compiled patterns are cached by {@link PatternCache}.
 	 * <p>
 	 * The object whose field is being validated does not need to be passed in
 	 * because the {@link Errors} instance can resolve field values by itself
@@ -103,9 +126,9 @@ public class ExtendedValidationUtils {
 	 * Reject the given field with the given error code, error arguments and
 	 * default message if the value does not match the pattern. Value
 	 * <code>null</code> is always considered valid. Requires the validated
-	 * object to have a public
+	 * object to be a {@link CharSequence} or to have a public
 	 * <code>matches(java.lang.String)<code> method returning a <code>boolean</code>
-	 * value.
+	 * value. Compiled patterns are cached by {@link PatternCache}.
 	 * <p>
 	 * The object whose field is being validated does not need to be passed in
 	 * because the {@link Errors} instance can resolve field values by itself
@@ -133,10 +156,207 @@ public class ExtendedValidationUtils {
 		final Object value = errors.getFieldValue(field);
 		if (value == null)
 			return;
+		final boolean matches;
+		if (value instanceof CharSequence)
+			matches = PatternCache.compile(pattern).matcher((CharSequence) value)
+					.matches();
+		else
+			matches = invokeMatches(value, pattern);
+		if (!matches)
+			errors.rejectValue(field, errorCode, errorArgs, defaultMessage);
+	}
+
+	/**
+	 * Reject the given field with the given error code if the value does not
+	 * match the compiled pattern. Value <code>null</code> is always considered
+	 * valid. Requires the validated object to be a {@link CharSequence} or to
+	 * have a public <code>matches(java.lang.String)<code> method returning a
+	 * <code>boolean</code> value.
+	 * <p>
+	 * The object whose field is being validated does not need to be passed in
+	 * because the {@link Errors} instance can resolve field values by itself
+	 * (it will usually hold an internal reference to the target object).
+	 * 
+	 * @param errors
+	 *            the <code>Errors</code> instance to register errors on
+	 * @param field
+	 *            the field name to check
+	 * @param pattern
+	 *            the compiled pattern to match
+	 * @param errorCode
+	 *            the error code, interpretable as message key
+	 */
+	public static void rejectIfNotMatches(final Errors errors,
+			final String field, final Pattern pattern, final String errorCode) {
+		rejectIfNotMatches(errors, field, pattern, errorCode, null, null);
+	}
+
+	/**
+	 * Reject the given field with the given error code and default message if
+	 * the value does not match the compiled pattern. Value <code>null</code>
+	 * is always considered valid. Requires the validated object to be a
+	 * {@link CharSequence} or to have a public
+	 * <code>matches(java.lang.String)<code> method returning a <code>boolean</code>
+	 * value.
+	 * <p>
+	 * The object whose field is being validated does not need to be passed in
+	 * because the {@link Errors} instance can resolve field values by itself
+	 * (it will usually hold an internal reference to the target object).
+	 * 
+	 * @param errors
+	 *            the <code>Errors</code> instance to register errors on
+	 * @param field
+	 *            the field name to check
+	 * @param pattern
+	 *            the compiled pattern to match
+	 * @param errorCode
+	 *            error code, interpretable as message key
+	 * @param defaultMessage
+	 *            fallback default message
+	 */
+	public static void rejectIfNotMatches(final Errors errors,
+			final String field, final Pattern pattern, final String errorCode,
+			final String defaultMessage) {
+		rejectIfNotMatches(errors, field, pattern, errorCode, null,
+				defaultMessage);
+	}
+
+	/**
+	 * Reject the given field with the given error code and error arguments if
+	 * the value does not match the compiled pattern. Value <code>null</code>
+	 * is always considered valid. Requires the validated object to be a
+	 * {@link CharSequence} or to have a public
+	 * <code>matches(java.lang.String)<code> method returning a <code>boolean</code>
+	 * value.
+	 * <p>
+	 * The object whose field is being validated does not need to be passed in
+	 * because the {@link Errors} instance can resolve field values by itself
+	 * (it will usually hold an internal reference to the target object).
+	 * 
+	 * @param errors
+	 *            the <code>Errors</code> instance to register errors on
+	 * @param field
+	 *            the field name to check
+	 * @param pattern
+	 *            the compiled pattern to match
+	 * @param errorCode
+	 *            the error code, interpretable as message key
+	 * @param errorArgs
+	 *            the error arguments, for argument binding via MessageFormat
+	 *            (can be <code>null</code>)
+	 */
+	public static void rejectIfNotMatches(final Errors errors,
+			final String field, final Pattern pattern, final String errorCode,
+			final Object[] errorArgs) {
+		rejectIfNotMatches(errors, field, pattern, errorCode, errorArgs, null);
+	}
+
+	/**
+	 * Reject the given field with the given error code, error arguments and
+	 * default message if the value does not match the compiled pattern. Value
+	 * <code>null</code> is always considered valid. Requires the validated
+	 * object to be a {@link CharSequence} or to have a public
+	 * <code>matches(java.lang.String)<code> method returning a <code>boolean</code>
+	 * value.
+	 * <p>
+	 * The object whose field is being validated does not need to be passed in
+	 * because the {@link Errors} instance can resolve field values by itself
+	 * (it will usually hold an internal reference to the target object).
+	 * 
+	 * @param errors
+	 *            the <code>Errors</code> instance to register errors on
+	 * @param field
+	 *            the field name to check
+	 * @param pattern
+	 *            the compiled pattern to match
+	 * @param errorCode
+	 *            the error code, interpretable as message key
+	 * @param errorArgs
+	 *            the error arguments, for argument binding via MessageFormat
+	 *            (can be <code>null</code>)
+	 * @param defaultMessage
+	 *            fallback default message
+	 */
+	public static void rejectIfNotMatches(final Errors errors,
+			final String field, final Pattern pattern, final String errorCode,
+			final Object[] errorArgs, final String defaultMessage) {
+
+		Assert.notNull(errors, "Errors object must not be null");
+		Assert.notNull(pattern, "Pattern must not be null");
+		final Object value = errors.getFieldValue(field);
+		if (value == null)
+			return;
+		if (!matches(value, pattern))
+			errors.rejectValue(field, errorCode, errorArgs, defaultMessage);
+	}
+
+	/**
+	 * Tests whether the value matches the pattern. Requires the value to be a
+	 * {@link CharSequence} or to have a public
+	 * <code>matches(java.lang.String)</code> method returning a
+	 * <code>boolean</code> value.
+	 * 
+	 * @param value
+	 *            the value to test, not <code>null</code>
+	 * @param pattern
+	 *            the pattern to match
+	 * @return <code>true</code> if the value matches the pattern
+	 * @throws IllegalArgumentException
+	 *             if validating the type of the value is not supported
+	 */
+	public static boolean matches(final Object value, final Pattern pattern) {
+		if (value instanceof CharSequence)
+			return pattern.matcher((CharSequence) value).matches();
+		return invokeMatches(value, pattern.pattern());
+	}
+
+	/**
+	 * Returns the length of the value. Requires the value to be a
+	 * {@link CharSequence} or to have a public <code>length()<code> method
+	 * returning a <code>int</code> value.
+	 * 
+	 * @param value
+	 *            the value to measure, not <code>null</code>
+	 * @return the length of the value
+	 * @throws IllegalArgumentException
+	 *             if validating the type of the value is not supported
+	 */
+	public static int length(final Object value) {
+		if (value instanceof CharSequence)
+			return ((CharSequence) value).length();
 		try {
-			if (!(Boolean) value.getClass().getMethod("matches",
-					new Class<?>[] { String.class }).invoke(value, pattern))
-				errors.rejectValue(field, errorCode, errorArgs, defaultMessage);
+			return (Integer) value.getClass().getMethod("length",
+					new Class<?>[] {}).invoke(value);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Validating object of type "
+					+ value.getClass().getName() + " is not supported.", e);
+		} catch (IllegalAccessException e) {
+			throw new IllegalArgumentException("Validating object of type "
+					+ value.getClass().getName() + " is not supported.", e);
+		} catch (InvocationTargetException e) {
+			throw new IllegalArgumentException("Validating object of type "
+					+ value.getClass().getName() + " is not supported.", e);
+		} catch (SecurityException e) {
+			throw new IllegalArgumentException("Validating object of type "
+					+ value.getClass().getName() + " is not supported.", e);
+		} catch (NoSuchMethodException e) {
+			throw new IllegalArgumentException("Validating object of type "
+					+ value.getClass().getName() + " is not supported.", e);
+		} catch (ClassCastException e) {
+			throw new IllegalArgumentException("Validating object of type "
+					+ value.getClass().getName() + " is not supported.", e);
+		}
+	}
+
+	/**
+	 * Invokes the <code>matches(java.lang.String)</code> method of a value
+	 * that is not a {@link CharSequence}.
+	 */
+	private static boolean invokeMatches(final Object value,
+			final String pattern) {
+		try {
+			return (Boolean) value.getClass().getMethod("matches",
+					new Class<?>[] { String.class }).invoke(value, pattern);
 		} catch (IllegalArgumentException e) {
 			throw new IllegalArgumentException("Validating object of type "
 					+ value.getClass().getName() + " is not supported.", e);
@@ -274,29 +494,8 @@ public class ExtendedValidationUtils {
 		final Object value = errors.getFieldValue(field);
 		if (value == null)
 			return;
-		try {
-			if ((Integer) value.getClass().getMethod("length",
-					new Class<?>[] {}).invoke(value) < minLength)
-				errors.rejectValue(field, errorCode, errorArgs, defaultMessage);
-		} catch (IllegalArgumentException e) {
-			throw new IllegalArgumentException("Validating object of type "
-					+ value.getClass().getName() + " is not supported.", e);
-		} catch (IllegalAccessException e) {
-			throw new IllegalArgumentException("Validating object of type "
-					+ value.getClass().getName() + " is not supported.", e);
-		} catch (InvocationTargetException e) {
-			throw new IllegalArgumentException("Validating object of type "
-					+ value.getClass().getName() + " is not supported.", e);
-		} catch (SecurityException e) {
-			throw new IllegalArgumentException("Validating object of type "
-					+ value.getClass().getName() + " is not supported.", e);
-		} catch (NoSuchMethodException e) {
-			throw new IllegalArgumentException("Validating object of type "
-					+ value.getClass().getName() + " is not supported.", e);
-		} catch (ClassCastException e) {
-			throw new IllegalArgumentException("Validating object of type "
-					+ value.getClass().getName() + " is not supported.", e);
-		}
+		if (length(value) < minLength)
+			errors.rejectValue(field, errorCode, errorArgs, defaultMessage);
 	}
 
 	/**
@@ -415,29 +614,8 @@ public class ExtendedValidationUtils {
 		final Object value = errors.getFieldValue(field);
 		if (value == null)
 			return;
-		try {
-			if ((Integer) value.getClass().getMethod("length",
-					new Class<?>[] {}).invoke(value) > maxLength)
-				errors.rejectValue(field, errorCode, errorArgs, defaultMessage);
-		} catch (IllegalArgumentException e) {
-			throw new IllegalArgumentException("Validating object of type "
-					+ value.getClass().getName() + " is not supported.", e);
-		} catch (IllegalAccessException e) {
-			throw new IllegalArgumentException("Validating object of type "
-					+ value.getClass().getName() + " is not supported.", e);
-		} catch (InvocationTargetException e) {
-			throw new IllegalArgumentException("Validating object of type "
-					+ value.getClass().getName() + " is not supported.", e);
-		} catch (SecurityException e) {
-			throw new IllegalArgumentException("Validating object of type "
-					+ value.getClass().getName() + " is not supported.", e);
-		} catch (NoSuchMethodException e) {
-			throw new IllegalArgumentException("Validating object of type "
-					+ value.getClass().getName() + " is not supported.", e);
-		} catch (ClassCastException e) {
-			throw new IllegalArgumentException("Validating object of type "
-					+ value.getClass().getName() + " is not supported.", e);
-		}
+		if (length(value) > maxLength)
+			errors.rejectValue(field, errorCode, errorArgs, defaultMessage);
 	}
 
 	/**
@@ -0,0 +1,155 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.lang.reflect.Field;
+
+import org.springframework.validation.Errors;
+
+/**
+ * Reads the value of an annotated field directly from the validated object.
+ * The field is made accessible once, when the accessor is created, so reading
+ * it involves no property path parsing or bean introspection. The fields of
+ * the classes of the bootstrap class loader are not made accessible. If the
+ * field cannot be made accessible, e.g. because the security manager or the
+ * module system does not allow it, the value is read through
+ * {@link Errors#getFieldValue(String)} instead.
+ * <p>
+ * Reading the field directly is visible to the validated class: its getter is
+ * not called, and the value is validated as stored rather than as formatted
+ * by the custom property editors or the conversion service of a
+ * {@link org.springframework.validation.BindingResult}. A constraint on a
+ * field whose getter computes or adapts the value, or whose value is
+ * validated in its edited text form, therefore sees a different value than
+ * through {@link Errors#getFieldValue(String)}.
+ * 
+ * @author hleinone
+ */
+public final class FieldAccessor {
+	private final Field field;
+
+	private final boolean accessible;
+
+	/**
+	 * Creates an accessor for the given field, making it accessible if
+	 * allowed and not a field of a bootstrap class.
+	 * 
+	 * @param field
+	 *            The field to read.
+	 */
+	public FieldAccessor(final Field field) {
+		this.field = field;
+		boolean accessible = false;
+		if (field.getDeclaringClass().getClassLoader() != null) {
+			try {
+				field.setAccessible(true);
+				accessible = true;
+			} catch (RuntimeException e) {
+				// a SecurityException, or an InaccessibleObjectException of
+				// a module not open to this library
+			}
+		}
+		this.accessible = accessible;
+	}
+
+	/**
+	 * @return <code>true</code> if the field can be read directly.
+	 */
+	public boolean isAccessible() {
+		return accessible;
+	}
+
+	/**
+	 * Returns the value of the field.
+	 * 
+	 * @param target
+	 *            The validated object.
+	 * @param errors
+	 *            The errors object used if the field cannot be read directly.
+	 * @return The value of the field.
+	 */
+	public Object getValue(final Object target, final Errors errors) {
+		if (!accessible)
+			return errors.getFieldValue(field.getName());
+		return get(target);
+	}
+
+	/**
+	 * Returns the value of the field. Requires the field to be
+	 * {@link #isAccessible() accessible}.
+	 * 
+	 * @param target
+	 *            The validated object.
+	 * @return The value of the field.
+	 */
+	public Object get(final Object target) {
+		try {
+			return field.get(target);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Returns the value of an <code>int</code> field, or a field convertible
+	 * to it by a widening conversion. Requires the field to be
+	 * {@link #isAccessible() accessible}.
+	 * 
+	 * @param target
+	 *            The validated object.
+	 * @return The value of the field.
+	 */
+	public int getInt(final Object target) {
+		try {
+			return field.getInt(target);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Returns the value of a <code>long</code> field. Requires the field to be
+	 * {@link #isAccessible() accessible}.
+	 * 
+	 * @param target
+	 *            The validated object.
+	 * @return The value of the field.
+	 */
+	public long getLong(final Object target) {
+		try {
+			return field.getLong(target);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Returns the value of a <code>float</code> field. Requires the field to
+	 * be {@link #isAccessible() accessible}.
+	 * 
+	 * @param target
+	 *            The validated object.
+	 * @return The value of the field.
+	 */
+	public float getFloat(final Object target) {
+		try {
+			return field.getFloat(target);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Returns the value of a <code>double</code> field. Requires the field to
+	 * be {@link #isAccessible() accessible}.
+	 * 
+	 * @param target
+	 *            The validated object.
+	 * @return The value of the field.
+	 */
+	public double getDouble(final Object target) {
+		try {
+			return field.getDouble(target);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,199 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Locale;
+
+import org.springframework.validation.Errors;
+
+/**
+ * Immutable description of a single annotated field in a
+ * {@link ValidationPlan}. Holds the resolved annotation, the error code and the
+ * accessor of the field so that they need not be looked up reflectively on
+ * every validation.
+ * 
+ * @author hleinone
+ */
+public final class FieldConstraint {
+	/**
+	 * The number of bound object names whose default error codes are kept.
+	 */
+	private static final int MAX_DEFAULT_ERROR_CODES = 8;
+
+	private static final DefaultErrorCode[] NO_DEFAULT_ERROR_CODES = new DefaultErrorCode[0];
+
+	private final Field field;
+
+	private final Annotation annotation;
+
+	private final String errorCode;
+
+	private final String defaultErrorCodeSuffix;
+
+	private final Object parameter;
+
+	private final FieldAccessor accessor;
+
+	private final Class<?>[] groups;
+
+	private volatile DefaultErrorCode[] defaultErrorCodes = NO_DEFAULT_ERROR_CODES;
+
+	FieldConstraint(final Field field, final FieldAccessor accessor,
+			final Annotation annotation, final Object parameter) {
+		this.field = field;
+		this.annotation = annotation;
+		this.parameter = parameter;
+		this.accessor = accessor;
+		this.errorCode = resolveErrorCode(annotation);
+		this.groups = resolveGroups(annotation);
+
+		String className = annotation.annotationType().getSimpleName();
+		className = className.substring(0, 1).toLowerCase(Locale.ENGLISH)
+				+ className.substring(1);
+		this.defaultErrorCodeSuffix = "." + field.getName() + "." + className;
+	}
+
+	/**
+	 * @return The annotated field.
+	 */
+	public Field getField() {
+		return field;
+	}
+
+	/**
+	 * @return The name of the annotated field.
+	 */
+	public String getFieldName() {
+		return field.getName();
+	}
+
+	/**
+	 * @return The accessor reading the value of the field.
+	 */
+	public FieldAccessor getAccessor() {
+		return accessor;
+	}
+
+	/**
+	 * @return The annotation present on the field.
+	 */
+	public Annotation getAnnotation() {
+		return annotation;
+	}
+
+	/**
+	 * @return The parameter resolved from the annotation by
+	 *         {@link FieldValidator#resolveParameter(Field, Annotation)}, or
+	 *         <code>null</code> if the validator does not resolve one.
+	 */
+	public Object getParameter() {
+		return parameter;
+	}
+
+	/**
+	 * @return The groups of the annotation, empty if the constraint belongs
+	 *         to the {@link Default} group only.
+	 */
+	public Class<?>[] getGroups() {
+		return groups.clone();
+	}
+
+	/**
+	 * Tests whether the constraint applies when validating the given groups.
+	 */
+	boolean isIncludedIn(final ValidationGroups validationGroups) {
+		return validationGroups.includesAny(groups);
+	}
+
+	/**
+	 * Returns the custom error code of the annotation or, if none is defined,
+	 * the default error code
+	 * <code>boundObjectName.fieldName.annotationClassName</code>. The default
+	 * error code is built once per bound object name, for the first few names
+	 * bound, and then reused whichever of them is bound.
+	 * 
+	 * @param errors
+	 *            The errors object holding the name of the bound object.
+	 * @return The error code.
+	 */
+	public String getErrorCode(final Errors errors) {
+		if (errorCode != null)
+			return errorCode;
+		final String objectName = errors.getObjectName();
+		final DefaultErrorCode[] codes = defaultErrorCodes;
+		for (final DefaultErrorCode code : codes)
+			if (code.objectName.equals(objectName))
+				return code.errorCode;
+		final String errorCode = objectName + defaultErrorCodeSuffix;
+		if (codes.length < MAX_DEFAULT_ERROR_CODES) {
+			// a code added concurrently may be lost and built again later
+			final DefaultErrorCode[] added = new DefaultErrorCode[codes.length + 1];
+			System.arraycopy(codes, 0, added, 0, codes.length);
+			added[codes.length] = new DefaultErrorCode(objectName, errorCode);
+			defaultErrorCodes = added;
+		}
+		return errorCode;
+	}
+
+	/**
+	 * Resolves the value of the <code>errorCode</code> method of the
+	 * annotation, if such exists.
+	 */
+	private static String resolveErrorCode(final Annotation annotation) {
+		String errorCode = null;
+		// suppress all exceptions
+		try {
+			errorCode = (String) annotation.annotationType().getDeclaredMethod(
+					"errorCode", new Class<?>[] {}).invoke(annotation);
+		} catch (IllegalArgumentException e) {
+		} catch (SecurityException e) {
+		} catch (IllegalAccessException e) {
+		} catch (InvocationTargetException e) {
+		} catch (NoSuchMethodException e) {
+		} catch (ClassCastException e) {
+		}
+		if (errorCode == null || errorCode.isEmpty())
+			return null;
+		return errorCode;
+	}
+
+	/**
+	 * Resolves the value of the <code>groups</code> method of the annotation,
+	 * if such exists.
+	 */
+	private static Class<?>[] resolveGroups(final Annotation annotation) {
+		Class<?>[] groups = null;
+		// suppress all exceptions
+		try {
+			groups = (Class<?>[]) annotation.annotationType()
+					.getDeclaredMethod("groups", new Class<?>[] {}).invoke(
+							annotation);
+		} catch (IllegalArgumentException e) {
+		} catch (SecurityException e) {
+		} catch (IllegalAccessException e) {
+		} catch (InvocationTargetException e) {
+		} catch (NoSuchMethodException e) {
+		} catch (ClassCastException e) {
+		}
+		if (groups == null)
+			return new Class<?>[0];
+		return groups;
+	}
+
+	/**
+	 * The default error code built for a bound object name. Immutable, so
+	 * that the codes can be copied and replaced without locking.
+	 */
+	private static final class DefaultErrorCode {
+		private final String objectName;
+
+		private final String errorCode;
+
+		private DefaultErrorCode(final String objectName,
+				final String errorCode) {
+			this.objectName = objectName;
+			this.errorCode = errorCode;
+		}
+	}
+}
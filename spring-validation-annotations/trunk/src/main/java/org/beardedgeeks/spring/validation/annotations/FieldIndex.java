@@ -0,0 +1,89 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Numbers the instance fields of a class, including the inherited ones, so
+ * that per-field state can be kept in arrays and bit sets. A field shadowed by
+ * a subclass is represented by the field of the subclass. The index of a
+ * class is computed once and shared, see {@link ClassCache}. The accessor of
+ * a field is created when first asked for, so only the fields actually read
+ * are made accessible.
+ * 
+ * @author hleinone
+ */
+final class FieldIndex {
+	private static final ClassCache<FieldIndex> INDEXES = new ClassCache<FieldIndex>();
+
+	private final Map<String, Integer> indexes;
+
+	private final Field[] fields;
+
+	private final FieldAccessor[] accessors;
+
+	private FieldIndex(final Class<?> type) {
+		final List<Field> fieldList = new ArrayList<Field>();
+		indexes = new HashMap<String, Integer>();
+		for (Class<?> current = type; current != null; current = current
+				.getSuperclass())
+			for (final Field field : current.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers())
+						|| field.isSynthetic()
+						|| indexes.containsKey(field.getName()))
+					continue;
+				indexes.put(field.getName(), fieldList.size());
+				fieldList.add(field);
+			}
+		fields = fieldList.toArray(new Field[fieldList.size()]);
+		accessors = new FieldAccessor[fields.length];
+	}
+
+	/**
+	 * Returns the cached index of the given class, creating it on first use.
+	 * 
+	 * @param type
+	 *            The class whose fields to index.
+	 * @return The index.
+	 */
+	static FieldIndex of(final Class<?> type) {
+		FieldIndex index = INDEXES.get(type);
+		if (index == null)
+			index = INDEXES.putIfAbsent(type, new FieldIndex(type));
+		return index;
+	}
+
+	/**
+	 * @return The number of indexed fields.
+	 */
+	int size() {
+		return fields.length;
+	}
+
+	/**
+	 * @return The index of the named field, or <code>-1</code> if the class
+	 *         has no such field.
+	 */
+	int indexOf(final String name) {
+		final Integer index = indexes.get(name);
+		return index == null ? -1 : index.intValue();
+	}
+
+	Field getField(final int index) {
+		return fields[index];
+	}
+
+	FieldAccessor getAccessor(final int index) {
+		FieldAccessor accessor = accessors[index];
+		if (accessor == null) {
+			// the accessor is immutable, so racing threads may each create one
+			accessor = new FieldAccessor(fields[index]);
+			accessors[index] = accessor;
+		}
+		return accessor;
+	}
+}
@@ -2,22 +2,51 @@ package org.beardedgeeks.spring.validation.annotations;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import org.springframework.util.ClassUtils;
 import org.springframework.validation.Errors;
 import org.springframework.validation.Validator;
 
 /**
- * Enables validation of fields in an object.
+ * Enables validation of fields in an object. The values are read from the
+ * fields themselves, not through their getters or the property editors of
+ * the {@link Errors}; see {@link FieldAccessor}.
  * 
  * @author hleinone
  * @see org.springframework.validation.Validator
  */
 public abstract class FieldValidator implements Validator {
+	/**
+	 * The relative cost of testing a value for <code>null</code> or
+	 * emptiness.
+	 */
+	public static final int NULL_CHECK_COST = 10;
+
+	/**
+	 * The relative cost of testing the length of a value.
+	 */
+	public static final int LENGTH_CHECK_COST = 20;
+
+	/**
+	 * The relative cost of comparing a numeric value.
+	 */
+	public static final int NUMERIC_CHECK_COST = 30;
+
+	/**
+	 * The relative cost of validators not declaring their cost.
+	 */
+	public static final int DEFAULT_COST = 50;
+
+	/**
+	 * The relative cost of matching a value against a regular expression.
+	 */
+	public static final int PATTERN_CHECK_COST = 100;
+
+	private volatile ConcurrentMap<Class<?>, ValidationPlan> plans;
+
 	/**
 	 * If the validatable object is annotated with {@link Validatable} return
 	 * true.
@@ -42,43 +71,217 @@ public abstract class FieldValidator implements Validator {
 	 */
 	@Override
 	public final void validate(Object obj, Errors errors) {
-		List<Field> fields = new ArrayList<Field>();
-		fields.addAll(Arrays.asList(obj.getClass().getFields()));
-		fields.addAll(Arrays.asList(obj.getClass().getDeclaredFields()));
+		validate(obj, errors, getValidationPlan(obj.getClass()));
+	}
 
-		for (final Field field : fields) {
+	/**
+	 * Validates the fields annotated with constraints of any of the given
+	 * groups, like {@link #validate(Object, Errors)} validates the
+	 * {@link Default} group. The groups are combined on each call before the
+	 * cached plan is looked up, which allocates unless only the
+	 * {@link Default} group is given; to validate other groups repeatedly,
+	 * keep the validator returned by
+	 * {@link CompositeFieldValidator#forGroups(Class...)}, which combines them
+	 * once.
+	 * 
+	 * @param obj
+	 *            The object to validate.
+	 * @param errors
+	 *            The errors object to bind validation errors.
+	 * @param groups
+	 *            The groups to validate.
+	 */
+	public final void validate(final Object obj, final Errors errors,
+			final Class<?>... groups) {
+		validate(obj, errors, getValidationPlan(obj.getClass(), groups));
+	}
+
+	private void validate(final Object obj, final Errors errors,
+			final ValidationPlan plan) {
+		for (final FieldConstraint constraint : plan.getConstraints()) {
 			// don't show more than one validation error per field
-			if (errors.hasFieldErrors(field.getName()))
+			if (errors.hasFieldErrors(constraint.getFieldName()))
 				continue;
 
-			Class<? extends Annotation> annotationType = getAnnotationType();
-			if (field.isAnnotationPresent(annotationType)) {
-				String errorCode = null;
-				// suppress all exceptions
-				try {
-					Annotation annotation = field.getAnnotation(annotationType);
-					errorCode = (String) annotation.annotationType()
-							.getDeclaredMethod("errorCode", new Class<?>[] {})
-							.invoke(annotation);
-				} catch (IllegalArgumentException e) {
-				} catch (SecurityException e) {
-				} catch (IllegalAccessException e) {
-				} catch (InvocationTargetException e) {
-				} catch (NoSuchMethodException e) {
-				} finally {
-					// default errorCode
-					if (errorCode == null || errorCode.isEmpty()) {
-						String className = annotationType.getSimpleName();
-						className = className.substring(0, 1).toLowerCase(
-								Locale.ENGLISH)
-								+ className.substring(1);
-						errorCode = errors.getObjectName() + "."
-								+ field.getName() + "." + className;
-					}
-					validate(field, errors, errorCode);
+			validate(obj, constraint, errors, constraint.getErrorCode(errors));
+		}
+	}
+
+	/**
+	 * Tests whether the fields annotated with the annotation bound to this
+	 * validator are valid, stopping at the first invalid field. No errors are
+	 * registered, so the built-in validators test the fields without creating
+	 * errors or error codes.
+	 * 
+	 * @param obj
+	 *            The object to test.
+	 * @return <code>true</code> if the object is valid.
+	 */
+	public final boolean isValid(final Object obj) {
+		final List<FieldConstraint> constraints = getValidationPlan(
+				obj.getClass()).getConstraints();
+		for (int i = 0; i < constraints.size(); i++)
+			if (!isValid(obj, constraints.get(i)))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Returns the cached {@link ValidationPlan} of the given class, creating
+	 * it on first use.
+	 * 
+	 * @param clazz
+	 *            The validated class.
+	 * @return The plan listing the fields annotated with the annotation bound
+	 *         to this validator.
+	 * @throws IllegalArgumentException
+	 *             If the validator cannot be applied to an annotated field.
+	 */
+	public final ValidationPlan getValidationPlan(Class<?> clazz) {
+		return ValidationPlan.forClass(clazz, this);
+	}
+
+	/**
+	 * Returns the cached {@link ValidationPlan} of the given class for the
+	 * given groups, creating it on first use. The groups are combined on each
+	 * call, see {@link #validate(Object, Errors, Class...)}.
+	 * 
+	 * @param clazz
+	 *            The validated class.
+	 * @param groups
+	 *            The groups to validate, none for the {@link Default} group.
+	 * @return The plan listing the fields annotated with the annotation bound
+	 *         to this validator in any of the groups.
+	 * @throws IllegalArgumentException
+	 *             If the validator cannot be applied to an annotated field.
+	 */
+	public final ValidationPlan getValidationPlan(final Class<?> clazz,
+			final Class<?>... groups) {
+		return ValidationPlan.forClass(clazz, this, groups);
+	}
+
+	final ValidationPlan getValidationPlan(final Class<?> clazz,
+			final ValidationGroups groups) {
+		return ValidationPlan.forClass(clazz, this, groups);
+	}
+
+	/**
+	 * @return The plans of the {@link Default} group created by this
+	 *         validator, see {@link ValidationPlan#forClass(Class, FieldValidator)}.
+	 *         Created on first use.
+	 */
+	final ConcurrentMap<Class<?>, ValidationPlan> getPlans() {
+		ConcurrentMap<Class<?>, ValidationPlan> result = plans;
+		if (result == null) {
+			synchronized (this) {
+				result = plans;
+				if (result == null) {
+					result = new ConcurrentHashMap<Class<?>, ValidationPlan>();
+					plans = result;
 				}
 			}
 		}
+		return result;
+	}
+
+	/**
+	 * Prepares the validation of the given class ahead of its first use:
+	 * creates the {@link ValidationPlan} of the {@link Default} group, which
+	 * resolves the parameters of the constraints, and prepares each
+	 * constraint, see {@link #warmUp(FieldConstraint)}.
+	 * 
+	 * @param clazz
+	 *            The validated class.
+	 * @throws IllegalArgumentException
+	 *             If the validator cannot be applied to an annotated field.
+	 * @see ValidationWarmer
+	 */
+	public final void warmUp(final Class<?> clazz) {
+		for (final FieldConstraint constraint : getValidationPlan(clazz)
+				.getConstraints())
+			warmUp(constraint);
+	}
+
+	/**
+	 * Extension point for resolving a parameter of the annotation once, when
+	 * the {@link ValidationPlan} of a class is created. The resolved parameter
+	 * is available from {@link FieldConstraint#getParameter()}. By default no
+	 * parameter is resolved.
+	 * 
+	 * @param field
+	 *            The annotated field.
+	 * @param annotation
+	 *            The annotation present on the field.
+	 * @return The resolved parameter, or <code>null</code>.
+	 * @throws IllegalArgumentException
+	 *             If the annotation cannot be applied to the field.
+	 */
+	protected Object resolveParameter(Field field, Annotation annotation) {
+		return null;
+	}
+
+	/**
+	 * Extension point for preparing a constraint ahead of its first
+	 * validation, for the state the validator creates lazily rather than in
+	 * {@link #resolveParameter(Field, Annotation)}. By default does nothing.
+	 * 
+	 * @param constraint
+	 *            The constraint to prepare.
+	 */
+	protected void warmUp(FieldConstraint constraint) {
+	}
+
+	/**
+	 * Extension point for the field validation using the cached
+	 * {@link FieldConstraint}. Implementations should read the value of the
+	 * field through {@link FieldConstraint#getAccessor()} and use the errors
+	 * object only for registering errors. By default delegates to
+	 * {@link #validate(Field, Errors, String)}.
+	 * 
+	 * @param target
+	 *            The validated object.
+	 * @param constraint
+	 *            The constraint to validate.
+	 * @param errors
+	 *            The errors object to bind validation errors.
+	 * @param errorCode
+	 *            The error code.
+	 */
+	protected void validate(Object target, FieldConstraint constraint,
+			Errors errors, String errorCode) {
+		validate(constraint.getField(), errors, errorCode);
+	}
+
+	/**
+	 * Extension point for testing the field using the cached
+	 * {@link FieldConstraint} without registering errors. By default validates
+	 * the field to a {@link ValidationErrors} and tests whether it was
+	 * rejected; implementations should test the value of the field directly.
+	 * 
+	 * @param target
+	 *            The validated object.
+	 * @param constraint
+	 *            The constraint to test.
+	 * @return <code>true</code> if the field is valid.
+	 */
+	protected boolean isValid(Object target, FieldConstraint constraint) {
+		final Errors errors = new ValidationErrors(target, ClassUtils
+				.getShortNameAsProperty(target.getClass()));
+		validate(target, constraint, errors, constraint.getErrorCode(errors));
+		return !errors.hasErrors();
+	}
+
+	/**
+	 * Extension point for the relative cost of validating a field. When a
+	 * field has several constraints, the cheaper ones are validated first, so
+	 * that a value rejected by a cheap check is not tested by an expensive
+	 * one. By default {@link #DEFAULT_COST}.
+	 * 
+	 * @return The cost, e.g. {@link #NULL_CHECK_COST} or
+	 *         {@link #PATTERN_CHECK_COST}.
+	 */
+	protected int getCost() {
+		return DEFAULT_COST;
 	}
 
 	/**
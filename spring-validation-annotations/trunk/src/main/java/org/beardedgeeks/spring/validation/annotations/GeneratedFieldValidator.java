@@ -0,0 +1,109 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import org.beardedgeeks.spring.validation.annotations.matches.MatchesPatternValidator;
+import org.springframework.util.StringUtils;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+/**
+ * Base class of the validators generated at runtime by
+ * {@link CompositeFieldValidator#setGenerateValidators(boolean)}. The
+ * generated subclass validates the fields of a single class in straight-line
+ * code; the constraints are referred to by their index and the methods of
+ * this class are used for the work that does not depend on the class.
+ * 
+ * @author hleinone
+ */
+public abstract class GeneratedFieldValidator implements Validator {
+	private final Class<?> type;
+
+	private final FieldValidator[] validators;
+
+	private final FieldConstraint[] constraints;
+
+	private final Object[] arguments;
+
+	/**
+	 * @param type
+	 *            The validated class.
+	 * @param validators
+	 *            The validator of each constraint.
+	 * @param constraints
+	 *            The constraints of all the fields.
+	 * @param arguments
+	 *            The error argument of each constraint, or <code>null</code>
+	 *            if the constraint has none.
+	 */
+	protected GeneratedFieldValidator(final Class<?> type,
+			final FieldValidator[] validators,
+			final FieldConstraint[] constraints, final Object[] arguments) {
+		this.type = type;
+		this.validators = validators;
+		this.constraints = constraints;
+		this.arguments = arguments;
+	}
+
+	/**
+	 * Supports only the class the validator was generated for.
+	 * 
+	 * @see org.springframework.validation.Validator#supports(Class)
+	 */
+	@Override
+	public final boolean supports(Class<?> clazz) {
+		return type.equals(clazz);
+	}
+
+	/**
+	 * @return The accessor of the field of the constraint.
+	 */
+	protected final FieldAccessor accessor(final int index) {
+		return constraints[index].getAccessor();
+	}
+
+	/**
+	 * @return <code>true</code> if the value is <code>null</code> or its
+	 *         String form is empty.
+	 */
+	protected static boolean isEmpty(final Object value) {
+		return value == null || !StringUtils.hasLength(value.toString());
+	}
+
+	/**
+	 * @return <code>true</code> if the value matches the pattern of the
+	 *         constraint.
+	 */
+	protected final boolean matches(final int index, final Object value) {
+		return ((MatchesPatternValidator) validators[index]).matches(value,
+				constraints[index]);
+	}
+
+	/**
+	 * @return The bound of the constraint compared to the value.
+	 */
+	@SuppressWarnings("unchecked")
+	protected final int compareToBound(final int index, final Object value) {
+		return ((Comparable<Object>) arguments[index]).compareTo(value);
+	}
+
+	/**
+	 * Rejects the field of the constraint with its error code and argument.
+	 */
+	protected final void reject(final int index, final Errors errors) {
+		final FieldConstraint constraint = constraints[index];
+		final Object argument = arguments[index];
+		errors.rejectValue(constraint.getFieldName(), constraint
+				.getErrorCode(errors), argument == null ? null
+				: new Object[] { argument }, null);
+	}
+
+	/**
+	 * Validates a constraint the generator has no specialized code for with
+	 * its validator.
+	 */
+	protected final void validateConstraint(final int index,
+			final Object target, final Errors errors) {
+		final FieldConstraint constraint = constraints[index];
+		validators[index].validate(target, constraint, errors, constraint
+				.getErrorCode(errors));
+	}
+}
@@ -0,0 +1,40 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indicates that the instances of the class never change once created, so
+ * the outcome of their validation can be remembered, see
+ * {@link MemoizingValidator}.
+ * 
+ * @author hleinone
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Immutable {
+	/**
+	 * How validated instances are recognized, by default by identity.
+	 */
+	Key key() default Key.IDENTITY;
+
+	/**
+	 * The strategies for recognizing an instance validated before.
+	 */
+	enum Key {
+		/**
+		 * The same instance.
+		 */
+		IDENTITY,
+
+		/**
+		 * An instance equal to it, by {@link Object#equals(Object)} and
+		 * {@link Object#hashCode()}.
+		 */
+		EQUALITY
+	}
+}
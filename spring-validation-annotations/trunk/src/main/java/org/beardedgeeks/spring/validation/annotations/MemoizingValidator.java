@@ -0,0 +1,358 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.util.Assert;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+import org.springframework.validation.Validator;
+
+/**
+ * Remembers the outcome of validating the instances of the classes annotated
+ * with {@link Immutable}. The first validation of an instance is delegated to
+ * the given validator and its errors are recorded; a repeated validation
+ * registers the recorded errors again without applying any constraints.
+ * Instances of other classes are always validated by the delegate.
+ * <p>
+ * The cache is bounded, evicting the least recently used outcome once
+ * {@link #setMaxSize(int) full}, and holds the instances weakly, so an
+ * instance is forgotten once it is no longer used elsewhere. Instances are
+ * recognized by identity or by equality, as chosen by {@link Immutable#key()}.
+ * The outcome depends on the object name of the errors, which is part of the
+ * default error codes, so the outcomes of up to eight object names are
+ * remembered per instance; a validation with yet another object name is
+ * delegated each time.
+ * <p>
+ * As with the delegate, an error is not registered for a field already
+ * rejected, whether the outcome was just recorded or remembered.
+ * 
+ * @author hleinone
+ */
+public class MemoizingValidator implements Validator {
+	/**
+	 * The default number of remembered outcomes.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 10000;
+
+	private static final int MAX_OBJECT_NAMES = 8;
+
+	private final Validator validator;
+
+	private final ConcurrentMap<Class<?>, Immutable.Key> keys = new ConcurrentHashMap<Class<?>, Immutable.Key>();
+
+	private final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+
+	private final Map<Key, Outcomes> outcomes = new LinkedHashMap<Key, Outcomes>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(
+				final Map.Entry<Key, Outcomes> eldest) {
+			return size() > maxSize;
+		}
+	};
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private volatile int maxSize = DEFAULT_MAX_SIZE;
+
+	/**
+	 * Creates a validator delegating to a {@link CompositeFieldValidator}.
+	 */
+	public MemoizingValidator() {
+		this(new CompositeFieldValidator());
+	}
+
+	/**
+	 * Creates a validator delegating to the given validator.
+	 * 
+	 * @param validator
+	 *            The validator of the instances not validated before.
+	 */
+	public MemoizingValidator(final Validator validator) {
+		Assert.notNull(validator, "Validator must not be null");
+		this.validator = validator;
+	}
+
+	/**
+	 * Sets the maximum number of remembered outcomes. Defaults to
+	 * {@link #DEFAULT_MAX_SIZE}.
+	 * 
+	 * @param maxSize
+	 *            The maximum number of outcomes.
+	 */
+	public final void setMaxSize(final int maxSize) {
+		Assert.isTrue(maxSize > 0, "Max size must be positive");
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * @see org.springframework.validation.Validator#supports(Class)
+	 */
+	@Override
+	public final boolean supports(final Class<?> clazz) {
+		return validator.supports(clazz);
+	}
+
+	/**
+	 * Registers the remembered errors of an immutable object, or validates the
+	 * object with the delegate.
+	 * 
+	 * @see org.springframework.validation.Validator#validate(Object, Errors)
+	 */
+	@Override
+	public final void validate(final Object obj, final Errors errors) {
+		final Immutable.Key keyStrategy = getKeyStrategy(obj.getClass());
+		if (keyStrategy == null) {
+			validator.validate(obj, errors);
+			return;
+		}
+		final String objectName = errors.getObjectName();
+		Outcome outcome = null;
+		synchronized (outcomes) {
+			expungeStaleEntries();
+			final Outcomes named = outcomes.get(new LookupKey(obj,
+					keyStrategy));
+			if (named != null)
+				outcome = named.get(objectName);
+		}
+		if (outcome != null)
+			hitCount.incrementAndGet();
+		else {
+			missCount.incrementAndGet();
+			final ValidationErrors recorded = new ValidationErrors(obj,
+					objectName);
+			validator.validate(obj, recorded);
+			outcome = new Outcome(objectName, recorded);
+			synchronized (outcomes) {
+				Outcomes named = outcomes.get(new LookupKey(obj, keyStrategy));
+				if (named == null) {
+					named = new Outcomes();
+					outcomes.put(new WeakKey(obj, keyStrategy, queue), named);
+				}
+				named.add(outcome);
+			}
+		}
+		outcome.register(errors);
+	}
+
+	/**
+	 * @return The number of validations answered from the cache.
+	 */
+	public final long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * @return The number of validations of immutable objects delegated.
+	 */
+	public final long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * @return The number of remembered outcomes.
+	 */
+	public final int getSize() {
+		synchronized (outcomes) {
+			expungeStaleEntries();
+			return outcomes.size();
+		}
+	}
+
+	/**
+	 * Forgets all the remembered outcomes.
+	 */
+	public final void clear() {
+		synchronized (outcomes) {
+			outcomes.clear();
+			while (queue.poll() != null)
+				;
+		}
+	}
+
+	private void expungeStaleEntries() {
+		for (Reference<?> reference = queue.poll(); reference != null; reference = queue
+				.poll())
+			outcomes.remove(reference);
+	}
+
+	/**
+	 * @return The key strategy of the class, or <code>null</code> if the
+	 *         class is not immutable.
+	 */
+	private Immutable.Key getKeyStrategy(final Class<?> clazz) {
+		Immutable.Key key = keys.get(clazz);
+		if (key == null) {
+			final Immutable immutable = clazz.getAnnotation(Immutable.class);
+			if (immutable == null)
+				return null;
+			key = immutable.key();
+			keys.putIfAbsent(clazz, key);
+		}
+		return key;
+	}
+
+	/**
+	 * The outcomes of an object for each object name it was validated for,
+	 * guarded by the lock of the cache.
+	 */
+	private static final class Outcomes {
+		private Outcome[] outcomes = new Outcome[0];
+
+		private Outcome get(final String objectName) {
+			for (final Outcome outcome : outcomes)
+				if (outcome.objectName.equals(objectName))
+					return outcome;
+			return null;
+		}
+
+		private void add(final Outcome outcome) {
+			if (outcomes.length == MAX_OBJECT_NAMES
+					|| get(outcome.objectName) != null)
+				return;
+			final Outcome[] added = new Outcome[outcomes.length + 1];
+			System.arraycopy(outcomes, 0, added, 0, outcomes.length);
+			added[outcomes.length] = outcome;
+			outcomes = added;
+		}
+	}
+
+	/**
+	 * The recorded errors of an object validated for an object name.
+	 */
+	private static final class Outcome {
+		private final String objectName;
+
+		private final String[] fields;
+
+		private final String[] codes;
+
+		private final Object[][] arguments;
+
+		private final String[] defaultMessages;
+
+		private Outcome(final String objectName, final ValidationErrors errors) {
+			this.objectName = objectName;
+			final List<ObjectError> allErrors = errors.getAllErrors();
+			final int size = allErrors.size();
+			fields = new String[size];
+			codes = new String[size];
+			arguments = new Object[size][];
+			defaultMessages = new String[size];
+			for (int i = 0; i < size; i++) {
+				final ObjectError error = allErrors.get(i);
+				if (error instanceof FieldError)
+					fields[i] = ((FieldError) error).getField();
+				codes[i] = error.getCode();
+				arguments[i] = error.getArguments();
+				defaultMessages[i] = error.getDefaultMessage();
+			}
+		}
+
+		/**
+		 * Registers the errors, except for the fields the errors have
+		 * already rejected, as the errors were recorded without them.
+		 */
+		private void register(final Errors errors) {
+			for (int i = 0; i < fields.length; i++) {
+				if (fields[i] == null)
+					errors.reject(codes[i], arguments[i], defaultMessages[i]);
+				else if (!errors.hasFieldErrors(fields[i]))
+					errors.rejectValue(fields[i], codes[i], arguments[i],
+							defaultMessages[i]);
+			}
+		}
+	}
+
+	/**
+	 * The key of a remembered outcome, comparing the objects by identity or by
+	 * equality.
+	 */
+	private interface Key {
+		Object get();
+	}
+
+	private static boolean equal(final Key key, final Immutable.Key strategy,
+			final int hash, final Object other) {
+		if (key == other)
+			return true;
+		if (!(other instanceof Key) || other.hashCode() != hash)
+			return false;
+		final Object value = key.get();
+		final Object otherValue = ((Key) other).get();
+		if (value == null || otherValue == null)
+			return false;
+		return strategy == Immutable.Key.IDENTITY ? value == otherValue
+				: value.equals(otherValue);
+	}
+
+	private static int hash(final Object value, final Immutable.Key strategy) {
+		return strategy == Immutable.Key.IDENTITY ? System
+				.identityHashCode(value) : value.hashCode();
+	}
+
+	private static final class WeakKey extends WeakReference<Object> implements
+			Key {
+		private final Immutable.Key strategy;
+
+		private final int hash;
+
+		private WeakKey(final Object value, final Immutable.Key strategy,
+				final ReferenceQueue<Object> queue) {
+			super(value, queue);
+			this.strategy = strategy;
+			this.hash = hash(value, strategy);
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			return equal(this, strategy, hash, obj);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	private static final class LookupKey implements Key {
+		private final Object value;
+
+		private final Immutable.Key strategy;
+
+		private final int hash;
+
+		private LookupKey(final Object value, final Immutable.Key strategy) {
+			this.value = value;
+			this.strategy = strategy;
+			this.hash = hash(value, strategy);
+		}
+
+		public Object get() {
+			return value;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			return equal(this, strategy, hash, obj);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+}
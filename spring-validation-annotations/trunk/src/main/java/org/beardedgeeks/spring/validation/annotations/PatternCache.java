@@ -0,0 +1,60 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Thread-safe cache of compiled regular expressions. The cache is bounded:
+ * once {@link #MAX_SIZE} patterns are cached, caching a new pattern evicts the
+ * least recently used one.
+ * 
+ * @author hleinone
+ */
+public final class PatternCache {
+	/**
+	 * The maximum number of cached patterns.
+	 */
+	public static final int MAX_SIZE = 1024;
+
+	private static final Map<String, Pattern> PATTERNS = new LinkedHashMap<String, Pattern>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(
+				final Map.Entry<String, Pattern> eldest) {
+			return size() > MAX_SIZE;
+		}
+	};
+
+	private PatternCache() {
+	}
+
+	/**
+	 * Returns the compiled form of the given regular expression.
+	 * 
+	 * @param regex
+	 *            the expression to compile
+	 * @return the compiled pattern
+	 * @throws java.util.regex.PatternSyntaxException
+	 *             if the expression's syntax is invalid
+	 */
+	public static Pattern compile(final String regex) {
+		synchronized (PATTERNS) {
+			final Pattern pattern = PATTERNS.get(regex);
+			if (pattern != null)
+				return pattern;
+		}
+		// compiled outside the lock; of concurrent compilations the first one
+		// cached wins
+		final Pattern pattern = Pattern.compile(regex);
+		synchronized (PATTERNS) {
+			final Pattern existing = PATTERNS.get(regex);
+			if (existing != null)
+				return existing;
+			PATTERNS.put(regex, pattern);
+			return pattern;
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A sum updated by many threads. The sum is kept in a single value until two
+ * updates contend for it; from then on the updates are spread over cells
+ * picked by the thread id so that they rarely contend for the same cache
+ * line. Counters never contended thus take no more memory than an
+ * {@link AtomicLong}. Reading the sum adds up the cells and is not atomic with
+ * respect to the updates.
+ * 
+ * @author hleinone
+ */
+final class StripedCounter {
+	/**
+	 * The number of longs between the used cells, a cache line of 64 bytes.
+	 */
+	private static final int PADDING = 8;
+
+	private static final int STRIPES = stripes(Runtime.getRuntime()
+			.availableProcessors());
+
+	private final AtomicLong base = new AtomicLong();
+
+	/**
+	 * The cells, created on the first contended update.
+	 */
+	private volatile AtomicLongArray cells;
+
+	/**
+	 * Adds the given value to the sum.
+	 * 
+	 * @param value
+	 *            The value to add.
+	 */
+	void add(final long value) {
+		AtomicLongArray cells = this.cells;
+		if (cells == null) {
+			final long current = base.get();
+			if (base.compareAndSet(current, current + value))
+				return;
+			cells = createCells();
+		}
+		cells.getAndAdd(((int) Thread.currentThread().getId() & (STRIPES - 1))
+				* PADDING, value);
+	}
+
+	/**
+	 * Adds one to the sum.
+	 */
+	void increment() {
+		add(1);
+	}
+
+	/**
+	 * @return The sum of the values added.
+	 */
+	long sum() {
+		long sum = base.get();
+		final AtomicLongArray cells = this.cells;
+		if (cells != null)
+			for (int i = 0; i < STRIPES; i++)
+				sum += cells.get(i * PADDING);
+		return sum;
+	}
+
+	private synchronized AtomicLongArray createCells() {
+		if (cells == null)
+			cells = new AtomicLongArray(STRIPES * PADDING);
+		return cells;
+	}
+
+	/**
+	 * @return The smallest power of two of at least twice the processors.
+	 */
+	static int stripes(final int processors) {
+		int stripes = 1;
+		while (stripes < processors * 2 && stripes < 1 << 10)
+			stripes <<= 1;
+		return stripes;
+	}
+}
@@ -0,0 +1,76 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+/**
+ * Applies the validators supporting the class of an object, collecting the
+ * errors to {@link ValidationErrors} named after the class, as in data
+ * binding. The object name and the supporting validators are looked up once
+ * per class.
+ * 
+ * @author hleinone
+ */
+final class SupportingValidators {
+	private final Validator[] validators;
+
+	private final ConcurrentMap<Class<?>, ValidatedType> types = new ConcurrentHashMap<Class<?>, ValidatedType>();
+
+	SupportingValidators(final Validator[] validators) {
+		Assert.notEmpty(validators, "Validators must not be empty");
+		this.validators = validators.clone();
+	}
+
+	/**
+	 * Validates the given object.
+	 * 
+	 * @param target
+	 *            The object to validate, not <code>null</code>.
+	 * @return The errors of the object.
+	 */
+	Errors validate(final Object target) {
+		final ValidatedType type = getValidatedType(target.getClass());
+		final Errors errors = new ValidationErrors(target, type.objectName);
+		for (final Validator validator : type.validators)
+			validator.validate(target, errors);
+		return errors;
+	}
+
+	private ValidatedType getValidatedType(final Class<?> clazz) {
+		ValidatedType type = types.get(clazz);
+		if (type == null) {
+			final List<Validator> supporting = new ArrayList<Validator>();
+			for (final Validator validator : validators)
+				if (validator.supports(clazz))
+					supporting.add(validator);
+			type = new ValidatedType(ClassUtils.getShortNameAsProperty(clazz),
+					supporting.toArray(new Validator[supporting.size()]));
+			ValidatedType existing = types.putIfAbsent(clazz, type);
+			if (existing != null)
+				type = existing;
+		}
+		return type;
+	}
+
+	/**
+	 * The object name and the supporting validators of a validated class.
+	 */
+	private static final class ValidatedType {
+		private final String objectName;
+
+		private final Validator[] validators;
+
+		private ValidatedType(final String objectName,
+				final Validator[] validators) {
+			this.objectName = objectName;
+			this.validators = validators;
+		}
+	}
+}
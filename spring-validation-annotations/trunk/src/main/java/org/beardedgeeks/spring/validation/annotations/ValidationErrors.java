@@ -0,0 +1,558 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.validation.AbstractErrors;
+import org.springframework.validation.DefaultMessageCodesResolver;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.MessageCodesResolver;
+import org.springframework.validation.ObjectError;
+
+/**
+ * An {@link Errors} implementation for validating objects with the annotation
+ * validators outside of data binding, cheaper than the binding results of
+ * Spring. The rejections are kept in arrays and turned into
+ * {@link ObjectError}s, with their message codes resolved, only when they are
+ * asked for. Whether a field of the target has been rejected is looked up from
+ * a bit set instead of scanning the errors, and nothing is allocated until the
+ * first rejection.
+ * <p>
+ * Field values are read directly from the fields of the target, following
+ * nested paths such as <code>items[3].sku</code> through fields, arrays,
+ * lists, other iterables and maps with String keys. A field that cannot be
+ * made accessible, such as a field of a JDK class, is read through its public
+ * getter instead. Unlike with a bean wrapper, a <code>null</code> value in the
+ * middle of a path yields <code>null</code>.
+ * 
+ * @author hleinone
+ */
+public class ValidationErrors extends AbstractErrors {
+	private static final long serialVersionUID = 1L;
+
+	private static final MessageCodesResolver DEFAULT_MESSAGE_CODES_RESOLVER = new DefaultMessageCodesResolver();
+
+	private static final int INITIAL_CAPACITY = 4;
+
+	private final Object target;
+
+	private final String objectName;
+
+	private MessageCodesResolver messageCodesResolver = DEFAULT_MESSAGE_CODES_RESOLVER;
+
+	private transient FieldIndex fieldIndex;
+
+	private int size;
+
+	private int fieldErrorCount;
+
+	/**
+	 * The rejected field of each error, or <code>null</code> for global
+	 * errors.
+	 */
+	private String[] fields;
+
+	private String[] codes;
+
+	private Object[][] arguments;
+
+	private String[] defaultMessages;
+
+	private Object[] rejectedValues;
+
+	/**
+	 * The errors resolved so far.
+	 */
+	private ObjectError[] errors;
+
+	/**
+	 * The rejected fields of the target, by their index in the
+	 * {@link FieldIndex}.
+	 */
+	private long[] rejectedFields;
+
+	/**
+	 * The rejected nested fields.
+	 */
+	private Set<String> rejectedPaths;
+
+	/**
+	 * Creates an empty errors object for the given target.
+	 * 
+	 * @param target
+	 *            The validated object.
+	 * @param objectName
+	 *            The name of the validated object.
+	 */
+	public ValidationErrors(final Object target, final String objectName) {
+		Assert.notNull(objectName, "Object name must not be null");
+		this.target = target;
+		this.objectName = objectName;
+	}
+
+	/**
+	 * @return The validated object.
+	 */
+	public Object getTarget() {
+		return target;
+	}
+
+	@Override
+	public String getObjectName() {
+		return objectName;
+	}
+
+	/**
+	 * Sets the resolver of the message codes of the errors. Defaults to a
+	 * {@link DefaultMessageCodesResolver}.
+	 * 
+	 * @param messageCodesResolver
+	 *            The resolver.
+	 */
+	public void setMessageCodesResolver(
+			final MessageCodesResolver messageCodesResolver) {
+		Assert.notNull(messageCodesResolver,
+				"MessageCodesResolver must not be null");
+		this.messageCodesResolver = messageCodesResolver;
+	}
+
+	/**
+	 * @return The resolver of the message codes of the errors.
+	 */
+	public MessageCodesResolver getMessageCodesResolver() {
+		return messageCodesResolver;
+	}
+
+	@Override
+	public void reject(final String errorCode, final Object[] errorArgs,
+			final String defaultMessage) {
+		add(null, errorCode, errorArgs, defaultMessage, null, null);
+	}
+
+	@Override
+	public void rejectValue(final String field, final String errorCode,
+			final Object[] errorArgs, final String defaultMessage) {
+		if ("".equals(getNestedPath()) && !StringUtils.hasLength(field)) {
+			// the target itself, as with the binding results
+			reject(errorCode, errorArgs, defaultMessage);
+			return;
+		}
+		final String fixedField = fixedField(field);
+		add(fixedField, errorCode, errorArgs, defaultMessage,
+				readPath(fixedField), null);
+	}
+
+	/**
+	 * Adds the errors of the given errors object, which must have the same
+	 * object name.
+	 * 
+	 * @see org.springframework.validation.Errors#addAllErrors(Errors)
+	 */
+	@Override
+	public void addAllErrors(final Errors errors) {
+		if (!errors.getObjectName().equals(getObjectName()))
+			throw new IllegalArgumentException(
+					"Errors object needs to have same object name");
+		for (final ObjectError error : errors.getAllErrors()) {
+			if (error instanceof FieldError) {
+				final FieldError fieldError = (FieldError) error;
+				add(fieldError.getField(), error.getCode(), error
+						.getArguments(), error.getDefaultMessage(), fieldError
+						.getRejectedValue(), error);
+			} else
+				add(null, error.getCode(), error.getArguments(), error
+						.getDefaultMessage(), null, error);
+		}
+	}
+
+	@Override
+	public boolean hasErrors() {
+		return size > 0;
+	}
+
+	@Override
+	public int getErrorCount() {
+		return size;
+	}
+
+	@Override
+	public List<ObjectError> getAllErrors() {
+		final List<ObjectError> result = new ArrayList<ObjectError>(size);
+		for (int i = 0; i < size; i++)
+			result.add(resolve(i));
+		return Collections.unmodifiableList(result);
+	}
+
+	@Override
+	public boolean hasGlobalErrors() {
+		return size > fieldErrorCount;
+	}
+
+	@Override
+	public int getGlobalErrorCount() {
+		return size - fieldErrorCount;
+	}
+
+	@Override
+	public List<ObjectError> getGlobalErrors() {
+		final List<ObjectError> result = new ArrayList<ObjectError>(
+				getGlobalErrorCount());
+		for (int i = 0; i < size; i++)
+			if (fields[i] == null)
+				result.add(resolve(i));
+		return Collections.unmodifiableList(result);
+	}
+
+	@Override
+	public ObjectError getGlobalError() {
+		for (int i = 0; i < size; i++)
+			if (fields[i] == null)
+				return resolve(i);
+		return null;
+	}
+
+	@Override
+	public boolean hasFieldErrors() {
+		return fieldErrorCount > 0;
+	}
+
+	@Override
+	public int getFieldErrorCount() {
+		return fieldErrorCount;
+	}
+
+	@Override
+	public List<FieldError> getFieldErrors() {
+		final List<FieldError> result = new ArrayList<FieldError>(
+				fieldErrorCount);
+		for (int i = 0; i < size; i++)
+			if (fields[i] != null)
+				result.add((FieldError) resolve(i));
+		return Collections.unmodifiableList(result);
+	}
+
+	@Override
+	public FieldError getFieldError() {
+		for (int i = 0; i < size; i++)
+			if (fields[i] != null)
+				return (FieldError) resolve(i);
+		return null;
+	}
+
+	/**
+	 * Answers from the bit set of the rejected fields unless the field is a
+	 * wildcard.
+	 * 
+	 * @see org.springframework.validation.Errors#hasFieldErrors(String)
+	 */
+	@Override
+	public boolean hasFieldErrors(final String field) {
+		final String fixedField = fixedField(field);
+		if (fixedField.endsWith("*"))
+			return indexOfFieldError(fixedField) >= 0;
+		return isRejected(fixedField);
+	}
+
+	@Override
+	public int getFieldErrorCount(final String field) {
+		final String fixedField = fixedField(field);
+		if (!fixedField.endsWith("*") && !isRejected(fixedField))
+			return 0;
+		int count = 0;
+		for (int i = 0; i < size; i++)
+			if (fields[i] != null && isMatchingField(fixedField, fields[i]))
+				count++;
+		return count;
+	}
+
+	@Override
+	public List<FieldError> getFieldErrors(final String field) {
+		final String fixedField = fixedField(field);
+		if (!fixedField.endsWith("*") && !isRejected(fixedField))
+			return Collections.emptyList();
+		final List<FieldError> result = new ArrayList<FieldError>();
+		for (int i = 0; i < size; i++)
+			if (fields[i] != null && isMatchingField(fixedField, fields[i]))
+				result.add((FieldError) resolve(i));
+		return Collections.unmodifiableList(result);
+	}
+
+	@Override
+	public FieldError getFieldError(final String field) {
+		final String fixedField = fixedField(field);
+		if (!fixedField.endsWith("*") && !isRejected(fixedField))
+			return null;
+		final int index = indexOfFieldError(fixedField);
+		return index < 0 ? null : (FieldError) resolve(index);
+	}
+
+	/**
+	 * Returns the rejected value if the field has been rejected and the
+	 * current value of the field otherwise.
+	 * 
+	 * @see org.springframework.validation.Errors#getFieldValue(String)
+	 */
+	@Override
+	public Object getFieldValue(final String field) {
+		return getFixedFieldValue(fixedField(field));
+	}
+
+	/**
+	 * Returns the declared type of the fields of the target and the type of
+	 * the current value of nested fields.
+	 * 
+	 * @see org.springframework.validation.Errors#getFieldType(String)
+	 */
+	@Override
+	public Class<?> getFieldType(final String field) {
+		final String fixedField = fixedField(field);
+		final int index = indexOfField(fixedField);
+		if (index >= 0)
+			return index().getField(index).getType();
+		final Object value = getFixedFieldValue(fixedField);
+		return value == null ? null : value.getClass();
+	}
+
+	private Object getFixedFieldValue(final String fixedField) {
+		if (isRejected(fixedField))
+			return rejectedValues[indexOfFieldError(fixedField)];
+		return readPath(fixedField);
+	}
+
+	private void add(final String field, final String code,
+			final Object[] args, final String defaultMessage,
+			final Object rejectedValue, final ObjectError error) {
+		ensureCapacity();
+		fields[size] = field;
+		codes[size] = code;
+		arguments[size] = args;
+		defaultMessages[size] = defaultMessage;
+		rejectedValues[size] = rejectedValue;
+		errors[size] = error;
+		size++;
+		if (field != null) {
+			fieldErrorCount++;
+			markRejected(field);
+		}
+	}
+
+	private void ensureCapacity() {
+		if (fields == null) {
+			fields = new String[INITIAL_CAPACITY];
+			codes = new String[INITIAL_CAPACITY];
+			arguments = new Object[INITIAL_CAPACITY][];
+			defaultMessages = new String[INITIAL_CAPACITY];
+			rejectedValues = new Object[INITIAL_CAPACITY];
+			errors = new ObjectError[INITIAL_CAPACITY];
+		} else if (size == fields.length) {
+			final int capacity = size * 2;
+			fields = Arrays.copyOf(fields, capacity);
+			codes = Arrays.copyOf(codes, capacity);
+			arguments = Arrays.copyOf(arguments, capacity);
+			defaultMessages = Arrays.copyOf(defaultMessages, capacity);
+			rejectedValues = Arrays.copyOf(rejectedValues, capacity);
+			errors = Arrays.copyOf(errors, capacity);
+		}
+	}
+
+	private void markRejected(final String fixedField) {
+		final int index = indexOfField(fixedField);
+		if (index >= 0) {
+			if (rejectedFields == null)
+				rejectedFields = new long[(index().size() + 63) >> 6];
+			rejectedFields[index >> 6] |= 1L << index;
+		} else {
+			if (rejectedPaths == null)
+				rejectedPaths = new HashSet<String>();
+			rejectedPaths.add(fixedField);
+		}
+	}
+
+	private boolean isRejected(final String fixedField) {
+		if (fieldErrorCount == 0)
+			return false;
+		final int index = indexOfField(fixedField);
+		if (index >= 0)
+			return rejectedFields != null
+					&& (rejectedFields[index >> 6] & 1L << index) != 0;
+		return rejectedPaths != null && rejectedPaths.contains(fixedField);
+	}
+
+	private int indexOfFieldError(final String fixedField) {
+		for (int i = 0; i < size; i++)
+			if (fields[i] != null && isMatchingField(fixedField, fields[i]))
+				return i;
+		return -1;
+	}
+
+	/**
+	 * The same matching as in
+	 * {@link AbstractErrors#isMatchingFieldError(String, FieldError)}.
+	 */
+	private static boolean isMatchingField(final String field,
+			final String rejectedField) {
+		return field.equals(rejectedField)
+				|| (field.endsWith("*") && rejectedField.startsWith(field
+						.substring(0, field.length() - 1)));
+	}
+
+	/**
+	 * @return The index of the field of the target, or <code>-1</code> if the
+	 *         field is nested or not a field of the target.
+	 */
+	private int indexOfField(final String fixedField) {
+		return target == null ? -1 : index().indexOf(fixedField);
+	}
+
+	private FieldIndex index() {
+		if (fieldIndex == null)
+			fieldIndex = FieldIndex.of(target.getClass());
+		return fieldIndex;
+	}
+
+	/**
+	 * Creates the error with its message codes on first use.
+	 */
+	private ObjectError resolve(final int index) {
+		ObjectError error = errors[index];
+		if (error == null) {
+			final String field = fields[index];
+			if (field == null)
+				error = new ObjectError(objectName, messageCodesResolver
+						.resolveMessageCodes(codes[index], objectName),
+						arguments[index], defaultMessages[index]);
+			else {
+				final int fieldIndex = indexOfField(field);
+				final Object rejectedValue = rejectedValues[index];
+				final Class<?> fieldType = fieldIndex >= 0 ? index().getField(
+						fieldIndex).getType()
+						: rejectedValue == null ? null : rejectedValue
+								.getClass();
+				error = new FieldError(objectName, field, rejectedValue, false,
+						messageCodesResolver.resolveMessageCodes(codes[index],
+								objectName, field, fieldType),
+						arguments[index], defaultMessages[index]);
+			}
+			errors[index] = error;
+		}
+		return error;
+	}
+
+	/**
+	 * Reads the value of a possibly nested field of the target.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the path is invalid.
+	 */
+	private Object readPath(final String path) {
+		if (path.indexOf('.') < 0 && path.indexOf('[') < 0)
+			return target == null ? null : readField(target, path, path);
+
+		Object value = target;
+		int position = 0;
+		final int length = path.length();
+		while (position < length) {
+			if (value == null)
+				return null;
+			final char c = path.charAt(position);
+			if (c == '.')
+				position++;
+			else if (c == '[') {
+				final int end = path.indexOf(']', position);
+				if (end < 0)
+					throw new IllegalArgumentException("Invalid field path '"
+							+ path + "'");
+				value = readElement(value, path.substring(position + 1, end),
+						path);
+				position = end + 1;
+			} else {
+				int end = position;
+				while (end < length && path.charAt(end) != '.'
+						&& path.charAt(end) != '[')
+					end++;
+				value = readField(value, path.substring(position, end), path);
+				position = end;
+			}
+		}
+		return value;
+	}
+
+	private Object readField(final Object value, final String name,
+			final String path) {
+		final FieldIndex index = value == target ? index() : FieldIndex
+				.of(value.getClass());
+		final int fieldIndex = index.indexOf(name);
+		if (fieldIndex < 0)
+			throw new IllegalArgumentException("Invalid field path '" + path
+					+ "': " + value.getClass().getName() + " has no field '"
+					+ name + "'");
+		final FieldAccessor accessor = index.getAccessor(fieldIndex);
+		if (accessor.isAccessible())
+			return accessor.get(value);
+		return readProperty(value, name, path);
+	}
+
+	private static Object readProperty(final Object value, final String name,
+			final String path) {
+		final String suffix = StringUtils.capitalize(name);
+		Method getter = ClassUtils.getMethodIfAvailable(value.getClass(), "get"
+				+ suffix);
+		if (getter == null)
+			getter = ClassUtils.getMethodIfAvailable(value.getClass(), "is"
+					+ suffix);
+		if (getter == null)
+			throw new IllegalArgumentException("Invalid field path '" + path
+					+ "': field '" + name + "' of "
+					+ value.getClass().getName()
+					+ " is not accessible and has no getter");
+		return ReflectionUtils.invokeMethod(getter, value);
+	}
+
+	private static Object readElement(final Object value, final String key,
+			final String path) {
+		try {
+			if (value.getClass().isArray())
+				return Array.get(value, Integer.parseInt(key));
+			if (value instanceof List<?>)
+				return ((List<?>) value).get(Integer.parseInt(key));
+			if (value instanceof Map<?, ?>)
+				return ((Map<?, ?>) value).get(unquote(key));
+			if (value instanceof Iterable<?>) {
+				final Iterator<?> iterator = ((Iterable<?>) value).iterator();
+				for (int i = Integer.parseInt(key); i > 0; i--)
+					iterator.next();
+				return iterator.next();
+			}
+		} catch (IndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Invalid field path '" + path
+					+ "': index " + key + " out of bounds", e);
+		} catch (NoSuchElementException e) {
+			throw new IllegalArgumentException("Invalid field path '" + path
+					+ "': index " + key + " out of bounds", e);
+		}
+		throw new IllegalArgumentException("Invalid field path '" + path
+				+ "': " + value.getClass().getName() + " cannot be indexed");
+	}
+
+	private static String unquote(final String key) {
+		if (key.length() >= 2
+				&& (key.charAt(0) == '\'' || key.charAt(0) == '"')
+				&& key.charAt(key.length() - 1) == key.charAt(0))
+			return key.substring(1, key.length() - 1);
+		return key;
+	}
+}
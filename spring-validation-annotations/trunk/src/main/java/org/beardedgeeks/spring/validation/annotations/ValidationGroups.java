@@ -0,0 +1,122 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.springframework.util.Assert;
+
+/**
+ * An immutable combination of validation groups, used as the key of the plans
+ * created for it. The order and repetition of the groups do not matter.
+ * 
+ * @author hleinone
+ */
+final class ValidationGroups {
+	/**
+	 * The {@link Default} group alone.
+	 */
+	static final ValidationGroups DEFAULT = new ValidationGroups(
+			new Class<?>[] { Default.class });
+
+	private static final Comparator<Class<?>> BY_NAME = new Comparator<Class<?>>() {
+		public int compare(final Class<?> o1, final Class<?> o2) {
+			return o1.getName().compareTo(o2.getName());
+		}
+	};
+
+	private final Class<?>[] groups;
+
+	private final int hashCode;
+
+	private ValidationGroups(final Class<?>[] groups) {
+		this.groups = groups;
+		this.hashCode = Arrays.hashCode(groups);
+	}
+
+	/**
+	 * Returns the combination of the given groups. No groups means the
+	 * {@link Default} group.
+	 * 
+	 * @param groups
+	 *            The groups.
+	 * @return The combination.
+	 */
+	static ValidationGroups of(final Class<?>... groups) {
+		Assert.notNull(groups, "Groups must not be null");
+		if (groups.length == 0
+				|| (groups.length == 1 && groups[0] == Default.class))
+			return DEFAULT;
+		if (groups.length == 1) {
+			Assert.notNull(groups[0], "Group must not be null");
+			return new ValidationGroups(new Class<?>[] { groups[0] });
+		}
+		final Set<Class<?>> unique = new LinkedHashSet<Class<?>>();
+		for (final Class<?> group : groups) {
+			Assert.notNull(group, "Group must not be null");
+			unique.add(group);
+		}
+		final Class<?>[] sorted = unique.toArray(new Class<?>[unique.size()]);
+		Arrays.sort(sorted, BY_NAME);
+		return new ValidationGroups(sorted);
+	}
+
+	/**
+	 * @return A copy of the groups.
+	 */
+	Class<?>[] toArray() {
+		return groups.clone();
+	}
+
+	/**
+	 * @return <code>true</code> if this is the {@link Default} group alone.
+	 */
+	boolean isDefault() {
+		return equals(DEFAULT);
+	}
+
+	/**
+	 * Tests whether a constraint of the given groups applies when validating
+	 * this combination. A constraint without groups belongs to the
+	 * {@link Default} group.
+	 * 
+	 * @param constraintGroups
+	 *            The groups of the constraint.
+	 * @return <code>true</code> if any of the groups is in this combination.
+	 */
+	boolean includesAny(final Class<?>[] constraintGroups) {
+		if (constraintGroups.length == 0)
+			return includes(Default.class);
+		for (final Class<?> group : constraintGroups)
+			if (includes(group))
+				return true;
+		return false;
+	}
+
+	private boolean includes(final Class<?> group) {
+		for (final Class<?> candidate : groups)
+			if (candidate == group)
+				return true;
+		return false;
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof ValidationGroups))
+			return false;
+		return Arrays.equals(groups, ((ValidationGroups) obj).groups);
+	}
+
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(groups);
+	}
+}
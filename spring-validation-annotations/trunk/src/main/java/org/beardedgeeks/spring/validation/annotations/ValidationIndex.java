@@ -0,0 +1,362 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * A snapshot of the annotated fields of validatable classes, written at build
+ * time to {@link #LOCATION} on the classpath by the <code>index</code> goal of
+ * the <code>spring-validation-annotations-maven-plugin</code>. When a
+ * {@link ValidationPlan} is created for an indexed class, the fields the index
+ * lists with the annotation are looked up by name in the classes declaring
+ * them, instead of reflecting every field of the class hierarchy. The
+ * {@link ValidationWarmer} takes the classes to prepare from the index instead
+ * of scanning the packages.
+ * <p>
+ * A class is taken from the index only if none of the class files of its
+ * hierarchy was modified after the index, as told by the timestamps of the
+ * directories or archives the classes and the index were loaded from. The
+ * other classes, and the classes not indexed at all, are reflected as usual.
+ * The indexes visible to a class loader are read once, when a plan of one of
+ * its classes is first created.
+ * 
+ * @author hleinone
+ */
+public final class ValidationIndex {
+	/**
+	 * The location of the index on the classpath.
+	 */
+	public static final String LOCATION = "META-INF/spring-validation-annotations/validation.idx";
+
+	private static final int MAGIC = 0x53564149;
+
+	private static final int VERSION = 2;
+
+	private static final ValidationIndex EMPTY = new ValidationIndex(
+			Collections.<String, IndexedClass> emptyMap());
+
+	private static final Map<ClassLoader, ValidationIndex> INDEXES = new WeakHashMap<ClassLoader, ValidationIndex>();
+
+	private final Map<String, IndexedClass> classes;
+
+	/**
+	 * Whether the checked classes are up to date, keyed by class name so that
+	 * the index does not keep its class loader alive.
+	 */
+	private final ConcurrentMap<String, Boolean> upToDate = new ConcurrentHashMap<String, Boolean>();
+
+	private ValidationIndex(final Map<String, IndexedClass> classes) {
+		this.classes = classes;
+	}
+
+	/**
+	 * Writes the index of the given classes.
+	 * 
+	 * @param classes
+	 *            The classes to index.
+	 * @param output
+	 *            The stream to write to, left open.
+	 * @return The number of classes written.
+	 * @throws IOException
+	 *             If writing fails.
+	 */
+	public static int write(final Collection<? extends Class<?>> classes,
+			final OutputStream output) throws IOException {
+		final DataOutputStream data = new DataOutputStream(output);
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(classes.size());
+		for (final Class<?> clazz : classes) {
+			final FieldIndex index = FieldIndex.of(clazz);
+			final List<Field> fields = new ArrayList<Field>();
+			for (int i = 0; i < index.size(); i++)
+				if (index.getField(i).getDeclaredAnnotations().length > 0)
+					fields.add(index.getField(i));
+			data.writeUTF(clazz.getName());
+			data.writeInt(fields.size());
+			for (final Field field : fields) {
+				data.writeUTF(field.getDeclaringClass().getName());
+				data.writeUTF(field.getName());
+				final Annotation[] annotations = field.getDeclaredAnnotations();
+				data.writeInt(annotations.length);
+				for (final Annotation annotation : annotations)
+					data.writeUTF(annotation.annotationType().getName());
+			}
+		}
+		data.flush();
+		return classes.size();
+	}
+
+	/**
+	 * Returns the fields of the given class annotated with the given
+	 * annotation, in the order of {@link FieldIndex}.
+	 * 
+	 * @param type
+	 *            The validated class.
+	 * @param annotationType
+	 *            The annotation to look for.
+	 * @return The fields, or <code>null</code> if the class is not indexed or
+	 *         has changed since.
+	 */
+	static Field[] getAnnotatedFields(final Class<?> type,
+			final Class<? extends Annotation> annotationType) {
+		return forClassLoader(type.getClassLoader()).getIndexedFields(type,
+				annotationType);
+	}
+
+	/**
+	 * @see #getAnnotatedFields(Class, Class)
+	 */
+	Field[] getIndexedFields(final Class<?> type,
+			final Class<? extends Annotation> annotationType) {
+		if (classes.isEmpty())
+			return null;
+		final IndexedClass indexedClass = classes.get(type.getName());
+		if (indexedClass == null || !isUpToDate(type, indexedClass))
+			return null;
+		final String annotationName = annotationType.getName();
+		final List<Field> fields = new ArrayList<Field>();
+		for (int i = 0; i < indexedClass.fieldNames.length; i++) {
+			if (!contains(indexedClass.annotationNames[i], annotationName))
+				continue;
+			final Field field = getDeclaredField(type,
+					indexedClass.declaringClassNames[i],
+					indexedClass.fieldNames[i]);
+			if (field == null)
+				return null;
+			fields.add(field);
+		}
+		return fields.toArray(new Field[fields.size()]);
+	}
+
+	/**
+	 * Returns the index visible to the given class loader, reading it on first
+	 * use.
+	 * 
+	 * @param classLoader
+	 *            The class loader, <code>null</code> for the bootstrap class
+	 *            loader.
+	 * @return The index, empty if there is none.
+	 */
+	static ValidationIndex forClassLoader(final ClassLoader classLoader) {
+		if (classLoader == null)
+			return EMPTY;
+		synchronized (INDEXES) {
+			ValidationIndex index = INDEXES.get(classLoader);
+			if (index == null) {
+				index = read(classLoader);
+				INDEXES.put(classLoader, index);
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * @return The names of the indexed classes.
+	 */
+	List<String> getClassNames() {
+		return new ArrayList<String>(classes.keySet());
+	}
+
+	private boolean isUpToDate(final Class<?> type,
+			final IndexedClass indexedClass) {
+		Boolean result = upToDate.get(type.getName());
+		if (result == null) {
+			result = Boolean.TRUE;
+			for (Class<?> current = type; current != null
+					&& current.getClassLoader() != null; current = current
+					.getSuperclass()) {
+				final long lastModified = lastModified(current);
+				if (lastModified <= 0 || lastModified > indexedClass.indexed) {
+					result = Boolean.FALSE;
+					break;
+				}
+			}
+			upToDate.put(type.getName(), result);
+		}
+		return result.booleanValue();
+	}
+
+	private static boolean contains(final String[] names, final String name) {
+		for (final String candidate : names)
+			if (candidate.equals(name))
+				return true;
+		return false;
+	}
+
+	/**
+	 * @return The field declared by the named class of the hierarchy, or
+	 *         <code>null</code> if there is none.
+	 */
+	private static Field getDeclaredField(final Class<?> type,
+			final String declaringClassName, final String fieldName) {
+		for (Class<?> current = type; current != null; current = current
+				.getSuperclass()) {
+			if (!current.getName().equals(declaringClassName))
+				continue;
+			try {
+				return current.getDeclaredField(fieldName);
+			} catch (NoSuchFieldException e) {
+				return null;
+			} catch (SecurityException e) {
+				return null;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Reads and merges the indexes visible to the class loader. An index that
+	 * cannot be read is ignored; of a class indexed twice the first entry is
+	 * used.
+	 */
+	private static ValidationIndex read(final ClassLoader classLoader) {
+		final Map<String, IndexedClass> classes = new LinkedHashMap<String, IndexedClass>();
+		final Enumeration<URL> resources;
+		try {
+			resources = classLoader.getResources(LOCATION);
+		} catch (IOException e) {
+			return EMPTY;
+		}
+		while (resources.hasMoreElements()) {
+			final URL resource = resources.nextElement();
+			final Map<String, IndexedClass> read = new LinkedHashMap<String, IndexedClass>();
+			InputStream input = null;
+			try {
+				input = resource.openStream();
+				read(new DataInputStream(new BufferedInputStream(input)),
+						lastModified(resource), read);
+			} catch (IOException e) {
+				continue;
+			} finally {
+				if (input != null) {
+					try {
+						input.close();
+					} catch (IOException e) {
+						// no can do
+					}
+				}
+			}
+			for (final IndexedClass indexedClass : read.values())
+				if (!classes.containsKey(indexedClass.name))
+					classes.put(indexedClass.name, indexedClass);
+		}
+		return classes.isEmpty() ? EMPTY : new ValidationIndex(classes);
+	}
+
+	private static void read(final DataInputStream data, final long indexed,
+			final Map<String, IndexedClass> classes) throws IOException {
+		if (data.readInt() != MAGIC || data.readInt() != VERSION)
+			throw new IOException("Not a validation index of version "
+					+ VERSION);
+		final int classCount = data.readInt();
+		for (int i = 0; i < classCount; i++) {
+			final String name = data.readUTF();
+			final int fieldCount = data.readInt();
+			final String[] declaringClassNames = new String[fieldCount];
+			final String[] fieldNames = new String[fieldCount];
+			final String[][] annotationNames = new String[fieldCount][];
+			for (int j = 0; j < fieldCount; j++) {
+				declaringClassNames[j] = data.readUTF();
+				fieldNames[j] = data.readUTF();
+				annotationNames[j] = new String[data.readInt()];
+				for (int k = 0; k < annotationNames[j].length; k++)
+					annotationNames[j][k] = data.readUTF();
+			}
+			classes.put(name, new IndexedClass(name, indexed,
+					declaringClassNames, fieldNames, annotationNames));
+		}
+	}
+
+	/**
+	 * Returns the time the class file of the given class was last modified,
+	 * or if it was loaded from an archive, the time of the archive. Neither
+	 * the class file nor the archive is read.
+	 * 
+	 * @return The time in milliseconds, or <code>0</code> if it is not known.
+	 */
+	static long lastModified(final Class<?> clazz) {
+		try {
+			final CodeSource codeSource = clazz.getProtectionDomain()
+					.getCodeSource();
+			if (codeSource == null || codeSource.getLocation() == null)
+				return 0;
+			final File location = ResourceUtils.getFile(codeSource
+					.getLocation());
+			if (!location.isDirectory())
+				return location.lastModified();
+			return new File(location, ClassUtils
+					.convertClassNameToResourcePath(clazz.getName())
+					+ ClassUtils.CLASS_FILE_SUFFIX).lastModified();
+		} catch (IOException e) {
+			return 0;
+		} catch (SecurityException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * @return The time the index file or its archive was last modified, or
+	 *         <code>0</code> if it is not known.
+	 */
+	private static long lastModified(final URL resource) {
+		try {
+			return ResourceUtils.getFile(
+					ResourceUtils.isJarURL(resource) ? ResourceUtils
+							.extractJarFileURL(resource) : resource)
+					.lastModified();
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * The annotated fields of a class as written to the index.
+	 */
+	private static final class IndexedClass {
+		private final String name;
+
+		/**
+		 * The time the index listing the class was last modified.
+		 */
+		private final long indexed;
+
+		private final String[] declaringClassNames;
+
+		private final String[] fieldNames;
+
+		private final String[][] annotationNames;
+
+		private IndexedClass(final String name, final long indexed,
+				final String[] declaringClassNames, final String[] fieldNames,
+				final String[][] annotationNames) {
+			this.name = name;
+			this.indexed = indexed;
+			this.declaringClassNames = declaringClassNames;
+			this.fieldNames = fieldNames;
+			this.annotationNames = annotationNames;
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.lang.annotation.Annotation;
+
+/**
+ * Receives the measurements of the validation, see
+ * {@link CompositeFieldValidator#setValidationListener(ValidationListener)}
+ * and {@link ValidatorRegistry#setValidationListener(ValidationListener)}.
+ * The methods are called on the validating threads, so implementations must
+ * be thread-safe and fast. {@link ValidationStatistics} aggregates the
+ * measurements for JMX.
+ * 
+ * @author hleinone
+ */
+public interface ValidationListener {
+	/**
+	 * Called when an object has been validated.
+	 * 
+	 * @param clazz
+	 *            The class of the validated object.
+	 * @param nanos
+	 *            The duration of the validation in nanoseconds.
+	 */
+	void validated(Class<?> clazz, long nanos);
+
+	/**
+	 * Called when a constraint of a field has been validated.
+	 * 
+	 * @param constraintType
+	 *            The annotation type of the constraint.
+	 * @param nanos
+	 *            The duration of the validation in nanoseconds.
+	 */
+	void constraintValidated(Class<? extends Annotation> constraintType,
+			long nanos);
+
+	/**
+	 * Called when a field of an object has been rejected.
+	 * 
+	 * @param clazz
+	 *            The class of the validated object.
+	 * @param errorCode
+	 *            The error code of the violation.
+	 */
+	void violated(Class<?> clazz, String errorCode);
+}
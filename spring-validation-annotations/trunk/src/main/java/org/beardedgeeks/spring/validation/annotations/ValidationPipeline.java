@@ -0,0 +1,363 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.util.Assert;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+/**
+ * Validates a stream of records too large to be held in memory, such as the
+ * rows of a file bound to {@link Validatable} beans. The records are read
+ * from the source by one thread, validated by a pool of worker threads and
+ * passed to a {@link ValidationSink} by the thread running the pipeline.
+ * <p>
+ * The stages are connected by bounded queues: when the workers or the sink
+ * fall behind, the queues fill up and the reading is paused until there is
+ * room again, so at most twice the queue capacity of records is in memory at
+ * a time. The progress of a running pipeline can be followed by its counters.
+ * <p>
+ * By default the records are validated with a {@link CompositeFieldValidator}
+ * applying the built-in annotations. The properties are expected to be set
+ * before the pipeline is run, and a pipeline can run one source at a time.
+ * 
+ * @author hleinone
+ */
+public class ValidationPipeline {
+	/**
+	 * The default capacity of the queues between the stages.
+	 */
+	public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+	/**
+	 * Marks the end of the records of the reader or a worker.
+	 */
+	private static final Record END = new Record(-1, null);
+
+	/**
+	 * Marks the failure of the reader or a worker.
+	 */
+	private static final Record FAILED = new Record(-1, null);
+
+	private final SupportingValidators validators;
+
+	private final AtomicBoolean running = new AtomicBoolean();
+
+	private final AtomicLong readCount = new AtomicLong();
+
+	private final AtomicLong validCount = new AtomicLong();
+
+	private final AtomicLong invalidCount = new AtomicLong();
+
+	private int workers = Runtime.getRuntime().availableProcessors();
+
+	private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+	private volatile BlockingQueue<Record> input;
+
+	private volatile BlockingQueue<Record> output;
+
+	private volatile long startTime;
+
+	private volatile long endTime;
+
+	/**
+	 * Creates a pipeline validating the built-in annotations with a
+	 * {@link CompositeFieldValidator}.
+	 */
+	public ValidationPipeline() {
+		this(new CompositeFieldValidator());
+	}
+
+	/**
+	 * Creates a pipeline applying the given validators.
+	 * 
+	 * @param validators
+	 *            The validators to apply to each record supported by them.
+	 */
+	public ValidationPipeline(final Validator... validators) {
+		this.validators = new SupportingValidators(validators);
+	}
+
+	/**
+	 * Sets the number of threads validating the records. Defaults to the
+	 * number of processors.
+	 * 
+	 * @param workers
+	 *            The number of threads.
+	 */
+	public void setWorkers(final int workers) {
+		Assert.isTrue(workers > 0, "Workers must be positive");
+		this.workers = workers;
+	}
+
+	/**
+	 * Sets the number of records the queues before and after the workers can
+	 * hold. Defaults to {@link #DEFAULT_QUEUE_CAPACITY}.
+	 * 
+	 * @param queueCapacity
+	 *            The number of records.
+	 */
+	public void setQueueCapacity(final int queueCapacity) {
+		Assert.isTrue(queueCapacity > 0, "Queue capacity must be positive");
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Validates the records of the given source, passing them to the sink.
+	 * Returns when all the records have been passed to the sink. If reading,
+	 * validating or receiving a record fails, the pipeline is stopped and the
+	 * exception is rethrown.
+	 * 
+	 * @param source
+	 *            The records to validate, not containing <code>null</code>.
+	 * @param sink
+	 *            The sink receiving the validated records.
+	 * @throws IllegalArgumentException
+	 *             If a record is <code>null</code>.
+	 * @throws IllegalStateException
+	 *             If the pipeline is already running or the current thread
+	 *             is interrupted.
+	 */
+	public void run(final Iterator<?> source, final ValidationSink sink) {
+		Assert.notNull(source, "Source must not be null");
+		Assert.notNull(sink, "Sink must not be null");
+		if (!running.compareAndSet(false, true))
+			throw new IllegalStateException("Pipeline is already running");
+		final ExecutorService executor = Executors
+				.newFixedThreadPool(workers + 1);
+		try {
+			input = new ArrayBlockingQueue<Record>(queueCapacity);
+			output = new ArrayBlockingQueue<Record>(queueCapacity);
+			readCount.set(0);
+			validCount.set(0);
+			invalidCount.set(0);
+			startTime = System.nanoTime();
+			endTime = 0;
+			final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+			executor.execute(new Reader(source, failure));
+			for (int i = 0; i < workers; i++)
+				executor.execute(new Worker(failure));
+			drain(sink, failure);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Validation pipeline interrupted",
+					e);
+		} finally {
+			executor.shutdownNow();
+			endTime = System.nanoTime();
+			running.set(false);
+		}
+	}
+
+	/**
+	 * Validates the records of the given source, passing them to the sink.
+	 * 
+	 * @param source
+	 *            The records to validate, not containing <code>null</code>.
+	 * @param sink
+	 *            The sink receiving the validated records.
+	 * @see #run(Iterator, ValidationSink)
+	 */
+	public void run(final Iterable<?> source, final ValidationSink sink) {
+		Assert.notNull(source, "Source must not be null");
+		run(source.iterator(), sink);
+	}
+
+	/**
+	 * Passes the validated records to the sink until every worker has
+	 * finished.
+	 */
+	private void drain(final ValidationSink sink,
+			final AtomicReference<Throwable> failure)
+			throws InterruptedException {
+		int finished = 0;
+		while (finished < workers) {
+			final Record record = output.take();
+			if (record == END)
+				finished++;
+			else if (record == FAILED) {
+				final Throwable cause = failure.get();
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				if (cause instanceof Error)
+					throw (Error) cause;
+				throw new IllegalStateException(cause);
+			} else if (record.errors.hasErrors()) {
+				invalidCount.incrementAndGet();
+				sink.invalid(record.index, record.target, record.errors);
+			} else {
+				validCount.incrementAndGet();
+				sink.valid(record.index, record.target);
+			}
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the pipeline is running.
+	 */
+	public boolean isRunning() {
+		return running.get();
+	}
+
+	/**
+	 * @return The number of records read from the source of the current or
+	 *         last run.
+	 */
+	public long getReadCount() {
+		return readCount.get();
+	}
+
+	/**
+	 * @return The number of valid records passed to the sink in the current
+	 *         or last run.
+	 */
+	public long getValidCount() {
+		return validCount.get();
+	}
+
+	/**
+	 * @return The number of invalid records passed to the sink in the current
+	 *         or last run.
+	 */
+	public long getInvalidCount() {
+		return invalidCount.get();
+	}
+
+	/**
+	 * @return The number of records per second passed to the sink in the
+	 *         current or last run.
+	 */
+	public double getThroughput() {
+		final long start = startTime;
+		if (start == 0)
+			return 0;
+		final long end = isRunning() ? System.nanoTime() : endTime;
+		final long elapsed = Math.max(end - start, 1);
+		return (validCount.get() + invalidCount.get())
+				* (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+	}
+
+	/**
+	 * @return The number of records read but not yet validated.
+	 */
+	public int getInputQueueDepth() {
+		final BlockingQueue<Record> queue = input;
+		return queue == null ? 0 : queue.size();
+	}
+
+	/**
+	 * @return The number of records validated but not yet passed to the sink.
+	 */
+	public int getOutputQueueDepth() {
+		final BlockingQueue<Record> queue = output;
+		return queue == null ? 0 : queue.size();
+	}
+
+	/**
+	 * Records the failure of the reader or a worker and stops the sink.
+	 */
+	private void fail(final AtomicReference<Throwable> failure,
+			final Throwable cause) {
+		failure.compareAndSet(null, cause);
+		try {
+			output.put(FAILED);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * A record in the pipeline, with its errors once validated.
+	 */
+	private static final class Record {
+		private final long index;
+
+		private final Object target;
+
+		private Errors errors;
+
+		private Record(final long index, final Object target) {
+			this.index = index;
+			this.target = target;
+		}
+	}
+
+	/**
+	 * Reads the records of the source to the input queue, waiting while the
+	 * queue is full.
+	 */
+	private final class Reader implements Runnable {
+		private final Iterator<?> source;
+
+		private final AtomicReference<Throwable> failure;
+
+		private Reader(final Iterator<?> source,
+				final AtomicReference<Throwable> failure) {
+			this.source = source;
+			this.failure = failure;
+		}
+
+		public void run() {
+			try {
+				long index = 0;
+				while (source.hasNext()) {
+					final Object target = source.next();
+					if (target == null)
+						throw new IllegalArgumentException("Record at position "
+								+ index + " is null");
+					input.put(new Record(index++, target));
+					readCount.incrementAndGet();
+				}
+				for (int i = 0; i < workers; i++)
+					input.put(END);
+			} catch (InterruptedException e) {
+				// stopped
+			} catch (RuntimeException e) {
+				fail(failure, e);
+			} catch (Error e) {
+				fail(failure, e);
+			}
+		}
+	}
+
+	/**
+	 * Validates the records of the input queue to the output queue, waiting
+	 * while the output queue is full.
+	 */
+	private final class Worker implements Runnable {
+		private final AtomicReference<Throwable> failure;
+
+		private Worker(final AtomicReference<Throwable> failure) {
+			this.failure = failure;
+		}
+
+		public void run() {
+			try {
+				while (true) {
+					final Record record = input.take();
+					if (record == END) {
+						output.put(END);
+						return;
+					}
+					record.errors = validators.validate(record.target);
+					output.put(record);
+				}
+			} catch (InterruptedException e) {
+				// stopped
+			} catch (RuntimeException e) {
+				fail(failure, e);
+			} catch (Error e) {
+				fail(failure, e);
+			}
+		}
+	}
+}
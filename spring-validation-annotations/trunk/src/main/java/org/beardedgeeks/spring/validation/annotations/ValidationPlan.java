@@ -0,0 +1,189 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Immutable list of the fields of a class annotated with a given annotation.
+ * A plan is computed once per validated class and reused for every
+ * validation of its instances. A plan lists only the constraints of the
+ * validated groups, see {@link Default}; the plan of each group combination
+ * is computed once as well.
+ * <p>
+ * The fields of the class and of all its superclasses are listed once, those
+ * of the class first. A field shadowed by a subclass is represented by the
+ * field of the subclass, as its errors would be bound to the same name.
+ * Static fields are not validated.
+ * <p>
+ * If the class is listed in an up-to-date {@link ValidationIndex}, only the
+ * fields it lists are looked up, without reflecting the class hierarchy.
+ * <p>
+ * The plans are cached by the validator that created them, as the
+ * parameters of the constraints are resolved by it, see
+ * {@link FieldValidator#resolveParameter(Field, Annotation)}.
+ * 
+ * @author hleinone
+ * @see FieldValidator#getValidationPlan(Class)
+ */
+public final class ValidationPlan {
+	private final Class<?> type;
+
+	private final Class<? extends Annotation> annotationType;
+
+	private final ValidationGroups groups;
+
+	private final List<FieldConstraint> constraints;
+
+	private final ConcurrentMap<ValidationGroups, ValidationPlan> groupPlans = new ConcurrentHashMap<ValidationGroups, ValidationPlan>();
+
+	private ValidationPlan(final Class<?> type,
+			final Class<? extends Annotation> annotationType,
+			final ValidationGroups groups,
+			final List<FieldConstraint> constraints) {
+		this.type = type;
+		this.annotationType = annotationType;
+		this.groups = groups;
+		this.constraints = Collections.unmodifiableList(constraints);
+	}
+
+	/**
+	 * Returns the plan of the given class for the {@link Default} group
+	 * cached by the given validator, creating it on first use.
+	 * 
+	 * @param type
+	 *            The class to validate.
+	 * @param validator
+	 *            The validator whose annotation to look for.
+	 * @return The plan.
+	 * @throws IllegalArgumentException
+	 *             If the validator cannot be applied to an annotated field.
+	 */
+	public static ValidationPlan forClass(final Class<?> type,
+			final FieldValidator validator) {
+		final ConcurrentMap<Class<?>, ValidationPlan> plans = validator
+				.getPlans();
+		ValidationPlan plan = plans.get(type);
+		if (plan == null) {
+			plan = create(type, validator.getAnnotationType(), validator,
+					ValidationGroups.DEFAULT);
+			ValidationPlan existing = plans.putIfAbsent(type, plan);
+			if (existing != null)
+				plan = existing;
+		}
+		return plan;
+	}
+
+	/**
+	 * Returns the plan of the given class for the given groups cached by the
+	 * given validator, creating it on first use.
+	 * 
+	 * @param type
+	 *            The class to validate.
+	 * @param validator
+	 *            The validator whose annotation to look for.
+	 * @param groups
+	 *            The groups to validate, none for the {@link Default} group.
+	 * @return The plan listing the constraints of any of the groups.
+	 * @throws IllegalArgumentException
+	 *             If the validator cannot be applied to an annotated field.
+	 */
+	public static ValidationPlan forClass(final Class<?> type,
+			final FieldValidator validator, final Class<?>... groups) {
+		return forClass(type, validator, ValidationGroups.of(groups));
+	}
+
+	static ValidationPlan forClass(final Class<?> type,
+			final FieldValidator validator, final ValidationGroups groups) {
+		final ValidationPlan defaultPlan = forClass(type, validator);
+		if (groups.isDefault())
+			return defaultPlan;
+		ValidationPlan plan = defaultPlan.groupPlans.get(groups);
+		if (plan == null) {
+			plan = create(type, defaultPlan.annotationType, validator, groups);
+			ValidationPlan existing = defaultPlan.groupPlans.putIfAbsent(
+					groups, plan);
+			if (existing != null)
+				plan = existing;
+		}
+		return plan;
+	}
+
+	/**
+	 * Creates the plan of the {@link Default} group by reflecting the fields
+	 * of the given class.
+	 * 
+	 * @param type
+	 *            The class to validate.
+	 * @param validator
+	 *            The validator whose annotation to look for.
+	 * @return The plan.
+	 * @throws IllegalArgumentException
+	 *             If the validator cannot be applied to an annotated field.
+	 */
+	public static ValidationPlan create(final Class<?> type,
+			final FieldValidator validator) {
+		return create(type, validator.getAnnotationType(), validator,
+				ValidationGroups.DEFAULT);
+	}
+
+	private static ValidationPlan create(final Class<?> type,
+			final Class<? extends Annotation> annotationType,
+			final FieldValidator validator, final ValidationGroups groups) {
+		// the build-time index, if up to date, lists the annotated fields
+		final Field[] indexed = ValidationIndex.getAnnotatedFields(type,
+				annotationType);
+		// otherwise the index walks the hierarchy once per class and is shared
+		// by the plans of all the annotation types
+		final FieldIndex index = indexed == null ? FieldIndex.of(type) : null;
+		final int fieldCount = indexed != null ? indexed.length : index.size();
+		List<FieldConstraint> constraints = new ArrayList<FieldConstraint>();
+		for (int i = 0; i < fieldCount; i++) {
+			final Field field = indexed != null ? indexed[i] : index
+					.getField(i);
+			Annotation annotation = field.getAnnotation(annotationType);
+			if (annotation == null)
+				continue;
+			final FieldConstraint constraint = new FieldConstraint(field,
+					indexed != null ? new FieldAccessor(field) : index
+							.getAccessor(i), annotation, validator
+							.resolveParameter(field, annotation));
+			if (constraint.isIncludedIn(groups))
+				constraints.add(constraint);
+		}
+		return new ValidationPlan(type, annotationType, groups, constraints);
+	}
+
+	/**
+	 * @return The validated class.
+	 */
+	public Class<?> getType() {
+		return type;
+	}
+
+	/**
+	 * @return The annotation the plan was created for.
+	 */
+	public Class<? extends Annotation> getAnnotationType() {
+		return annotationType;
+	}
+
+	/**
+	 * @return The groups the plan was created for, {@link Default} if none
+	 *         were given.
+	 */
+	public Class<?>[] getGroups() {
+		return groups.toArray();
+	}
+
+	/**
+	 * @return The annotated fields in validation order.
+	 */
+	public List<FieldConstraint> getConstraints() {
+		return constraints;
+	}
+}
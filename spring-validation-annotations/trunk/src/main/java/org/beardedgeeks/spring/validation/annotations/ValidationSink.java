@@ -0,0 +1,34 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import org.springframework.validation.Errors;
+
+/**
+ * Receives the validated records of a {@link ValidationPipeline}. The records
+ * are passed to the sink from a single thread, one at a time, but not
+ * necessarily in the order they were read.
+ * 
+ * @author hleinone
+ */
+public interface ValidationSink {
+	/**
+	 * Receives a valid record.
+	 * 
+	 * @param index
+	 *            The position of the record in the source.
+	 * @param record
+	 *            The record.
+	 */
+	void valid(long index, Object record);
+
+	/**
+	 * Receives an invalid record.
+	 * 
+	 * @param index
+	 *            The position of the record in the source.
+	 * @param record
+	 *            The record.
+	 * @param errors
+	 *            The errors of the record.
+	 */
+	void invalid(long index, Object record, Errors errors);
+}
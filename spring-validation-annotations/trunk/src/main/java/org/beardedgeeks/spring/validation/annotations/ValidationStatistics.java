@@ -0,0 +1,155 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.lang.annotation.Annotation;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link ValidationListener} counting the invocations, the cumulative and
+ * the maximum latency per validated class and per constraint type, and the
+ * violations per error code. The counters of the classes and the constraint
+ * types are striped by thread once contended, so the validating threads rarely
+ * contend for them; the error codes, which name the objects and the fields and
+ * are thus many, are counted each with a plain {@link AtomicLong}. The
+ * statistics are exposed as an MXBean; declared as a bean, they are
+ * registered by the <code>&lt;context:mbean-export/&gt;</code> of the
+ * application context, otherwise they can be registered with the platform
+ * MBean server under {@link #OBJECT_NAME}:
+ * 
+ * <pre>
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(statistics,
+ * 		new ObjectName(ValidationStatistics.OBJECT_NAME));
+ * </pre>
+ * 
+ * @author hleinone
+ */
+public class ValidationStatistics implements ValidationListener,
+		ValidationStatisticsMXBean {
+	/**
+	 * The suggested object name of the MBean.
+	 */
+	public static final String OBJECT_NAME = "org.beardedgeeks.spring.validation.annotations:type=ValidationStatistics";
+
+	private final ConcurrentMap<String, Times> classTimes = new ConcurrentHashMap<String, Times>();
+
+	private final ConcurrentMap<String, Times> constraintTimes = new ConcurrentHashMap<String, Times>();
+
+	private final ConcurrentMap<String, AtomicLong> violationCounts = new ConcurrentHashMap<String, AtomicLong>();
+
+	/**
+	 * @see org.beardedgeeks.spring.validation.annotations.ValidationListener#validated(Class,
+	 *      long)
+	 */
+	public final void validated(final Class<?> clazz, final long nanos) {
+		getTimes(classTimes, clazz.getName()).add(nanos);
+	}
+
+	/**
+	 * @see org.beardedgeeks.spring.validation.annotations.ValidationListener#constraintValidated(Class,
+	 *      long)
+	 */
+	public final void constraintValidated(
+			final Class<? extends Annotation> constraintType, final long nanos) {
+		getTimes(constraintTimes, constraintType.getName()).add(nanos);
+	}
+
+	/**
+	 * @see org.beardedgeeks.spring.validation.annotations.ValidationListener#violated(Class,
+	 *      String)
+	 */
+	public final void violated(final Class<?> clazz, final String errorCode) {
+		AtomicLong counter = violationCounts.get(errorCode);
+		if (counter == null) {
+			counter = new AtomicLong();
+			AtomicLong existing = violationCounts.putIfAbsent(errorCode,
+					counter);
+			if (existing != null)
+				counter = existing;
+		}
+		counter.incrementAndGet();
+	}
+
+	/**
+	 * @see org.beardedgeeks.spring.validation.annotations.ValidationStatisticsMXBean#getClassTimes()
+	 */
+	public final Map<String, ValidationTimes> getClassTimes() {
+		return snapshot(classTimes);
+	}
+
+	/**
+	 * @see org.beardedgeeks.spring.validation.annotations.ValidationStatisticsMXBean#getConstraintTimes()
+	 */
+	public final Map<String, ValidationTimes> getConstraintTimes() {
+		return snapshot(constraintTimes);
+	}
+
+	/**
+	 * @see org.beardedgeeks.spring.validation.annotations.ValidationStatisticsMXBean#getViolationCounts()
+	 */
+	public final Map<String, Long> getViolationCounts() {
+		final Map<String, Long> snapshot = new TreeMap<String, Long>();
+		for (final Map.Entry<String, AtomicLong> entry : violationCounts
+				.entrySet())
+			snapshot.put(entry.getKey(), entry.getValue().get());
+		return snapshot;
+	}
+
+	/**
+	 * Resets the statistics. Measurements recorded concurrently may be lost.
+	 * 
+	 * @see org.beardedgeeks.spring.validation.annotations.ValidationStatisticsMXBean#reset()
+	 */
+	public final void reset() {
+		classTimes.clear();
+		constraintTimes.clear();
+		violationCounts.clear();
+	}
+
+	private static Times getTimes(final ConcurrentMap<String, Times> times,
+			final String key) {
+		Times result = times.get(key);
+		if (result == null) {
+			result = new Times();
+			Times existing = times.putIfAbsent(key, result);
+			if (existing != null)
+				result = existing;
+		}
+		return result;
+	}
+
+	private static Map<String, ValidationTimes> snapshot(
+			final ConcurrentMap<String, Times> times) {
+		final Map<String, ValidationTimes> snapshot = new TreeMap<String, ValidationTimes>();
+		for (final Map.Entry<String, Times> entry : times.entrySet())
+			snapshot.put(entry.getKey(), entry.getValue().snapshot());
+		return snapshot;
+	}
+
+	/**
+	 * The counters of a class or a constraint type.
+	 */
+	private static final class Times {
+		private final StripedCounter count = new StripedCounter();
+
+		private final StripedCounter total = new StripedCounter();
+
+		private final AtomicLong max = new AtomicLong();
+
+		private void add(final long nanos) {
+			count.increment();
+			total.add(nanos);
+			// rarely contended once the maximum has settled
+			for (long current = max.get(); nanos > current; current = max
+					.get())
+				if (max.compareAndSet(current, nanos))
+					break;
+		}
+
+		private ValidationTimes snapshot() {
+			return new ValidationTimes(count.sum(), total.sum(), max.get());
+		}
+	}
+}
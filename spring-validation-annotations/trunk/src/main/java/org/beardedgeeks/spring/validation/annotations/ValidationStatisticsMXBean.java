@@ -0,0 +1,31 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.util.Map;
+
+/**
+ * The management interface of {@link ValidationStatistics}.
+ * 
+ * @author hleinone
+ */
+public interface ValidationStatisticsMXBean {
+	/**
+	 * @return The invocations and latency by the name of the validated class.
+	 */
+	Map<String, ValidationTimes> getClassTimes();
+
+	/**
+	 * @return The invocations and latency by the name of the annotation type
+	 *         of the constraint.
+	 */
+	Map<String, ValidationTimes> getConstraintTimes();
+
+	/**
+	 * @return The number of violations by error code.
+	 */
+	Map<String, Long> getViolationCounts();
+
+	/**
+	 * Resets the statistics.
+	 */
+	void reset();
+}
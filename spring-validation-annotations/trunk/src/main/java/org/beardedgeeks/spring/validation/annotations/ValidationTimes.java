@@ -0,0 +1,62 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * A snapshot of the invocations and the latency of a validated class or a
+ * constraint type, see {@link ValidationStatistics}.
+ * 
+ * @author hleinone
+ */
+public final class ValidationTimes {
+	private final long invocationCount;
+
+	private final long totalNanos;
+
+	private final long maxNanos;
+
+	/**
+	 * Creates a snapshot.
+	 * 
+	 * @param invocationCount
+	 *            The number of validations.
+	 * @param totalNanos
+	 *            The cumulative duration of the validations in nanoseconds.
+	 * @param maxNanos
+	 *            The longest duration of a validation in nanoseconds.
+	 */
+	@ConstructorProperties( { "invocationCount", "totalNanos", "maxNanos" })
+	public ValidationTimes(final long invocationCount, final long totalNanos,
+			final long maxNanos) {
+		this.invocationCount = invocationCount;
+		this.totalNanos = totalNanos;
+		this.maxNanos = maxNanos;
+	}
+
+	/**
+	 * @return The number of validations.
+	 */
+	public long getInvocationCount() {
+		return invocationCount;
+	}
+
+	/**
+	 * @return The cumulative duration of the validations in nanoseconds.
+	 */
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	/**
+	 * @return The longest duration of a validation in nanoseconds.
+	 */
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "invocations=" + invocationCount + ", totalNanos="
+				+ totalNanos + ", maxNanos=" + maxNanos;
+	}
+}
@@ -0,0 +1,305 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ResourceLoaderAware;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.core.type.filter.TypeFilter;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.validation.Validator;
+
+/**
+ * Prepares the validation of the {@link Validatable} classes of the given
+ * packages when the application context is refreshed, so that the first
+ * validation of a class does not pay for reflection, annotation parsing,
+ * pattern compilation and bound parsing. The packages are scanned on a
+ * background thread, see {@link #setTaskExecutor(TaskExecutor)}, once per
+ * warmer, and each class found is prepared with each of the given validators:
+ * <ul>
+ * <li>a {@link ValidatorRegistry} loads the generated validator of the class
+ * and prepares the validator it chose,</li>
+ * <li>a {@link CompositeFieldValidator} or a {@link FieldValidator} creates
+ * and prepares its plan of the class, see
+ * {@link CompositeFieldValidator#warmUp(Class)} and
+ * {@link FieldValidator#warmUp(Class)},</li>
+ * <li>any other validator is asked whether it supports the class, which lets
+ * e.g. a {@link CascadingValidator} create its plan.</li>
+ * </ul>
+ * Validators wrapping another, such as a {@link CascadingValidator}, do not
+ * prepare the wrapped validator; list it too. The warm-up is not registered by
+ * default; declare the warmer as a bean:
+ * 
+ * <pre>
+ * &lt;bean class=&quot;org.beardedgeeks.spring.validation.annotations.ValidationWarmer&quot;&gt;
+ *   &lt;constructor-arg ref=&quot;validatorRegistry&quot;/&gt;
+ *   &lt;property name=&quot;basePackages&quot; value=&quot;com.example.forms&quot;/&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ * 
+ * If the classpath has a {@link ValidationIndex} listing classes of a
+ * package, those classes are prepared without scanning the package; the
+ * packages the index does not cover are scanned. How long the warm-up
+ * took and which classes could not be prepared is reported by
+ * {@link #getWarmUpTime()} and {@link #getFailures()}.
+ * 
+ * @author hleinone
+ */
+public class ValidationWarmer implements
+		ApplicationListener<ContextRefreshedEvent>, ResourceLoaderAware {
+	private final Validator[] validators;
+
+	private final AtomicBoolean started = new AtomicBoolean();
+
+	private final CountDownLatch finished = new CountDownLatch(1);
+
+	private volatile String[] basePackages = new String[0];
+
+	private volatile TaskExecutor taskExecutor;
+
+	private volatile ResourceLoader resourceLoader = new DefaultResourceLoader();
+
+	private volatile long warmUpTime = -1;
+
+	private volatile int warmedUpCount;
+
+	private volatile Map<String, Throwable> failures = Collections.emptyMap();
+
+	/**
+	 * Creates a warmer preparing the given validators.
+	 * 
+	 * @param validators
+	 *            The validators to prepare.
+	 */
+	public ValidationWarmer(final Validator... validators) {
+		Assert.notEmpty(validators, "Validators must not be empty");
+		this.validators = validators.clone();
+		final SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(
+				"validation-warm-up-");
+		executor.setDaemon(true);
+		this.taskExecutor = executor;
+	}
+
+	/**
+	 * Sets the packages scanned for {@link Validatable} classes, including
+	 * their subpackages.
+	 * 
+	 * @param basePackages
+	 *            The packages to scan.
+	 */
+	public final void setBasePackages(final String... basePackages) {
+		Assert.notEmpty(basePackages, "Base packages must not be empty");
+		this.basePackages = basePackages.clone();
+	}
+
+	/**
+	 * Sets the executor running the warm-up. Defaults to a new daemon thread.
+	 * 
+	 * @param taskExecutor
+	 *            The executor.
+	 */
+	public final void setTaskExecutor(final TaskExecutor taskExecutor) {
+		Assert.notNull(taskExecutor, "Task executor must not be null");
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * Sets the resource loader scanning the packages and loading the classes,
+	 * the application context when declared as a bean.
+	 * 
+	 * @see org.springframework.context.ResourceLoaderAware#setResourceLoader(ResourceLoader)
+	 */
+	public final void setResourceLoader(final ResourceLoader resourceLoader) {
+		Assert.notNull(resourceLoader, "Resource loader must not be null");
+		this.resourceLoader = resourceLoader;
+	}
+
+	/**
+	 * Starts the warm-up on the task executor when the first context is
+	 * refreshed. Later refreshes, e.g. of child contexts, are ignored.
+	 * 
+	 * @see org.springframework.context.ApplicationListener#onApplicationEvent(org.springframework.context.ApplicationEvent)
+	 */
+	public final void onApplicationEvent(final ContextRefreshedEvent event) {
+		if (!started.compareAndSet(false, true))
+			return;
+		taskExecutor.execute(new Runnable() {
+			public void run() {
+				warmUp();
+			}
+		});
+	}
+
+	/**
+	 * Scans the packages and prepares the classes found on the calling thread.
+	 * A class that cannot be loaded or prepared is recorded as a failure and
+	 * does not stop the warm-up.
+	 */
+	public final void warmUp() {
+		final long start = System.nanoTime();
+		final Map<String, Throwable> failed = new LinkedHashMap<String, Throwable>();
+		int count = 0;
+		try {
+			final ClassLoader classLoader = resourceLoader.getClassLoader();
+			for (final String className : findValidatableClasses(failed)) {
+				try {
+					final Class<?> clazz = ClassUtils.forName(className,
+							classLoader);
+					for (final Validator validator : validators)
+						warmUp(validator, clazz);
+					count++;
+				} catch (ClassNotFoundException e) {
+					failed.put(className, e);
+				} catch (RuntimeException e) {
+					failed.put(className, e);
+				} catch (LinkageError e) {
+					failed.put(className, e);
+				}
+			}
+		} finally {
+			warmedUpCount = count;
+			failures = Collections.unmodifiableMap(failed);
+			warmUpTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime()
+					- start);
+			finished.countDown();
+		}
+	}
+
+	/**
+	 * Extension point for preparing the validation of a class with a
+	 * validator. See the class description for the default behavior.
+	 * 
+	 * @param validator
+	 *            The validator to prepare.
+	 * @param clazz
+	 *            The validated class.
+	 * @throws IllegalArgumentException
+	 *             If the validator cannot be applied to the class.
+	 */
+	protected void warmUp(final Validator validator, final Class<?> clazz) {
+		if (validator instanceof ValidatorRegistry) {
+			final Validator chosen = ((ValidatorRegistry) validator)
+					.getValidator(clazz);
+			if (chosen != validator)
+				warmUp(chosen, clazz);
+		} else if (validator instanceof CompositeFieldValidator)
+			((CompositeFieldValidator) validator).warmUp(clazz);
+		else if (validator instanceof FieldValidator)
+			((FieldValidator) validator).warmUp(clazz);
+		else
+			validator.supports(clazz);
+	}
+
+	/**
+	 * @return The classes of each package listed in the
+	 *         {@link ValidationIndex}, or if it lists none, found by scanning
+	 *         the package.
+	 */
+	private List<String> findValidatableClasses(
+			final Map<String, Throwable> failed) {
+		final List<String> indexedClassNames = ValidationIndex.forClassLoader(
+				resourceLoader.getClassLoader()).getClassNames();
+		final ResourcePatternResolver resolver = ResourcePatternUtils
+				.getResourcePatternResolver(resourceLoader);
+		final MetadataReaderFactory readerFactory = new CachingMetadataReaderFactory(
+				resourceLoader);
+		final TypeFilter filter = new AnnotationTypeFilter(Validatable.class);
+		final List<String> classNames = new ArrayList<String>();
+		for (final String basePackage : basePackages) {
+			boolean indexed = false;
+			for (final String className : indexedClassNames)
+				if (className.startsWith(basePackage + ".")) {
+					classNames.add(className);
+					indexed = true;
+				}
+			if (indexed)
+				continue;
+
+			final String pattern = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX
+					+ ClassUtils.convertClassNameToResourcePath(basePackage)
+					+ "/**/*.class";
+			try {
+				for (final Resource resource : resolver.getResources(pattern)) {
+					if (!resource.isReadable())
+						continue;
+					final MetadataReader reader = readerFactory
+							.getMetadataReader(resource);
+					if (reader.getClassMetadata().isConcrete()
+							&& filter.match(reader, readerFactory))
+						classNames.add(reader.getClassMetadata()
+								.getClassName());
+				}
+			} catch (IOException e) {
+				failed.put(pattern, e);
+			}
+		}
+		return classNames;
+	}
+
+	/**
+	 * Waits until the warm-up has finished.
+	 * 
+	 * @param timeout
+	 *            The maximum time to wait.
+	 * @param unit
+	 *            The unit of the timeout.
+	 * @return <code>true</code> if the warm-up has finished,
+	 *         <code>false</code> if the time ran out.
+	 * @throws InterruptedException
+	 *             If the current thread was interrupted while waiting.
+	 */
+	public final boolean awaitWarmUp(final long timeout, final TimeUnit unit)
+			throws InterruptedException {
+		return finished.await(timeout, unit);
+	}
+
+	/**
+	 * @return <code>true</code> if the warm-up has finished.
+	 */
+	public final boolean isWarmedUp() {
+		return finished.getCount() == 0;
+	}
+
+	/**
+	 * @return The duration of the last warm-up in milliseconds, or -1 if
+	 *         none has finished.
+	 */
+	public final long getWarmUpTime() {
+		return warmUpTime;
+	}
+
+	/**
+	 * @return The number of classes prepared by the last warm-up.
+	 */
+	public final int getWarmedUpCount() {
+		return warmedUpCount;
+	}
+
+	/**
+	 * @return The classes the last warm-up could not prepare, or the packages
+	 *         it could not scan, with the cause.
+	 */
+	public final Map<String, Throwable> getFailures() {
+		return failures;
+	}
+}
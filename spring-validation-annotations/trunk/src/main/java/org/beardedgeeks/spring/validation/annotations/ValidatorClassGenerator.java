@@ -0,0 +1,444 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.beardedgeeks.spring.validation.annotations.empty.RequiredValidator;
+import org.beardedgeeks.spring.validation.annotations.length.MaxLengthValidator;
+import org.beardedgeeks.spring.validation.annotations.length.MinLengthValidator;
+import org.beardedgeeks.spring.validation.annotations.matches.MatchesPatternValidator;
+import org.beardedgeeks.spring.validation.annotations.value.MaxValueValidator;
+import org.beardedgeeks.spring.validation.annotations.value.MinValueValidator;
+import org.beardedgeeks.spring.validation.annotations.value.NumericValueValidator;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+/**
+ * Generates a {@link GeneratedFieldValidator} subclass validating the
+ * constrained fields of a single class in straight-line code. The built-in
+ * annotations are checked inline against constant bounds; public fields of
+ * public classes are read directly and other fields through their
+ * {@link FieldAccessor}. Constraints of other validators are delegated to the
+ * validator, as in {@link CompositeFieldValidator}.
+ * 
+ * @author hleinone
+ */
+final class ValidatorClassGenerator implements Opcodes {
+	private static final String SUPER_NAME = Type
+			.getInternalName(GeneratedFieldValidator.class);
+
+	private static final String ERRORS_DESCRIPTOR = Type
+			.getDescriptor(Errors.class);
+
+	private static final String ACCESSOR_NAME = Type
+			.getInternalName(FieldAccessor.class);
+
+	private static final Class<?>[] CONSTRUCTOR_TYPES = new Class<?>[] {
+			Class.class, FieldValidator[].class, FieldConstraint[].class,
+			Object[].class };
+
+	private static final AtomicInteger COUNT = new AtomicInteger();
+
+	/**
+	 * The local variable holding the value of the current field.
+	 */
+	private static final int VALUE = 3;
+
+	private final Class<?> type;
+
+	private final ConstrainedField[] fields;
+
+	private final ClassLoader parent = GeneratedFieldValidator.class
+			.getClassLoader();
+
+	private final List<FieldValidator> validators = new ArrayList<FieldValidator>();
+
+	private final List<FieldConstraint> constraints = new ArrayList<FieldConstraint>();
+
+	private final List<Object> arguments = new ArrayList<Object>();
+
+	private ValidatorClassGenerator(final Class<?> type,
+			final ConstrainedField[] fields) {
+		this.type = type;
+		this.fields = fields;
+	}
+
+	/**
+	 * Generates the validator of the given class.
+	 * 
+	 * @param type
+	 *            The validated class.
+	 * @param fields
+	 *            The constrained fields of the class.
+	 * @return The generated validator, or <code>null</code> if a constraint
+	 *         can only be validated by the reflective path.
+	 * @throws IllegalStateException
+	 *             If the generated class cannot be instantiated.
+	 */
+	static Validator generate(final Class<?> type,
+			final ConstrainedField[] fields) {
+		return new ValidatorClassGenerator(type, fields).generate();
+	}
+
+	private Validator generate() {
+		if (!isSupported())
+			return null;
+
+		final String name = GeneratedFieldValidator.class.getName() + "$"
+				+ type.getName().replace('.', '_').replace('$', '_') + "$"
+				+ COUNT.incrementAndGet();
+		final String internalName = name.replace('.', '/');
+		final ClassWriter writer = new ClassWriter(true);
+		writer.visit(V1_5, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, internalName,
+				null, SUPER_NAME, null);
+		writeConstructor(writer);
+		writeValidate(writer);
+		writer.visitEnd();
+
+		final Class<?> generatedClass = new GeneratedClassLoader(parent)
+				.define(name, writer.toByteArray());
+		try {
+			final Constructor<?> constructor = generatedClass
+					.getConstructor(CONSTRUCTOR_TYPES);
+			return (Validator) constructor.newInstance(type, validators
+					.toArray(new FieldValidator[validators.size()]),
+					constraints.toArray(new FieldConstraint[constraints
+							.size()]), arguments.toArray());
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException(e);
+		} catch (InstantiationException e) {
+			throw new IllegalStateException(e);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		} catch (InvocationTargetException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * The built-in annotations on unsupported field types throw exceptions
+	 * that are left for the reflective path to report.
+	 */
+	private boolean isSupported() {
+		for (final ConstrainedField field : fields) {
+			final FieldValidator[] fieldValidators = field.getValidators();
+			final FieldConstraint[] fieldConstraints = field.getConstraints();
+			for (int i = 0; i < fieldConstraints.length; i++) {
+				if (!fieldConstraints[i].getAccessor().isAccessible())
+					return false;
+				final Class<?> validatorClass = fieldValidators[i].getClass();
+				final Class<?> fieldType = fieldConstraints[i].getField()
+						.getType();
+				if (fieldType.isPrimitive()
+						&& (validatorClass == MinLengthValidator.class
+								|| validatorClass == MaxLengthValidator.class || validatorClass == MatchesPatternValidator.class))
+					return false;
+				if ((fieldType == boolean.class || fieldType == char.class)
+						&& (validatorClass == MinValueValidator.class || validatorClass == MaxValueValidator.class))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isBuiltIn(final Class<?> validatorClass) {
+		return validatorClass == RequiredValidator.class
+				|| validatorClass == MinLengthValidator.class
+				|| validatorClass == MaxLengthValidator.class
+				|| validatorClass == MinValueValidator.class
+				|| validatorClass == MaxValueValidator.class
+				|| validatorClass == MatchesPatternValidator.class;
+	}
+
+	private void writeConstructor(final ClassWriter writer) {
+		final String descriptor = "(Ljava/lang/Class;["
+				+ Type.getDescriptor(FieldValidator.class) + "["
+				+ Type.getDescriptor(FieldConstraint.class)
+				+ "[Ljava/lang/Object;)V";
+		final MethodVisitor method = writer.visitMethod(ACC_PUBLIC, "<init>",
+				descriptor, null, null);
+		method.visitCode();
+		for (int i = 0; i <= 4; i++)
+			method.visitVarInsn(ALOAD, i);
+		method.visitMethodInsn(INVOKESPECIAL, SUPER_NAME, "<init>", descriptor);
+		method.visitInsn(RETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+	}
+
+	private void writeValidate(final ClassWriter writer) {
+		final MethodVisitor method = writer.visitMethod(ACC_PUBLIC,
+				"validate", "(Ljava/lang/Object;" + ERRORS_DESCRIPTOR + ")V",
+				null, null);
+		method.visitCode();
+		for (final ConstrainedField field : fields)
+			writeField(method, field);
+		method.visitInsn(RETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+	}
+
+	/**
+	 * Writes the checks of a single field. As in the reflective path, the
+	 * field is skipped if it already has errors and only the first failing
+	 * constraint is reported.
+	 */
+	private void writeField(final MethodVisitor method,
+			final ConstrainedField field) {
+		final Label end = new Label();
+		writeHasFieldErrors(method, field.getName(), end);
+
+		final FieldValidator[] fieldValidators = field.getValidators();
+		final FieldConstraint[] fieldConstraints = field.getConstraints();
+		boolean valueRead = false;
+		boolean delegated = false;
+		for (int i = 0; i < fieldConstraints.length; i++) {
+			final int index = add(fieldValidators[i], fieldConstraints[i]);
+			final Class<?> validatorClass = fieldValidators[i].getClass();
+			final Class<?> fieldType = fieldConstraints[i].getField()
+					.getType();
+			// primitives are never empty
+			if (validatorClass == RequiredValidator.class
+					&& fieldType.isPrimitive())
+				continue;
+			// only a delegated constraint may have rejected the field
+			if (delegated)
+				writeHasFieldErrors(method, field.getName(), end);
+
+			if (!isBuiltIn(validatorClass)) {
+				method.visitVarInsn(ALOAD, 0);
+				push(method, index);
+				method.visitVarInsn(ALOAD, 1);
+				method.visitVarInsn(ALOAD, 2);
+				method.visitMethodInsn(INVOKEVIRTUAL, SUPER_NAME,
+						"validateConstraint", "(ILjava/lang/Object;"
+								+ ERRORS_DESCRIPTOR + ")V");
+				delegated = true;
+				continue;
+			}
+
+			if (!valueRead) {
+				writeRead(method, fieldConstraints[i].getField(), index);
+				valueRead = true;
+			}
+			final Label valid = new Label();
+			writeCheck(method, validatorClass, fieldType, index, valid);
+			method.visitVarInsn(ALOAD, 0);
+			push(method, index);
+			method.visitVarInsn(ALOAD, 2);
+			method.visitMethodInsn(INVOKEVIRTUAL, SUPER_NAME, "reject", "(I"
+					+ ERRORS_DESCRIPTOR + ")V");
+			method.visitJumpInsn(GOTO, end);
+			method.visitLabel(valid);
+		}
+		method.visitLabel(end);
+	}
+
+	private int add(final FieldValidator validator,
+			final FieldConstraint constraint) {
+		final Class<?> validatorClass = validator.getClass();
+		final Object argument;
+		if (validatorClass == MinLengthValidator.class
+				|| validatorClass == MaxLengthValidator.class)
+			argument = constraint.getParameter();
+		else if (validatorClass == MinValueValidator.class
+				|| validatorClass == MaxValueValidator.class)
+			argument = NumericValueValidator.getBound(constraint);
+		else
+			argument = null;
+		validators.add(validator);
+		constraints.add(constraint);
+		arguments.add(argument);
+		return constraints.size() - 1;
+	}
+
+	private static void writeHasFieldErrors(final MethodVisitor method,
+			final String fieldName, final Label end) {
+		method.visitVarInsn(ALOAD, 2);
+		method.visitLdcInsn(fieldName);
+		method.visitMethodInsn(INVOKEINTERFACE, Type
+				.getInternalName(Errors.class), "hasFieldErrors",
+				"(Ljava/lang/String;)Z");
+		method.visitJumpInsn(IFNE, end);
+	}
+
+	/**
+	 * Reads the value of the field to {@link #VALUE}.
+	 */
+	private void writeRead(final MethodVisitor method, final Field field,
+			final int index) {
+		final Class<?> fieldType = field.getType();
+		final Type valueType;
+		if (isDirectlyAccessible(field)) {
+			final String owner = Type.getInternalName(field
+					.getDeclaringClass());
+			method.visitVarInsn(ALOAD, 1);
+			method.visitTypeInsn(CHECKCAST, owner);
+			method.visitFieldInsn(GETFIELD, owner, field.getName(), Type
+					.getDescriptor(fieldType));
+			valueType = fieldType.isPrimitive() ? Type.getType(fieldType)
+					: Type.getType(Object.class);
+		} else {
+			method.visitVarInsn(ALOAD, 0);
+			push(method, index);
+			method.visitMethodInsn(INVOKEVIRTUAL, SUPER_NAME, "accessor",
+					"(I)L" + ACCESSOR_NAME + ";");
+			method.visitVarInsn(ALOAD, 1);
+			final String getter;
+			if (fieldType == byte.class || fieldType == short.class
+					|| fieldType == int.class) {
+				getter = "getInt";
+				valueType = Type.INT_TYPE;
+			} else if (fieldType == long.class) {
+				getter = "getLong";
+				valueType = Type.LONG_TYPE;
+			} else if (fieldType == float.class) {
+				getter = "getFloat";
+				valueType = Type.FLOAT_TYPE;
+			} else if (fieldType == double.class) {
+				getter = "getDouble";
+				valueType = Type.DOUBLE_TYPE;
+			} else {
+				getter = "get";
+				valueType = Type.getType(Object.class);
+			}
+			method.visitMethodInsn(INVOKEVIRTUAL, ACCESSOR_NAME, getter,
+					"(Ljava/lang/Object;)" + valueType.getDescriptor());
+		}
+		method.visitVarInsn(valueType.getOpcode(ISTORE), VALUE);
+	}
+
+	/**
+	 * Public instance fields of public classes visible to the generated class
+	 * are read with a plain field access.
+	 */
+	private boolean isDirectlyAccessible(final Field field) {
+		if (!Modifier.isPublic(field.getModifiers())
+				|| Modifier.isStatic(field.getModifiers()))
+			return false;
+		for (Class<?> owner = field.getDeclaringClass(); owner != null; owner = owner
+				.getEnclosingClass())
+			if (!Modifier.isPublic(owner.getModifiers()))
+				return false;
+		try {
+			return Class.forName(field.getDeclaringClass().getName(), false,
+					parent) == field.getDeclaringClass();
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Writes the check of a built-in annotation, jumping to
+	 * <code>valid</code> if the value is valid.
+	 */
+	private void writeCheck(final MethodVisitor method,
+			final Class<?> validatorClass, final Class<?> fieldType,
+			final int index, final Label valid) {
+		if (validatorClass == RequiredValidator.class) {
+			method.visitVarInsn(ALOAD, VALUE);
+			method.visitMethodInsn(INVOKESTATIC, SUPER_NAME, "isEmpty",
+					"(Ljava/lang/Object;)Z");
+			method.visitJumpInsn(IFEQ, valid);
+		} else if (validatorClass == MinLengthValidator.class
+				|| validatorClass == MaxLengthValidator.class) {
+			method.visitVarInsn(ALOAD, VALUE);
+			method.visitJumpInsn(IFNULL, valid);
+			method.visitVarInsn(ALOAD, VALUE);
+			method.visitMethodInsn(INVOKESTATIC, Type
+					.getInternalName(ExtendedValidationUtils.class), "length",
+					"(Ljava/lang/Object;)I");
+			push(method, ((Integer) arguments.get(index)).intValue());
+			method.visitJumpInsn(
+					validatorClass == MinLengthValidator.class ? IF_ICMPGE
+							: IF_ICMPLE, valid);
+		} else if (validatorClass == MatchesPatternValidator.class) {
+			method.visitVarInsn(ALOAD, VALUE);
+			method.visitJumpInsn(IFNULL, valid);
+			method.visitVarInsn(ALOAD, 0);
+			push(method, index);
+			method.visitVarInsn(ALOAD, VALUE);
+			method.visitMethodInsn(INVOKEVIRTUAL, SUPER_NAME, "matches",
+					"(ILjava/lang/Object;)Z");
+			method.visitJumpInsn(IFNE, valid);
+		} else
+			writeValueCheck(method, validatorClass == MinValueValidator.class,
+					fieldType, index, valid);
+	}
+
+	private void writeValueCheck(final MethodVisitor method,
+			final boolean min, final Class<?> fieldType, final int index,
+			final Label valid) {
+		final Number bound = (Number) arguments.get(index);
+		if (fieldType == byte.class || fieldType == short.class
+				|| fieldType == int.class) {
+			method.visitVarInsn(ILOAD, VALUE);
+			push(method, bound.intValue());
+			method.visitJumpInsn(min ? IF_ICMPGE : IF_ICMPLE, valid);
+		} else if (fieldType == long.class) {
+			method.visitVarInsn(LLOAD, VALUE);
+			method.visitLdcInsn(Long.valueOf(bound.longValue()));
+			method.visitInsn(LCMP);
+			method.visitJumpInsn(min ? IFGE : IFLE, valid);
+		} else if (fieldType == float.class) {
+			// same ordering as Float.compareTo
+			method.visitVarInsn(FLOAD, VALUE);
+			method.visitLdcInsn(Float.valueOf(bound.floatValue()));
+			method.visitMethodInsn(INVOKESTATIC, "java/lang/Float", "compare",
+					"(FF)I");
+			method.visitJumpInsn(min ? IFGE : IFLE, valid);
+		} else if (fieldType == double.class) {
+			// same ordering as Double.compareTo
+			method.visitVarInsn(DLOAD, VALUE);
+			method.visitLdcInsn(Double.valueOf(bound.doubleValue()));
+			method.visitMethodInsn(INVOKESTATIC, "java/lang/Double",
+					"compare", "(DD)I");
+			method.visitJumpInsn(min ? IFGE : IFLE, valid);
+		} else {
+			// the bound compared to the value, null is valid
+			method.visitVarInsn(ALOAD, VALUE);
+			method.visitJumpInsn(IFNULL, valid);
+			method.visitVarInsn(ALOAD, 0);
+			push(method, index);
+			method.visitVarInsn(ALOAD, VALUE);
+			method.visitMethodInsn(INVOKEVIRTUAL, SUPER_NAME,
+					"compareToBound", "(ILjava/lang/Object;)I");
+			method.visitJumpInsn(min ? IFLE : IFGE, valid);
+		}
+	}
+
+	private static void push(final MethodVisitor method, final int value) {
+		if (value >= -1 && value <= 5)
+			method.visitInsn(ICONST_0 + value);
+		else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE)
+			method.visitIntInsn(BIPUSH, value);
+		else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE)
+			method.visitIntInsn(SIPUSH, value);
+		else
+			method.visitLdcInsn(Integer.valueOf(value));
+	}
+
+	/**
+	 * Defines each generated class in a loader of its own so that it can be
+	 * unloaded with the validator.
+	 */
+	private static final class GeneratedClassLoader extends ClassLoader {
+		private GeneratedClassLoader(final ClassLoader parent) {
+			super(parent);
+		}
+
+		private Class<?> define(final String name, final byte[] bytes) {
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+}
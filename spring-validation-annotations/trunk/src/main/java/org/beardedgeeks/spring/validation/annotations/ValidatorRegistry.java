@@ -0,0 +1,256 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.util.Assert;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.Validator;
+
+/**
+ * Validates {@link Validatable} objects with the validators generated at
+ * compile time by the annotation processor of the
+ * <code>spring-validation-annotations-processor</code> module. The generated
+ * validator of a class is looked up by its name, the binary name of the class
+ * followed by {@link #GENERATED_VALIDATOR_SUFFIX}, so no classpath scanning is
+ * needed. Classes without a generated validator are validated by the
+ * reflective fallback validator, a {@link CompositeFieldValidator} by default.
+ * <p>
+ * The registry is meant to be the only validator of the annotations given to
+ * data binding, instead of each of the field validator beans, which would
+ * every one be asked for every object. When the fallback is a
+ * {@link CompositeFieldValidator}, the validator of a class is chosen once by
+ * the kinds of the constraints present on the class:
+ * <ul>
+ * <li>a class without constraints is validated by a validator doing nothing,
+ * at the cost of the cache lookup,</li>
+ * <li>a class with only built-in constraints is validated by its generated
+ * validator, if there is one and the composite is in its
+ * {@link CompositeFieldValidator#isDefaultConfiguration() default
+ * configuration},</li>
+ * <li>any other class is validated by the composite, which applies only the
+ * validators of the annotations of each field.</li>
+ * </ul>
+ * The generated validators apply the constraints of the {@link Default} group
+ * and match the patterns with <code>java.util.regex</code>, so the composite
+ * validates all classes while it is configured otherwise. Any other fallback
+ * validator, e.g. a {@link CascadingValidator}, validates all classes.
+ * The registry is not a component, so that scanning the package does not add
+ * another validator of every object next to the individual validators; declare
+ * it as a bean. User-defined {@link FieldValidator} subclasses are plugged in
+ * as validators of the composite, see {@link CompositeFieldValidator#withBuiltIns(FieldValidator...)}:
+ * 
+ * <pre>
+ * &lt;bean id=&quot;validatorRegistry&quot; class=&quot;org.beardedgeeks.spring.validation.annotations.ValidatorRegistry&quot;&gt;
+ *   &lt;constructor-arg&gt;
+ *     &lt;bean class=&quot;org.beardedgeeks.spring.validation.annotations.CompositeFieldValidator&quot;
+ *         factory-method=&quot;withBuiltIns&quot;&gt;
+ *       &lt;constructor-arg&gt;
+ *         &lt;bean class=&quot;com.example.validation.PostalCodeValidator&quot;/&gt;
+ *       &lt;/constructor-arg&gt;
+ *     &lt;/bean&gt;
+ *   &lt;/constructor-arg&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ * 
+ * @author hleinone
+ */
+public class ValidatorRegistry implements Validator {
+	/**
+	 * The suffix appended to the binary name of a class to get the name of
+	 * its generated validator.
+	 */
+	public static final String GENERATED_VALIDATOR_SUFFIX = "_Validator";
+
+	/**
+	 * Validates the classes without constraints.
+	 */
+	private static final Validator NO_CONSTRAINTS = new Validator() {
+		public boolean supports(final Class<?> clazz) {
+			return true;
+		}
+
+		public void validate(final Object obj, final Errors errors) {
+			// nothing to validate
+		}
+	};
+
+	/**
+	 * The annotations the generated validators apply.
+	 */
+	private static final Set<Class<? extends Annotation>> BUILT_IN_TYPES = new CompositeFieldValidator()
+			.getAnnotationTypes();
+
+	private final Validator fallback;
+
+	private final ConcurrentMap<Class<?>, Validator> validators = new ConcurrentHashMap<Class<?>, Validator>();
+
+	private volatile ValidationListener validationListener;
+
+	/**
+	 * Creates a registry falling back to a {@link CompositeFieldValidator}
+	 * with the built-in annotations.
+	 */
+	public ValidatorRegistry() {
+		this(new CompositeFieldValidator());
+	}
+
+	/**
+	 * Creates a registry falling back to the given validator.
+	 * 
+	 * @param fallback
+	 *            The validator of classes without a generated validator.
+	 */
+	public ValidatorRegistry(final Validator fallback) {
+		Assert.notNull(fallback, "Fallback validator must not be null");
+		this.fallback = fallback;
+	}
+
+	/**
+	 * If the validatable object is annotated with {@link Validatable} return
+	 * true.
+	 * 
+	 * @see org.springframework.validation.Validator#supports(Class)
+	 */
+	@Override
+	public final boolean supports(Class<?> clazz) {
+		return clazz.isAnnotationPresent(Validatable.class);
+	}
+
+	/**
+	 * Validates the object with the validator of its class.
+	 * 
+	 * @see org.springframework.validation.Validator#validate(Object, Errors)
+	 * @see #getValidator(Class)
+	 */
+	@Override
+	public final void validate(Object obj, Errors errors) {
+		final Validator validator = getValidator(obj.getClass());
+		final ValidationListener listener = validationListener;
+		// a composite reports to its own listener
+		if (listener == null || validator instanceof CompositeFieldValidator) {
+			validator.validate(obj, errors);
+			return;
+		}
+		final int errorCount = errors.getFieldErrorCount();
+		final long start = System.nanoTime();
+		try {
+			validator.validate(obj, errors);
+		} finally {
+			listener.validated(obj.getClass(), System.nanoTime() - start);
+		}
+		if (errors.getFieldErrorCount() == errorCount)
+			return;
+		final List<FieldError> fieldErrors = errors.getFieldErrors();
+		for (int i = errorCount; i < fieldErrors.size(); i++)
+			listener.violated(obj.getClass(), fieldErrors.get(i).getCode());
+	}
+
+	/**
+	 * Sets the listener receiving the duration of the validation of each
+	 * object and its violations, e.g. a {@link ValidationStatistics}. Objects
+	 * validated by a {@link CompositeFieldValidator} are reported by the
+	 * listener of the composite instead, which also measures each constraint;
+	 * set the same listener on the fallback validator. Without a listener the
+	 * validation is not measured and costs nothing extra. Defaults to
+	 * <code>null</code>.
+	 * 
+	 * @param validationListener
+	 *            The listener, or <code>null</code> to stop measuring.
+	 */
+	public final void setValidationListener(
+			final ValidationListener validationListener) {
+		this.validationListener = validationListener;
+	}
+
+	/**
+	 * Returns the validator of the given class, chosen as described in the
+	 * class description. The choice is cached, but the fallback validator is
+	 * returned instead of a generated validator while the composite is not in
+	 * its default configuration.
+	 * 
+	 * @param clazz
+	 *            The validated class.
+	 * @return The validator of the class.
+	 * @throws IllegalArgumentException
+	 *             If a validator of the composite cannot be applied to an
+	 *             annotated field of the class.
+	 */
+	public final Validator getValidator(final Class<?> clazz) {
+		Validator validator = validators.get(clazz);
+		if (validator == null) {
+			validator = chooseValidator(clazz);
+			Validator existing = validators.putIfAbsent(clazz, validator);
+			if (existing != null)
+				validator = existing;
+		}
+		// fail-fast and the pattern engine can be changed after the choice
+		if (validator != fallback && validator != NO_CONSTRAINTS
+				&& !((CompositeFieldValidator) fallback).isDefaultConfiguration())
+			return fallback;
+		return validator;
+	}
+
+	private Validator chooseValidator(final Class<?> clazz) {
+		if (!(fallback instanceof CompositeFieldValidator))
+			return fallback;
+		final CompositeFieldValidator composite = (CompositeFieldValidator) fallback;
+		final Validator generated = composite.isDefaultConfiguration() ? loadGeneratedValidator(clazz)
+				: null;
+		// the generated validator knows the constraints without reflection
+		if (generated != null
+				&& BUILT_IN_TYPES.containsAll(composite.getAnnotationTypes()))
+			return generated;
+		final Set<Class<? extends Annotation>> constraintTypes = composite
+				.getConstraintTypes(clazz);
+		if (constraintTypes.isEmpty())
+			return NO_CONSTRAINTS;
+		// the generated validator ignores the annotations of the plug-ins
+		if (generated != null && BUILT_IN_TYPES.containsAll(constraintTypes))
+			return generated;
+		return composite;
+	}
+
+	/**
+	 * Returns the name of the validator generated for the given class.
+	 * 
+	 * @param clazz
+	 *            The validated class.
+	 * @return The fully qualified name of the generated validator.
+	 */
+	public static String getGeneratedValidatorName(final Class<?> clazz) {
+		return clazz.getName() + GENERATED_VALIDATOR_SUFFIX;
+	}
+
+	/**
+	 * Loads and instantiates the generated validator of the given class.
+	 * 
+	 * @return The generated validator, or <code>null</code> if there is none
+	 *         or it cannot be instantiated.
+	 */
+	private static Validator loadGeneratedValidator(final Class<?> clazz) {
+		try {
+			final Class<?> validatorClass = Class.forName(
+					getGeneratedValidatorName(clazz), true, clazz
+							.getClassLoader());
+			if (!Validator.class.isAssignableFrom(validatorClass))
+				return null;
+			final Validator validator = (Validator) validatorClass
+					.newInstance();
+			return validator.supports(clazz) ? validator : null;
+		} catch (ClassNotFoundException e) {
+			return null;
+		} catch (InstantiationException e) {
+			return null;
+		} catch (IllegalAccessException e) {
+			return null;
+		} catch (LinkageError e) {
+			// includes failures in the static initializer
+			return null;
+		}
+	}
+}
@@ -3,8 +3,11 @@ package org.beardedgeeks.spring.validation.annotations.empty;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 
+import org.beardedgeeks.spring.validation.annotations.FieldAccessor;
+import org.beardedgeeks.spring.validation.annotations.FieldConstraint;
 import org.beardedgeeks.spring.validation.annotations.FieldValidator;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.Errors;
 import org.springframework.validation.ValidationUtils;
 
@@ -20,6 +23,37 @@ public class RequiredValidator extends FieldValidator {
 		return Required.class;
 	}
 
+	@Override
+	protected final int getCost() {
+		return NULL_CHECK_COST;
+	}
+
+	/**
+	 * Rejects the field if its value is <code>null</code> or its String form
+	 * is empty, like
+	 * {@link ValidationUtils#rejectIfEmpty(Errors, String, String)}.
+	 */
+	@Override
+	protected final void validate(final Object target,
+			final FieldConstraint constraint, final Errors errors,
+			final String errorCode) {
+		final Object value = constraint.getAccessor().getValue(target, errors);
+		if (value == null || !StringUtils.hasLength(value.toString()))
+			errors.rejectValue(constraint.getFieldName(), errorCode, null, null);
+	}
+
+	@Override
+	protected final boolean isValid(final Object target,
+			final FieldConstraint constraint) {
+		final FieldAccessor accessor = constraint.getAccessor();
+		if (!accessor.isAccessible())
+			return super.isValid(target, constraint);
+		final Object value = accessor.get(target);
+		if (value instanceof CharSequence)
+			return ((CharSequence) value).length() > 0;
+		return value != null && StringUtils.hasLength(value.toString());
+	}
+
 	@Override
 	protected final void validate(Field field, Errors errors, String errorCode) {
 		ValidationUtils.rejectIfEmpty(errors, field.getName(), errorCode);
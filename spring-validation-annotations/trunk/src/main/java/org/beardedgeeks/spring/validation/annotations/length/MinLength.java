@@ -26,4 +26,10 @@ public @interface MinLength {
 	 * The optional custom errorCode.
 	 */
 	String errorCode() default "";
+
+	/**
+	 * The optional groups the constraint belongs to, see
+	 * {@link org.beardedgeeks.spring.validation.annotations.Default}.
+	 */
+	Class<?>[] groups() default {};
 }
@@ -4,6 +4,8 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 
 import org.beardedgeeks.spring.validation.annotations.ExtendedValidationUtils;
+import org.beardedgeeks.spring.validation.annotations.FieldAccessor;
+import org.beardedgeeks.spring.validation.annotations.FieldConstraint;
 import org.beardedgeeks.spring.validation.annotations.FieldValidator;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.Errors;
@@ -20,6 +22,45 @@ public class MinLengthValidator extends FieldValidator {
 		return MinLength.class;
 	}
 
+	@Override
+	protected final int getCost() {
+		return LENGTH_CHECK_COST;
+	}
+
+	/**
+	 * Resolves the minimum length of the annotation.
+	 */
+	@Override
+	protected final Object resolveParameter(final Field field,
+			final Annotation annotation) {
+		return ((MinLength) annotation).value();
+	}
+
+	@Override
+	protected final void validate(final Object target,
+			final FieldConstraint constraint, final Errors errors,
+			final String errorCode) {
+		final Object value = constraint.getAccessor().getValue(target, errors);
+		if (value == null)
+			return;
+		final int minLength = (Integer) constraint.getParameter();
+		if (ExtendedValidationUtils.length(value) < minLength)
+			errors.rejectValue(constraint.getFieldName(), errorCode,
+					new Object[] { minLength }, null);
+	}
+
+	@Override
+	protected final boolean isValid(final Object target,
+			final FieldConstraint constraint) {
+		final FieldAccessor accessor = constraint.getAccessor();
+		if (!accessor.isAccessible())
+			return super.isValid(target, constraint);
+		final Object value = accessor.get(target);
+		return value == null
+				|| ExtendedValidationUtils.length(value) >= (Integer) constraint
+						.getParameter();
+	}
+
 	@Override
 	protected final void validate(final Field field, final Errors errors,
 			final String errorCode) {
@@ -0,0 +1,135 @@
+package org.beardedgeeks.spring.validation.annotations.matches;
+
+import java.util.regex.Pattern;
+
+import org.beardedgeeks.spring.validation.annotations.PatternCache;
+
+/**
+ * The pattern of a {@link MatchesPattern} constraint, compiled for the engine
+ * chosen by the annotation or by the validator. The automaton is compiled on
+ * first use.
+ * 
+ * @author hleinone
+ */
+final class CompiledPattern {
+	private final Pattern pattern;
+
+	private final MatchesPattern.Engine engine;
+
+	private volatile RegexAutomaton automaton;
+
+	private volatile boolean automatonCompiled;
+
+	CompiledPattern(final String regex, final MatchesPattern.Engine engine) {
+		this.pattern = PatternCache.compile(regex);
+		this.engine = engine;
+	}
+
+	Pattern getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * Tests whether the whole value matches the pattern.
+	 * 
+	 * @param value
+	 *            The value to test.
+	 * @param defaultEngine
+	 *            The engine used unless the annotation chooses one.
+	 * @param stepBudget
+	 *            The maximum number of characters read by
+	 *            <code>java.util.regex</code> when falling back to it from
+	 *            the automaton.
+	 * @return <code>true</code> if the value matches, <code>false</code> if
+	 *         not or if the step budget was exhausted.
+	 */
+	boolean matches(final CharSequence value,
+			final MatchesPattern.Engine defaultEngine, final int stepBudget) {
+		final MatchesPattern.Engine selected = engine == MatchesPattern.Engine.DEFAULT ? defaultEngine
+				: engine;
+		if (selected != MatchesPattern.Engine.AUTOMATON)
+			return pattern.matcher(value).matches();
+		final RegexAutomaton automaton = getAutomaton();
+		if (automaton != null)
+			return automaton.matches(value);
+		try {
+			return pattern.matcher(new BudgetedCharSequence(value, stepBudget))
+					.matches();
+		} catch (BudgetExhaustedException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Compiles the automaton if the pattern is matched with it.
+	 * 
+	 * @param defaultEngine
+	 *            The engine used unless the annotation chooses one.
+	 */
+	void warmUp(final MatchesPattern.Engine defaultEngine) {
+		if ((engine == MatchesPattern.Engine.DEFAULT ? defaultEngine : engine) == MatchesPattern.Engine.AUTOMATON)
+			getAutomaton();
+	}
+
+	boolean isAutomatonCompiled() {
+		return automatonCompiled;
+	}
+
+	/**
+	 * @return The automaton, or <code>null</code> if the pattern uses
+	 *         features the automaton does not support.
+	 */
+	RegexAutomaton getAutomaton() {
+		if (!automatonCompiled) {
+			automaton = RegexAutomaton.compile(pattern.pattern());
+			automatonCompiled = true;
+		}
+		return automaton;
+	}
+
+	/**
+	 * Counts the characters read by the matcher, giving up once the budget is
+	 * exhausted.
+	 */
+	private static final class BudgetedCharSequence implements CharSequence {
+		private final CharSequence sequence;
+
+		private final int[] budget;
+
+		private BudgetedCharSequence(final CharSequence sequence,
+				final int budget) {
+			this(sequence, new int[] { budget });
+		}
+
+		private BudgetedCharSequence(final CharSequence sequence,
+				final int[] budget) {
+			this.sequence = sequence;
+			this.budget = budget;
+		}
+
+		public char charAt(final int index) {
+			if (--budget[0] < 0)
+				throw new BudgetExhaustedException();
+			return sequence.charAt(index);
+		}
+
+		public int length() {
+			return sequence.length();
+		}
+
+		public CharSequence subSequence(final int start, final int end) {
+			return new BudgetedCharSequence(sequence.subSequence(start, end),
+					budget);
+		}
+
+		@Override
+		public String toString() {
+			return sequence.toString();
+		}
+	}
+
+	private static final class BudgetExhaustedException extends
+			RuntimeException {
+		private static final long serialVersionUID = 1L;
+	}
+}
@@ -8,7 +8,8 @@ import java.lang.annotation.Target;
 
 /**
  * Indicates that the field value must match a pattern. Value <code>null</code>
- * is treated as valid. Assumes that the field used on has a
+ * is treated as valid. Assumes that the field used on is a
+ * {@link java.lang.CharSequence} or has a
  * <code>matches(java.lang.String)</code> method with <code>boolean</code>
  * return type.
  * 
@@ -27,4 +28,42 @@ public @interface MatchesPattern {
 	 * The optional custom errorCode.
 	 */
 	String errorCode() default "";
+
+	/**
+	 * The optional groups the constraint belongs to, see
+	 * {@link org.beardedgeeks.spring.validation.annotations.Default}.
+	 */
+	Class<?>[] groups() default {};
+
+	/**
+	 * The optional engine matching the pattern, by default the engine of the
+	 * validator, see {@link MatchesPatternValidator#setEngine(Engine)}.
+	 */
+	Engine engine() default Engine.DEFAULT;
+
+	/**
+	 * The engines matching the patterns.
+	 */
+	enum Engine {
+		/**
+		 * The engine of the validator.
+		 */
+		DEFAULT,
+
+		/**
+		 * <code>java.util.regex</code>, supporting all the features of
+		 * {@link java.util.regex.Pattern} but taking exponential time on some
+		 * patterns and values.
+		 */
+		JAVA,
+
+		/**
+		 * A finite automaton matching in time linear to the length of the
+		 * value. Patterns using features that are not regular, such as back
+		 * references or look-around, are matched with
+		 * <code>java.util.regex</code> within a step budget instead, see
+		 * {@link MatchesPatternValidator#setStepBudget(int)}.
+		 */
+		AUTOMATON
+	}
 }
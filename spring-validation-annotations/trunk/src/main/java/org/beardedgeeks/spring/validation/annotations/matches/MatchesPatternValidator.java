@@ -2,28 +2,152 @@ package org.beardedgeeks.spring.validation.annotations.matches;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
+import java.util.regex.Pattern;
 
 import org.beardedgeeks.spring.validation.annotations.ExtendedValidationUtils;
+import org.beardedgeeks.spring.validation.annotations.FieldAccessor;
+import org.beardedgeeks.spring.validation.annotations.FieldConstraint;
 import org.beardedgeeks.spring.validation.annotations.FieldValidator;
+import org.beardedgeeks.spring.validation.annotations.PatternCache;
 import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
 import org.springframework.validation.Errors;
 
 /**
  * Validator for {@link MatchesPattern} annotations.
+ * <p>
+ * The patterns are matched with <code>java.util.regex</code> unless another
+ * engine is chosen, see {@link #setEngine(MatchesPattern.Engine)}. Values that
+ * are not {@link CharSequence}s are matched with their own
+ * <code>matches(java.lang.String)</code> method regardless of the engine.
  * 
  * @author hleinone
  */
 @Component("matchesPatternValidator")
 public class MatchesPatternValidator extends FieldValidator {
+	/**
+	 * The default maximum number of characters read by
+	 * <code>java.util.regex</code> when matching a value with a pattern the
+	 * automaton does not support.
+	 */
+	public static final int DEFAULT_STEP_BUDGET = 1000000;
+
+	private volatile MatchesPattern.Engine engine = MatchesPattern.Engine.JAVA;
+
+	private volatile int stepBudget = DEFAULT_STEP_BUDGET;
+
+	/**
+	 * Sets the engine matching the patterns whose annotation does not choose
+	 * one. Defaults to {@link MatchesPattern.Engine#JAVA}.
+	 * 
+	 * @param engine
+	 *            The engine, not {@link MatchesPattern.Engine#DEFAULT}.
+	 */
+	public final void setEngine(final MatchesPattern.Engine engine) {
+		Assert.notNull(engine, "Engine must not be null");
+		Assert.isTrue(engine != MatchesPattern.Engine.DEFAULT,
+				"Engine must not be DEFAULT");
+		this.engine = engine;
+	}
+
+	/**
+	 * @return The engine matching the patterns whose annotation does not
+	 *         choose one.
+	 */
+	public final MatchesPattern.Engine getEngine() {
+		return engine;
+	}
+
+	/**
+	 * Sets the maximum number of characters read by
+	 * <code>java.util.regex</code> when the
+	 * {@link MatchesPattern.Engine#AUTOMATON} engine falls back to it. A value
+	 * still not matched once the budget is exhausted is rejected. Defaults to
+	 * {@link #DEFAULT_STEP_BUDGET}.
+	 * 
+	 * @param stepBudget
+	 *            The budget.
+	 */
+	public final void setStepBudget(final int stepBudget) {
+		Assert.isTrue(stepBudget > 0, "Step budget must be positive");
+		this.stepBudget = stepBudget;
+	}
+
 	@Override
 	protected final Class<? extends Annotation> getAnnotationType() {
 		return MatchesPattern.class;
 	}
 
+	@Override
+	protected final int getCost() {
+		return PATTERN_CHECK_COST;
+	}
+
+	/**
+	 * Compiles the pattern of the annotation.
+	 */
+	@Override
+	protected final Object resolveParameter(final Field field,
+			final Annotation annotation) {
+		final MatchesPattern matchesPattern = (MatchesPattern) annotation;
+		return new CompiledPattern(matchesPattern.value(), matchesPattern
+				.engine());
+	}
+
+	/**
+	 * Compiles the automaton of the pattern if it is matched with the
+	 * {@link MatchesPattern.Engine#AUTOMATON} engine.
+	 */
+	@Override
+	protected final void warmUp(final FieldConstraint constraint) {
+		((CompiledPattern) constraint.getParameter()).warmUp(engine);
+	}
+
+	/**
+	 * Tests whether the value matches the pattern of the constraint with the
+	 * chosen engine. Used by the generated validators.
+	 * 
+	 * @param value
+	 *            The value to test, not <code>null</code>.
+	 * @param constraint
+	 *            The constraint.
+	 * @return <code>true</code> if the value matches the pattern.
+	 * @throws IllegalArgumentException
+	 *             If validating the type of the value is not supported.
+	 */
+	public final boolean matches(final Object value,
+			final FieldConstraint constraint) {
+		final CompiledPattern pattern = (CompiledPattern) constraint
+				.getParameter();
+		if (value instanceof CharSequence)
+			return pattern.matches((CharSequence) value, engine, stepBudget);
+		return ExtendedValidationUtils.matches(value, pattern.getPattern());
+	}
+
+	@Override
+	protected final void validate(final Object target,
+			final FieldConstraint constraint, final Errors errors,
+			final String errorCode) {
+		final Object value = constraint.getAccessor().getValue(target, errors);
+		if (value != null && !matches(value, constraint))
+			errors.rejectValue(constraint.getFieldName(), errorCode, null, null);
+	}
+
+	@Override
+	protected final boolean isValid(final Object target,
+			final FieldConstraint constraint) {
+		final FieldAccessor accessor = constraint.getAccessor();
+		if (!accessor.isAccessible())
+			return super.isValid(target, constraint);
+		final Object value = accessor.get(target);
+		return value == null || matches(value, constraint);
+	}
+
 	@Override
 	protected final void validate(final Field field, final Errors errors,
 			final String errorCode) {
-		String pattern = field.getAnnotation(MatchesPattern.class).value();
+		Pattern pattern = PatternCache.compile(field.getAnnotation(
+				MatchesPattern.class).value());
 		ExtendedValidationUtils.rejectIfNotMatches(errors, field.getName(),
 				pattern, errorCode);
 	}
@@ -0,0 +1,857 @@
+package org.beardedgeeks.spring.validation.annotations.matches;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * A finite automaton matching a regular expression against a whole input in
+ * time linear to the length of the input, whatever the expression and the
+ * input. Only the regular subset of the {@link java.util.regex.Pattern}
+ * syntax is supported: literals and escaped characters, <code>.</code>,
+ * character classes with ranges and negation, the predefined classes
+ * <code>\d \D \s \S \w \W</code>, capturing and non-capturing groups,
+ * alternation, and greedy or reluctant quantifiers. <code>^</code> and
+ * <code>$</code> are accepted at the ends of the expression, where they do
+ * not change whole-input matching. Back references, look-around, boundaries,
+ * possessive quantifiers, inline flags, Unicode properties, quoting and class
+ * unions or intersections are not supported.
+ * <p>
+ * The expression is compiled to a nondeterministic automaton, which is turned
+ * into a deterministic one over the classes of code points the expression
+ * tells apart. Should the deterministic automaton grow too large, the
+ * nondeterministic one is simulated instead, which is slower but still
+ * linear. The automaton is immutable and can be shared.
+ * 
+ * @author hleinone
+ */
+final class RegexAutomaton {
+	/**
+	 * The maximum number of states of the nondeterministic automaton, limiting
+	 * e.g. the expansion of bounded repetitions.
+	 */
+	static final int MAX_NFA_STATES = 5000;
+
+	/**
+	 * The maximum number of transitions of the deterministic automaton.
+	 */
+	static final int MAX_DFA_TRANSITIONS = 65536;
+
+	private static final int MAX_CODE_POINT = Character.MAX_CODE_POINT;
+
+	private static final int CHAR = 0;
+
+	private static final int SPLIT = 1;
+
+	private static final int MATCH = 2;
+
+	private static final int[] DIGIT = { '0', '9' };
+
+	private static final int[] SPACE = { '\t', '\r', ' ', ' ' };
+
+	private static final int[] WORD = { '0', '9', 'A', 'Z', '_', '_', 'a',
+			'z' };
+
+	private static final int[] DOT = complement(new int[] { '\n', '\n', '\r',
+			'\r', 0x85, 0x85, 0x2028, 0x2029 });
+
+	/*
+	 * The nondeterministic automaton.
+	 */
+
+	private final int[] types;
+
+	private final int[] outs;
+
+	private final int[] alternatives;
+
+	private final int[][] ranges;
+
+	private final int start;
+
+	/*
+	 * The deterministic automaton, or null if too large.
+	 */
+
+	/**
+	 * The lower bounds of the classes of code points.
+	 */
+	private final int[] classBounds;
+
+	private final int[] asciiClasses;
+
+	private final int[] transitions;
+
+	private final boolean[] accepting;
+
+	private RegexAutomaton(final Builder builder) {
+		types = toArray(builder.types);
+		outs = toArray(builder.outs);
+		alternatives = toArray(builder.alternatives);
+		ranges = builder.ranges.toArray(new int[builder.ranges.size()][]);
+		start = builder.start;
+
+		classBounds = classBounds(ranges);
+		asciiClasses = new int[128];
+		for (int c = 0; c < asciiClasses.length; c++)
+			asciiClasses[c] = findClass(c);
+		final List<int[]> dfaTransitions = new ArrayList<int[]>();
+		final List<Boolean> dfaAccepting = new ArrayList<Boolean>();
+		if (determinize(dfaTransitions, dfaAccepting)) {
+			transitions = new int[dfaTransitions.size() * classBounds.length];
+			accepting = new boolean[dfaAccepting.size()];
+			for (int i = 0; i < accepting.length; i++) {
+				System.arraycopy(dfaTransitions.get(i), 0, transitions, i
+						* classBounds.length, classBounds.length);
+				accepting[i] = dfaAccepting.get(i);
+			}
+		} else {
+			transitions = null;
+			accepting = null;
+		}
+	}
+
+	/**
+	 * Compiles the given expression, expected to be a valid
+	 * {@link java.util.regex.Pattern}.
+	 * 
+	 * @param regex
+	 *            The expression.
+	 * @return The automaton, or <code>null</code> if the expression uses
+	 *         features not supported.
+	 */
+	static RegexAutomaton compile(final String regex) {
+		try {
+			final Parser parser = new Parser(regex);
+			final Node node = parser.parse();
+			final Builder builder = new Builder();
+			builder.start = node.build(builder, builder.add(MATCH, -1, -1,
+					null));
+			return new RegexAutomaton(builder);
+		} catch (UnsupportedException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the automaton is deterministic.
+	 */
+	boolean isDeterministic() {
+		return transitions != null;
+	}
+
+	/**
+	 * Tests whether the whole input matches the expression.
+	 * 
+	 * @param input
+	 *            The input.
+	 * @return <code>true</code> if the input matches.
+	 */
+	boolean matches(final CharSequence input) {
+		if (transitions == null)
+			return simulate(input);
+		final int classCount = classBounds.length;
+		final int length = input.length();
+		int state = 0;
+		for (int i = 0; i < length;) {
+			final int c = Character.codePointAt(input, i);
+			i += Character.charCount(c);
+			state = transitions[state * classCount + classOf(c)];
+			if (state < 0)
+				return false;
+		}
+		return accepting[state];
+	}
+
+	/**
+	 * Simulates the nondeterministic automaton, tracking the set of the
+	 * current states.
+	 */
+	private boolean simulate(final CharSequence input) {
+		int[] current = new int[types.length];
+		int[] next = new int[types.length];
+		final int[] marks = new int[types.length];
+		final int[] stack = new int[types.length];
+		int generation = 1;
+		int currentSize = closure(start, current, 0, marks, generation, stack);
+		final int length = input.length();
+		for (int i = 0; i < length && currentSize > 0;) {
+			final int c = Character.codePointAt(input, i);
+			i += Character.charCount(c);
+			generation++;
+			int nextSize = 0;
+			for (int j = 0; j < currentSize; j++) {
+				final int state = current[j];
+				if (types[state] == CHAR && contains(ranges[state], c))
+					nextSize = closure(outs[state], next, nextSize, marks,
+							generation, stack);
+			}
+			final int[] swap = current;
+			current = next;
+			next = swap;
+			currentSize = nextSize;
+		}
+		for (int j = 0; j < currentSize; j++)
+			if (types[current[j]] == MATCH)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Adds the character and match states reachable from the given state
+	 * without consuming input to the set.
+	 * 
+	 * @return The new size of the set.
+	 */
+	private int closure(final int from, final int[] set, int size,
+			final int[] marks, final int generation, final int[] stack) {
+		// states are marked when pushed, so each is pushed once at most
+		if (marks[from] == generation)
+			return size;
+		marks[from] = generation;
+		int top = 0;
+		stack[top++] = from;
+		while (top > 0) {
+			final int state = stack[--top];
+			if (types[state] != SPLIT) {
+				set[size++] = state;
+				continue;
+			}
+			if (marks[alternatives[state]] != generation) {
+				marks[alternatives[state]] = generation;
+				stack[top++] = alternatives[state];
+			}
+			if (marks[outs[state]] != generation) {
+				marks[outs[state]] = generation;
+				stack[top++] = outs[state];
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Builds the deterministic automaton by subset construction.
+	 * 
+	 * @return <code>false</code> if the automaton grew too large.
+	 */
+	private boolean determinize(final List<int[]> dfaTransitions,
+			final List<Boolean> dfaAccepting) {
+		final int classCount = classBounds.length;
+		final int[] marks = new int[types.length];
+		final int[] stack = new int[types.length];
+		final int[] buffer = new int[types.length];
+		final Map<StateSet, Integer> ids = new HashMap<StateSet, Integer>();
+		final List<StateSet> sets = new ArrayList<StateSet>();
+		int generation = 1;
+
+		final StateSet initial = new StateSet(buffer, closure(start, buffer,
+				0, marks, generation, stack));
+		ids.put(initial, 0);
+		sets.add(initial);
+		for (int id = 0; id < sets.size(); id++) {
+			if ((long) sets.size() * classCount > MAX_DFA_TRANSITIONS)
+				return false;
+			final int[] states = sets.get(id).states;
+			final int[] row = new int[classCount];
+			boolean accept = false;
+			for (final int state : states)
+				if (types[state] == MATCH)
+					accept = true;
+			for (int c = 0; c < classCount; c++) {
+				generation++;
+				int size = 0;
+				for (final int state : states)
+					if (types[state] == CHAR
+							&& contains(ranges[state], classBounds[c]))
+						size = closure(outs[state], buffer, size, marks,
+								generation, stack);
+				if (size == 0) {
+					row[c] = -1;
+					continue;
+				}
+				final StateSet set = new StateSet(buffer, size);
+				Integer target = ids.get(set);
+				if (target == null) {
+					target = sets.size();
+					ids.put(set, target);
+					sets.add(set);
+				}
+				row[c] = target;
+			}
+			dfaTransitions.add(row);
+			dfaAccepting.add(accept);
+		}
+		return true;
+	}
+
+	private int classOf(final int c) {
+		return c < asciiClasses.length ? asciiClasses[c] : findClass(c);
+	}
+
+	private int findClass(final int c) {
+		int index = Arrays.binarySearch(classBounds, c);
+		return index >= 0 ? index : -index - 2;
+	}
+
+	/**
+	 * @return The code points where the membership in any of the ranges
+	 *         changes, starting from 0.
+	 */
+	private static int[] classBounds(final int[][] ranges) {
+		final TreeSet<Integer> bounds = new TreeSet<Integer>();
+		bounds.add(0);
+		for (final int[] range : ranges) {
+			if (range == null)
+				continue;
+			for (int i = 0; i < range.length; i += 2) {
+				bounds.add(range[i]);
+				if (range[i + 1] < MAX_CODE_POINT)
+					bounds.add(range[i + 1] + 1);
+			}
+		}
+		final int[] result = new int[bounds.size()];
+		int i = 0;
+		for (final Integer bound : bounds)
+			result[i++] = bound;
+		return result;
+	}
+
+	/**
+	 * @return <code>true</code> if the code point is in the sorted, disjoint
+	 *         ranges.
+	 */
+	private static boolean contains(final int[] ranges, final int c) {
+		int low = 0;
+		int high = ranges.length / 2 - 1;
+		while (low <= high) {
+			final int middle = (low + high) >>> 1;
+			if (c < ranges[middle * 2])
+				high = middle - 1;
+			else if (c > ranges[middle * 2 + 1])
+				low = middle + 1;
+			else
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Sorts and merges the ranges given as pairs of inclusive bounds.
+	 */
+	private static int[] normalize(final int[] ranges) {
+		final int count = ranges.length / 2;
+		final long[] pairs = new long[count];
+		for (int i = 0; i < count; i++)
+			pairs[i] = ((long) ranges[i * 2] << 32) | ranges[i * 2 + 1];
+		Arrays.sort(pairs);
+		final int[] result = new int[ranges.length];
+		int size = 0;
+		for (final long pair : pairs) {
+			final int low = (int) (pair >>> 32);
+			final int high = (int) pair;
+			if (size > 0 && low <= result[size - 1] + 1)
+				result[size - 1] = Math.max(result[size - 1], high);
+			else {
+				result[size++] = low;
+				result[size++] = high;
+			}
+		}
+		return Arrays.copyOf(result, size);
+	}
+
+	private static int[] complement(final int[] ranges) {
+		final int[] normalized = normalize(ranges);
+		final int[] result = new int[normalized.length + 2];
+		int size = 0;
+		int next = 0;
+		for (int i = 0; i < normalized.length; i += 2) {
+			if (normalized[i] > next) {
+				result[size++] = next;
+				result[size++] = normalized[i] - 1;
+			}
+			next = normalized[i + 1] + 1;
+		}
+		if (next <= MAX_CODE_POINT) {
+			result[size++] = next;
+			result[size++] = MAX_CODE_POINT;
+		}
+		return Arrays.copyOf(result, size);
+	}
+
+	private static int[] toArray(final List<Integer> list) {
+		final int[] result = new int[list.size()];
+		for (int i = 0; i < result.length; i++)
+			result[i] = list.get(i);
+		return result;
+	}
+
+	/**
+	 * A sorted set of states of the nondeterministic automaton, a state of the
+	 * deterministic one.
+	 */
+	private static final class StateSet {
+		private final int[] states;
+
+		private final int hashCode;
+
+		private StateSet(final int[] buffer, final int size) {
+			states = Arrays.copyOf(buffer, size);
+			Arrays.sort(states);
+			hashCode = Arrays.hashCode(states);
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			return obj instanceof StateSet
+					&& Arrays.equals(states, ((StateSet) obj).states);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
+	/**
+	 * Thrown when the expression uses a feature not supported.
+	 */
+	private static final class UnsupportedException extends Exception {
+		private static final long serialVersionUID = 1L;
+	}
+
+	/**
+	 * Collects the states of the nondeterministic automaton.
+	 */
+	private static final class Builder {
+		private final List<Integer> types = new ArrayList<Integer>();
+
+		private final List<Integer> outs = new ArrayList<Integer>();
+
+		private final List<Integer> alternatives = new ArrayList<Integer>();
+
+		private final List<int[]> ranges = new ArrayList<int[]>();
+
+		private int start;
+
+		private int add(final int type, final int out, final int alternative,
+				final int[] range) throws UnsupportedException {
+			if (types.size() >= MAX_NFA_STATES)
+				throw new UnsupportedException();
+			types.add(type);
+			outs.add(out);
+			alternatives.add(alternative);
+			ranges.add(range);
+			return types.size() - 1;
+		}
+	}
+
+	/**
+	 * A node of the parsed expression, building the states matching it
+	 * backwards from the state following it.
+	 */
+	private abstract static class Node {
+		/**
+		 * @return The first state of the node.
+		 */
+		abstract int build(Builder builder, int next)
+				throws UnsupportedException;
+	}
+
+	private static final class CharNode extends Node {
+		private final int[] ranges;
+
+		private CharNode(final int[] ranges) {
+			this.ranges = ranges;
+		}
+
+		@Override
+		int build(final Builder builder, final int next)
+				throws UnsupportedException {
+			return builder.add(CHAR, next, -1, ranges);
+		}
+	}
+
+	private static final class ConcatNode extends Node {
+		private final List<Node> nodes;
+
+		private ConcatNode(final List<Node> nodes) {
+			this.nodes = nodes;
+		}
+
+		@Override
+		int build(final Builder builder, final int next)
+				throws UnsupportedException {
+			int state = next;
+			for (int i = nodes.size() - 1; i >= 0; i--)
+				state = nodes.get(i).build(builder, state);
+			return state;
+		}
+	}
+
+	private static final class AlternationNode extends Node {
+		private final List<Node> nodes;
+
+		private AlternationNode(final List<Node> nodes) {
+			this.nodes = nodes;
+		}
+
+		@Override
+		int build(final Builder builder, final int next)
+				throws UnsupportedException {
+			int state = nodes.get(nodes.size() - 1).build(builder, next);
+			for (int i = nodes.size() - 2; i >= 0; i--)
+				state = builder.add(SPLIT, nodes.get(i).build(builder, next),
+						state, null);
+			return state;
+		}
+	}
+
+	private static final class RepetitionNode extends Node {
+		private final Node node;
+
+		private final int min;
+
+		/**
+		 * The maximum count, or <code>-1</code> if unbounded.
+		 */
+		private final int max;
+
+		private RepetitionNode(final Node node, final int min, final int max) {
+			this.node = node;
+			this.min = min;
+			this.max = max;
+		}
+
+		@Override
+		int build(final Builder builder, final int next)
+				throws UnsupportedException {
+			int state;
+			if (max < 0) {
+				final int loop = builder.add(SPLIT, -1, next, null);
+				builder.outs.set(loop, node.build(builder, loop));
+				state = loop;
+			} else {
+				state = next;
+				for (int i = min; i < max; i++)
+					state = builder.add(SPLIT, node.build(builder, state),
+							next, null);
+			}
+			for (int i = 0; i < min; i++)
+				state = node.build(builder, state);
+			return state;
+		}
+	}
+
+	/**
+	 * Parses the supported subset of the expression syntax.
+	 */
+	private static final class Parser {
+		private final String regex;
+
+		private int position;
+
+		private Parser(final String regex) {
+			this.regex = regex;
+		}
+
+		private Node parse() throws UnsupportedException {
+			final Node node = parseAlternation();
+			if (position < regex.length())
+				throw new UnsupportedException();
+			return node;
+		}
+
+		private Node parseAlternation() throws UnsupportedException {
+			final List<Node> nodes = new ArrayList<Node>();
+			nodes.add(parseConcatenation());
+			while (peek() == '|') {
+				position++;
+				nodes.add(parseConcatenation());
+			}
+			return nodes.size() == 1 ? nodes.get(0) : new AlternationNode(
+					nodes);
+		}
+
+		private Node parseConcatenation() throws UnsupportedException {
+			final List<Node> nodes = new ArrayList<Node>();
+			while (position < regex.length() && peek() != '|'
+					&& peek() != ')')
+				nodes.add(parseQuantified());
+			return new ConcatNode(nodes);
+		}
+
+		private Node parseQuantified() throws UnsupportedException {
+			final Node node = parseAtom();
+			final int min;
+			final int max;
+			switch (peek()) {
+			case '*':
+				min = 0;
+				max = -1;
+				position++;
+				break;
+			case '+':
+				min = 1;
+				max = -1;
+				position++;
+				break;
+			case '?':
+				min = 0;
+				max = 1;
+				position++;
+				break;
+			case '{':
+				position++;
+				min = parseNumber();
+				if (peek() == ',') {
+					position++;
+					max = peek() == '}' ? -1 : parseNumber();
+				} else
+					max = min;
+				expect('}');
+				if (max >= 0 && max < min)
+					throw new UnsupportedException();
+				break;
+			default:
+				return node;
+			}
+			// reluctant quantifiers match the same whole inputs
+			if (peek() == '?')
+				position++;
+			// possessive and stacked quantifiers are not regular as such
+			if (peek() == '+' || peek() == '*' || peek() == '?'
+					|| peek() == '{')
+				throw new UnsupportedException();
+			return new RepetitionNode(node, min, max);
+		}
+
+		private Node parseAtom() throws UnsupportedException {
+			final int c = next();
+			switch (c) {
+			case '(':
+				if (peek() == '?') {
+					position++;
+					expect(':');
+				}
+				final Node node = parseAlternation();
+				expect(')');
+				return node;
+			case '[':
+				return new CharNode(parseClass());
+			case '.':
+				return new CharNode(DOT);
+			case '^':
+				if (position != 1)
+					throw new UnsupportedException();
+				return new ConcatNode(new ArrayList<Node>());
+			case '$':
+				if (position != regex.length())
+					throw new UnsupportedException();
+				return new ConcatNode(new ArrayList<Node>());
+			case '\\':
+				final int[] escaped = parseClassEscape();
+				return new CharNode(escaped != null ? escaped
+						: single(parseEscape()));
+			case '*':
+			case '+':
+			case '?':
+			case '{':
+				throw new UnsupportedException();
+			default:
+				return new CharNode(single(c));
+			}
+		}
+
+		private int[] parseClass() throws UnsupportedException {
+			final boolean negated = peek() == '^';
+			if (negated)
+				position++;
+			if (peek() == ']')
+				throw new UnsupportedException();
+			final List<Integer> bounds = new ArrayList<Integer>();
+			while (peek() != ']') {
+				final int c = next();
+				if (c == '[' || (c == '&' && peek() == '&'))
+					throw new UnsupportedException();
+				int low = c;
+				if (c == '\\') {
+					final int[] escaped = parseClassEscape();
+					if (escaped != null) {
+						for (final int bound : escaped)
+							bounds.add(bound);
+						continue;
+					}
+					low = parseEscape();
+				}
+				int high = low;
+				if (peek() == '-' && peekAt(1) != ']') {
+					position++;
+					high = next();
+					if (high == '[')
+						throw new UnsupportedException();
+					if (high == '\\') {
+						if (parseClassEscape() != null)
+							throw new UnsupportedException();
+						high = parseEscape();
+					}
+					if (high < low)
+						throw new UnsupportedException();
+				}
+				bounds.add(low);
+				bounds.add(high);
+			}
+			position++;
+			final int[] result = normalize(toArray(bounds));
+			return negated ? complement(result) : result;
+		}
+
+		/**
+		 * Parses a predefined class following a backslash.
+		 * 
+		 * @return The ranges of the class, or <code>null</code> if the
+		 *         escape is not a predefined class.
+		 */
+		private int[] parseClassEscape() throws UnsupportedException {
+			final int[] ranges;
+			switch (peek()) {
+			case 'd':
+				ranges = DIGIT;
+				break;
+			case 'D':
+				ranges = complement(DIGIT);
+				break;
+			case 's':
+				ranges = SPACE;
+				break;
+			case 'S':
+				ranges = complement(SPACE);
+				break;
+			case 'w':
+				ranges = WORD;
+				break;
+			case 'W':
+				ranges = complement(WORD);
+				break;
+			default:
+				return null;
+			}
+			position++;
+			return ranges;
+		}
+
+		/**
+		 * Parses an escaped character following a backslash.
+		 * 
+		 * @return The code point of the character.
+		 */
+		private int parseEscape() throws UnsupportedException {
+			final int c = next();
+			switch (c) {
+			case 't':
+				return '\t';
+			case 'n':
+				return '\n';
+			case 'r':
+				return '\r';
+			case 'f':
+				return '\f';
+			case 'a':
+				return '\u0007';
+			case 'e':
+				return '\u001B';
+			case '0':
+				return parseOctal();
+			case 'x':
+				if (peek() == '{') {
+					position++;
+					final int end = regex.indexOf('}', position);
+					if (end < 0)
+						throw new UnsupportedException();
+					final int value = parseHex(end - position);
+					expect('}');
+					return value;
+				}
+				return parseHex(2);
+			case 'u':
+				return parseHex(4);
+			case 'c':
+				return next() ^ 64;
+			default:
+				// escaped letters and digits have special meanings
+				if (Character.isLetterOrDigit(c))
+					throw new UnsupportedException();
+				return c;
+			}
+		}
+
+		private int parseOctal() throws UnsupportedException {
+			int value = 0;
+			int digits = 0;
+			final int maxDigits = peek() >= '0' && peek() <= '3' ? 3 : 2;
+			while (digits < maxDigits && peek() >= '0' && peek() <= '7') {
+				value = value * 8 + next() - '0';
+				digits++;
+			}
+			if (digits == 0)
+				throw new UnsupportedException();
+			return value;
+		}
+
+		private int parseHex(final int digits) throws UnsupportedException {
+			if (digits <= 0 || position + digits > regex.length())
+				throw new UnsupportedException();
+			final int value;
+			try {
+				value = Integer.parseInt(regex.substring(position, position
+						+ digits), 16);
+			} catch (NumberFormatException e) {
+				throw new UnsupportedException();
+			}
+			position += digits;
+			if (value < 0 || value > MAX_CODE_POINT)
+				throw new UnsupportedException();
+			return value;
+		}
+
+		private int parseNumber() throws UnsupportedException {
+			final int begin = position;
+			while (peek() >= '0' && peek() <= '9')
+				position++;
+			if (position == begin || position - begin > 4)
+				throw new UnsupportedException();
+			return Integer.parseInt(regex.substring(begin, position));
+		}
+
+		private void expect(final int c) throws UnsupportedException {
+			if (next() != c)
+				throw new UnsupportedException();
+		}
+
+		private int next() throws UnsupportedException {
+			if (position >= regex.length())
+				throw new UnsupportedException();
+			final int c = regex.codePointAt(position);
+			position += Character.charCount(c);
+			return c;
+		}
+
+		/**
+		 * @return The next code point, or <code>-1</code> at the end.
+		 */
+		private int peek() {
+			return peekAt(0);
+		}
+
+		private int peekAt(final int offset) {
+			return position + offset < regex.length() ? regex.codePointAt(position
+					+ offset) : -1;
+		}
+
+		private static int[] single(final int c) {
+			return new int[] { c, c };
+		}
+	}
+}
@@ -24,6 +24,11 @@ public class MaxValueValidator extends NumericValueValidator {
 		return field.getAnnotation(MaxValue.class).value();
 	}
 
+	@Override
+	protected boolean isWithinBound(final int comparison) {
+		return comparison <= 0;
+	}
+
 	@Override
 	protected void validateNumber(final Field field, final Errors errors,
 			final String errorCode, Comparable<? extends Number> value) {
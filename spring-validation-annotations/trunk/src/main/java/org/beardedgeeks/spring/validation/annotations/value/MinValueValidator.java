@@ -24,6 +24,11 @@ public class MinValueValidator extends NumericValueValidator {
 		return field.getAnnotation(MinValue.class).value();
 	}
 
+	@Override
+	protected boolean isWithinBound(final int comparison) {
+		return comparison >= 0;
+	}
+
 	@Override
 	protected void validateNumber(final Field field, final Errors errors,
 			final String errorCode, Comparable<? extends Number> value) {
@@ -0,0 +1,150 @@
+package org.beardedgeeks.spring.validation.annotations.value;
+
+import java.lang.reflect.Field;
+
+import org.beardedgeeks.spring.validation.annotations.FieldAccessor;
+
+/**
+ * The parsed value of a {@link MinValue} or {@link MaxValue} annotation,
+ * specialized for the type of the annotated field. Primitive fields are read
+ * and compared without boxing; other fields are compared with the
+ * <code>compareTo</code> method of the bound, e.g.
+ * {@link java.math.BigDecimal#compareTo(java.math.BigDecimal)}.
+ * 
+ * @author hleinone
+ */
+abstract class NumericBound {
+	private final Comparable<? extends Number> value;
+
+	private NumericBound(final Comparable<? extends Number> value) {
+		this.value = value;
+	}
+
+	/**
+	 * Parses the bound for the given field.
+	 * 
+	 * @param field
+	 *            The annotated field.
+	 * @param valueAsString
+	 *            The value of the annotation.
+	 * @return The bound.
+	 * @throws IllegalArgumentException
+	 *             If the type is not supported or the value cannot be parsed
+	 *             to it.
+	 */
+	static NumericBound create(final Field field, final String valueAsString) {
+		final Class<?> type = field.getType();
+		final Comparable<? extends Number> value = NumericValueValidator
+				.parseValue(type, valueAsString);
+		if (type.equals(byte.class) || type.equals(short.class)
+				|| type.equals(int.class))
+			return new IntBound(value);
+		else if (type.equals(long.class))
+			return new LongBound(value);
+		else if (type.equals(float.class))
+			return new FloatBound(value);
+		else if (type.equals(double.class))
+			return new DoubleBound(value);
+		return new ComparableBound(value);
+	}
+
+	/**
+	 * @return The bound as an instance of the field type, or its wrapper.
+	 */
+	Comparable<? extends Number> getValue() {
+		return value;
+	}
+
+	/**
+	 * Compares the value of the field to the bound. Value <code>null</code>
+	 * is considered equal to the bound.
+	 * 
+	 * @param accessor
+	 *            The accessor of the field. Must be
+	 *            {@link FieldAccessor#isAccessible() accessible}.
+	 * @param target
+	 *            The object holding the field.
+	 * @return A negative integer, zero, or a positive integer as the value of
+	 *         the field is less than, equal to, or greater than the bound.
+	 */
+	abstract int compare(FieldAccessor accessor, Object target);
+
+	private static final class IntBound extends NumericBound {
+		private final int bound;
+
+		private IntBound(final Comparable<? extends Number> value) {
+			super(value);
+			bound = ((Number) value).intValue();
+		}
+
+		@Override
+		int compare(final FieldAccessor accessor, final Object target) {
+			final int fieldValue = accessor.getInt(target);
+			return fieldValue < bound ? -1 : (fieldValue == bound ? 0 : 1);
+		}
+	}
+
+	private static final class LongBound extends NumericBound {
+		private final long bound;
+
+		private LongBound(final Comparable<? extends Number> value) {
+			super(value);
+			bound = ((Number) value).longValue();
+		}
+
+		@Override
+		int compare(final FieldAccessor accessor, final Object target) {
+			final long fieldValue = accessor.getLong(target);
+			return fieldValue < bound ? -1 : (fieldValue == bound ? 0 : 1);
+		}
+	}
+
+	private static final class FloatBound extends NumericBound {
+		private final float bound;
+
+		private FloatBound(final Comparable<? extends Number> value) {
+			super(value);
+			bound = ((Number) value).floatValue();
+		}
+
+		@Override
+		int compare(final FieldAccessor accessor, final Object target) {
+			// same ordering as Float.compareTo
+			return Float.compare(accessor.getFloat(target), bound);
+		}
+	}
+
+	private static final class DoubleBound extends NumericBound {
+		private final double bound;
+
+		private DoubleBound(final Comparable<? extends Number> value) {
+			super(value);
+			bound = ((Number) value).doubleValue();
+		}
+
+		@Override
+		int compare(final FieldAccessor accessor, final Object target) {
+			// same ordering as Double.compareTo
+			return Double.compare(accessor.getDouble(target), bound);
+		}
+	}
+
+	private static final class ComparableBound extends NumericBound {
+		private final Comparable<Object> bound;
+
+		@SuppressWarnings("unchecked")
+		private ComparableBound(final Comparable<? extends Number> value) {
+			super(value);
+			bound = (Comparable<Object>) (Comparable<?>) value;
+		}
+
+		@Override
+		int compare(final FieldAccessor accessor, final Object target) {
+			final Object fieldValue = accessor.get(target);
+			if (fieldValue == null)
+				return 0;
+			final int comparison = bound.compareTo(fieldValue);
+			return comparison < 0 ? 1 : (comparison == 0 ? 0 : -1);
+		}
+	}
+}
@@ -1,77 +1,193 @@
 package org.beardedgeeks.spring.validation.annotations.value;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 
+import org.beardedgeeks.spring.validation.annotations.FieldAccessor;
+import org.beardedgeeks.spring.validation.annotations.FieldConstraint;
 import org.beardedgeeks.spring.validation.annotations.FieldValidator;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.validation.Errors;
 
 /**
  * Enables validation of any numeric value. The field type must either be a
- * numeric primitive or an instance of {@link java.lang.Number}.
+ * numeric primitive or an instance of {@link java.lang.Number}. The value of
+ * the annotation is parsed once, when the validation plan of the class is
+ * created. A subclass overriding {@link #isWithinBound(int)} along with
+ * {@link #validateNumber(Field, Errors, String, Comparable)} has numeric
+ * primitive fields compared to it without boxing; otherwise each field is
+ * validated by {@link #validateNumber(Field, Errors, String, Comparable)}.
  * 
  * @author hleinone
  */
 public abstract class NumericValueValidator extends FieldValidator {
+	/**
+	 * Whether the fields are compared by {@link #isWithinBound(int)}, that
+	 * is, it is overridden by the class overriding
+	 * {@link #validateNumber(Field, Errors, String, Comparable)} or a subclass
+	 * of it.
+	 */
+	private final boolean comparing;
+
+	/**
+	 * Creates the validator, finding out whether it compares the fields
+	 * itself.
+	 */
+	protected NumericValueValidator() {
+		final Class<?> comparingClass = ReflectionUtils.findMethod(getClass(),
+				"isWithinBound", int.class).getDeclaringClass();
+		final Class<?> validatingClass = ReflectionUtils.findMethod(
+				getClass(), "validateNumber", Field.class, Errors.class,
+				String.class, Comparable.class).getDeclaringClass();
+		comparing = comparingClass != NumericValueValidator.class
+				&& validatingClass.isAssignableFrom(comparingClass);
+	}
+	/**
+	 * Parses the value of the annotation to the type of the field.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If validating the type of the field is not supported or the
+	 *             value of the annotation cannot be parsed to it.
+	 */
+	@Override
+	protected final Object resolveParameter(final Field field,
+			final Annotation annotation) {
+		return NumericBound.create(field, getAnnotationValue(field));
+	}
+
+	/**
+	 * Compares the value of the field to the value parsed when the validation
+	 * plan was created. Numeric primitives are compared without boxing, if
+	 * this validator compares the fields, see {@link #isWithinBound(int)}.
+	 */
+	@Override
+	protected final void validate(final Object target,
+			final FieldConstraint constraint, final Errors errors,
+			final String errorCode) {
+		final NumericBound bound = (NumericBound) constraint.getParameter();
+		final FieldAccessor accessor = constraint.getAccessor();
+		if (!comparing || !accessor.isAccessible()) {
+			validateNumber(constraint.getField(), errors, errorCode, bound
+					.getValue());
+			return;
+		}
+		if (!isWithinBound(bound.compare(accessor, target)))
+			errors.rejectValue(constraint.getFieldName(), errorCode,
+					new Object[] { bound.getValue() }, null);
+	}
+
+	/**
+	 * Compares the value of the field like
+	 * {@link #validate(Object, FieldConstraint, Errors, String)}.
+	 */
+	@Override
+	protected final boolean isValid(final Object target,
+			final FieldConstraint constraint) {
+		final FieldAccessor accessor = constraint.getAccessor();
+		if (!comparing || !accessor.isAccessible())
+			return super.isValid(target, constraint);
+		return isWithinBound(((NumericBound) constraint.getParameter())
+				.compare(accessor, target));
+	}
+
+	@Override
+	protected final int getCost() {
+		return NUMERIC_CHECK_COST;
+	}
+
 	/**
 	 * Resolves the value of the annotation.
 	 */
-	@SuppressWarnings("unchecked")
 	@Override
 	protected final void validate(final Field field, final Errors errors,
 			final String errorCode) {
-		final String valueAsString = getAnnotationValue(field);
-		Class<?> valueType = field.getType();
-		if (valueType.isPrimitive()) {
-			if (valueType.equals(byte.class))
-				valueType = Byte.class;
-			else if (valueType.equals(short.class))
-				valueType = Short.class;
-			else if (valueType.equals(int.class))
-				valueType = Integer.class;
-			else if (valueType.equals(long.class))
-				valueType = Long.class;
-			else if (valueType.equals(float.class))
-				valueType = Float.class;
-			else if (valueType.equals(double.class))
-				valueType = Double.class;
-			else
-				throw new IllegalArgumentException("Validating against type "
-						+ valueType.getName() + " is not supported.");
+		validateNumber(field, errors, errorCode, parseValue(field.getType(),
+				getAnnotationValue(field)));
+	}
+
+	/**
+	 * Returns the value the field of the constraint is validated against.
+	 * 
+	 * @param constraint
+	 *            A constraint from the validation plan of a numeric value
+	 *            validator.
+	 * @return The value parsed to the type of the field, or its wrapper.
+	 */
+	public static Comparable<? extends Number> getBound(
+			final FieldConstraint constraint) {
+		return ((NumericBound) constraint.getParameter()).getValue();
+	}
+
+	/**
+	 * Parses the value to the given numeric type.
+	 * 
+	 * @param type
+	 *            The numeric primitive or {@link java.lang.Number} type.
+	 * @param valueAsString
+	 *            The value to parse.
+	 * @return The parsed value.
+	 * @throws IllegalArgumentException
+	 *             If the type is not supported or the value cannot be parsed
+	 *             to it.
+	 */
+	@SuppressWarnings("unchecked")
+	static Comparable<? extends Number> parseValue(final Class<?> type,
+			final String valueAsString) {
+		try {
+			if (type.equals(byte.class) || type.equals(Byte.class))
+				return Byte.valueOf(valueAsString);
+			else if (type.equals(short.class) || type.equals(Short.class))
+				return Short.valueOf(valueAsString);
+			else if (type.equals(int.class) || type.equals(Integer.class))
+				return Integer.valueOf(valueAsString);
+			else if (type.equals(long.class) || type.equals(Long.class))
+				return Long.valueOf(valueAsString);
+			else if (type.equals(float.class) || type.equals(Float.class))
+				return Float.valueOf(valueAsString);
+			else if (type.equals(double.class) || type.equals(Double.class))
+				return Double.valueOf(valueAsString);
+			else if (type.equals(BigDecimal.class))
+				return new BigDecimal(valueAsString);
+			else if (type.equals(BigInteger.class))
+				return new BigInteger(valueAsString);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Validating against type "
+					+ type.getName() + " is not supported.", e);
 		}
 
-		if (!Number.class.isAssignableFrom(valueType))
+		if (type.isPrimitive() || !Number.class.isAssignableFrom(type))
 			throw new IllegalArgumentException("Validating against type "
-					+ valueType.getName() + " is not supported.");
+					+ type.getName() + " is not supported.");
 
+		// other numbers are expected to have a constructor with a String
+		// parameter
 		try {
-			Constructor<? extends Number> constructor = ((Class<? extends Number>) valueType)
+			Constructor<? extends Number> constructor = ((Class<? extends Number>) type)
 					.getConstructor(String.class);
-			Comparable<Number> value = (Comparable<Number>) constructor
+			return (Comparable<? extends Number>) constructor
 					.newInstance(valueAsString);
-			validateNumber(field, errors, errorCode, value);
 		} catch (SecurityException e) {
 			throw new IllegalArgumentException("Validating against type "
-					+ valueType.getName() + " is not supported.", e);
+					+ type.getName() + " is not supported.", e);
 		} catch (NoSuchMethodException e) {
 			throw new IllegalArgumentException("Validating against type "
-					+ valueType.getName() + " is not supported.", e);
-		} catch (IllegalArgumentException e) {
-			throw new IllegalArgumentException("Validating against type "
-					+ valueType.getName() + " is not supported.", e);
+					+ type.getName() + " is not supported.", e);
 		} catch (InstantiationException e) {
 			throw new IllegalArgumentException("Validating against type "
-					+ valueType.getName() + " is not supported.", e);
+					+ type.getName() + " is not supported.", e);
 		} catch (IllegalAccessException e) {
 			throw new IllegalArgumentException("Validating against type "
-					+ valueType.getName() + " is not supported.", e);
+					+ type.getName() + " is not supported.", e);
 		} catch (InvocationTargetException e) {
 			throw new IllegalArgumentException("Validating against type "
-					+ valueType.getName() + " is not supported.", e);
+					+ type.getName() + " is not supported.", e);
 		} catch (ClassCastException e) {
 			throw new IllegalArgumentException("Validating against type "
-					+ valueType.getName() + " is not supported.", e);
+					+ type.getName() + " is not supported.", e);
 		}
 	}
 
@@ -91,6 +207,26 @@ public abstract class NumericValueValidator extends FieldValidator {
 			final Errors errors, final String errorCode,
 			Comparable<? extends Number> value);
 
+	/**
+	 * Extension point for comparing the fields without boxing. Overridden
+	 * together with {@link #validateNumber(Field, Errors, String, Comparable)}
+	 * to decide the same way; without an override, or if a subclass overrides
+	 * only {@link #validateNumber(Field, Errors, String, Comparable)}, this
+	 * method is not called.
+	 * 
+	 * @param comparison
+	 *            A negative integer, zero, or a positive integer as the value
+	 *            of the field is less than, equal to, or greater than the
+	 *            value to validate against.
+	 * @return <code>true</code> if the field value is valid.
+	 * @throws UnsupportedOperationException
+	 *             If not overridden.
+	 */
+	protected boolean isWithinBound(final int comparison) {
+		throw new UnsupportedOperationException(getClass().getName()
+				+ " does not compare the fields itself");
+	}
+
 	/**
 	 * Extension point for the value retrieval in its String form.
 	 * 
@@ -99,4 +235,4 @@ public abstract class NumericValueValidator extends FieldValidator {
 	 * @return The value to validate against in its String form.
 	 */
 	protected abstract String getAnnotationValue(final Field field);
-}
\ No newline at end of file
+}
@@ -0,0 +1,200 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+public class BatchValidatorTest {
+	@Test
+	public void testValidateAll_ordered() {
+		final BatchValidator validator = new BatchValidator(
+				new NonNegativeValidator());
+		validator.setChunkSize(3);
+		validator.setParallelism(2);
+		final BatchResult result = validator.validateAll(records(100, 7));
+		assertEquals(100, result.getValidatedCount());
+		assertEquals(15, result.getErrorCount());
+		assertTrue(result.hasErrors());
+		assertFalse(result.isTruncated());
+		final List<Integer> expected = new ArrayList<Integer>();
+		for (int i = 0; i < 100; i += 7)
+			expected.add(i);
+		assertEquals(expected, new ArrayList<Integer>(result.getViolations()
+				.keySet()));
+	}
+
+	@Test
+	public void testValidateAll_errors() {
+		final BatchValidator validator = new BatchValidator(
+				new NonNegativeValidator());
+		final BatchResult result = validator.validateAll(records(10, 7));
+		final Errors errors = result.getErrors(7);
+		assertEquals("record", errors.getObjectName());
+		assertEquals(-8, errors.getFieldValue("value"));
+		assertEquals("negative", errors.getFieldError("value").getCode());
+		assertNull(result.getErrors(6));
+	}
+
+	@Test
+	public void testValidateAll_valid() {
+		final BatchValidator validator = new BatchValidator(
+				new NonNegativeValidator());
+		final BatchResult result = validator.validateAll(records(10, 0));
+		assertEquals(10, result.getValidatedCount());
+		assertFalse(result.hasErrors());
+		assertTrue(result.getViolations().isEmpty());
+	}
+
+	@Test
+	public void testValidateAll_empty() {
+		final BatchResult result = new BatchValidator(
+				new NonNegativeValidator()).validateAll(Collections
+				.emptyList());
+		assertEquals(0, result.getValidatedCount());
+		assertFalse(result.hasErrors());
+		assertFalse(result.isTruncated());
+	}
+
+	@Test
+	public void testValidateAll_maxErrors() {
+		final BatchValidator validator = new BatchValidator(
+				new NonNegativeValidator());
+		validator.setChunkSize(4);
+		validator.setMaxErrors(5);
+		final BatchResult result = validator.validateAll(records(1000, 3));
+		assertTrue(result.isTruncated());
+		assertEquals(5, result.getErrorCount());
+		assertEquals(Arrays.asList(0, 3, 6, 9, 12), new ArrayList<Integer>(
+				result.getViolations().keySet()));
+		assertEquals(13, result.getValidatedCount());
+	}
+
+	@Test
+	public void testValidateAll_unordered() {
+		final BatchValidator validator = new BatchValidator(
+				new NonNegativeValidator());
+		validator.setChunkSize(5);
+		validator.setOrdered(false);
+		final BatchResult result = validator.validateAll(records(100, 10));
+		assertEquals(100, result.getValidatedCount());
+		assertEquals(Arrays.asList(0, 10, 20, 30, 40, 50, 60, 70, 80, 90),
+				new ArrayList<Integer>(new TreeSet<Integer>(result
+						.getViolations().keySet())));
+	}
+
+	@Test
+	public void testValidateAll_unorderedMaxErrors() {
+		final BatchValidator validator = new BatchValidator(
+				new NonNegativeValidator());
+		validator.setChunkSize(5);
+		validator.setMaxErrors(3);
+		validator.setOrdered(false);
+		final BatchResult result = validator.validateAll(records(1000, 2));
+		assertTrue(result.isTruncated());
+		assertEquals(3, result.getErrorCount());
+		assertEquals(3, result.getViolations().size());
+	}
+
+	@Test
+	public void testValidateAll_executor() {
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			final BatchValidator validator = new BatchValidator(
+					new NonNegativeValidator());
+			validator.setExecutor(executor);
+			validator.setChunkSize(10);
+			assertEquals(5, validator.validateAll(records(50, 10))
+					.getErrorCount());
+			assertEquals(5, validator.validateAll(records(50, 10))
+					.getErrorCount());
+			assertFalse(executor.isShutdown());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testValidateAll_unsupported() {
+		final BatchResult result = new BatchValidator(
+				new NonNegativeValidator()).validateAll(Arrays.asList("a",
+				"b"));
+		assertEquals(2, result.getValidatedCount());
+		assertFalse(result.hasErrors());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testValidateAll_null() {
+		new BatchValidator(new NonNegativeValidator()).validateAll(Arrays
+				.asList(new Record(1), null));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testValidateAll_validatorException() {
+		new BatchValidator(new Validator() {
+			public boolean supports(final Class<?> clazz) {
+				return true;
+			}
+
+			public void validate(final Object target, final Errors errors) {
+				throw new UnsupportedOperationException();
+			}
+		}).validateAll(records(10, 0));
+	}
+
+	@Test
+	public void testValidateAll_utils() {
+		final BatchResult result = ExtendedValidationUtils.validateAll(
+				records(20, 5), new NonNegativeValidator());
+		assertEquals(Arrays.asList(0, 5, 10, 15), new ArrayList<Integer>(
+				result.getViolations().keySet()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBatchValidator_noValidators() {
+		new BatchValidator();
+	}
+
+	/**
+	 * Creates records numbered by their position, negative at every given
+	 * interval.
+	 */
+	private static List<Record> records(final int count, final int interval) {
+		final List<Record> records = new ArrayList<Record>(count);
+		for (int i = 0; i < count; i++)
+			records.add(new Record(interval > 0 && i % interval == 0 ? -i - 1
+					: i));
+		return records;
+	}
+
+	public static class Record {
+		int value;
+
+		public Record(final int value) {
+			this.value = value;
+		}
+	}
+
+	private static class NonNegativeValidator implements Validator {
+		public boolean supports(final Class<?> clazz) {
+			return Record.class.equals(clazz);
+		}
+
+		public void validate(final Object target, final Errors errors) {
+			if (((Record) target).value < 0)
+				errors.rejectValue("value", "negative");
+		}
+	}
+}
@@ -0,0 +1,240 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.beardedgeeks.spring.validation.annotations.empty.Required;
+import org.beardedgeeks.spring.validation.annotations.length.MaxLength;
+import org.junit.Test;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+
+/**
+ * Tests for {@link CascadingValidator}.
+ * 
+ * @author hleinone
+ */
+public class CascadingValidatorTest {
+	@Test
+	public void testSupports() {
+		final CascadingValidator validator = new CascadingValidator();
+		assertTrue(validator.supports(Order.class));
+		assertTrue(validator.supports(Holder.class));
+		assertFalse(validator.supports(Object.class));
+	}
+
+	@Test
+	public void testValidate_valid() {
+		final Order order = new Order("1");
+		order.items.add(new Line("a"));
+		final ValidationErrors errors = validate(order);
+		assertFalse(errors.hasErrors());
+	}
+
+	@Test
+	public void testValidate_nestedPaths() {
+		final Order order = new Order(null);
+		order.items.add(new Line("a"));
+		order.items.add(new Line(null));
+		order.items.add(null);
+		order.items.add(new Line("abcd"));
+		order.lines = new Line[] { new Line(null) };
+		order.byCode.put("x", new Line(null));
+		final ValidationErrors errors = validate(order);
+		assertEquals(Arrays.asList("id", "items[1].sku", "items[3].sku",
+				"lines[0].sku", "byCode[x].sku"), fields(errors));
+		assertEquals("abcd", errors.getFieldValue("items[3].sku"));
+	}
+
+	@Test
+	public void testValidate_cycle() {
+		final Order order = new Order("1");
+		final Line line = new Line(null);
+		line.order = order;
+		order.items.add(line);
+		order.items.add(line);
+		final ValidationErrors errors = validate(order);
+		assertEquals(Arrays.asList("items[0].sku"), fields(errors));
+	}
+
+	@Test
+	public void testValidate_deepGraph() {
+		final Holder root = new Holder();
+		Holder holder = root;
+		for (int i = 0; i < 100000; i++) {
+			holder.next = new Holder();
+			holder = holder.next;
+		}
+		holder.line = new Line(null);
+		final ValidationErrors errors = new ValidationErrors(root, "holder");
+		new CascadingValidator().validate(root, errors);
+		assertEquals(1, errors.getErrorCount());
+	}
+
+	@Test
+	public void testValidate_nestedPathRestored() {
+		final Order order = new Order("1");
+		order.items.add(new Line(null));
+		final ValidationErrors errors = validate(order);
+		assertEquals("", errors.getNestedPath());
+	}
+
+	private static ValidationErrors validate(final Object target) {
+		final ValidationErrors errors = new ValidationErrors(target, "target");
+		new CascadingValidator().validate(target, errors);
+		return errors;
+	}
+
+	private static List<String> fields(final ValidationErrors errors) {
+		final List<String> fields = new ArrayList<String>();
+		for (final FieldError error : errors.getFieldErrors())
+			fields.add(error.getField());
+		return fields;
+	}
+
+	@Test
+	public void testValidate_jdkElements() {
+		final Tagged tagged = new Tagged();
+		tagged.tags.add("abcd");
+		tagged.tags.add("abc");
+		tagged.counts.put("x", 1);
+		tagged.created = new Date();
+		final ValidationErrors errors = validate(tagged);
+		assertEquals(Arrays.asList("name"), fields(errors));
+		assertFalse(new CascadingValidator().supports(String.class));
+	}
+
+	@Test
+	public void testValidate_iterableBean() {
+		final PurchaseOrder order = new PurchaseOrder(null);
+		order.lines.add(new PurchaseLine("a"));
+		order.lines.add(new PurchaseLine(null));
+		final BeanPropertyBindingResult errors = new BeanPropertyBindingResult(
+				order, "order");
+		new CascadingValidator().validate(order, errors);
+		final List<String> fields = new ArrayList<String>();
+		for (final FieldError error : errors.getFieldErrors())
+			fields.add(error.getField());
+		assertEquals(Arrays.asList("customer", "lines[1].sku"), fields);
+	}
+
+	@Test
+	public void testValidate_nestedContainers() {
+		final Nested nested = new Nested();
+		nested.groups.add(Arrays.asList(new Line(null)));
+		// the elements of an element are not cascaded
+		assertFalse(validate(nested).hasErrors());
+	}
+
+	@Validatable
+	public static final class PurchaseOrder implements Iterable<PurchaseLine> {
+		@Required
+		private final String customer;
+
+		@Cascade
+		private final List<PurchaseLine> lines = new ArrayList<PurchaseLine>();
+
+		private PurchaseOrder(final String customer) {
+			this.customer = customer;
+		}
+
+		public String getCustomer() {
+			return customer;
+		}
+
+		public List<PurchaseLine> getLines() {
+			return lines;
+		}
+
+		public Iterator<PurchaseLine> iterator() {
+			return lines.iterator();
+		}
+	}
+
+	@Validatable
+	public static final class PurchaseLine {
+		@Required
+		private final String sku;
+
+		private PurchaseLine(final String sku) {
+			this.sku = sku;
+		}
+
+		public String getSku() {
+			return sku;
+		}
+	}
+
+	private static final class Nested {
+		@Cascade
+		private final List<List<Line>> groups = new ArrayList<List<Line>>();
+	}
+
+	@Validatable
+	private static final class Tagged {
+		@Required
+		private String name;
+
+		@Cascade
+		private final List<String> tags = new ArrayList<String>();
+
+		@Cascade
+		private final Map<String, Integer> counts = new LinkedHashMap<String, Integer>();
+
+		@SuppressWarnings("unused")
+		@Cascade
+		private Date created;
+	}
+
+	@Validatable
+	private static final class Order {
+		@Required
+		private final String id;
+
+		@Cascade
+		private final List<Line> items = new ArrayList<Line>();
+
+		@Cascade
+		private Line[] lines;
+
+		@Cascade
+		private final Map<String, Line> byCode = new LinkedHashMap<String, Line>();
+
+		private Order(final String id) {
+			this.id = id;
+		}
+	}
+
+	@Validatable
+	private static final class Line {
+		@Required
+		@MaxLength(3)
+		private final String sku;
+
+		@SuppressWarnings("unused")
+		@Cascade
+		private Order order;
+
+		private Line(final String sku) {
+			this.sku = sku;
+		}
+	}
+
+	private static final class Holder {
+		@Cascade
+		private Holder next;
+
+		@SuppressWarnings("unused")
+		@Cascade
+		private Line line;
+	}
+}
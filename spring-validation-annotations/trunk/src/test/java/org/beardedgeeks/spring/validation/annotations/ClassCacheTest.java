@@ -0,0 +1,73 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link ClassCache}.
+ * 
+ * @author hleinone
+ */
+public class ClassCacheTest {
+	@Test
+	public void testPutIfAbsent() {
+		final ClassCache<String> cache = new ClassCache<String>();
+		assertNull(cache.get(Cached.class));
+		assertEquals("foo", cache.putIfAbsent(Cached.class, "foo"));
+		assertEquals("foo", cache.putIfAbsent(Cached.class, "bar"));
+		assertEquals("foo", cache.get(Cached.class));
+	}
+
+	@Test
+	public void testPutIfAbsent_foreignClassLoader() throws Exception {
+		final ClassCache<Object> cache = new ClassCache<Object>();
+		final Class<?> foreign = loadForeign();
+		final Object value = foreign.newInstance();
+		assertSame(value, cache.putIfAbsent(foreign, value));
+		assertSame(value, cache.get(foreign));
+	}
+
+	@Test
+	public void testPutIfAbsent_foreignClassLoaderCollected()
+			throws Exception {
+		final ClassCache<Object> cache = new ClassCache<Object>();
+		final WeakReference<ClassLoader> classLoader = cacheForeign(cache);
+		for (int i = 0; i < 20 && classLoader.get() != null; i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		assertNull(classLoader.get());
+	}
+
+	/**
+	 * Caches a value referring to its class, as e.g. a field index does.
+	 * 
+	 * @return The class loader of the class.
+	 */
+	private static WeakReference<ClassLoader> cacheForeign(
+			final ClassCache<Object> cache) throws Exception {
+		final Class<?> foreign = loadForeign();
+		cache.putIfAbsent(foreign, foreign.newInstance());
+		return new WeakReference<ClassLoader>(foreign.getClassLoader());
+	}
+
+	private static Class<?> loadForeign() throws ClassNotFoundException {
+		final URL location = Cached.class.getProtectionDomain()
+				.getCodeSource().getLocation();
+		final Class<?> foreign = new URLClassLoader(new URL[] { location },
+				null).loadClass(Cached.class.getName());
+		assertNotSame(Cached.class, foreign);
+		return foreign;
+	}
+
+	public static final class Cached {
+	}
+}
@@ -0,0 +1,431 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import static org.easymock.EasyMock.aryEq;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.isNull;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import org.beardedgeeks.spring.validation.annotations.empty.Required;
+import org.beardedgeeks.spring.validation.annotations.empty.RequiredValidator;
+import org.beardedgeeks.spring.validation.annotations.length.MaxLength;
+import org.beardedgeeks.spring.validation.annotations.length.MaxLengthValidator;
+import org.beardedgeeks.spring.validation.annotations.length.MinLength;
+import org.beardedgeeks.spring.validation.annotations.length.MinLengthValidator;
+import org.beardedgeeks.spring.validation.annotations.matches.MatchesPattern;
+import org.beardedgeeks.spring.validation.annotations.matches.MatchesPatternValidator;
+import org.junit.Test;
+import org.springframework.validation.Errors;
+import org.springframework.validation.MapBindingResult;
+
+public class CompositeFieldValidatorTest {
+	@Test
+	public void testSupports() {
+		assertTrue(new CompositeFieldValidator().supports(TestObject.class));
+		assertFalse(new CompositeFieldValidator().supports(Object.class));
+	}
+
+	@Test
+	public void testValidate_hasFieldErrors() {
+		final Errors errorsMock = createMock(Errors.class);
+		expect(errorsMock.hasFieldErrors("foo")).andReturn(true);
+		replay(errorsMock);
+		new CompositeFieldValidator().validate(new TestObject("abcd"),
+				errorsMock);
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testValidate_valid() {
+		final Errors errorsMock = createMock(Errors.class);
+		expect(errorsMock.hasFieldErrors("foo")).andReturn(false).times(3);
+		expect(errorsMock.getObjectName()).andReturn("test").times(3);
+		replay(errorsMock);
+		new CompositeFieldValidator().validate(new TestObject("abc"),
+				errorsMock);
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testValidate_firstErrorOnly() {
+		final Errors errorsMock = createMock(Errors.class);
+		expect(errorsMock.hasFieldErrors("foo")).andReturn(false).times(2);
+		expect(errorsMock.hasFieldErrors("foo")).andReturn(true);
+		expect(errorsMock.getObjectName()).andReturn("test").times(2);
+		errorsMock.rejectValue(eq("foo"), eq("test.foo.maxLength"),
+				aryEq(new Object[] { 3 }), (String) isNull());
+		replay(errorsMock);
+		new CompositeFieldValidator().validate(new TestObject("abcd"),
+				errorsMock);
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testIsValid() {
+		final CompositeFieldValidator validator = new CompositeFieldValidator();
+		assertTrue(validator.isValid(new TestObject("abc")));
+		assertFalse(validator.isValid(new TestObject("abcd")));
+		assertFalse(validator.isValid(new TestObject("bc")));
+		assertFalse(validator.isValid(new TestObject(null)));
+	}
+
+	@Test
+	public void testValidate_failFastValid() {
+		final Errors errorsMock = createMock(Errors.class);
+		replay(errorsMock);
+		final CompositeFieldValidator validator = new CompositeFieldValidator();
+		validator.setFailFast(true);
+		validator.validate(new TestObject("abc"), errorsMock);
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testValidate_failFastFirstErrorOnly() {
+		final Errors errorsMock = createMock(Errors.class);
+		expect(errorsMock.hasFieldErrors("foo")).andReturn(false);
+		expect(errorsMock.getObjectName()).andReturn("test");
+		errorsMock.rejectValue(eq("foo"), eq("test.foo.maxLength"),
+				aryEq(new Object[] { 3 }), (String) isNull());
+		expect(errorsMock.hasFieldErrors("foo")).andReturn(true);
+		replay(errorsMock);
+		final CompositeFieldValidator validator = new CompositeFieldValidator();
+		validator.setFailFast(true);
+		validator.validate(new TwoFieldObject("abcd", "abcd"), errorsMock);
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testValidate_failFastHasFieldErrors() {
+		final Errors errorsMock = createMock(Errors.class);
+		expect(errorsMock.hasFieldErrors("foo")).andReturn(true);
+		expect(errorsMock.hasFieldErrors("bar")).andReturn(false);
+		expect(errorsMock.getObjectName()).andReturn("test");
+		errorsMock.rejectValue(eq("bar"), eq("test.bar.maxLength"),
+				aryEq(new Object[] { 3 }), (String) isNull());
+		expect(errorsMock.hasFieldErrors("bar")).andReturn(true);
+		replay(errorsMock);
+		final CompositeFieldValidator validator = new CompositeFieldValidator();
+		validator.setFailFast(true);
+		validator.validate(new TwoFieldObject("abcd", "abcd"), errorsMock);
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testValidate_cheapestFirst() {
+		final Errors errorsMock = createMock(Errors.class);
+		expect(errorsMock.hasFieldErrors("foo")).andReturn(false).times(2);
+		expect(errorsMock.getObjectName()).andReturn("test").times(2);
+		errorsMock.rejectValue(eq("foo"), eq("test.foo.maxLength"),
+				aryEq(new Object[] { 3 }), (String) isNull());
+		expect(errorsMock.hasFieldErrors("foo")).andReturn(true);
+		replay(errorsMock);
+		new CompositeFieldValidator(new MatchesPatternValidator(),
+				new MaxLengthValidator(), new RequiredValidator()).validate(
+				new TestObject("bcde"), errorsMock);
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testValidate_equalCostInGivenOrder() {
+		final Errors errorsMock = createMock(Errors.class);
+		expect(errorsMock.hasFieldErrors("foo")).andReturn(false);
+		expect(errorsMock.getObjectName()).andReturn("test");
+		errorsMock.rejectValue(eq("foo"), eq("test.foo.maxLength"),
+				aryEq(new Object[] { 3 }), (String) isNull());
+		expect(errorsMock.hasFieldErrors("foo")).andReturn(true);
+		replay(errorsMock);
+		new CompositeFieldValidator(new MaxLengthValidator(),
+				new MinLengthValidator()).validate(new LengthObject("abcd"),
+				errorsMock);
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testValidateChanged() {
+		final Errors errorsMock = createMock(Errors.class);
+		expect(errorsMock.hasFieldErrors("bar")).andReturn(false);
+		expect(errorsMock.getObjectName()).andReturn("test");
+		errorsMock.rejectValue(eq("bar"), eq("test.bar.maxLength"),
+				aryEq(new Object[] { 3 }), (String) isNull());
+		replay(errorsMock);
+		new CompositeFieldValidator().validateChanged(new TwoFieldObject(
+				"abcd", "abcd"), errorsMock, Collections.singleton("bar"));
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testValidateChanged_unconstrained() {
+		final Errors errorsMock = createMock(Errors.class);
+		replay(errorsMock);
+		final CompositeFieldValidator validator = new CompositeFieldValidator();
+		validator.validateChanged(new TwoFieldObject("abcd", "abcd"),
+				errorsMock, Collections.<String> emptySet());
+		validator.validateChanged(new TwoFieldObject("abcd", "abcd"),
+				errorsMock, Arrays.asList("baz", "foo.length"));
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testValidateChanged_failFast() {
+		final Errors errorsMock = createMock(Errors.class);
+		expect(errorsMock.hasFieldErrors("bar")).andReturn(false);
+		expect(errorsMock.getObjectName()).andReturn("test");
+		errorsMock.rejectValue(eq("bar"), eq("test.bar.maxLength"),
+				aryEq(new Object[] { 3 }), (String) isNull());
+		expect(errorsMock.hasFieldErrors("bar")).andReturn(true);
+		replay(errorsMock);
+		final CompositeFieldValidator validator = new CompositeFieldValidator();
+		validator.setFailFast(true);
+		validator.validateChanged(new TwoFieldObject("abcd", "abcd"),
+				errorsMock, Arrays.asList("bar", "foo"));
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testForGroups() {
+		final CompositeFieldValidator validator = new CompositeFieldValidator();
+		final CompositeFieldValidator updateValidator = validator
+				.forGroups(Update.class);
+		assertArrayEquals(new Class<?>[] { Update.class }, updateValidator
+				.getGroups());
+		assertTrue(validator.isValid(new GroupedObject(null, "abc")));
+		assertFalse(updateValidator.isValid(new GroupedObject(null, "abcd")));
+		assertTrue(updateValidator.isValid(new GroupedObject("1", "abcd")));
+		assertFalse(validator.forGroups(Default.class, Update.class).isValid(
+				new GroupedObject("1", "abcd")));
+	}
+
+	@Test
+	public void testIsDefaultConfiguration() {
+		final CompositeFieldValidator validator = new CompositeFieldValidator();
+		assertTrue(validator.isDefaultConfiguration());
+		assertFalse(validator.forGroups(Update.class).isDefaultConfiguration());
+		final MatchesPatternValidator matchesPatternValidator = new MatchesPatternValidator();
+		matchesPatternValidator.setEngine(MatchesPattern.Engine.AUTOMATON);
+		assertFalse(new CompositeFieldValidator(matchesPatternValidator)
+				.isDefaultConfiguration());
+		validator.setFailFast(true);
+		assertFalse(validator.isDefaultConfiguration());
+	}
+
+	@Test
+	public void testForGroups_cached() {
+		final CompositeFieldValidator validator = new CompositeFieldValidator();
+		assertSame(validator, validator.forGroups());
+		assertSame(validator, validator.forGroups(Default.class));
+		assertSame(validator.forGroups(Update.class), validator
+				.forGroups(Update.class));
+		assertArrayEquals(new Class<?>[] { Default.class }, validator
+				.getGroups());
+	}
+
+	@Test
+	public void testValidate_groups() {
+		final Errors errorsMock = createMock(Errors.class);
+		expect(errorsMock.hasFieldErrors("id")).andReturn(false);
+		expect(errorsMock.getObjectName()).andReturn("test");
+		errorsMock.rejectValue("id", "test.id.required", null, null);
+		replay(errorsMock);
+		new CompositeFieldValidator().forGroups(Update.class).validate(
+				new GroupedObject(null, "abcd"), errorsMock);
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testValidate_inherited() {
+		final Errors errors = new MapBindingResult(
+				new HashMap<String, Object>(), "test");
+		new CompositeFieldValidator().validate(new SubObject(null, "abcd",
+				"abcd"), errors);
+		assertEquals(3, errors.getFieldErrorCount());
+		assertEquals(1, errors.getFieldErrorCount("id"));
+		assertEquals(1, errors.getFieldErrorCount("name"));
+		assertEquals(1, errors.getFieldErrorCount("code"));
+	}
+
+	@Test
+	public void testWithBuiltIns() {
+		assertEquals(new CompositeFieldValidator().getAnnotationTypes(),
+				CompositeFieldValidator.withBuiltIns().getAnnotationTypes());
+		assertEquals(6, CompositeFieldValidator.withBuiltIns()
+				.getAnnotationTypes().size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWithBuiltIns_nullPlugins() {
+		CompositeFieldValidator.withBuiltIns((FieldValidator[]) null);
+	}
+
+	@Test
+	public void testGetConstraintTypes() {
+		assertEquals(new HashSet<Object>(Arrays.asList(Required.class,
+				MaxLength.class, MatchesPattern.class)),
+				new CompositeFieldValidator()
+						.getConstraintTypes(TestObject.class));
+		assertTrue(new CompositeFieldValidator().getConstraintTypes(
+				Object.class).isEmpty());
+		assertTrue(new CompositeFieldValidator().forGroups(Update.class)
+				.getConstraintTypes(TwoFieldObject.class).isEmpty());
+	}
+
+	@Test
+	public void testValidate_listener() {
+		final ValidationStatistics statistics = new ValidationStatistics();
+		final CompositeFieldValidator validator = new CompositeFieldValidator();
+		validator.setValidationListener(statistics);
+		final Errors errors = new MapBindingResult(
+				new HashMap<String, Object>(), "test");
+		validator.validate(new TestObject("abcd"), errors);
+		assertEquals(1, errors.getFieldErrorCount("foo"));
+		assertEquals(1, statistics.getClassTimes().get(
+				TestObject.class.getName()).getInvocationCount());
+		// the pattern is not checked after the length is rejected
+		assertEquals(2, statistics.getConstraintTimes().size());
+		assertEquals(1, statistics.getConstraintTimes().get(
+				MaxLength.class.getName()).getInvocationCount());
+		assertEquals(Collections.singletonMap("test.foo.maxLength", 1L),
+				statistics.getViolationCounts());
+	}
+
+	@Test
+	public void testValidate_listenerFailFast() {
+		final ValidationStatistics statistics = new ValidationStatistics();
+		final CompositeFieldValidator validator = new CompositeFieldValidator();
+		validator.setFailFast(true);
+		validator.setValidationListener(statistics);
+		final Errors errors = new MapBindingResult(
+				new HashMap<String, Object>(), "test");
+		validator.validate(new TwoFieldObject("abcd", "abcd"), errors);
+		assertEquals(1, errors.getFieldErrorCount());
+		assertEquals(1, statistics.getViolationCounts().size());
+	}
+
+	@Test
+	public void testValidate_jdkSuperclass() {
+		final FailedObject target = new FailedObject("failed", null);
+		final ValidationErrors errors = new ValidationErrors(target, "test");
+		new CompositeFieldValidator().validate(target, errors);
+		assertEquals(1, errors.getFieldErrorCount("code"));
+		// read through getCause(), as the field is not accessible
+		assertNull(errors.getFieldValue("cause"));
+
+		final ValidationErrors requiredErrors = new ValidationErrors(target,
+				"test");
+		new RequiredValidator().validate(target, requiredErrors);
+		assertEquals(1, requiredErrors.getFieldErrorCount());
+	}
+
+	@Validatable
+	private static final class FailedObject extends Exception {
+		private static final long serialVersionUID = 1L;
+
+		@SuppressWarnings("unused")
+		@Required
+		private final String code;
+
+		private FailedObject(final String message, final String code) {
+			super(message);
+			this.code = code;
+		}
+	}
+
+	@Validatable
+	private static final class TestObject {
+		@SuppressWarnings("unused")
+		@MatchesPattern("a.*")
+		@MaxLength(3)
+		@Required
+		private final String foo;
+
+		private TestObject(final String foo) {
+			this.foo = foo;
+		}
+	}
+
+	@Validatable
+	private static final class TwoFieldObject {
+		@SuppressWarnings("unused")
+		@MaxLength(3)
+		private final String foo;
+
+		@SuppressWarnings("unused")
+		@MaxLength(3)
+		private final String bar;
+
+		private TwoFieldObject(final String foo, final String bar) {
+			this.foo = foo;
+			this.bar = bar;
+		}
+	}
+
+	@Validatable
+	private static final class GroupedObject {
+		@SuppressWarnings("unused")
+		@Required(groups = Update.class)
+		private final String id;
+
+		@SuppressWarnings("unused")
+		@MaxLength(value = 3, groups = Default.class)
+		private final String name;
+
+		private GroupedObject(final String id, final String name) {
+			this.id = id;
+			this.name = name;
+		}
+	}
+
+	private static interface Update {
+	}
+
+	@Validatable
+	private static class SuperObject {
+		@SuppressWarnings("unused")
+		@Required
+		private final String id;
+
+		@MaxLength(3)
+		public final String name;
+
+		private SuperObject(final String id, final String name) {
+			this.id = id;
+			this.name = name;
+		}
+	}
+
+	@Validatable
+	private static final class SubObject extends SuperObject {
+		@SuppressWarnings("unused")
+		@MaxLength(3)
+		private final String code;
+
+		private SubObject(final String id, final String name, final String code) {
+			super(id, name);
+			this.code = code;
+		}
+	}
+
+	@Validatable
+	private static final class LengthObject {
+		@SuppressWarnings("unused")
+		@MinLength(5)
+		@MaxLength(3)
+		private final String foo;
+
+		private LengthObject(final String foo) {
+			this.foo = foo;
+		}
+	}
+}
@@ -5,10 +5,13 @@ import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.lang.reflect.InvocationTargetException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.regex.Pattern;
 
 import org.junit.After;
 import org.junit.Before;
@@ -435,6 +438,105 @@ public class ExtendedValidationUtilsTest {
 				"error", expectedErrorArgs, "Error!");
 	}
 
+	// rejectIfNotMatches with a compiled pattern
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectIfNotMatchesPattern1_errorsNull() {
+		replay(errorsMock);
+		ExtendedValidationUtils.rejectIfNotMatches(null, "foo", Pattern
+				.compile("bar"), "error");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectIfNotMatchesPattern4_patternNull() {
+		replay(errorsMock);
+		ExtendedValidationUtils.rejectIfNotMatches(errorsMock, "foo",
+				(Pattern) null, "error", new Object[] {}, "Error!");
+	}
+
+	@Test
+	public void testRejectIfNotMatchesPattern1_valueNull() {
+		expect(errorsMock.getFieldValue("foo")).andReturn(null);
+		replay(errorsMock);
+		ExtendedValidationUtils.rejectIfNotMatches(errorsMock, "foo", Pattern
+				.compile("bar"), "error");
+	}
+
+	@Test
+	public void testRejectIfNotMatchesPattern1_notMatches() {
+		expect(errorsMock.getFieldValue("foo")).andReturn("foo");
+		errorsMock.rejectValue("foo", "error", null, null);
+		replay(errorsMock);
+		ExtendedValidationUtils.rejectIfNotMatches(errorsMock, "foo", Pattern
+				.compile("bar"), "error");
+	}
+
+	@Test
+	public void testRejectIfNotMatchesPattern2_notMatches() {
+		expect(errorsMock.getFieldValue("foo")).andReturn("foo");
+		errorsMock.rejectValue("foo", "error", null, "Error!");
+		replay(errorsMock);
+		ExtendedValidationUtils.rejectIfNotMatches(errorsMock, "foo", Pattern
+				.compile("bar"), "error", "Error!");
+	}
+
+	@Test
+	public void testRejectIfNotMatchesPattern3_notMatches() {
+		final Object[] expectedErrorArgs = new Object[] {};
+		expect(errorsMock.getFieldValue("foo")).andReturn("foo");
+		errorsMock.rejectValue("foo", "error", expectedErrorArgs, null);
+		replay(errorsMock);
+		ExtendedValidationUtils.rejectIfNotMatches(errorsMock, "foo", Pattern
+				.compile("bar"), "error", expectedErrorArgs);
+	}
+
+	@Test
+	public void testRejectIfNotMatchesPattern4_notMatches() {
+		final Object[] expectedErrorArgs = new Object[] {};
+		expect(errorsMock.getFieldValue("foo")).andReturn("foo");
+		errorsMock.rejectValue("foo", "error", expectedErrorArgs, "Error!");
+		replay(errorsMock);
+		ExtendedValidationUtils.rejectIfNotMatches(errorsMock, "foo", Pattern
+				.compile("bar"), "error", expectedErrorArgs, "Error!");
+	}
+
+	@Test
+	public void testRejectIfNotMatchesPattern1_matches() {
+		expect(errorsMock.getFieldValue("foo")).andReturn(
+				new StringBuilder("bar"));
+		replay(errorsMock);
+		ExtendedValidationUtils.rejectIfNotMatches(errorsMock, "foo", Pattern
+				.compile("b.r"), "error");
+	}
+
+	@Test
+	public void testRejectIfNotMatchesPattern1_matchesMethod() {
+		expect(errorsMock.getFieldValue("foo")).andReturn(
+				new MatchingObject());
+		replay(errorsMock);
+		ExtendedValidationUtils.rejectIfNotMatches(errorsMock, "foo", Pattern
+				.compile("bar"), "error");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectIfNotMatchesPattern1_noMatchesMethod() {
+		expect(errorsMock.getFieldValue("foo")).andReturn(new Integer(1));
+		replay(errorsMock);
+		try {
+			ExtendedValidationUtils.rejectIfNotMatches(errorsMock, "foo",
+					Pattern.compile("bar"), "error");
+		} catch (IllegalArgumentException e) {
+			assertEquals(e.getCause().getClass(), NoSuchMethodException.class);
+			throw e;
+		}
+	}
+
+	public static final class MatchingObject {
+		public boolean matches(String pattern) {
+			return "bar".equals(pattern);
+		}
+	}
+
 	// rejectIfLengthLessThan
 
 	@Test(expected = IllegalArgumentException.class)
@@ -3200,4 +3302,46 @@ public class ExtendedValidationUtilsTest {
 				BigDecimal.valueOf(1), "error", expectedErrorArgs, "Error!");
 	}
 
+	// matches and length
+
+	@Test
+	public void testMatches_charSequence() {
+		replay(errorsMock);
+		assertTrue(ExtendedValidationUtils.matches(new StringBuilder("bar"),
+				Pattern.compile("b.r")));
+		assertFalse(ExtendedValidationUtils.matches("baz", Pattern
+				.compile("b.r")));
+	}
+
+	@Test
+	public void testMatches_matchesMethod() {
+		replay(errorsMock);
+		assertTrue(ExtendedValidationUtils.matches(new MatchingObject(),
+				Pattern.compile("bar")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMatches_noMatchesMethod() {
+		replay(errorsMock);
+		ExtendedValidationUtils.matches(new Integer(1), Pattern.compile("bar"));
+	}
+
+	@Test
+	public void testLength_charSequence() {
+		replay(errorsMock);
+		assertEquals(3, ExtendedValidationUtils.length(new StringBuilder(
+				"bar")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testLength_inaccessibleLength() {
+		replay(errorsMock);
+		try {
+			ExtendedValidationUtils.length(new InaccessibleLength());
+		} catch (IllegalArgumentException e) {
+			assertEquals(e.getCause().getClass(), NoSuchMethodException.class);
+			throw e;
+		}
+	}
+
 }
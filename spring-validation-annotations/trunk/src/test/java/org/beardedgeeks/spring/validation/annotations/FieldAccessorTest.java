@@ -0,0 +1,110 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Locale;
+
+import org.junit.Test;
+import org.springframework.validation.Errors;
+
+/**
+ * Tests for {@link FieldAccessor}.
+ * 
+ * @author hleinone
+ */
+public class FieldAccessorTest {
+	@Test
+	public void testGetValue() throws Exception {
+		final Errors errorsMock = createMock(Errors.class);
+		replay(errorsMock);
+		final FieldAccessor accessor = accessor("foo");
+		assertTrue(accessor.isAccessible());
+		assertEquals("bar", accessor.getValue(new TestObject(), errorsMock));
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testGetValue_getterNotCalled() throws Exception {
+		final Errors errorsMock = createMock(Errors.class);
+		replay(errorsMock);
+		final TestObject testObject = new TestObject();
+		assertEquals("BAR", testObject.getFoo());
+		assertEquals("bar", accessor("foo").getValue(testObject, errorsMock));
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testGetValue_bootstrapClass() throws Exception {
+		final Errors errorsMock = createMock(Errors.class);
+		expect(errorsMock.getFieldValue("hash")).andReturn(0);
+		replay(errorsMock);
+		final FieldAccessor accessor = new FieldAccessor(String.class
+				.getDeclaredField("hash"));
+		assertFalse(accessor.isAccessible());
+		assertEquals(0, accessor.getValue("foo", errorsMock));
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testGet() throws Exception {
+		assertEquals("bar", accessor("foo").get(new TestObject()));
+	}
+
+	@Test
+	public void testGetInt() throws Exception {
+		assertEquals(3, accessor("intValue").getInt(new TestObject()));
+		assertEquals(2, accessor("shortValue").getInt(new TestObject()));
+	}
+
+	@Test
+	public void testGetLong() throws Exception {
+		assertEquals(4L, accessor("longValue").getLong(new TestObject()));
+	}
+
+	@Test
+	public void testGetFloat() throws Exception {
+		assertEquals(0.5f, accessor("floatValue").getFloat(new TestObject()),
+				0f);
+	}
+
+	@Test
+	public void testGetDouble() throws Exception {
+		assertEquals(0.25, accessor("doubleValue")
+				.getDouble(new TestObject()), 0.0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testGetInt_incompatibleType() throws Exception {
+		accessor("foo").getInt(new TestObject());
+	}
+
+	private static FieldAccessor accessor(final String fieldName)
+			throws NoSuchFieldException {
+		return new FieldAccessor(TestObject.class.getDeclaredField(fieldName));
+	}
+
+	@SuppressWarnings("unused")
+	private static final class TestObject {
+		private String foo = "bar";
+
+		private short shortValue = 2;
+
+		private int intValue = 3;
+
+		private long longValue = 4L;
+
+		private float floatValue = 0.5f;
+
+		private double doubleValue = 0.25;
+
+		public String getFoo() {
+			return foo.toUpperCase(Locale.ENGLISH);
+		}
+	}
+}
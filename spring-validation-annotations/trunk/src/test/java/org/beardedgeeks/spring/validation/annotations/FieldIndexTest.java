@@ -0,0 +1,53 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class FieldIndexTest {
+	@Test
+	public void testOf_cached() {
+		assertSame(FieldIndex.of(SubObject.class), FieldIndex
+				.of(SubObject.class));
+	}
+
+	@Test
+	public void testIndexOf() {
+		final FieldIndex index = FieldIndex.of(SubObject.class);
+		assertEquals(3, index.size());
+		assertEquals(SubObject.class, index.getField(index.indexOf("foo"))
+				.getDeclaringClass());
+		assertEquals(SubObject.class, index.getField(index.indexOf("bar"))
+				.getDeclaringClass());
+		assertEquals(SuperObject.class, index.getField(index.indexOf("baz"))
+				.getDeclaringClass());
+		assertEquals(-1, index.indexOf("CONSTANT"));
+		assertEquals(-1, index.indexOf("missing"));
+	}
+
+	@Test
+	public void testGetAccessor() {
+		final FieldIndex index = FieldIndex.of(SubObject.class);
+		assertEquals("sub", index.getAccessor(index.indexOf("foo")).get(
+				new SubObject()));
+		assertEquals("super", index.getAccessor(index.indexOf("baz")).get(
+				new SubObject()));
+	}
+
+	@SuppressWarnings("unused")
+	private static class SuperObject {
+		private static final String CONSTANT = "constant";
+
+		private final String foo = "super";
+
+		private final String baz = "super";
+	}
+
+	@SuppressWarnings("unused")
+	private static final class SubObject extends SuperObject {
+		private final String foo = "sub";
+
+		private final String bar = "sub";
+	}
+}
@@ -4,9 +4,11 @@ import static org.easymock.EasyMock.expect;
 import static org.easymock.classextension.EasyMock.createMock;
 import static org.easymock.classextension.EasyMock.replay;
 import static org.easymock.classextension.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.lang.annotation.Annotation;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -53,6 +55,7 @@ public class FieldValidatorTest {
 	private static final class ValidatableClass {
 	}
 
+	@SuppressWarnings("unchecked")
 	@Test
 	public void testValidate_hasFieldErrors() throws SecurityException,
 			NoSuchMethodException {
@@ -65,6 +68,9 @@ public class FieldValidatorTest {
 		final Errors errorsMock = createMock(Errors.class);
 		final TestObjectWithoutErrorCode testObject = new TestObjectWithoutErrorCode();
 		expect(errorsMock.hasFieldErrors("testField")).andReturn(true);
+		// for some reason doesn't work with generics
+		expect(((FieldValidator) fieldValidatorMock).getAnnotationType())
+				.andReturn((Class) TestAnnotationWithoutErrorCode.class);
 
 		replay(fieldValidatorMock, errorsMock);
 		fieldValidatorMock.validate(testObject, errorsMock);
@@ -83,7 +89,6 @@ public class FieldValidatorTest {
 								new Class<?>[] {}));
 		final Errors errorsMock = createMock(Errors.class);
 		final TestObjectWithoutErrorCode testObject = new TestObjectWithoutErrorCode();
-		expect(errorsMock.hasFieldErrors("testField")).andReturn(false);
 		// for some reason doesn't work with generics
 		expect(fieldValidatorMock.getAnnotationType()).andReturn(
 				(Class) Test.class);
@@ -173,6 +178,43 @@ public class FieldValidatorTest {
 		verify(fieldValidatorMock, errorsMock);
 	}
 
+	@Test
+	public void testIsValid_default() {
+		assertTrue(new RejectingValidator("bar")
+				.isValid(new TestObjectWithoutErrorCode()));
+		assertFalse(new RejectingValidator("foo")
+				.isValid(new TestObjectWithoutErrorCode()));
+	}
+
+	@Test
+	public void testGetCost_default() {
+		assertEquals(FieldValidator.DEFAULT_COST, new RejectingValidator("foo")
+				.getCost());
+	}
+
+	/**
+	 * Rejects the given value, implementing only the field validation.
+	 */
+	private static final class RejectingValidator extends FieldValidator {
+		private final String rejected;
+
+		private RejectingValidator(final String rejected) {
+			this.rejected = rejected;
+		}
+
+		@Override
+		protected void validate(final Field field, final Errors errors,
+				final String errorCode) {
+			if (rejected.equals(errors.getFieldValue(field.getName())))
+				errors.rejectValue(field.getName(), errorCode);
+		}
+
+		@Override
+		protected Class<? extends Annotation> getAnnotationType() {
+			return TestAnnotationWithoutErrorCode.class;
+		}
+	}
+
 	@Validatable
 	private static final class TestObjectWithoutErrorCode {
 		@SuppressWarnings("unused")
@@ -0,0 +1,210 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.Validator;
+
+/**
+ * Tests for {@link MemoizingValidator}.
+ * 
+ * @author hleinone
+ */
+public class MemoizingValidatorTest {
+	@Test
+	public void testSupports() {
+		assertTrue(new MemoizingValidator().supports(Record.class));
+		assertFalse(new MemoizingValidator().supports(Object.class));
+	}
+
+	@Test
+	public void testValidate_mutable() {
+		final CountingValidator delegate = new CountingValidator();
+		final MemoizingValidator validator = new MemoizingValidator(delegate);
+		final Mutable mutable = new Mutable();
+		validator.validate(mutable, new ValidationErrors(mutable, "mutable"));
+		validator.validate(mutable, new ValidationErrors(mutable, "mutable"));
+		assertEquals(2, delegate.count);
+		assertEquals(0, validator.getHitCount());
+		assertEquals(0, validator.getMissCount());
+		assertEquals(0, validator.getSize());
+	}
+
+	@Test
+	public void testValidate_identity() {
+		final CountingValidator delegate = new CountingValidator();
+		final MemoizingValidator validator = new MemoizingValidator(delegate);
+		final Record record = new Record(null);
+		final ValidationErrors first = new ValidationErrors(record, "record");
+		validator.validate(record, first);
+		final ValidationErrors second = new ValidationErrors(record, "record");
+		validator.validate(record, second);
+		validator.validate(new Record(null), new ValidationErrors(record,
+				"record"));
+		assertEquals(2, delegate.count);
+		assertEquals(1, validator.getHitCount());
+		assertEquals(2, validator.getMissCount());
+		assertEquals(2, validator.getSize());
+
+		final FieldError error = second.getFieldError("name");
+		assertEquals("record.name.required", error.getCode());
+		assertArrayEquals(new Object[] { 1 }, error.getArguments());
+		assertEquals("required", error.getDefaultMessage());
+		assertEquals(first.getFieldError("name"), error);
+		assertEquals("global", second.getGlobalError().getCode());
+	}
+
+	@Test
+	public void testValidate_equality() {
+		final CountingValidator delegate = new CountingValidator();
+		final MemoizingValidator validator = new MemoizingValidator(delegate);
+		validator.validate(new Value("a"), new ValidationErrors(
+				new Value("a"), "value"));
+		validator.validate(new Value("a"), new ValidationErrors(
+				new Value("a"), "value"));
+		validator.validate(new Value("b"), new ValidationErrors(
+				new Value("b"), "value"));
+		assertEquals(2, delegate.count);
+		assertEquals(1, validator.getHitCount());
+		assertEquals(2, validator.getMissCount());
+	}
+
+	@Test
+	public void testValidate_otherObjectName() {
+		final CountingValidator delegate = new CountingValidator();
+		final MemoizingValidator validator = new MemoizingValidator(delegate);
+		final Record record = new Record(null);
+		validator.validate(record, new ValidationErrors(record, "record"));
+		final ValidationErrors errors = new ValidationErrors(record, "other");
+		validator.validate(record, errors);
+		assertEquals(2, delegate.count);
+		assertEquals("other.name.required", errors.getFieldError("name")
+				.getCode());
+	}
+
+	@Test
+	public void testValidate_alternatingObjectNames() {
+		final CountingValidator delegate = new CountingValidator();
+		final MemoizingValidator validator = new MemoizingValidator(delegate);
+		final Record record = new Record(null);
+		for (int i = 0; i < 3; i++) {
+			final ValidationErrors order = new ValidationErrors(record,
+					"order");
+			validator.validate(record, order);
+			assertEquals("order.name.required", order.getFieldError("name")
+					.getCode());
+			final ValidationErrors item = new ValidationErrors(record, "item");
+			validator.validate(record, item);
+			assertEquals("item.name.required", item.getFieldError("name")
+					.getCode());
+		}
+		assertEquals(2, delegate.count);
+		assertEquals(4, validator.getHitCount());
+		assertEquals(1, validator.getSize());
+	}
+
+	@Test
+	public void testValidate_rejectedFieldRecorded() {
+		final MemoizingValidator validator = new MemoizingValidator(
+				new CountingValidator());
+		final Record record = new Record(null);
+		final ValidationErrors errors = new ValidationErrors(record, "record");
+		errors.rejectValue("name", "typeMismatch");
+		validator.validate(record, errors);
+		assertEquals(1, errors.getFieldErrorCount("name"));
+		assertEquals("typeMismatch", errors.getFieldError("name").getCode());
+		assertEquals(1, validator.getMissCount());
+	}
+
+	@Test
+	public void testValidate_rejectedField() {
+		final MemoizingValidator validator = new MemoizingValidator(
+				new CountingValidator());
+		final Record record = new Record(null);
+		validator.validate(record, new ValidationErrors(record, "record"));
+		final ValidationErrors errors = new ValidationErrors(record, "record");
+		errors.rejectValue("name", "typeMismatch");
+		validator.validate(record, errors);
+		assertEquals(1, errors.getFieldErrorCount("name"));
+		assertEquals("typeMismatch", errors.getFieldError("name").getCode());
+		assertEquals(1, validator.getHitCount());
+	}
+
+	@Test
+	public void testValidate_bounded() {
+		final CountingValidator delegate = new CountingValidator();
+		final MemoizingValidator validator = new MemoizingValidator(delegate);
+		validator.setMaxSize(1);
+		final Record first = new Record("a");
+		final Record second = new Record("b");
+		validator.validate(first, new ValidationErrors(first, "record"));
+		validator.validate(second, new ValidationErrors(second, "record"));
+		validator.validate(first, new ValidationErrors(first, "record"));
+		assertEquals(3, delegate.count);
+		assertEquals(1, validator.getSize());
+		validator.clear();
+		assertEquals(0, validator.getSize());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetMaxSize_notPositive() {
+		new MemoizingValidator().setMaxSize(0);
+	}
+
+	private static final class CountingValidator implements Validator {
+		private int count;
+
+		public boolean supports(final Class<?> clazz) {
+			return true;
+		}
+
+		public void validate(final Object target, final Errors errors) {
+			count++;
+			if (errors.getFieldValue("name") == null) {
+				errors.rejectValue("name", errors.getObjectName()
+						+ ".name.required", new Object[] { 1 }, "required");
+				errors.reject("global");
+			}
+		}
+	}
+
+	@Immutable
+	@Validatable
+	private static final class Record {
+		@SuppressWarnings("unused")
+		private final String name;
+
+		private Record(final String name) {
+			this.name = name;
+		}
+	}
+
+	@Immutable(key = Immutable.Key.EQUALITY)
+	private static final class Value {
+		private final String name;
+
+		private Value(final String name) {
+			this.name = name;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			return obj instanceof Value && ((Value) obj).name.equals(name);
+		}
+
+		@Override
+		public int hashCode() {
+			return name.hashCode();
+		}
+	}
+
+	private static final class Mutable {
+		@SuppressWarnings("unused")
+		private String name;
+	}
+}
@@ -0,0 +1,45 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.regex.Pattern;
+
+import java.util.regex.PatternSyntaxException;
+
+import org.junit.Test;
+
+public class PatternCacheTest {
+	@Test
+	public void testCompile() {
+		assertEquals("[0-9]{5}", PatternCache.compile("[0-9]{5}").pattern());
+	}
+
+	@Test
+	public void testCompile_cached() {
+		assertSame(PatternCache.compile("foo.*"), PatternCache
+				.compile("foo.*"));
+	}
+
+	@Test
+	public void testCompile_evicted() {
+		final Pattern evicted = PatternCache.compile("evicted");
+		final Pattern used = PatternCache.compile("used");
+		for (int i = 0; i < PatternCache.MAX_SIZE - 1; i++) {
+			PatternCache.compile("evicted" + i);
+			if (i == PatternCache.MAX_SIZE / 2)
+				assertSame(used, PatternCache.compile("used"));
+		}
+		assertSame(used, PatternCache.compile("used"));
+		assertNotSame(evicted, PatternCache.compile("evicted"));
+		// new patterns are still cached after eviction
+		assertSame(PatternCache.compile("evicted0"), PatternCache
+				.compile("evicted0"));
+	}
+
+	@Test(expected = PatternSyntaxException.class)
+	public void testCompile_invalid() {
+		PatternCache.compile("(foo");
+	}
+}
@@ -0,0 +1,47 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link StripedCounter}.
+ * 
+ * @author hleinone
+ */
+public class StripedCounterTest {
+	@Test
+	public void testAdd() {
+		final StripedCounter counter = new StripedCounter();
+		counter.add(5);
+		counter.increment();
+		assertEquals(6, counter.sum());
+	}
+
+	@Test
+	public void testAdd_concurrent() throws InterruptedException {
+		final StripedCounter counter = new StripedCounter();
+		final Thread[] threads = new Thread[8];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < 10000; j++)
+						counter.increment();
+				}
+			};
+			threads[i].start();
+		}
+		for (final Thread thread : threads)
+			thread.join();
+		assertEquals(80000, counter.sum());
+	}
+
+	@Test
+	public void testStripes() {
+		assertEquals(2, StripedCounter.stripes(1));
+		assertEquals(8, StripedCounter.stripes(3));
+		assertEquals(8, StripedCounter.stripes(4));
+		assertEquals(1024, StripedCounter.stripes(4096));
+	}
+}
@@ -0,0 +1,344 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.beardedgeeks.spring.validation.annotations.empty.Required;
+import org.beardedgeeks.spring.validation.annotations.length.MaxLength;
+import org.junit.Test;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.MapBindingResult;
+import org.springframework.validation.MessageCodesResolver;
+import org.springframework.validation.ObjectError;
+
+public class ValidationErrorsTest {
+	@Test
+	public void testEmpty() {
+		final ValidationErrors errors = new ValidationErrors(new TestObject(),
+				"test");
+		assertFalse(errors.hasErrors());
+		assertEquals(0, errors.getErrorCount());
+		assertFalse(errors.hasFieldErrors("name"));
+		assertNull(errors.getFieldError("name"));
+		assertTrue(errors.getAllErrors().isEmpty());
+		assertTrue(errors.getFieldErrors("name").isEmpty());
+	}
+
+	@Test
+	public void testReject() {
+		final ValidationErrors errors = new ValidationErrors(new TestObject(),
+				"test");
+		errors.reject("invalid", new Object[] { 1 }, "Invalid");
+		assertTrue(errors.hasErrors());
+		assertTrue(errors.hasGlobalErrors());
+		assertFalse(errors.hasFieldErrors());
+		assertEquals(1, errors.getGlobalErrorCount());
+		final ObjectError error = errors.getGlobalError();
+		assertArrayEquals(new String[] { "invalid.test", "invalid" }, error
+				.getCodes());
+		assertArrayEquals(new Object[] { 1 }, error.getArguments());
+		assertEquals("Invalid", error.getDefaultMessage());
+	}
+
+	@Test
+	public void testRejectValue_sameAsMapBindingResult() {
+		final TestObject target = new TestObject();
+		final Map<String, Object> values = new HashMap<String, Object>();
+		values.put("name", target.name);
+		values.put("description", target.description);
+		final Errors expected = new MapBindingResult(values, "test");
+		final Errors actual = new ValidationErrors(target, "test");
+		for (final Errors errors : Arrays.asList(expected, actual)) {
+			errors.rejectValue("name", "required");
+			errors.reject("global");
+			errors.rejectValue("description", "maxLength",
+					new Object[] { 3 }, "Too long");
+			errors.rejectValue("name", "other");
+		}
+		assertEquals(expected.getAllErrors(), actual.getAllErrors());
+		assertEquals(expected.getFieldErrors(), actual.getFieldErrors());
+		assertEquals(expected.getGlobalErrors(), actual.getGlobalErrors());
+		assertEquals(expected.getFieldErrors("name"), actual
+				.getFieldErrors("name"));
+		assertEquals(expected.getFieldError("description"), actual
+				.getFieldError("description"));
+		assertEquals(expected.getFieldErrorCount("name"), actual
+				.getFieldErrorCount("name"));
+		assertEquals(expected.getErrorCount(), actual.getErrorCount());
+		assertEquals(expected.getFieldErrorCount(), actual
+				.getFieldErrorCount());
+	}
+
+	@Test
+	public void testRejectValue_emptyField() {
+		final ValidationErrors errors = new ValidationErrors(new TestObject(),
+				"test");
+		errors.rejectValue("", "invalid");
+		assertTrue(errors.hasGlobalErrors());
+		assertFalse(errors.hasFieldErrors());
+	}
+
+	@Test
+	public void testRejectValue_rejectedValue() {
+		final TestObject target = new TestObject();
+		final ValidationErrors errors = new ValidationErrors(target, "test");
+		errors.rejectValue("count", "invalid");
+		target.count = 2;
+		assertEquals(1, errors.getFieldError("count").getRejectedValue());
+		assertEquals(1, errors.getFieldValue("count"));
+	}
+
+	@Test
+	public void testHasFieldErrors() {
+		final ValidationErrors errors = new ValidationErrors(new TestObject(),
+				"test");
+		errors.rejectValue("name", "required");
+		assertTrue(errors.hasFieldErrors("name"));
+		assertFalse(errors.hasFieldErrors("description"));
+		assertTrue(errors.hasFieldErrors("na*"));
+		assertFalse(errors.hasFieldErrors("de*"));
+		assertEquals(1, errors.getFieldErrorCount("na*"));
+		assertEquals(1, errors.getFieldErrors("*").size());
+	}
+
+	@Test
+	public void testHasFieldErrors_manyFields() {
+		final ManyFields target = new ManyFields();
+		final ValidationErrors errors = new ValidationErrors(target, "test");
+		errors.rejectValue("f0", "invalid");
+		errors.rejectValue("f64", "invalid");
+		assertTrue(errors.hasFieldErrors("f0"));
+		assertTrue(errors.hasFieldErrors("f64"));
+		for (int i = 1; i < 64; i++)
+			assertFalse(errors.hasFieldErrors("f" + i));
+	}
+
+	@Test
+	public void testNestedPath() {
+		final TestObject target = new TestObject();
+		final ValidationErrors errors = new ValidationErrors(target, "test");
+		errors.pushNestedPath("address");
+		errors.rejectValue("street", "required");
+		assertTrue(errors.hasFieldErrors("street"));
+		assertEquals("Main Street", errors.getFieldValue("street"));
+		errors.popNestedPath();
+		assertTrue(errors.hasFieldErrors("address.street"));
+		assertFalse(errors.hasFieldErrors("street"));
+		final FieldError error = errors.getFieldError("address.street");
+		assertEquals("Main Street", error.getRejectedValue());
+		assertEquals("required.test.address.street", error.getCodes()[0]);
+	}
+
+	@Test
+	public void testGetFieldValue() {
+		final ValidationErrors errors = new ValidationErrors(new TestObject(),
+				"test");
+		assertEquals("abc", errors.getFieldValue("name"));
+		assertEquals(1, errors.getFieldValue("count"));
+		assertEquals("Main Street", errors.getFieldValue("address.street"));
+		assertEquals("B-2", errors.getFieldValue("items[1].sku"));
+		assertEquals("second", errors.getFieldValue("tags[1]"));
+		assertEquals("red", errors.getFieldValue("attributes[color]"));
+		assertEquals("red", errors.getFieldValue("attributes['color']"));
+		assertEquals("y", errors.getFieldValue("codes[1]"));
+		assertNull(errors.getFieldValue("missing.street"));
+	}
+
+	@Test
+	public void testGetFieldValue_inheritedField() {
+		final ValidationErrors errors = new ValidationErrors(
+				new TestSubObject(), "test");
+		assertEquals("abc", errors.getFieldValue("name"));
+		assertEquals("sub", errors.getFieldValue("extra"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testGetFieldValue_unknownField() {
+		new ValidationErrors(new TestObject(), "test").getFieldValue("foo");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testGetFieldValue_indexOutOfBounds() {
+		new ValidationErrors(new TestObject(), "test")
+				.getFieldValue("items[2].sku");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testGetFieldValue_notIndexed() {
+		new ValidationErrors(new TestObject(), "test")
+				.getFieldValue("name[0]");
+	}
+
+	@Test
+	public void testGetFieldType() {
+		final ValidationErrors errors = new ValidationErrors(new TestObject(),
+				"test");
+		assertEquals(String.class, errors.getFieldType("description"));
+		assertEquals(int.class, errors.getFieldType("count"));
+		assertEquals(String.class, errors.getFieldType("items[0].sku"));
+	}
+
+	@Test
+	public void testMessageCodes_lazy() {
+		final MessageCodesResolver resolverMock = createMock(MessageCodesResolver.class);
+		replay(resolverMock);
+		final ValidationErrors errors = new ValidationErrors(new TestObject(),
+				"test");
+		errors.setMessageCodesResolver(resolverMock);
+		errors.rejectValue("name", "required");
+		errors.reject("global");
+		assertTrue(errors.hasFieldErrors("name"));
+		assertEquals(2, errors.getErrorCount());
+		verify(resolverMock);
+	}
+
+	@Test
+	public void testMessageCodes_resolvedOnce() {
+		final MessageCodesResolver resolverMock = createMock(MessageCodesResolver.class);
+		expect(
+				resolverMock.resolveMessageCodes(eq("required"), eq("test"),
+						eq("name"), eq(String.class))).andReturn(
+				new String[] { "required" });
+		replay(resolverMock);
+		final ValidationErrors errors = new ValidationErrors(new TestObject(),
+				"test");
+		errors.setMessageCodesResolver(resolverMock);
+		errors.rejectValue("name", "required");
+		final FieldError error = errors.getFieldError("name");
+		assertSame(error, errors.getFieldErrors().get(0));
+		assertSame(error, errors.getAllErrors().get(0));
+		verify(resolverMock);
+	}
+
+	@Test
+	public void testAddAllErrors() {
+		final Map<String, Object> values = new HashMap<String, Object>();
+		values.put("name", "abc");
+		final Errors other = new MapBindingResult(values, "test");
+		other.rejectValue("name", "required");
+		other.reject("global");
+		final ValidationErrors errors = new ValidationErrors(new TestObject(),
+				"test");
+		errors.addAllErrors(other);
+		assertEquals(other.getAllErrors(), errors.getAllErrors());
+		assertTrue(errors.hasFieldErrors("name"));
+		assertEquals(1, errors.getGlobalErrorCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAddAllErrors_otherObjectName() {
+		new ValidationErrors(new TestObject(), "test")
+				.addAllErrors(new MapBindingResult(
+						new HashMap<String, Object>(), "other"));
+	}
+
+	@Test
+	public void testGrowth() {
+		final ValidationErrors errors = new ValidationErrors(new TestObject(),
+				"test");
+		for (int i = 0; i < 10; i++)
+			errors.reject("code" + i);
+		final List<ObjectError> allErrors = errors.getAllErrors();
+		assertEquals(10, allErrors.size());
+		assertEquals("code9", allErrors.get(9).getCode());
+	}
+
+	@Test
+	public void testNullTarget() {
+		final ValidationErrors errors = new ValidationErrors(null, "test");
+		errors.rejectValue("name", "required");
+		assertTrue(errors.hasFieldErrors("name"));
+		assertNull(errors.getFieldError("name").getRejectedValue());
+	}
+
+	@Test
+	public void testValidate() {
+		final TestObject target = new TestObject();
+		target.name = null;
+		final Map<String, Object> values = new HashMap<String, Object>();
+		values.put("name", target.name);
+		values.put("description", target.description);
+		final Errors expected = new MapBindingResult(values, "test");
+		new CompositeFieldValidator().validate(target, expected);
+		final Errors actual = new ValidationErrors(target, "test");
+		new CompositeFieldValidator().validate(target, actual);
+		assertEquals(2, actual.getErrorCount());
+		assertEquals(expected.getFieldError("description"), actual
+				.getFieldError("description"));
+		assertEquals(expected.getFieldError("name").getCode(), actual
+				.getFieldError("name").getCode());
+	}
+
+	@Validatable
+	private static class TestObject {
+		@Required
+		private String name = "abc";
+
+		@MaxLength(3)
+		private String description = "abcd";
+
+		private int count = 1;
+
+		private final Address address = new Address();
+
+		private final Address missing = null;
+
+		private final List<Item> items = Arrays.asList(new Item("A-1"),
+				new Item("B-2"));
+
+		private final String[] tags = new String[] { "first", "second" };
+
+		private final Map<String, String> attributes = Collections
+				.singletonMap("color", "red");
+
+		private final Set<String> codes = new LinkedHashSet<String>(Arrays
+				.asList("x", "y"));
+	}
+
+	private static final class TestSubObject extends TestObject {
+		@SuppressWarnings("unused")
+		private final String extra = "sub";
+	}
+
+	private static final class Address {
+		@SuppressWarnings("unused")
+		private final String street = "Main Street";
+	}
+
+	private static final class Item {
+		@SuppressWarnings("unused")
+		private final String sku;
+
+		private Item(final String sku) {
+			this.sku = sku;
+		}
+	}
+
+	@SuppressWarnings("unused")
+	private static final class ManyFields {
+		private int f0, f1, f2, f3, f4, f5, f6, f7, f8, f9, f10, f11, f12,
+				f13, f14, f15, f16, f17, f18, f19, f20, f21, f22, f23, f24,
+				f25, f26, f27, f28, f29, f30, f31, f32, f33, f34, f35, f36,
+				f37, f38, f39, f40, f41, f42, f43, f44, f45, f46, f47, f48,
+				f49, f50, f51, f52, f53, f54, f55, f56, f57, f58, f59, f60,
+				f61, f62, f63, f64;
+	}
+}
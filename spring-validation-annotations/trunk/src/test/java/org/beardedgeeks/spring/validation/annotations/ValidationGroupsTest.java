@@ -0,0 +1,55 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link ValidationGroups}.
+ * 
+ * @author hleinone
+ */
+public class ValidationGroupsTest {
+	@Test
+	public void testOf_default() {
+		assertSame(ValidationGroups.DEFAULT, ValidationGroups.of());
+		assertSame(ValidationGroups.DEFAULT, ValidationGroups
+				.of(Default.class));
+		assertTrue(ValidationGroups.of(Default.class, Default.class)
+				.isDefault());
+	}
+
+	@Test
+	public void testOf_orderAndRepetitionIgnored() {
+		final ValidationGroups groups = ValidationGroups.of(Update.class,
+				Default.class, Update.class);
+		assertEquals(ValidationGroups.of(Default.class, Update.class), groups);
+		assertEquals(ValidationGroups.of(Default.class, Update.class)
+				.hashCode(), groups.hashCode());
+		assertArrayEquals(new Class<?>[] { Default.class, Update.class },
+				groups.toArray());
+		assertFalse(groups.isDefault());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testOf_nullGroup() {
+		ValidationGroups.of(Update.class, null);
+	}
+
+	@Test
+	public void testIncludesAny() {
+		final ValidationGroups groups = ValidationGroups.of(Update.class);
+		assertFalse(groups.includesAny(new Class<?>[0]));
+		assertTrue(groups.includesAny(new Class<?>[] { Default.class,
+				Update.class }));
+		assertFalse(groups.includesAny(new Class<?>[] { Default.class }));
+		assertTrue(ValidationGroups.DEFAULT.includesAny(new Class<?>[0]));
+	}
+
+	private static interface Update {
+	}
+}
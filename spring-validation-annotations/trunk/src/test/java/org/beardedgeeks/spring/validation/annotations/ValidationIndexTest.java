@@ -0,0 +1,196 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.beardedgeeks.spring.validation.annotations.empty.Required;
+import org.beardedgeeks.spring.validation.annotations.length.MaxLength;
+import org.beardedgeeks.spring.validation.annotations.length.MinLength;
+import org.beardedgeeks.spring.validation.annotations.value.MinValue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ValidationIndex}.
+ * 
+ * @author hleinone
+ */
+public class ValidationIndexTest {
+	private File directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = File.createTempFile("index", "");
+		directory.delete();
+		directory.mkdir();
+	}
+
+	@After
+	public void tearDown() {
+		delete(directory);
+	}
+
+	@Test
+	public void testWrite() throws IOException {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		assertEquals(2, ValidationIndex.write(Arrays.asList(
+				IndexedObject.class, SubIndexedObject.class), output));
+		final ValidationIndex index = load(output.toByteArray());
+		assertEquals(Arrays.asList(IndexedObject.class.getName(),
+				SubIndexedObject.class.getName()), index.getClassNames());
+	}
+
+	@Test
+	public void testWrite_jdkSuperclass() throws Exception {
+		final ValidationIndex index = load(write(FailedObject.class));
+		assertArrayEquals(new Field[] { FailedObject.class
+				.getDeclaredField("code") }, index.getIndexedFields(
+				FailedObject.class, Required.class));
+	}
+
+	@Test
+	public void testGetIndexedFields() throws Exception {
+		final ValidationIndex index = load(write(IndexedObject.class));
+		assertArrayEquals(new Field[] {
+				IndexedObject.class.getDeclaredField("foo"),
+				IndexedObject.class.getDeclaredField("baz") }, index
+				.getIndexedFields(IndexedObject.class, MaxLength.class));
+		assertArrayEquals(new Field[] { IndexedObject.class
+				.getDeclaredField("foo") }, index.getIndexedFields(
+				IndexedObject.class, Required.class));
+		assertArrayEquals(new Field[0], index.getIndexedFields(
+				IndexedObject.class, MinValue.class));
+	}
+
+	@Test
+	public void testGetIndexedFields_inherited() throws Exception {
+		final ValidationIndex index = load(write(SubIndexedObject.class));
+		assertArrayEquals(new Field[] {
+				SubIndexedObject.class.getDeclaredField("qux"),
+				IndexedObject.class.getDeclaredField("baz") }, index
+				.getIndexedFields(SubIndexedObject.class, MinLength.class));
+	}
+
+	@Test
+	public void testGetIndexedFields_notIndexed() throws IOException {
+		final ValidationIndex index = load(write(IndexedObject.class));
+		assertNull(index.getIndexedFields(SubIndexedObject.class,
+				MaxLength.class));
+	}
+
+	@Test
+	public void testGetIndexedFields_changed() throws IOException {
+		final ClassLoader classLoader = newClassLoader(write(SubIndexedObject.class));
+		// the superclass was compiled after the index
+		assertTrue(new File(directory, ValidationIndex.LOCATION)
+				.setLastModified(ValidationIndex
+						.lastModified(IndexedObject.class) - 10000));
+		assertNull(ValidationIndex.forClassLoader(classLoader)
+				.getIndexedFields(SubIndexedObject.class, MaxLength.class));
+	}
+
+	@Test
+	public void testForClassLoader_invalid() throws IOException {
+		assertTrue(load(new byte[] { 1, 2, 3 }).getClassNames().isEmpty());
+	}
+
+	@Test
+	public void testForClassLoader_none() {
+		assertTrue(ValidationIndex.forClassLoader(null).getClassNames()
+				.isEmpty());
+		assertNull(ValidationIndex.getAnnotatedFields(IndexedObject.class,
+				MaxLength.class));
+	}
+
+	@Test
+	public void testForClassLoader_cached() throws IOException {
+		final ClassLoader classLoader = newClassLoader(write(IndexedObject.class));
+		assertSame(ValidationIndex.forClassLoader(classLoader),
+				ValidationIndex.forClassLoader(classLoader));
+	}
+
+	@Test
+	public void testLastModified() {
+		assertTrue(ValidationIndex.lastModified(IndexedObject.class) > 0);
+		// the bootstrap classes have no code source
+		assertEquals(0, ValidationIndex.lastModified(String.class));
+	}
+
+	private static byte[] write(final Class<?> clazz) throws IOException {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ValidationIndex.write(Collections.singleton(clazz), output);
+		return output.toByteArray();
+	}
+
+	private ValidationIndex load(final byte[] bytes) throws IOException {
+		return ValidationIndex.forClassLoader(newClassLoader(bytes));
+	}
+
+	private ClassLoader newClassLoader(final byte[] bytes) throws IOException {
+		final File file = new File(directory, ValidationIndex.LOCATION);
+		file.getParentFile().mkdirs();
+		final OutputStream output = new FileOutputStream(file);
+		try {
+			output.write(bytes);
+		} finally {
+			output.close();
+		}
+		return new URLClassLoader(new URL[] { directory.toURI().toURL() },
+				getClass().getClassLoader());
+	}
+
+	private static void delete(final File file) {
+		final File[] children = file.listFiles();
+		if (children != null)
+			for (final File child : children)
+				delete(child);
+		file.delete();
+	}
+
+	@Validatable
+	private static class IndexedObject {
+		@SuppressWarnings("unused")
+		@Required
+		@MaxLength(3)
+		private String foo;
+
+		@SuppressWarnings("unused")
+		private String bar;
+
+		@SuppressWarnings("unused")
+		@MinLength(1)
+		@MaxLength(3)
+		private String baz;
+	}
+
+	@Validatable
+	private static final class FailedObject extends Exception {
+		private static final long serialVersionUID = 1L;
+
+		@SuppressWarnings("unused")
+		@Required
+		private String code;
+	}
+
+	@Validatable
+	private static final class SubIndexedObject extends IndexedObject {
+		@SuppressWarnings("unused")
+		@MinLength(1)
+		private String qux;
+	}
+}
@@ -0,0 +1,189 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.beardedgeeks.spring.validation.annotations.empty.Required;
+import org.beardedgeeks.spring.validation.annotations.value.MinValue;
+import org.junit.Test;
+import org.springframework.validation.Errors;
+
+public class ValidationPipelineTest {
+	@Test
+	public void testRun() {
+		final ValidationPipeline pipeline = new ValidationPipeline();
+		pipeline.setWorkers(3);
+		pipeline.setQueueCapacity(4);
+		final CollectingSink sink = new CollectingSink();
+		pipeline.run(records(100, 10), sink);
+		assertEquals(90, sink.valid.size());
+		assertEquals(10, sink.invalid.size());
+		for (final Map.Entry<Long, Errors> entry : sink.invalid.entrySet()) {
+			assertEquals(0, entry.getKey() % 10);
+			assertEquals("record", entry.getValue().getObjectName());
+			assertTrue(entry.getValue().hasFieldErrors("value"));
+		}
+		assertEquals(100, pipeline.getReadCount());
+		assertEquals(90, pipeline.getValidCount());
+		assertEquals(10, pipeline.getInvalidCount());
+		assertTrue(pipeline.getThroughput() > 0);
+		assertEquals(0, pipeline.getInputQueueDepth());
+		assertEquals(0, pipeline.getOutputQueueDepth());
+		assertFalse(pipeline.isRunning());
+	}
+
+	@Test
+	public void testRun_empty() {
+		final ValidationPipeline pipeline = new ValidationPipeline();
+		final CollectingSink sink = new CollectingSink();
+		pipeline.run(Collections.emptyList(), sink);
+		assertTrue(sink.valid.isEmpty());
+		assertTrue(sink.invalid.isEmpty());
+		assertEquals(0, pipeline.getReadCount());
+	}
+
+	@Test
+	public void testRun_twice() {
+		final ValidationPipeline pipeline = new ValidationPipeline();
+		pipeline.run(records(10, 2), new CollectingSink());
+		pipeline.run(records(20, 2), new CollectingSink());
+		assertEquals(20, pipeline.getReadCount());
+		assertEquals(10, pipeline.getInvalidCount());
+	}
+
+	@Test
+	public void testRun_backpressure() throws InterruptedException {
+		final ValidationPipeline pipeline = new ValidationPipeline();
+		pipeline.setWorkers(1);
+		pipeline.setQueueCapacity(2);
+		final CountDownLatch blocked = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final Thread thread = new Thread() {
+			@Override
+			public void run() {
+				pipeline.run(records(1000, 0), new ValidationSink() {
+					public void valid(final long index, final Object record) {
+						if (index == 0) {
+							blocked.countDown();
+							try {
+								release.await();
+							} catch (InterruptedException e) {
+								Thread.currentThread().interrupt();
+							}
+						}
+					}
+
+					public void invalid(final long index, final Object record,
+							final Errors errors) {
+					}
+				});
+			}
+		};
+		thread.start();
+		assertTrue(blocked.await(5, TimeUnit.SECONDS));
+		Thread.sleep(100);
+		// one record in the sink, one in the worker, two in each queue
+		assertTrue(pipeline.getReadCount() <= 6);
+		assertEquals(2, pipeline.getOutputQueueDepth());
+		assertTrue(pipeline.isRunning());
+		release.countDown();
+		thread.join(5000);
+		assertEquals(1000, pipeline.getValidCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRun_null() {
+		final List<Record> records = records(10, 0);
+		records.set(5, null);
+		new ValidationPipeline().run(records, new CollectingSink());
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testRun_sourceException() {
+		new ValidationPipeline().run(new Iterator<Object>() {
+			public boolean hasNext() {
+				return true;
+			}
+
+			public Object next() {
+				throw new NoSuchElementException();
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		}, new CollectingSink());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRun_validatorException() {
+		new ValidationPipeline().run(Collections.singletonList(new Invalid()),
+				new CollectingSink());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testRun_sinkException() {
+		new ValidationPipeline().run(records(10000, 0), new ValidationSink() {
+			public void valid(final long index, final Object record) {
+				throw new UnsupportedOperationException();
+			}
+
+			public void invalid(final long index, final Object record,
+					final Errors errors) {
+			}
+		});
+	}
+
+	/**
+	 * Creates records negative at every given interval.
+	 */
+	private static List<Record> records(final int count, final int interval) {
+		final List<Record> records = new ArrayList<Record>(count);
+		for (int i = 0; i < count; i++)
+			records.add(new Record(interval > 0 && i % interval == 0 ? -1 : i));
+		return records;
+	}
+
+	@Validatable
+	public static class Record {
+		@Required
+		@MinValue("0")
+		Integer value;
+
+		public Record(final Integer value) {
+			this.value = value;
+		}
+	}
+
+	@Validatable
+	public static class Invalid {
+		@MinValue("0")
+		String value = "a";
+	}
+
+	private static class CollectingSink implements ValidationSink {
+		private final Map<Long, Object> valid = new TreeMap<Long, Object>();
+
+		private final Map<Long, Errors> invalid = new TreeMap<Long, Errors>();
+
+		public void valid(final long index, final Object record) {
+			valid.put(index, record);
+		}
+
+		public void invalid(final long index, final Object record,
+				final Errors errors) {
+			invalid.put(index, errors);
+		}
+	}
+}
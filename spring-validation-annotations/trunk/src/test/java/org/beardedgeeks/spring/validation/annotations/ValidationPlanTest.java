@@ -0,0 +1,294 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Field;
+
+import org.junit.Test;
+import org.springframework.validation.Errors;
+
+/**
+ * Tests for {@link ValidationPlan}.
+ * 
+ * @author hleinone
+ */
+public class ValidationPlanTest {
+	@Test
+	public void testForClass_cached() {
+		final TestValidator validator = new TestValidator(TestAnnotation.class);
+		assertSame(ValidationPlan.forClass(TestObject.class, validator),
+				ValidationPlan.forClass(TestObject.class, validator));
+	}
+
+	@Test
+	public void testForClass_perValidator() {
+		final ValidationPlan plan = ValidationPlan.forClass(TestObject.class,
+				new ParameterlessValidator());
+		assertNull(plan.getConstraints().get(0).getParameter());
+		final ValidationPlan otherPlan = ValidationPlan.forClass(
+				TestObject.class, new TestValidator(TestAnnotation.class));
+		assertNotSame(plan, otherPlan);
+		assertEquals("foo", otherPlan.getConstraints().get(0).getParameter());
+	}
+
+	@Test
+	public void testForClass_groups() {
+		final TestValidator validator = new TestValidator(TestAnnotation.class);
+		final ValidationPlan defaultPlan = ValidationPlan.forClass(
+				GroupedObject.class, validator);
+		assertArrayEquals(new Class<?>[] { Default.class }, defaultPlan
+				.getGroups());
+		assertEquals(2, defaultPlan.getConstraints().size());
+		assertEquals("foo", defaultPlan.getConstraints().get(0).getFieldName());
+		assertEquals("baz", defaultPlan.getConstraints().get(1).getFieldName());
+
+		final ValidationPlan updatePlan = ValidationPlan.forClass(
+				GroupedObject.class, validator, Update.class);
+		assertArrayEquals(new Class<?>[] { Update.class }, updatePlan
+				.getGroups());
+		assertEquals(2, updatePlan.getConstraints().size());
+		assertEquals("bar", updatePlan.getConstraints().get(0).getFieldName());
+		assertEquals("baz", updatePlan.getConstraints().get(1).getFieldName());
+
+		assertEquals(3, ValidationPlan.forClass(GroupedObject.class,
+				validator, Update.class, Default.class).getConstraints()
+				.size());
+	}
+
+	@Test
+	public void testForClass_groupsCached() {
+		final TestValidator validator = new TestValidator(TestAnnotation.class);
+		assertSame(ValidationPlan.forClass(GroupedObject.class, validator),
+				ValidationPlan.forClass(GroupedObject.class, validator,
+						Default.class));
+		assertSame(ValidationPlan.forClass(GroupedObject.class, validator,
+				Update.class, Default.class), ValidationPlan.forClass(
+				GroupedObject.class, validator, Default.class, Update.class,
+				Update.class));
+	}
+
+	@Test
+	public void testCreate_noAnnotatedFields() {
+		assertTrue(ValidationPlan.create(TestObject.class,
+				new TestValidator(Test.class))
+				.getConstraints().isEmpty());
+	}
+
+	@Test
+	public void testCreate() {
+		final ValidationPlan plan = ValidationPlan.create(TestObject.class,
+				new TestValidator(TestAnnotation.class));
+		assertEquals(TestObject.class, plan.getType());
+		assertEquals(TestAnnotation.class, plan.getAnnotationType());
+		assertEquals(2, plan.getConstraints().size());
+		assertEquals("foo", plan.getConstraints().get(0).getFieldName());
+		assertEquals("bar", plan.getConstraints().get(1).getFieldName());
+		assertEquals("foo", plan.getConstraints().get(0).getParameter());
+	}
+
+	@Test
+	public void testCreate_hierarchy() {
+		final ValidationPlan plan = ValidationPlan.create(SubObject.class,
+				new TestValidator(TestAnnotation.class));
+		assertEquals(4, plan.getConstraints().size());
+		assertEquals("sub", plan.getConstraints().get(0).getFieldName());
+		assertEquals(SubObject.class, plan.getConstraints().get(0).getField()
+				.getDeclaringClass());
+		assertEquals("shadowed", plan.getConstraints().get(1).getFieldName());
+		assertEquals(SubObject.class, plan.getConstraints().get(1).getField()
+				.getDeclaringClass());
+		assertEquals("inherited", plan.getConstraints().get(2).getFieldName());
+		assertEquals("exposed", plan.getConstraints().get(3).getFieldName());
+	}
+
+	@Test
+	public void testGetErrorCode_default() {
+		final Errors errorsMock = createMock(Errors.class);
+		expect(errorsMock.getObjectName()).andReturn("test");
+		replay(errorsMock);
+		assertEquals("test.foo.testAnnotation", ValidationPlan.create(
+				TestObject.class, new TestValidator(TestAnnotation.class))
+				.getConstraints().get(0).getErrorCode(errorsMock));
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testGetErrorCode_defaultReused() {
+		final Errors errorsMock = createMock(Errors.class);
+		expect(errorsMock.getObjectName()).andReturn("test").times(2);
+		expect(errorsMock.getObjectName()).andReturn("other");
+		expect(errorsMock.getObjectName()).andReturn(new String("other"));
+		replay(errorsMock);
+		final FieldConstraint constraint = ValidationPlan.create(
+				TestObject.class, new TestValidator(TestAnnotation.class))
+				.getConstraints().get(0);
+		final String errorCode = constraint.getErrorCode(errorsMock);
+		assertSame(errorCode, constraint.getErrorCode(errorsMock));
+		final String otherErrorCode = constraint.getErrorCode(errorsMock);
+		assertEquals("other.foo.testAnnotation", otherErrorCode);
+		assertSame(otherErrorCode, constraint.getErrorCode(errorsMock));
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testGetErrorCode_alternatingNames() {
+		final Errors errorsMock = createMock(Errors.class);
+		expect(errorsMock.getObjectName()).andReturn("test");
+		expect(errorsMock.getObjectName()).andReturn("other");
+		expect(errorsMock.getObjectName()).andReturn("test");
+		expect(errorsMock.getObjectName()).andReturn("other");
+		replay(errorsMock);
+		final FieldConstraint constraint = ValidationPlan.create(
+				TestObject.class, new TestValidator(TestAnnotation.class))
+				.getConstraints().get(0);
+		final String errorCode = constraint.getErrorCode(errorsMock);
+		final String otherErrorCode = constraint.getErrorCode(errorsMock);
+		assertSame(errorCode, constraint.getErrorCode(errorsMock));
+		assertSame(otherErrorCode, constraint.getErrorCode(errorsMock));
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testGetErrorCode_manyNames() {
+		final FieldConstraint constraint = ValidationPlan.create(
+				TestObject.class, new TestValidator(TestAnnotation.class))
+				.getConstraints().get(0);
+		for (int i = 0; i < 20; i++) {
+			final Errors errorsMock = createMock(Errors.class);
+			expect(errorsMock.getObjectName()).andReturn("test" + i);
+			replay(errorsMock);
+			assertEquals("test" + i + ".foo.testAnnotation", constraint
+					.getErrorCode(errorsMock));
+			verify(errorsMock);
+		}
+	}
+
+	@Test
+	public void testGetErrorCode_custom() {
+		final Errors errorsMock = createMock(Errors.class);
+		replay(errorsMock);
+		assertEquals("error", ValidationPlan.create(TestObject.class,
+				new TestValidator(TestAnnotation.class)).getConstraints()
+				.get(1).getErrorCode(errorsMock));
+		verify(errorsMock);
+	}
+
+	private static final class TestValidator extends FieldValidator {
+		private final Class<? extends Annotation> annotationType;
+
+		private TestValidator(final Class<? extends Annotation> annotationType) {
+			this.annotationType = annotationType;
+		}
+
+		@Override
+		protected Class<? extends Annotation> getAnnotationType() {
+			return annotationType;
+		}
+
+		@Override
+		protected Object resolveParameter(final Field field,
+				final Annotation annotation) {
+			return field.getName();
+		}
+
+		@Override
+		protected void validate(final Field field, final Errors errors,
+				final String errorCode) {
+		}
+	}
+
+	private static final class ParameterlessValidator extends FieldValidator {
+		@Override
+		protected Class<? extends Annotation> getAnnotationType() {
+			return TestAnnotation.class;
+		}
+
+		@Override
+		protected void validate(final Field field, final Errors errors,
+				final String errorCode) {
+		}
+	}
+
+	@Validatable
+	private static final class TestObject {
+		@SuppressWarnings("unused")
+		@TestAnnotation
+		private String foo;
+
+		@SuppressWarnings("unused")
+		@TestAnnotation(errorCode = "error")
+		private String bar;
+
+		@SuppressWarnings("unused")
+		private String baz;
+	}
+
+	@Validatable
+	private static class SuperObject {
+		@SuppressWarnings("unused")
+		@TestAnnotation
+		private static String constant;
+
+		@SuppressWarnings("unused")
+		@TestAnnotation
+		private String shadowed;
+
+		@SuppressWarnings("unused")
+		@TestAnnotation
+		private String inherited;
+
+		@TestAnnotation
+		public String exposed;
+	}
+
+	@Validatable
+	private static final class SubObject extends SuperObject {
+		@SuppressWarnings("unused")
+		@TestAnnotation
+		private String sub;
+
+		@SuppressWarnings("unused")
+		@TestAnnotation
+		private String shadowed;
+	}
+
+	@Validatable
+	private static final class GroupedObject {
+		@SuppressWarnings("unused")
+		@TestAnnotation
+		private String foo;
+
+		@SuppressWarnings("unused")
+		@TestAnnotation(groups = Update.class)
+		private String bar;
+
+		@SuppressWarnings("unused")
+		@TestAnnotation(groups = { Default.class, Update.class })
+		private String baz;
+	}
+
+	private static interface Update {
+	}
+
+	@Target(ElementType.FIELD)
+	@Retention(RetentionPolicy.RUNTIME)
+	public static @interface TestAnnotation {
+		String errorCode() default "";
+
+		Class<?>[] groups() default {};
+	}
+}
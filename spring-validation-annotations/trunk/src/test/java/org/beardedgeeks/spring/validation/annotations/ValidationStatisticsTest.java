@@ -0,0 +1,89 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.beardedgeeks.spring.validation.annotations.empty.Required;
+import org.beardedgeeks.spring.validation.annotations.length.MaxLength;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ValidationStatistics}.
+ * 
+ * @author hleinone
+ */
+public class ValidationStatisticsTest {
+	@Test
+	public void testValidated() {
+		final ValidationStatistics statistics = new ValidationStatistics();
+		statistics.validated(String.class, 10);
+		statistics.validated(String.class, 30);
+		statistics.validated(String.class, 20);
+		final ValidationTimes times = statistics.getClassTimes().get(
+				String.class.getName());
+		assertEquals(3, times.getInvocationCount());
+		assertEquals(60, times.getTotalNanos());
+		assertEquals(30, times.getMaxNanos());
+	}
+
+	@Test
+	public void testConstraintValidated() {
+		final ValidationStatistics statistics = new ValidationStatistics();
+		statistics.constraintValidated(Required.class, 10);
+		statistics.constraintValidated(MaxLength.class, 20);
+		assertEquals(2, statistics.getConstraintTimes().size());
+		assertEquals(20, statistics.getConstraintTimes().get(
+				MaxLength.class.getName()).getTotalNanos());
+		assertTrue(statistics.getClassTimes().isEmpty());
+	}
+
+	@Test
+	public void testViolated() {
+		final ValidationStatistics statistics = new ValidationStatistics();
+		statistics.violated(String.class, "test.required");
+		statistics.violated(Integer.class, "test.required");
+		assertEquals(Collections.singletonMap("test.required", 2L),
+				statistics.getViolationCounts());
+	}
+
+	@Test
+	public void testReset() {
+		final ValidationStatistics statistics = new ValidationStatistics();
+		statistics.validated(String.class, 10);
+		statistics.constraintValidated(Required.class, 10);
+		statistics.violated(String.class, "test.required");
+		statistics.reset();
+		assertTrue(statistics.getClassTimes().isEmpty());
+		assertTrue(statistics.getConstraintTimes().isEmpty());
+		assertTrue(statistics.getViolationCounts().isEmpty());
+	}
+
+	@Test
+	public void testRegisterMBean() throws Exception {
+		final ValidationStatistics statistics = new ValidationStatistics();
+		statistics.validated(String.class, 10);
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		final ObjectName name = new ObjectName(ValidationStatistics.OBJECT_NAME);
+		server.registerMBean(statistics, name);
+		try {
+			final TabularData classTimes = (TabularData) server.getAttribute(
+					name, "ClassTimes");
+			final CompositeData row = classTimes
+					.get(new Object[] { String.class.getName() });
+			assertEquals(1L, ((CompositeData) row.get("value"))
+					.get("invocationCount"));
+			server.invoke(name, "reset", null, null);
+			assertTrue(statistics.getClassTimes().isEmpty());
+		} finally {
+			server.unregisterMBean(name);
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.beardedgeeks.spring.validation.annotations.scanning.ScannedObject;
+import org.beardedgeeks.spring.validation.annotations.warming.BrokenObject;
+import org.beardedgeeks.spring.validation.annotations.warming.WarmedObject;
+import org.junit.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.validation.Validator;
+
+/**
+ * Tests for {@link ValidationWarmer}.
+ * 
+ * @author hleinone
+ */
+public class ValidationWarmerTest {
+	private static final String BASE_PACKAGE = "org.beardedgeeks.spring.validation.annotations.warming";
+
+	private static final String SCANNED_PACKAGE = "org.beardedgeeks.spring.validation.annotations.scanning";
+
+	@Test
+	public void testWarmUp() {
+		final ValidationWarmer warmer = new ValidationWarmer(
+				new CompositeFieldValidator());
+		warmer.setBasePackages(BASE_PACKAGE);
+		assertFalse(warmer.isWarmedUp());
+		assertEquals(-1, warmer.getWarmUpTime());
+		warmer.warmUp();
+		assertTrue(warmer.isWarmedUp());
+		assertTrue(warmer.getWarmUpTime() >= 0);
+		assertEquals(1, warmer.getWarmedUpCount());
+		assertEquals(1, warmer.getFailures().size());
+		assertTrue(warmer.getFailures().get(BrokenObject.class.getName()) instanceof IllegalArgumentException);
+	}
+
+	@Test
+	public void testWarmUp_validators() {
+		final Validator validatorMock = createMock(Validator.class);
+		expect(validatorMock.supports(WarmedObject.class)).andReturn(true);
+		expect(validatorMock.supports(BrokenObject.class)).andReturn(true);
+		replay(validatorMock);
+		final ValidationWarmer warmer = new ValidationWarmer(
+				new ValidatorRegistry(validatorMock));
+		warmer.setBasePackages(BASE_PACKAGE);
+		warmer.warmUp();
+		assertEquals(2, warmer.getWarmedUpCount());
+		assertTrue(warmer.getFailures().isEmpty());
+		verify(validatorMock);
+	}
+
+	@Test
+	public void testWarmUp_index() throws IOException {
+		final File directory = writeIndex(WarmedObject.class);
+		final ValidationWarmer warmer = new ValidationWarmer(
+				new CompositeFieldValidator());
+		warmer.setBasePackages(BASE_PACKAGE);
+		warmer.setResourceLoader(new DefaultResourceLoader(
+				new URLClassLoader(new URL[] { directory.toURI().toURL() },
+						getClass().getClassLoader())));
+		warmer.warmUp();
+		// the broken class is not indexed, so it is not scanned either
+		assertEquals(1, warmer.getWarmedUpCount());
+		assertTrue(warmer.getFailures().isEmpty());
+		deleteIndex(directory);
+	}
+
+	@Test
+	public void testWarmUp_partialIndex() throws IOException {
+		final File directory = writeIndex(WarmedObject.class);
+		final Validator validatorMock = createMock(Validator.class);
+		expect(validatorMock.supports(WarmedObject.class)).andReturn(true);
+		expect(validatorMock.supports(ScannedObject.class)).andReturn(true);
+		replay(validatorMock);
+		final ValidationWarmer warmer = new ValidationWarmer(validatorMock);
+		warmer.setBasePackages(BASE_PACKAGE, SCANNED_PACKAGE);
+		warmer.setResourceLoader(new DefaultResourceLoader(
+				new URLClassLoader(new URL[] { directory.toURI().toURL() },
+						getClass().getClassLoader())));
+		warmer.warmUp();
+		// the package missing from the index is scanned
+		assertEquals(2, warmer.getWarmedUpCount());
+		assertTrue(warmer.getFailures().isEmpty());
+		verify(validatorMock);
+		deleteIndex(directory);
+	}
+
+	@Test
+	public void testOnApplicationEvent() throws InterruptedException {
+		final Validator validatorMock = createMock(Validator.class);
+		expect(validatorMock.supports(WarmedObject.class)).andReturn(true);
+		expect(validatorMock.supports(BrokenObject.class)).andReturn(true);
+		replay(validatorMock);
+		final ValidationWarmer warmer = new ValidationWarmer(validatorMock);
+		warmer.setBasePackages(BASE_PACKAGE);
+		warmer.setTaskExecutor(new SyncTaskExecutor());
+		final ContextRefreshedEvent event = new ContextRefreshedEvent(
+				createMock(ApplicationContext.class));
+		warmer.onApplicationEvent(event);
+		// a second refresh does not warm up again
+		warmer.onApplicationEvent(event);
+		assertTrue(warmer.awaitWarmUp(0, TimeUnit.MILLISECONDS));
+		verify(validatorMock);
+	}
+
+	@Test
+	public void testOnApplicationEvent_background()
+			throws InterruptedException {
+		final ValidationWarmer warmer = new ValidationWarmer(
+				new CompositeFieldValidator());
+		warmer.setBasePackages(BASE_PACKAGE);
+		warmer.onApplicationEvent(new ContextRefreshedEvent(
+				createMock(ApplicationContext.class)));
+		assertTrue(warmer.awaitWarmUp(10, TimeUnit.SECONDS));
+		assertEquals(1, warmer.getWarmedUpCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_noValidators() {
+		new ValidationWarmer();
+	}
+
+	private static File writeIndex(final Class<?> clazz) throws IOException {
+		final File directory = File.createTempFile("warmer", "");
+		directory.delete();
+		final File file = new File(directory, ValidationIndex.LOCATION);
+		file.getParentFile().mkdirs();
+		final OutputStream output = new FileOutputStream(file);
+		try {
+			ValidationIndex.write(Collections.singleton(clazz), output);
+		} finally {
+			output.close();
+		}
+		return directory;
+	}
+
+	private static void deleteIndex(final File directory) {
+		final File file = new File(directory, ValidationIndex.LOCATION);
+		file.delete();
+		file.getParentFile().delete();
+		file.getParentFile().getParentFile().delete();
+		directory.delete();
+	}
+}
@@ -0,0 +1,293 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.beardedgeeks.spring.validation.annotations.empty.Required;
+import org.beardedgeeks.spring.validation.annotations.empty.RequiredValidator;
+import org.beardedgeeks.spring.validation.annotations.length.MaxLength;
+import org.beardedgeeks.spring.validation.annotations.length.MaxLengthValidator;
+import org.beardedgeeks.spring.validation.annotations.length.MinLength;
+import org.beardedgeeks.spring.validation.annotations.length.MinLengthValidator;
+import org.beardedgeeks.spring.validation.annotations.matches.MatchesPattern;
+import org.beardedgeeks.spring.validation.annotations.matches.MatchesPatternValidator;
+import org.beardedgeeks.spring.validation.annotations.value.MaxValue;
+import org.beardedgeeks.spring.validation.annotations.value.MaxValueValidator;
+import org.beardedgeeks.spring.validation.annotations.value.MinValue;
+import org.beardedgeeks.spring.validation.annotations.value.MinValueValidator;
+import org.junit.Test;
+import org.springframework.validation.Errors;
+import org.springframework.validation.MapBindingResult;
+import org.springframework.validation.Validator;
+
+public class ValidatorClassGeneratorTest {
+	private static final FieldValidator[] VALIDATORS = new FieldValidator[] {
+			new RequiredValidator(), new MinLengthValidator(),
+			new MaxLengthValidator(), new MinValueValidator(),
+			new MaxValueValidator(), new MatchesPatternValidator() };
+
+	@Test
+	public void testGenerate_publicFields() {
+		final Validator validator = generate(PublicObject.class, VALIDATORS);
+		assertTrue(validator instanceof GeneratedFieldValidator);
+		assertTrue(validator.supports(PublicObject.class));
+		assertFalse(validator.supports(Object.class));
+	}
+
+	@Test
+	public void testValidate_publicFields_valid() {
+		assertValidatedAlike(new PublicObject("abc", 5, 5L, 5f, 5d, 5,
+				new BigDecimal("5")), 0);
+	}
+
+	@Test
+	public void testValidate_publicFields_tooSmall() {
+		assertValidatedAlike(new PublicObject("a", 0, 0L, 0f, 0d, 0,
+				new BigDecimal("0")), 7);
+	}
+
+	@Test
+	public void testValidate_publicFields_tooLarge() {
+		assertValidatedAlike(new PublicObject("abcdef", 11, 11L, 10.5f,
+				10.5d, 11, new BigDecimal("10.01")), 7);
+	}
+
+	@Test
+	public void testValidate_publicFields_null() {
+		assertValidatedAlike(new PublicObject(null, 5, 5L, 5f, 5d, null, null),
+				1);
+	}
+
+	@Test
+	public void testValidate_publicFields_notMatching() {
+		assertValidatedAlike(new PublicObject("bcd", 5, 5L, 5f, 5d, 5,
+				new BigDecimal("5")), 1);
+	}
+
+	@Test
+	public void testValidate_privateFields() {
+		assertTrue(generate(PrivateObject.class, VALIDATORS) instanceof GeneratedFieldValidator);
+		assertValidatedAlike(new PrivateObject("abc", 5), 0);
+		assertValidatedAlike(new PrivateObject("", 5), 1);
+		assertValidatedAlike(new PrivateObject("abcd", 11), 2);
+	}
+
+	@Test
+	public void testValidate_hasFieldErrors() {
+		final Errors errors = new MapBindingResult(
+				new HashMap<String, Object>(), "test");
+		errors.rejectValue("text", "existing");
+		generate(PrivateObject.class, VALIDATORS).validate(
+				new PrivateObject("", 5), errors);
+		assertEquals(1, errors.getErrorCount());
+		assertEquals("existing", errors.getFieldError("text").getCode());
+	}
+
+	@Test
+	public void testValidate_delegated() {
+		final FieldValidator[] validators = new FieldValidator[] {
+				new RequiredValidator(), new CustomValidator(),
+				new MaxLengthValidator() };
+		final Validator validator = generate(CustomObject.class, validators);
+		assertTrue(validator instanceof GeneratedFieldValidator);
+
+		final Errors errors = new MapBindingResult(
+				new HashMap<String, Object>(), "test");
+		validator.validate(new CustomObject("abcd"), errors);
+		assertEquals(1, errors.getErrorCount());
+		assertEquals("test.text.custom", errors.getFieldError("text")
+				.getCode());
+
+		final Errors valid = new MapBindingResult(
+				new HashMap<String, Object>(), "test");
+		validator.validate(new CustomObject("ab"), valid);
+		assertFalse(valid.hasErrors());
+	}
+
+	@Test
+	public void testGenerate_unsupported() {
+		assertNull(generate(UnsupportedObject.class, VALIDATORS));
+	}
+
+	@Test
+	public void testCompositeFieldValidator_generateValidators() {
+		final CompositeFieldValidator validator = new CompositeFieldValidator();
+		validator.setGenerateValidators(true);
+		final Errors errors = new MapBindingResult(
+				new HashMap<String, Object>(), "test");
+		validator.validate(new PublicObject("a", 0, 0L, 0f, 0d, 0,
+				new BigDecimal("0")), errors);
+		assertEquals(7, errors.getErrorCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCompositeFieldValidator_unsupported() {
+		// the reflective path reports the misplaced annotation
+		final CompositeFieldValidator validator = new CompositeFieldValidator();
+		validator.setGenerateValidators(true);
+		validator.validate(new UnsupportedObject(), new MapBindingResult(
+				new HashMap<String, Object>(), "test"));
+	}
+
+	private static Validator generate(final Class<?> clazz,
+			final FieldValidator... validators) {
+		final Map<Field, ConstrainedField> byField = new LinkedHashMap<Field, ConstrainedField>();
+		for (final FieldValidator validator : validators)
+			for (final FieldConstraint constraint : validator
+					.getValidationPlan(clazz).getConstraints()) {
+				ConstrainedField field = byField.get(constraint.getField());
+				if (field == null) {
+					field = new ConstrainedField(constraint.getFieldName());
+					byField.put(constraint.getField(), field);
+				}
+				field.add(validator, constraint);
+			}
+		for (final ConstrainedField field : byField.values())
+			field.freeze();
+		return ValidatorClassGenerator.generate(clazz, byField.values()
+				.toArray(new ConstrainedField[byField.size()]));
+	}
+
+	private static void assertValidatedAlike(final Object target,
+			final int errorCount) {
+		final Errors expected = new MapBindingResult(
+				new HashMap<String, Object>(), "test");
+		new CompositeFieldValidator().validate(target, expected);
+		final Errors actual = new MapBindingResult(
+				new HashMap<String, Object>(), "test");
+		generate(target.getClass(), VALIDATORS).validate(target, actual);
+		assertEquals(errorCount, actual.getErrorCount());
+		assertEquals(expected.getAllErrors(), actual.getAllErrors());
+	}
+
+	@Validatable
+	public static final class PublicObject {
+		@Required
+		@MinLength(2)
+		@MaxLength(5)
+		@MatchesPattern("a.*")
+		public String text;
+
+		@Required
+		@MinValue("1")
+		@MaxValue("10")
+		public int intValue;
+
+		@MinValue("1")
+		@MaxValue("10")
+		public long longValue;
+
+		@MinValue("0.5")
+		@MaxValue("10")
+		public float floatValue;
+
+		@MinValue("0.5")
+		@MaxValue("10")
+		public double doubleValue;
+
+		@MinValue("1")
+		@MaxValue("10")
+		public Integer integer;
+
+		@MinValue("0.01")
+		@MaxValue("10")
+		public BigDecimal decimal;
+
+		public PublicObject(final String text, final int intValue,
+				final long longValue, final float floatValue,
+				final double doubleValue, final Integer integer,
+				final BigDecimal decimal) {
+			this.text = text;
+			this.intValue = intValue;
+			this.longValue = longValue;
+			this.floatValue = floatValue;
+			this.doubleValue = doubleValue;
+			this.integer = integer;
+			this.decimal = decimal;
+		}
+	}
+
+	@Validatable
+	private static final class PrivateObject {
+		@SuppressWarnings("unused")
+		@Required
+		@MaxLength(3)
+		private final String text;
+
+		@SuppressWarnings("unused")
+		@MaxValue("10")
+		private final int value;
+
+		private PrivateObject(final String text, final int value) {
+			this.text = text;
+			this.value = value;
+		}
+	}
+
+	@Validatable
+	private static final class CustomObject {
+		@SuppressWarnings("unused")
+		@Required
+		@Custom
+		@MaxLength(2)
+		private final String text;
+
+		private CustomObject(final String text) {
+			this.text = text;
+		}
+	}
+
+	@Validatable
+	private static final class UnsupportedObject {
+		@SuppressWarnings("unused")
+		@MaxLength(2)
+		private int value;
+	}
+
+	@Target(ElementType.FIELD)
+	@Retention(RetentionPolicy.RUNTIME)
+	private @interface Custom {
+	}
+
+	private static final class CustomValidator extends FieldValidator {
+		@Override
+		protected void validate(final Field field, final Errors errors,
+				final String errorCode) {
+			final Object value = errors.getFieldValue(field.getName());
+			if (value != null && value.toString().length() > 3)
+				errors.rejectValue(field.getName(), errorCode);
+		}
+
+		@Override
+		protected void validate(final Object target,
+				final FieldConstraint constraint, final Errors errors,
+				final String errorCode) {
+			final Object value = constraint.getAccessor().get(target);
+			if (value != null && value.toString().length() > 3)
+				errors.rejectValue(constraint.getFieldName(), errorCode);
+		}
+
+		@Override
+		protected int getCost() {
+			return LENGTH_CHECK_COST;
+		}
+
+		@Override
+		protected Class<? extends Annotation> getAnnotationType() {
+			return Custom.class;
+		}
+	}
+}
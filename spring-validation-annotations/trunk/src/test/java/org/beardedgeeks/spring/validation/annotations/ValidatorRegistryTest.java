@@ -0,0 +1,357 @@
+package org.beardedgeeks.spring.validation.annotations;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.HashMap;
+
+import org.beardedgeeks.spring.validation.annotations.empty.Required;
+import org.beardedgeeks.spring.validation.annotations.empty.RequiredValidator;
+import org.beardedgeeks.spring.validation.annotations.matches.MatchesPattern;
+import org.beardedgeeks.spring.validation.annotations.matches.MatchesPatternValidator;
+import org.junit.Test;
+import org.springframework.validation.Errors;
+import org.springframework.validation.MapBindingResult;
+import org.springframework.validation.Validator;
+
+/**
+ * Tests for {@link ValidatorRegistry}.
+ * 
+ * @author hleinone
+ */
+public class ValidatorRegistryTest {
+	@Test
+	public void testSupports() {
+		assertTrue(new ValidatorRegistry().supports(Generated.class));
+		assertFalse(new ValidatorRegistry().supports(Object.class));
+	}
+
+	@Test
+	public void testGetGeneratedValidatorName() {
+		assertEquals(ValidatorRegistryTest.class.getName()
+				+ "$Generated_Validator", ValidatorRegistry
+				.getGeneratedValidatorName(Generated.class));
+	}
+
+	@Test
+	public void testGetValidator_generated() {
+		final Validator validator = new ValidatorRegistry()
+				.getValidator(Generated.class);
+		assertEquals(Generated_Validator.class, validator.getClass());
+	}
+
+	@Test
+	public void testGetValidator_cached() {
+		final ValidatorRegistry registry = new ValidatorRegistry();
+		assertSame(registry.getValidator(Generated.class), registry
+				.getValidator(Generated.class));
+	}
+
+	@Test
+	public void testGetValidator_fallback() {
+		final Validator fallbackMock = createMock(Validator.class);
+		assertSame(fallbackMock, new ValidatorRegistry(fallbackMock)
+				.getValidator(NotGenerated.class));
+	}
+
+	@Test
+	public void testGetValidator_notValidator() {
+		final Validator fallbackMock = createMock(Validator.class);
+		assertSame(fallbackMock, new ValidatorRegistry(fallbackMock)
+				.getValidator(NotValidator.class));
+	}
+
+	@Test
+	public void testGetValidator_noConstraints() {
+		final CompositeFieldValidator composite = CompositeFieldValidator
+				.withBuiltIns(new CustomValidator());
+		final Validator validator = new ValidatorRegistry(composite)
+				.getValidator(NotGenerated.class);
+		assertNotSame(composite, validator);
+		assertSame(validator, new ValidatorRegistry().getValidator(
+				NotGenerated.class));
+	}
+
+	@Test
+	public void testGetValidator_builtInConstraints() {
+		final CompositeFieldValidator composite = CompositeFieldValidator
+				.withBuiltIns(new CustomValidator());
+		final ValidatorRegistry registry = new ValidatorRegistry(composite);
+		assertEquals(Constrained_Validator.class, registry.getValidator(
+				Constrained.class).getClass());
+		assertSame(composite, registry
+				.getValidator(NotGeneratedConstrained.class));
+	}
+
+	@Test
+	public void testGetValidator_pluginConstraints() {
+		final CompositeFieldValidator composite = CompositeFieldValidator
+				.withBuiltIns(new CustomValidator());
+		assertSame(composite, new ValidatorRegistry(composite)
+				.getValidator(PluginConstrained.class));
+		// without the plug-in the constraint is unknown
+		assertEquals(PluginConstrained_Validator.class,
+				new ValidatorRegistry().getValidator(PluginConstrained.class)
+						.getClass());
+	}
+
+	@Test
+	public void testGetValidator_automatonEngine() {
+		final MatchesPatternValidator matchesPatternValidator = new MatchesPatternValidator();
+		matchesPatternValidator.setEngine(MatchesPattern.Engine.AUTOMATON);
+		final CompositeFieldValidator composite = new CompositeFieldValidator(
+				new RequiredValidator(), matchesPatternValidator);
+		final ValidatorRegistry registry = new ValidatorRegistry(composite);
+		assertSame(composite, registry.getValidator(PatternConstrained.class));
+		assertSame(composite, registry.getValidator(Constrained.class));
+		assertEquals(PatternConstrained_Validator.class,
+				new ValidatorRegistry().getValidator(PatternConstrained.class)
+						.getClass());
+	}
+
+	@Test
+	public void testGetValidator_groups() {
+		final CompositeFieldValidator composite = new CompositeFieldValidator()
+				.forGroups(Default.class, Update.class);
+		assertSame(composite, new ValidatorRegistry(composite)
+				.getValidator(Constrained.class));
+	}
+
+	@Test
+	public void testGetValidator_failFast() {
+		final CompositeFieldValidator composite = new CompositeFieldValidator();
+		final ValidatorRegistry registry = new ValidatorRegistry(composite);
+		assertEquals(Constrained_Validator.class, registry.getValidator(
+				Constrained.class).getClass());
+		// the cached choice follows the configuration
+		composite.setFailFast(true);
+		assertSame(composite, registry.getValidator(Constrained.class));
+		composite.setFailFast(false);
+		assertEquals(Constrained_Validator.class, registry.getValidator(
+				Constrained.class).getClass());
+	}
+
+	@Test
+	public void testGetValidator_cascading() {
+		final CascadingValidator cascading = new CascadingValidator();
+		assertSame(cascading, new ValidatorRegistry(cascading)
+				.getValidator(Constrained.class));
+	}
+
+	@Test
+	public void testValidate_plugin() {
+		final Errors errors = new MapBindingResult(
+				new HashMap<String, Object>(), "test");
+		new ValidatorRegistry(CompositeFieldValidator
+				.withBuiltIns(new CustomValidator())).validate(
+				new PluginConstrained("abcd", null), errors);
+		assertEquals(2, errors.getFieldErrorCount());
+		assertEquals(1, errors.getFieldErrorCount("code"));
+		assertEquals(1, errors.getFieldErrorCount("id"));
+	}
+
+	@Test
+	public void testValidate_noConstraints() {
+		final Errors errorsMock = createMock(Errors.class);
+		replay(errorsMock);
+		new ValidatorRegistry().validate(new NotGenerated(), errorsMock);
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testValidate_listener() {
+		final ValidationStatistics statistics = new ValidationStatistics();
+		final ValidatorRegistry registry = new ValidatorRegistry(
+				new RejectingValidator());
+		registry.setValidationListener(statistics);
+		final Errors errors = new MapBindingResult(
+				new HashMap<String, Object>(), "test");
+		registry.validate(new NotGenerated(), errors);
+		assertEquals(1, statistics.getClassTimes().get(
+				NotGenerated.class.getName()).getInvocationCount());
+		assertEquals(Collections.singletonMap("test.rejected", 1L),
+				statistics.getViolationCounts());
+	}
+
+	@Test
+	public void testValidate_listenerComposite() {
+		final ValidationStatistics statistics = new ValidationStatistics();
+		final ValidatorRegistry registry = new ValidatorRegistry();
+		registry.setValidationListener(statistics);
+		registry.validate(new NotGeneratedConstrained(),
+				new MapBindingResult(new HashMap<String, Object>(), "test"));
+		// reported by the listener of the composite
+		assertTrue(statistics.getClassTimes().isEmpty());
+	}
+
+	@Test
+	public void testValidate() {
+		final Validator fallbackMock = createMock(Validator.class);
+		final Errors errorsMock = createMock(Errors.class);
+		final NotGenerated target = new NotGenerated();
+		fallbackMock.validate(target, errorsMock);
+		replay(fallbackMock, errorsMock);
+		new ValidatorRegistry(fallbackMock).validate(target, errorsMock);
+		verify(fallbackMock, errorsMock);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_nullFallback() {
+		new ValidatorRegistry(null);
+	}
+
+	@Validatable
+	private static final class Generated {
+	}
+
+	public static final class Generated_Validator implements Validator {
+		@Override
+		public boolean supports(final Class<?> clazz) {
+			return Generated.class.equals(clazz);
+		}
+
+		@Override
+		public void validate(final Object target, final Errors errors) {
+		}
+	}
+
+	@Validatable
+	private static final class NotGenerated {
+	}
+
+	@Validatable
+	private static final class NotValidator {
+	}
+
+	public static final class NotValidator_Validator {
+	}
+
+	private static final class RejectingValidator implements Validator {
+		@Override
+		public boolean supports(final Class<?> clazz) {
+			return true;
+		}
+
+		@Override
+		public void validate(final Object target, final Errors errors) {
+			errors.rejectValue("id", "test.rejected");
+		}
+	}
+
+	private static interface Update {
+	}
+
+	@Validatable
+	private static final class Constrained {
+		@SuppressWarnings("unused")
+		@Required
+		private String id;
+	}
+
+	public static final class Constrained_Validator implements Validator {
+		@Override
+		public boolean supports(final Class<?> clazz) {
+			return Constrained.class.equals(clazz);
+		}
+
+		@Override
+		public void validate(final Object target, final Errors errors) {
+		}
+	}
+
+	@Validatable
+	private static final class PatternConstrained {
+		@SuppressWarnings("unused")
+		@MatchesPattern("(a|aa)+b")
+		private String code;
+	}
+
+	public static final class PatternConstrained_Validator implements
+			Validator {
+		@Override
+		public boolean supports(final Class<?> clazz) {
+			return PatternConstrained.class.equals(clazz);
+		}
+
+		@Override
+		public void validate(final Object target, final Errors errors) {
+		}
+	}
+
+	@Validatable
+	private static final class NotGeneratedConstrained {
+		@SuppressWarnings("unused")
+		@Required
+		private String id;
+	}
+
+	@Validatable
+	private static final class PluginConstrained {
+		@SuppressWarnings("unused")
+		@Custom
+		private final String code;
+
+		@SuppressWarnings("unused")
+		@Required
+		private final String id;
+
+		private PluginConstrained(final String code, final String id) {
+			this.code = code;
+			this.id = id;
+		}
+	}
+
+	public static final class PluginConstrained_Validator implements
+			Validator {
+		@Override
+		public boolean supports(final Class<?> clazz) {
+			return PluginConstrained.class.equals(clazz);
+		}
+
+		@Override
+		public void validate(final Object target, final Errors errors) {
+		}
+	}
+
+	@Target(ElementType.FIELD)
+	@Retention(RetentionPolicy.RUNTIME)
+	private @interface Custom {
+	}
+
+	private static final class CustomValidator extends FieldValidator {
+		@Override
+		protected void validate(final Field field, final Errors errors,
+				final String errorCode) {
+			final Object value = errors.getFieldValue(field.getName());
+			if (value != null && value.toString().length() > 3)
+				errors.rejectValue(field.getName(), errorCode);
+		}
+
+		@Override
+		protected void validate(final Object target,
+				final FieldConstraint constraint, final Errors errors,
+				final String errorCode) {
+			final Object value = constraint.getAccessor().get(target);
+			if (value != null && value.toString().length() > 3)
+				errors.rejectValue(constraint.getFieldName(), errorCode);
+		}
+
+		@Override
+		protected Class<? extends Annotation> getAnnotationType() {
+			return Custom.class;
+		}
+	}
+}
@@ -1,6 +1,8 @@
 package org.beardedgeeks.spring.validation.annotations.empty;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.powermock.api.easymock.PowerMock.createMock;
 import static org.powermock.api.easymock.PowerMock.expectLastCall;
 import static org.powermock.api.easymock.PowerMock.mockStatic;
@@ -38,9 +40,44 @@ public class RequiredValidatorTest {
 		verifyAll();
 	}
 
+	@Test
+	public void testValidate_constraintEmpty() {
+		final Errors errorsMock = createMock(Errors.class);
+		errorsMock.rejectValue("foo", "error", null, null);
+		expectLastCall();
+		replayAll();
+		final RequiredValidator validator = new RequiredValidator();
+		validator.validate(new TestObject(""), validator.getValidationPlan(
+				TestObject.class).getConstraints().get(0), errorsMock, "error");
+		verifyAll();
+	}
+
+	@Test
+	public void testValidate_constraintNotEmpty() {
+		final Errors errorsMock = createMock(Errors.class);
+		replayAll();
+		final RequiredValidator validator = new RequiredValidator();
+		validator.validate(new TestObject("bar"), validator.getValidationPlan(
+				TestObject.class).getConstraints().get(0), errorsMock, "error");
+		verifyAll();
+	}
+
+	@Test
+	public void testIsValid() {
+		final RequiredValidator validator = new RequiredValidator();
+		assertTrue(validator.isValid(new TestObject("foo")));
+		assertFalse(validator.isValid(new TestObject("")));
+		assertFalse(validator.isValid(new TestObject(null)));
+	}
+
 	private static final class TestObject {
 		@SuppressWarnings("unused")
+		@Required
 		private String foo;
+
+		private TestObject(final String foo) {
+			this.foo = foo;
+		}
 	}
 
 }
@@ -2,7 +2,10 @@ package org.beardedgeeks.spring.validation.annotations.length;
 
 import static org.easymock.EasyMock.aryEq;
 import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.isNull;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.powermock.api.easymock.PowerMock.createMock;
 import static org.powermock.api.easymock.PowerMock.expectLastCall;
 import static org.powermock.api.easymock.PowerMock.mockStatic;
@@ -41,10 +44,47 @@ public class MaxLengthValidatorTest {
 		verifyAll();
 	}
 
+	@Test
+	public void testValidate_constraintInvalid() {
+		final Errors errorsMock = createMock(Errors.class);
+		errorsMock.rejectValue(eq("foo"), eq("error"),
+				aryEq(new Object[] { 3 }), (String) isNull());
+		expectLastCall();
+		replayAll();
+		final MaxLengthValidator validator = new MaxLengthValidator();
+		validator.validate(new TestObject("abcd"), validator
+				.getValidationPlan(TestObject.class).getConstraints().get(0),
+				errorsMock, "error");
+		verifyAll();
+	}
+
+	@Test
+	public void testValidate_constraintValid() {
+		final Errors errorsMock = createMock(Errors.class);
+		replayAll();
+		final MaxLengthValidator validator = new MaxLengthValidator();
+		validator.validate(new TestObject("abc"), validator
+				.getValidationPlan(TestObject.class).getConstraints().get(0),
+				errorsMock, "error");
+		verifyAll();
+	}
+
+	@Test
+	public void testIsValid() {
+		final MaxLengthValidator validator = new MaxLengthValidator();
+		assertTrue(validator.isValid(new TestObject("abc")));
+		assertTrue(validator.isValid(new TestObject(null)));
+		assertFalse(validator.isValid(new TestObject("abcd")));
+	}
+
 	private static final class TestObject {
 		@SuppressWarnings("unused")
 		@MaxLength(3)
 		private String foo;
+
+		private TestObject(final String foo) {
+			this.foo = foo;
+		}
 	}
 
 }
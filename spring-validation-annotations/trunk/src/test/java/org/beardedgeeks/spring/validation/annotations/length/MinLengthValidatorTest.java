@@ -2,7 +2,10 @@ package org.beardedgeeks.spring.validation.annotations.length;
 
 import static org.easymock.EasyMock.aryEq;
 import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.isNull;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.powermock.api.easymock.PowerMock.createMock;
 import static org.powermock.api.easymock.PowerMock.expectLastCall;
 import static org.powermock.api.easymock.PowerMock.mockStatic;
@@ -41,10 +44,47 @@ public class MinLengthValidatorTest {
 		verify(errorsMock, ExtendedValidationUtils.class);
 	}
 
+	@Test
+	public void testValidate_constraintInvalid() {
+		final Errors errorsMock = createMock(Errors.class);
+		errorsMock.rejectValue(eq("foo"), eq("error"),
+				aryEq(new Object[] { 3 }), (String) isNull());
+		expectLastCall();
+		replay(errorsMock);
+		final MinLengthValidator validator = new MinLengthValidator();
+		validator.validate(new TestObject("ab"), validator
+				.getValidationPlan(TestObject.class).getConstraints().get(0),
+				errorsMock, "error");
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testValidate_constraintValid() {
+		final Errors errorsMock = createMock(Errors.class);
+		replay(errorsMock);
+		final MinLengthValidator validator = new MinLengthValidator();
+		validator.validate(new TestObject("abc"), validator
+				.getValidationPlan(TestObject.class).getConstraints().get(0),
+				errorsMock, "error");
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testIsValid() {
+		final MinLengthValidator validator = new MinLengthValidator();
+		assertTrue(validator.isValid(new TestObject("abc")));
+		assertTrue(validator.isValid(new TestObject(null)));
+		assertFalse(validator.isValid(new TestObject("ab")));
+	}
+
 	private static final class TestObject {
 		@SuppressWarnings("unused")
 		@MinLength(3)
 		private String foo;
+
+		private TestObject(final String foo) {
+			this.foo = foo;
+		}
 	}
 
 }
@@ -1,6 +1,8 @@
 package org.beardedgeeks.spring.validation.annotations.matches;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.powermock.api.easymock.PowerMock.createMock;
 import static org.powermock.api.easymock.PowerMock.expectLastCall;
 import static org.powermock.api.easymock.PowerMock.mockStatic;
@@ -10,6 +12,7 @@ import static org.powermock.api.easymock.PowerMock.verifyAll;
 import java.lang.reflect.Field;
 
 import org.beardedgeeks.spring.validation.annotations.ExtendedValidationUtils;
+import org.beardedgeeks.spring.validation.annotations.PatternCache;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.powermock.core.classloader.annotations.PrepareForTest;
@@ -31,18 +34,126 @@ public class MatchesPatternValidatorTest {
 		final Errors errorsMock = createMock(Errors.class);
 		final Field fieldMock = TestObject.class.getDeclaredField("foo");
 		mockStatic(ExtendedValidationUtils.class);
-		ExtendedValidationUtils.rejectIfNotMatches(errorsMock, "foo", "test",
-				"error");
+		ExtendedValidationUtils.rejectIfNotMatches(errorsMock, "foo",
+				PatternCache.compile("test"), "error");
 		expectLastCall();
 		replayAll();
 		new MatchesPatternValidator().validate(fieldMock, errorsMock, "error");
 		verifyAll();
 	}
 
+	@Test
+	public void testValidate_constraintNotMatching() {
+		final Errors errorsMock = createMock(Errors.class);
+		errorsMock.rejectValue("foo", "error", null, null);
+		expectLastCall();
+		replayAll();
+		final MatchesPatternValidator validator = new MatchesPatternValidator();
+		validator.validate(new TestObject("tset"), validator
+				.getValidationPlan(TestObject.class).getConstraints().get(0),
+				errorsMock, "error");
+		verifyAll();
+	}
+
+	@Test
+	public void testValidate_constraintMatching() {
+		final Errors errorsMock = createMock(Errors.class);
+		replayAll();
+		final MatchesPatternValidator validator = new MatchesPatternValidator();
+		validator.validate(new TestObject("test"), validator
+				.getValidationPlan(TestObject.class).getConstraints().get(0),
+				errorsMock, "error");
+		verifyAll();
+	}
+
+	@Test
+	public void testIsValid() {
+		final MatchesPatternValidator validator = new MatchesPatternValidator();
+		assertTrue(validator.isValid(new TestObject("test")));
+		assertTrue(validator.isValid(new TestObject(null)));
+		assertFalse(validator.isValid(new TestObject("tests")));
+	}
+
+	@Test
+	public void testIsValid_automaton() {
+		final MatchesPatternValidator validator = new MatchesPatternValidator();
+		final StringBuilder value = new StringBuilder();
+		for (int i = 0; i < 100000; i++)
+			value.append('a');
+		assertTrue(validator.isValid(new AutomatonObject(value + "b", null)));
+		assertFalse(validator.isValid(new AutomatonObject(value + "c", null)));
+	}
+
+	@Test
+	public void testIsValid_validatorEngine() {
+		final MatchesPatternValidator validator = new MatchesPatternValidator();
+		validator.setEngine(MatchesPattern.Engine.AUTOMATON);
+		assertTrue(validator.isValid(new TestObject("test")));
+		assertFalse(validator.isValid(new TestObject("tests")));
+	}
+
+	@Test
+	public void testIsValid_stepBudget() {
+		final MatchesPatternValidator validator = new MatchesPatternValidator();
+		assertTrue(validator.isValid(new AutomatonObject(null, "abab")));
+		assertFalse(validator.isValid(new AutomatonObject(null, "abba")));
+		validator.setStepBudget(1);
+		assertFalse(validator.isValid(new AutomatonObject(null, "abab")));
+	}
+
+	@Test
+	public void testWarmUp() {
+		final MatchesPatternValidator validator = new MatchesPatternValidator();
+		validator.warmUp(WarmedObject.class);
+		final CompiledPattern pattern = (CompiledPattern) validator
+				.getValidationPlan(WarmedObject.class).getConstraints().get(0)
+				.getParameter();
+		assertFalse(pattern.isAutomatonCompiled());
+		validator.setEngine(MatchesPattern.Engine.AUTOMATON);
+		validator.warmUp(WarmedObject.class);
+		assertTrue(pattern.isAutomatonCompiled());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetEngine_default() {
+		new MatchesPatternValidator().setEngine(MatchesPattern.Engine.DEFAULT);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetStepBudget_notPositive() {
+		new MatchesPatternValidator().setStepBudget(0);
+	}
+
+	private static final class AutomatonObject {
+		@SuppressWarnings("unused")
+		@MatchesPattern(value = "(a+)+b", engine = MatchesPattern.Engine.AUTOMATON)
+		private final String regular;
+
+		@SuppressWarnings("unused")
+		@MatchesPattern(value = "(ab)\\1", engine = MatchesPattern.Engine.AUTOMATON)
+		private final String backReference;
+
+		private AutomatonObject(final String regular,
+				final String backReference) {
+			this.regular = regular;
+			this.backReference = backReference;
+		}
+	}
+
+	private static final class WarmedObject {
+		@SuppressWarnings("unused")
+		@MatchesPattern("[a-z]+")
+		private String foo;
+	}
+
 	private static final class TestObject {
 		@SuppressWarnings("unused")
 		@MatchesPattern("test")
 		private String foo;
+
+		private TestObject(final String foo) {
+			this.foo = foo;
+		}
 	}
 
 }
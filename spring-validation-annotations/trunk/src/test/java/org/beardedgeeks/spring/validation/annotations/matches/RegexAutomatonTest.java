@@ -0,0 +1,84 @@
+package org.beardedgeeks.spring.validation.annotations.matches;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link RegexAutomaton}.
+ * 
+ * @author hleinone
+ */
+public class RegexAutomatonTest {
+	private static final String[] PATTERNS = { "", "abc", "a|b|", "a*b+c?",
+			"(ab)*", "(?:a|bc)+", "a{2}", "a{2,}", "a{1,3}b", "a{0}", ".",
+			".*x", "[a-c]+", "[^a-c]", "[a\\-z]", "[-a]", "[a-]", "[\\d_]+",
+			"\\d+", "\\D", "\\s", "\\S+", "\\w+", "\\W", "\\.", "\\t\\n",
+			"\\x41", "\\x{41}", "\\u00e4", "\\0101", "\\cJ", "^ab$",
+			"[a-z0-9._%+-]+@[a-z0-9.-]+\\.[a-z]{2,4}", "(a|ab)(c|bcd)(d*)",
+			"(a*)*", "(a+)+b", "a*?b", "[^\\s]+", "x*" };
+
+	private static final String[] INPUTS = { "", "a", "b", "c", "x", "ab",
+			"abc", "aa", "aaa", "aaab", "abab", "bcbc", "abcd", "-", "_",
+			"7", "42", " ", "\t\n", "\n", "\r", ".", "A", "\u00e4",
+			"\u2028", "\ud83d\ude00", "name@example.com", "a.b@c.org", "xyz",
+			"aab", "abcbcd", "abbcd" };
+
+	@Test
+	public void testMatches_sameAsPattern() {
+		for (final String regex : PATTERNS) {
+			final RegexAutomaton automaton = RegexAutomaton.compile(regex);
+			assertNotNull(regex, automaton);
+			final Pattern pattern = Pattern.compile(regex);
+			for (final String input : INPUTS)
+				assertEquals(regex + " ~ " + input, pattern.matcher(input)
+						.matches(), automaton.matches(input));
+		}
+	}
+
+	@Test
+	public void testMatches_surrogatePair() {
+		assertTrue(RegexAutomaton.compile(".").matches("\ud83d\ude00"));
+		assertFalse(RegexAutomaton.compile("..").matches("\ud83d\ude00"));
+	}
+
+	@Test
+	public void testCompile_unsupported() {
+		for (final String regex : new String[] { "(a)\\1", "a(?=b)",
+				"a(?!b)", "(?<=a)b", "\\bword\\b", "(?i)abc", "a*+",
+				"a++", "\\p{L}", "\\Qa.b\\E", "[a-z&&[^b]]", "[a[b]]",
+				"\\Aa\\z", "a^", "$a", "(?<name>a)", "a{100000}" })
+			assertNull(regex, RegexAutomaton.compile(regex));
+	}
+
+	@Test
+	public void testMatches_pathological() {
+		final StringBuilder input = new StringBuilder();
+		for (int i = 0; i < 100000; i++)
+			input.append('a');
+		input.append('c');
+		final RegexAutomaton automaton = RegexAutomaton.compile("(a+)+b");
+		assertTrue(automaton.isDeterministic());
+		assertFalse(automaton.matches(input));
+		assertFalse(RegexAutomaton.compile("(a|aa)*(a|aa)*b").matches(input));
+	}
+
+	@Test
+	public void testMatches_nondeterministic() {
+		final String regex = "(a|b)*a(a|b){14}";
+		final RegexAutomaton automaton = RegexAutomaton.compile(regex);
+		assertFalse(automaton.isDeterministic());
+		final Pattern pattern = Pattern.compile(regex);
+		for (final String input : new String[] { "", "a", "aaaaaaaaaaaaaaa",
+				"baaaaaaaaaaaaaaa", "abbbbbbbbbbbbbb", "bbbbbbbbbbbbbbbb",
+				"aaaaaaaaaaaaaaac" })
+			assertEquals(input, pattern.matcher(input).matches(), automaton
+					.matches(input));
+	}
+}
@@ -0,0 +1,15 @@
+package org.beardedgeeks.spring.validation.annotations.scanning;
+
+import org.beardedgeeks.spring.validation.annotations.Validatable;
+import org.beardedgeeks.spring.validation.annotations.empty.Required;
+
+/**
+ * A class of a package not listed in the validation index.
+ * 
+ * @author hleinone
+ */
+@Validatable
+public class ScannedObject {
+	@Required
+	public String name;
+}
@@ -3,6 +3,8 @@ package org.beardedgeeks.spring.validation.annotations.value;
 import static org.easymock.EasyMock.aryEq;
 import static org.easymock.EasyMock.eq;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.powermock.api.easymock.PowerMock.createMock;
 import static org.powermock.api.easymock.PowerMock.expectLastCall;
 import static org.powermock.api.easymock.PowerMock.mockStatic;
@@ -50,10 +52,22 @@ public class MaxValueValidatorTest {
 		verify(errorsMock, ExtendedValidationUtils.class);
 	}
 
+	@Test
+	public void testIsValid() {
+		final MaxValueValidator validator = new MaxValueValidator();
+		assertTrue(validator.isValid(new TestObject(3)));
+		assertTrue(validator.isValid(new TestObject(2)));
+		assertFalse(validator.isValid(new TestObject(4)));
+	}
+
 	private static final class TestObject {
 		@SuppressWarnings("unused")
 		@MaxValue("3")
 		private int foo;
+
+		private TestObject(final int foo) {
+			this.foo = foo;
+		}
 	}
 
 }
@@ -3,6 +3,8 @@ package org.beardedgeeks.spring.validation.annotations.value;
 import static org.easymock.EasyMock.aryEq;
 import static org.easymock.EasyMock.eq;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.powermock.api.easymock.PowerMock.createMock;
 import static org.powermock.api.easymock.PowerMock.expectLastCall;
 import static org.powermock.api.easymock.PowerMock.mockStatic;
@@ -50,10 +52,22 @@ public class MinValueValidatorTest {
 		verify(errorsMock, ExtendedValidationUtils.class);
 	}
 
+	@Test
+	public void testIsValid() {
+		final MinValueValidator validator = new MinValueValidator();
+		assertTrue(validator.isValid(new TestObject(3)));
+		assertTrue(validator.isValid(new TestObject(4)));
+		assertFalse(validator.isValid(new TestObject(2)));
+	}
+
 	private static final class TestObject {
 		@SuppressWarnings("unused")
 		@MinValue("3")
 		private int foo;
+
+		private TestObject(final int foo) {
+			this.foo = foo;
+		}
 	}
 
 }
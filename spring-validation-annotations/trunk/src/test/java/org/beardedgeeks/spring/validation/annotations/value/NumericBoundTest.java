@@ -0,0 +1,133 @@
+package org.beardedgeeks.spring.validation.annotations.value;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.beardedgeeks.spring.validation.annotations.FieldAccessor;
+import org.junit.Test;
+
+public class NumericBoundTest {
+	@Test
+	public void testCompare_int() throws Exception {
+		final FieldAccessor accessor = accessor("intValue");
+		final NumericBound bound = create("intValue", "3");
+		final TestObject target = new TestObject();
+		target.intValue = 2;
+		assertEquals(-1, bound.compare(accessor, target));
+		target.intValue = 3;
+		assertEquals(0, bound.compare(accessor, target));
+		target.intValue = 4;
+		assertEquals(1, bound.compare(accessor, target));
+	}
+
+	@Test
+	public void testCompare_byte() throws Exception {
+		final FieldAccessor accessor = accessor("byteValue");
+		final NumericBound bound = create("byteValue", "-3");
+		final TestObject target = new TestObject();
+		target.byteValue = -4;
+		assertEquals(-1, bound.compare(accessor, target));
+		target.byteValue = -2;
+		assertEquals(1, bound.compare(accessor, target));
+	}
+
+	@Test
+	public void testCompare_long() throws Exception {
+		final FieldAccessor accessor = accessor("longValue");
+		final NumericBound bound = create("longValue", "3000000000");
+		final TestObject target = new TestObject();
+		target.longValue = 2999999999L;
+		assertEquals(-1, bound.compare(accessor, target));
+		target.longValue = 3000000000L;
+		assertEquals(0, bound.compare(accessor, target));
+	}
+
+	@Test
+	public void testCompare_float() throws Exception {
+		final FieldAccessor accessor = accessor("floatValue");
+		final NumericBound bound = create("floatValue", "0.5");
+		final TestObject target = new TestObject();
+		target.floatValue = 0.25f;
+		assertEquals(-1, bound.compare(accessor, target));
+		target.floatValue = Float.NaN;
+		assertEquals(1, bound.compare(accessor, target));
+	}
+
+	@Test
+	public void testCompare_double() throws Exception {
+		final FieldAccessor accessor = accessor("doubleValue");
+		final NumericBound bound = create("doubleValue", "0.5");
+		final TestObject target = new TestObject();
+		target.doubleValue = 0.75;
+		assertEquals(1, bound.compare(accessor, target));
+		target.doubleValue = 0.5;
+		assertEquals(0, bound.compare(accessor, target));
+	}
+
+	@Test
+	public void testCompare_integer() throws Exception {
+		final FieldAccessor accessor = accessor("integerValue");
+		final NumericBound bound = create("integerValue", "3");
+		final TestObject target = new TestObject();
+		assertEquals(0, bound.compare(accessor, target));
+		target.integerValue = 4;
+		assertEquals(1, bound.compare(accessor, target));
+	}
+
+	@Test
+	public void testCompare_bigDecimal() throws Exception {
+		final FieldAccessor accessor = accessor("bigDecimalValue");
+		final NumericBound bound = create("bigDecimalValue", "1.50");
+		final TestObject target = new TestObject();
+		target.bigDecimalValue = new BigDecimal("1.5");
+		assertEquals(0, bound.compare(accessor, target));
+		target.bigDecimalValue = new BigDecimal("1.49");
+		assertEquals(-1, bound.compare(accessor, target));
+	}
+
+	@Test
+	public void testCompare_bigInteger() throws Exception {
+		final FieldAccessor accessor = accessor("bigIntegerValue");
+		final NumericBound bound = create("bigIntegerValue",
+				"100000000000000000000");
+		final TestObject target = new TestObject();
+		target.bigIntegerValue = new BigInteger("100000000000000000001");
+		assertEquals(1, bound.compare(accessor, target));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCreate_invalidValue() throws Exception {
+		create("intValue", "3.5");
+	}
+
+	private static FieldAccessor accessor(final String fieldName)
+			throws NoSuchFieldException {
+		return new FieldAccessor(TestObject.class.getDeclaredField(fieldName));
+	}
+
+	private static NumericBound create(final String fieldName,
+			final String value) throws NoSuchFieldException {
+		return NumericBound.create(TestObject.class.getDeclaredField(fieldName),
+				value);
+	}
+
+	private static final class TestObject {
+		private byte byteValue;
+
+		private int intValue;
+
+		private long longValue;
+
+		private float floatValue;
+
+		private double doubleValue;
+
+		private Integer integerValue;
+
+		private BigDecimal bigDecimalValue;
+
+		private BigInteger bigIntegerValue;
+	}
+}
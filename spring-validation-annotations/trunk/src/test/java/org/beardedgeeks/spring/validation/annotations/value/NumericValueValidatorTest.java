@@ -1,16 +1,22 @@
 package org.beardedgeeks.spring.validation.annotations.value;
 
+import static org.easymock.EasyMock.aryEq;
+import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.isNull;
 import static org.easymock.classextension.EasyMock.createMock;
 import static org.easymock.classextension.EasyMock.replay;
 import static org.easymock.classextension.EasyMock.verify;
 import static org.junit.Assert.assertEquals;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.beardedgeeks.spring.validation.annotations.FieldConstraint;
 import org.beardedgeeks.spring.validation.annotations.FieldValidator;
+import org.beardedgeeks.spring.validation.annotations.ValidationPlan;
 import org.junit.Test;
 import org.springframework.validation.Errors;
 
@@ -125,7 +131,7 @@ public class NumericValueValidatorTest {
 		try {
 			numericValueValidatorMock.validate(fieldMock, errorsMock, "error");
 		} catch (IllegalArgumentException e) {
-			assertEquals(InvocationTargetException.class, e.getCause()
+			assertEquals(NumberFormatException.class, e.getCause()
 					.getClass());
 			throw e;
 		}
@@ -163,7 +169,6 @@ public class NumericValueValidatorTest {
 	}
 
 	private static final class CompatiblePrimitive {
-		@SuppressWarnings("unused")
 		@MaxValue("3")
 		private int foo;
 	}
@@ -196,4 +201,123 @@ public class NumericValueValidatorTest {
 		@MaxValue("3")
 		private Integer foo;
 	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testResolveParameter_incompatibleObject() {
+		ValidationPlan.create(IncompatibleObject.class, new MaxValueValidator());
+	}
+
+	@Test
+	public void testResolveParameter() {
+		assertEquals(3, ((NumericBound) ValidationPlan.create(
+				CompatiblePrimitive.class, new MaxValueValidator())
+				.getConstraints().get(0).getParameter()).getValue());
+		assertEquals(new BigDecimal("3.5"), ((NumericBound) ValidationPlan
+				.create(CompatibleBigDecimal.class, new MinValueValidator())
+				.getConstraints().get(0).getParameter()).getValue());
+	}
+
+	private static final class CompatibleBigDecimal {
+		@SuppressWarnings("unused")
+		@MinValue("3.5")
+		private BigDecimal foo;
+	}
+
+	@Test
+	public void testValidate_constraintValid() {
+		final Errors errorsMock = createMock(Errors.class);
+		final MaxValueValidator validator = new MaxValueValidator();
+		final FieldConstraint constraint = validator.getValidationPlan(
+				CompatiblePrimitive.class).getConstraints().get(0);
+		final CompatiblePrimitive target = new CompatiblePrimitive();
+		target.foo = 3;
+		replay(errorsMock);
+		validator.validate(target, constraint, errorsMock, "error");
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testValidate_constraintInvalid() {
+		final Errors errorsMock = createMock(Errors.class);
+		final MaxValueValidator validator = new MaxValueValidator();
+		final FieldConstraint constraint = validator.getValidationPlan(
+				CompatiblePrimitive.class).getConstraints().get(0);
+		final CompatiblePrimitive target = new CompatiblePrimitive();
+		target.foo = 4;
+		errorsMock.rejectValue(eq("foo"), eq("error"),
+				aryEq(new Object[] { 3 }), (String) isNull());
+		replay(errorsMock);
+		validator.validate(target, constraint, errorsMock, "error");
+		verify(errorsMock);
+	}
+
+	@Test
+	public void testValidate_validateNumberOverridden() {
+		final CountingValidator validator = new CountingValidator();
+		final FieldConstraint constraint = validator.getValidationPlan(
+				CompatiblePrimitive.class).getConstraints().get(0);
+		validator.validate(new CompatiblePrimitive(), constraint,
+				createMock(Errors.class), "error");
+		assertEquals(1, validator.count);
+	}
+
+	@Test
+	public void testValidate_notComparing() {
+		final EvenValidator validator = new EvenValidator();
+		final FieldConstraint constraint = validator.getValidationPlan(
+				CompatiblePrimitive.class).getConstraints().get(0);
+		final Errors errorsMock = createMock(Errors.class);
+		errorsMock.reject("odd");
+		replay(errorsMock);
+		validator.validate(new CompatiblePrimitive(), constraint, errorsMock,
+				"error");
+		verify(errorsMock);
+	}
+
+	/**
+	 * Overrides only the validation of the built-in validator.
+	 */
+	private static final class CountingValidator extends MaxValueValidator {
+		private int count;
+
+		@Override
+		protected void validateNumber(final Field field, final Errors errors,
+				final String errorCode, final Comparable<? extends Number> value) {
+			count++;
+		}
+	}
+
+	/**
+	 * Does not know about the comparison.
+	 */
+	private static final class EvenValidator extends NumericValueValidator {
+		@Override
+		protected Class<? extends Annotation> getAnnotationType() {
+			return MaxValue.class;
+		}
+
+		@Override
+		protected String getAnnotationValue(final Field field) {
+			return field.getAnnotation(MaxValue.class).value();
+		}
+
+		@Override
+		protected void validateNumber(final Field field, final Errors errors,
+				final String errorCode, final Comparable<? extends Number> value) {
+			if (((Integer) value).intValue() % 2 != 0)
+				errors.reject("odd");
+		}
+	}
+
+	@Test
+	public void testValidate_constraintNull() {
+		final Errors errorsMock = createMock(Errors.class);
+		final MinValueValidator validator = new MinValueValidator();
+		final FieldConstraint constraint = validator.getValidationPlan(
+				CompatibleBigDecimal.class).getConstraints().get(0);
+		replay(errorsMock);
+		validator.validate(new CompatibleBigDecimal(), constraint,
+				errorsMock, "error");
+		verify(errorsMock);
+	}
 }
@@ -0,0 +1,15 @@
+package org.beardedgeeks.spring.validation.annotations.warming;
+
+import org.beardedgeeks.spring.validation.annotations.Validatable;
+import org.beardedgeeks.spring.validation.annotations.value.MinValue;
+
+/**
+ * A class found by the warm-up scan whose bound cannot be parsed.
+ * 
+ * @author hleinone
+ */
+@Validatable
+public class BrokenObject {
+	@MinValue("one")
+	public int value;
+}
@@ -0,0 +1,13 @@
+package org.beardedgeeks.spring.validation.annotations.warming;
+
+import org.beardedgeeks.spring.validation.annotations.value.MinValue;
+
+/**
+ * A class skipped by the warm-up scan, not being validatable.
+ * 
+ * @author hleinone
+ */
+public class PlainObject {
+	@MinValue("one")
+	public int value;
+}
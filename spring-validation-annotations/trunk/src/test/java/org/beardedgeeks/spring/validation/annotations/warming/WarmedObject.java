@@ -0,0 +1,19 @@
+package org.beardedgeeks.spring.validation.annotations.warming;
+
+import org.beardedgeeks.spring.validation.annotations.Validatable;
+import org.beardedgeeks.spring.validation.annotations.matches.MatchesPattern;
+import org.beardedgeeks.spring.validation.annotations.value.MinValue;
+
+/**
+ * A class found by the warm-up scan.
+ * 
+ * @author hleinone
+ */
+@Validatable
+public class WarmedObject {
+	@MatchesPattern(value = "[a-z]+", engine = MatchesPattern.Engine.AUTOMATON)
+	public String name;
+
+	@MinValue("1")
+	public int count;
+}